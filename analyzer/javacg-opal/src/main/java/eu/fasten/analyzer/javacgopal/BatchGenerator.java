@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgopal;
+
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.opal.MavenCoordinate;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates call graphs for many Maven coordinates with a bounded pool of workers.
+ *
+ * <p>
+ * Each artifact is processed by {@link Main} in a separate JVM, so that its heap can be capped
+ * and a run that exceeds the time limit can be killed without affecting the others. Call graphs
+ * are written under the output directory with the same layout as the files of {@link OPALPlugin}
+ * (<code>mvn/a/artifactId/artifactId_groupId_version.json</code>): each one is first written to
+ * a temporary file, which is moved into place only if generation succeeds. Artifacts whose call
+ * graph already exists are skipped, so an interrupted batch can simply be restarted.
+ *
+ * <p>
+ * The outcome and duration of each artifact are written to {@value #SUMMARY_FILE} in the output
+ * directory as they become available, and totals are logged at the end.
+ */
+public class BatchGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchGenerator.class);
+
+    /** The name of the summary file in the output directory. */
+    public static final String SUMMARY_FILE = "summary.csv";
+    /** The extension of temporary call graph files. */
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    /** The extension of the logs of failed runs. */
+    private static final String LOG_EXTENSION = ".log";
+    /** The exit code of a JVM stopped by {@code -XX:+ExitOnOutOfMemoryError}. */
+    private static final int OUT_OF_MEMORY_EXIT_CODE = 3;
+
+    /** The outcome of the generation of a call graph. */
+    public enum Status {
+        /** The call graph was generated. */
+        SUCCESS,
+        /** The call graph already existed. */
+        SKIPPED,
+        /** The call graph could not be generated. */
+        FAILED,
+        /** The generation took longer than the time limit. */
+        TIMEOUT,
+        /** The generation ran out of memory. */
+        OUT_OF_MEMORY
+    }
+
+    /** The outcome and duration of the generation of a call graph. */
+    public static class Result {
+        public final String coordinate;
+        public final Status status;
+        public final long millis;
+
+        public Result(final String coordinate, final Status status, final long millis) {
+            this.coordinate = coordinate;
+            this.status = status;
+            this.millis = millis;
+        }
+    }
+
+    private final Path outputDirectory;
+    private final int workers;
+    private final long timeoutMillis;
+    private final String maxHeap;
+    private final List<String> arguments;
+
+    /**
+     * Creates a batch generator.
+     *
+     * @param outputDirectory directory the call graphs and the summary are written to
+     * @param workers         number of artifacts processed at the same time
+     * @param timeoutMillis   maximum time spent on an artifact, in milliseconds
+     * @param maxHeap         maximum heap size of the JVM processing an artifact, as passed to
+     *                        {@code -Xmx} (e.g. {@code 4g})
+     * @param arguments       further arguments of {@link Main}, e.g. the algorithm and the
+     *                        repositories
+     */
+    public BatchGenerator(final Path outputDirectory, final int workers, final long timeoutMillis,
+                          final String maxHeap, final List<String> arguments) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("The number of workers must be positive");
+        }
+        this.outputDirectory = outputDirectory;
+        this.workers = workers;
+        this.timeoutMillis = timeoutMillis;
+        this.maxHeap = maxHeap;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Reads Maven coordinates, one <code>groupId:artifactId:version</code> per line. Empty lines
+     * and lines starting with {@code #} are ignored.
+     *
+     * @param file file with coordinates
+     * @return the coordinates in the file
+     * @throws IOException if the file cannot be read
+     */
+    public static List<MavenCoordinate> readCoordinates(final Path file) throws IOException {
+        final var coordinates = new ArrayList<MavenCoordinate>();
+        for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.split(Constants.mvnCoordinateSeparator).length < 3) {
+                throw new IllegalArgumentException("Invalid Maven coordinate: " + line);
+            }
+            coordinates.add(MavenCoordinate.fromString(line, "jar"));
+        }
+        return coordinates;
+    }
+
+    /**
+     * Returns the path of the call graph of a coordinate, relative to the output directory.
+     *
+     * @param coordinate Maven coordinate
+     * @return relative path of the call graph file
+     */
+    public static String outputPath(final MavenCoordinate coordinate) {
+        final var artifactId = coordinate.getArtifactID();
+        return Constants.mvnForge + File.separator + artifactId.charAt(0) + File.separator + artifactId
+                + File.separator + artifactId + "_" + coordinate.getGroupID() + "_"
+                + coordinate.getVersionConstraint() + ".json";
+    }
+
+    /**
+     * Generates the call graphs of the given coordinates.
+     *
+     * @param coordinates Maven coordinates
+     * @return the outcome of each distinct coordinate, in the given order
+     * @throws IOException if the summary cannot be written
+     */
+    public List<Result> run(final List<MavenCoordinate> coordinates) throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory);
+        final long startTime = System.currentTimeMillis();
+        final var executor = Executors.newFixedThreadPool(workers);
+        final var results = new ArrayList<Result>();
+        try (var summary = new PrintWriter(Files.newBufferedWriter(outputDirectory.resolve(SUMMARY_FILE),
+                StandardCharsets.UTF_8))) {
+            summary.println("coordinate,status,millis");
+            summary.flush();
+            final var futures = new ArrayList<Future<Result>>();
+            // Workers must not write the same output
+            for (final var coordinate : new LinkedHashSet<>(coordinates)) {
+                futures.add(executor.submit(() -> {
+                    final var result = generate(coordinate);
+                    synchronized (summary) {
+                        summary.println(result.coordinate + "," + result.status + "," + result.millis);
+                        summary.flush();
+                    }
+                    return result;
+                }));
+            }
+            for (final var future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logSummary(results, System.currentTimeMillis() - startTime);
+        return results;
+    }
+
+    /**
+     * Generates the call graph of a coordinate in a separate JVM, unless it already exists.
+     *
+     * @param coordinate Maven coordinate
+     * @return the outcome of the generation
+     */
+    private Result generate(final MavenCoordinate coordinate) throws IOException, InterruptedException {
+        final var output = outputDirectory.resolve(outputPath(coordinate));
+        if (Files.exists(output)) {
+            return new Result(coordinate.getCoordinate(), Status.SKIPPED, 0);
+        }
+        Files.createDirectories(output.getParent());
+        final var temporaryOutput = Path.of(output + TEMPORARY_EXTENSION);
+        final var log = Path.of(output + LOG_EXTENSION);
+
+        final long startTime = System.currentTimeMillis();
+        final var process = new ProcessBuilder(command(coordinate, temporaryOutput))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        Status status;
+        try {
+            if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                status = Status.TIMEOUT;
+            } else if (process.exitValue() == OUT_OF_MEMORY_EXIT_CODE) {
+                status = Status.OUT_OF_MEMORY;
+            } else if (process.exitValue() != 0 || !Files.exists(temporaryOutput)) {
+                status = Status.FAILED;
+            } else {
+                Files.move(temporaryOutput, output, StandardCopyOption.ATOMIC_MOVE);
+                status = Status.SUCCESS;
+            }
+        } finally {
+            process.destroyForcibly();
+            Files.deleteIfExists(temporaryOutput);
+        }
+        final long millis = System.currentTimeMillis() - startTime;
+        if (status == Status.SUCCESS) {
+            Files.deleteIfExists(log);
+            logger.info("[CG-GENERATION] [SUCCESS] [" + millis + "] [" + coordinate.getCoordinate() + "]");
+        } else {
+            logger.error("[CG-GENERATION] [" + status + "] [" + millis + "] [" + coordinate.getCoordinate() + "] See " + log);
+        }
+        return new Result(coordinate.getCoordinate(), status, millis);
+    }
+
+    /**
+     * Returns the command that generates the call graph of a coordinate with {@link Main}, using
+     * the Java runtime and class path of this JVM.
+     */
+    private List<String> command(final MavenCoordinate coordinate, final Path output) {
+        final var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + maxHeap);
+        command.add("-XX:+ExitOnOutOfMemoryError");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        command.addAll(List.of("-a", coordinate.getCoordinate(), "-i", "COORD", "-g", "-o", output.toString()));
+        command.addAll(arguments);
+        return command;
+    }
+
+    private static void logSummary(final List<Result> results, final long millis) {
+        final var counts = new int[Status.values().length];
+        long generationMillis = 0;
+        for (final var result : results) {
+            counts[result.status.ordinal()]++;
+            generationMillis += result.millis;
+        }
+        final var summary = new StringBuilder();
+        for (final var status : Status.values()) {
+            summary.append(status).append(": ").append(counts[status.ordinal()]).append(", ");
+        }
+        final var format = new DecimalFormat("#0.000");
+        logger.info("Processed {} artifacts in {} seconds ({} seconds of generation): {}", results.size(),
+                format.format(millis / 1000d), format.format(generationMillis / 1000d),
+                summary.substring(0, summary.length() - 2));
+    }
+}
@@ -18,7 +18,7 @@
 
 package eu.fasten.analyzer.javacgopal;
 
-import eu.fasten.analyzer.javacgopal.data.CallGraphConstructor;
+import eu.fasten.core.data.opal.CallGraphCache;
 import eu.fasten.core.data.opal.MavenCoordinate;
 import eu.fasten.analyzer.javacgopal.data.PartialCallGraph;
 import eu.fasten.core.data.opal.exceptions.MissingArtifactException;
@@ -39,15 +39,18 @@ import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Makes javacg-opal module runnable from command line.
  */
 @CommandLine.Command(name = "JavaCGOpal", mixinStandardHelpOptions = true)
-public class Main implements Runnable {
+public class Main implements Runnable, CommandLine.IExitCodeGenerator {
 
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
+    private int exitCode = 0;
+
     @CommandLine.ArgGroup(multiplicity = "1")
     Commands commands;
 
@@ -66,6 +69,40 @@ public class Main implements Runnable {
     static class Commands {
         @CommandLine.ArgGroup(exclusive = false, multiplicity = "1")
         Computations computations;
+
+        @CommandLine.ArgGroup(exclusive = false, multiplicity = "1")
+        Batch batch;
+    }
+
+    static class Batch {
+        @CommandLine.Option(names = {"-b", "--batch"},
+                paramLabel = "COORDS",
+                description = "File with a Maven coordinate per line, whose call graphs are generated into the output directory",
+                required = true)
+        String coordinates;
+
+        @CommandLine.Option(names = {"-w", "--workers"},
+                paramLabel = "WORKERS",
+                description = "Number of artifacts processed in parallel")
+        int workers = Runtime.getRuntime().availableProcessors();
+
+        @CommandLine.Option(names = {"--timeout"},
+                paramLabel = "SECONDS",
+                description = "Maximum time spent on an artifact",
+                defaultValue = "3600")
+        long timeout;
+
+        @CommandLine.Option(names = {"--max-heap"},
+                paramLabel = "HEAP",
+                description = "Maximum heap of the JVM processing an artifact, e.g. 4g",
+                defaultValue = "4g")
+        String maxHeap;
+
+        @CommandLine.Option(names = {"--algorithm"},
+                paramLabel = "GenALG",
+                description = "gen{RTA,CHA,AllocationSiteBasedPointsTo,TypeBasedPointsTo}",
+                defaultValue = "CHA")
+        String genAlgorithm;
     }
 
     static class Computations {
@@ -135,13 +172,21 @@ public class Main implements Runnable {
      * parameters.
      */
     public static void main(String[] args) {
-        new CommandLine(new Main()).execute(args);
+        System.exit(new CommandLine(new Main()).execute(args));
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
     }
 
     /**
      * Run the generator, merge algorithm or evaluator depending on parameters provided.
      */
     public void run() {
+        if (this.commands.batch != null) {
+            runBatch();
+        }
         if (this.commands.computations != null && this.commands.computations.tools != null) {
             if (this.commands.computations.tools.opal != null
                     && this.commands.computations.tools.opal.doGenerate) {
@@ -167,6 +212,7 @@ public class Main implements Runnable {
                         !this.output.isEmpty());
             } catch (IOException | OPALException | MissingArtifactException e) {
                 logger.error("Call graph couldn't be generated for Maven coordinate: {}", artifact.getCoordinate(), e);
+                exitCode = 1;
             }
 
         } else if (commands.computations.mode.equals("FILE")) {
@@ -175,10 +221,38 @@ public class Main implements Runnable {
                         commands.computations.genAlgorithm, !this.output.isEmpty());
             } catch (IOException | OPALException | MissingArtifactException e) {
                 logger.error("Call graph couldn't be generated for file: {}", getArtifactFile().getName(), e);
+                exitCode = 1;
             }
         }
     }
 
+    /**
+     * Run call graph generator for all coordinates of a file.
+     */
+    private void runBatch() {
+        if (this.output.isEmpty()) {
+            logger.error("The batch mode needs an output directory");
+            exitCode = 1;
+            return;
+        }
+        final var arguments = new ArrayList<>(List.of("-ga", commands.batch.genAlgorithm));
+        if (this.repos != null && !this.repos.isEmpty()) {
+            arguments.add("-r");
+            arguments.add(String.join(",", this.repos));
+        }
+        try {
+            new BatchGenerator(Paths.get(this.output), commands.batch.workers,
+                    TimeUnit.SECONDS.toMillis(commands.batch.timeout), commands.batch.maxHeap, arguments)
+                    .run(BatchGenerator.readCoordinates(Paths.get(commands.batch.coordinates)));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Call graphs couldn't be generated for the coordinates in {}", commands.batch.coordinates, e);
+            exitCode = 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitCode = 1;
+        }
+    }
+
     /**
      * Run merge algorithm.
      */
@@ -188,6 +262,7 @@ public class Main implements Runnable {
                 merge(getArtifactCoordinate(), getDependenciesCoordinates());
             } catch (IOException | OPALException | MissingArtifactException e) {
                 logger.error("Call graph couldn't be merge for coord: {}", getArtifactCoordinate().getCoordinate(), e);
+                exitCode = 1;
             }
 
         } else if (commands.computations.mode.equals("FILE")) {
@@ -195,6 +270,7 @@ public class Main implements Runnable {
                 merge(getArtifactFile(), getDependenciesFiles());
             } catch (IOException | OPALException | MissingArtifactException e) {
                 logger.error("Call graph couldn't be generated for file: {}", getArtifactFile().getName(), e);
+                exitCode = 1;
             }
         }
     }
@@ -229,6 +305,7 @@ public class Main implements Runnable {
                     result.edgeSet().size(),
                     new DecimalFormat("#0.000")
                             .format((System.currentTimeMillis() - startTime) / 1000d));
+            CallGraphCache.getDefault().ifPresent(cache -> logger.info("[CALL-GRAPH-CACHE] " + cache));
             if (!this.output.isEmpty()) {
                 try {
                     CallGraphUtils.writeToFile(Paths.get(Paths.get(this.output).getParent().toString(),
@@ -266,8 +343,7 @@ public class Main implements Runnable {
 
         if (artifact instanceof File) {
             logger.info("Generating graph for {}", ((File) artifact).getAbsolutePath());
-            final var cg = new PartialCallGraph(
-                    new CallGraphConstructor((File) artifact, mainClass, algorithm));
+            final var cg = PartialCallGraph.generate((File) artifact, mainClass, algorithm, true);
             revisionCallGraph =
                     ExtendedRevisionJavaCallGraph.extendedBuilder().graph(cg.getGraph())
                             .product(cleanUpFileName((File) artifact))
@@ -287,7 +363,7 @@ public class Main implements Runnable {
                 .format((System.currentTimeMillis() - startTime) / 1000d));
 
         if (writeToFile) {
-            CallGraphUtils.writeToFile(this.output, JSONUtils.toJSONString(revisionCallGraph), "");
+            CallGraphUtils.writeToFile(this.output, revisionCallGraph, "");
 
         }
         return revisionCallGraph;
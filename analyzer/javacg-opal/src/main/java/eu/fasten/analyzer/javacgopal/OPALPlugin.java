@@ -18,6 +18,8 @@
 
 package eu.fasten.analyzer.javacgopal;
 
+import eu.fasten.core.data.opal.ArtifactCache;
+import eu.fasten.core.data.opal.CallGraphCache;
 import eu.fasten.core.data.opal.MavenCoordinate;
 import eu.fasten.analyzer.javacgopal.data.PartialCallGraph;
 import eu.fasten.core.data.opal.exceptions.EmptyCallGraphException;
@@ -25,9 +27,12 @@ import eu.fasten.core.data.opal.exceptions.MissingArtifactException;
 import eu.fasten.core.data.opal.exceptions.OPALException;
 import eu.fasten.core.data.Constants;
 import eu.fasten.core.data.ExtendedRevisionJavaCallGraph;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraphBinaryWriter;
 import eu.fasten.core.data.JSONUtils;
 import eu.fasten.core.plugins.KafkaPlugin;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -54,6 +59,17 @@ public class OPALPlugin extends Plugin {
         private Exception pluginError;
         private ExtendedRevisionJavaCallGraph graph;
         private String outputPath;
+        private boolean binaryOutput = Boolean.parseBoolean(System.getenv(Constants.binaryCallGraphsEnvVariable));
+
+        /**
+         * Sets whether call graphs are written to files in the binary format of
+         * {@link ExtendedRevisionJavaCallGraphBinaryWriter} rather than in JSON.
+         *
+         * @param binaryOutput true to write binary call graphs
+         */
+        public void setBinaryOutput(boolean binaryOutput) {
+            this.binaryOutput = binaryOutput;
+        }
 
         @Override
         public Optional<List<String>> consumeTopic() {
@@ -95,9 +111,11 @@ public class OPALPlugin extends Plugin {
 
                 outputPath = File.separator + Constants.mvnForge + File.separator
                         + firstLetter + File.separator
-                        + artifactId + File.separator + product + ".json";
+                        + artifactId + File.separator + product + (binaryOutput ? ".ercg" : ".json");
 
                 logger.info("[CG-GENERATION] [SUCCESS] [" + duration + "] [" + mavenCoordinate.getCoordinate() + "] [NONE] ");
+                ArtifactCache.getDefault().ifPresent(cache -> logger.info("[ARTIFACT-CACHE] " + cache));
+                CallGraphCache.getDefault().ifPresent(cache -> logger.info("[CALL-GRAPH-CACHE] " + cache));
 
             } catch (OPALException | EmptyCallGraphException e) {
                 long endTime = System.nanoTime();
@@ -123,6 +141,24 @@ public class OPALPlugin extends Plugin {
             }
         }
 
+        @Override
+        public boolean writeOutput(OutputStream out) throws IOException {
+            if (this.graph == null || this.graph.isCallGraphEmpty()) {
+                return false;
+            }
+            if (binaryOutput) {
+                ExtendedRevisionJavaCallGraphBinaryWriter.write(graph, out);
+            } else {
+                JSONUtils.writeJSON(graph, out);
+            }
+            return true;
+        }
+
+        @Override
+        public String getOutputContentType() {
+            return binaryOutput ? Constants.binaryCallGraphContentType : Constants.jsonContentType;
+        }
+
         @Override
         public String getOutputPath() {
             return outputPath;
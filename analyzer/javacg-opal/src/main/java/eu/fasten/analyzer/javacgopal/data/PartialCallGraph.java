@@ -19,6 +19,7 @@
 package eu.fasten.analyzer.javacgopal.data;
 
 import com.google.common.collect.Lists;
+import eu.fasten.core.data.opal.CallGraphCache;
 import eu.fasten.core.data.opal.MavenCoordinate;
 import eu.fasten.analyzer.javacgopal.data.analysis.OPALClassHierarchy;
 import eu.fasten.analyzer.javacgopal.data.analysis.OPALMethod;
@@ -31,6 +32,7 @@ import org.apache.commons.text.StringEscapeUtils;
 import org.opalj.br.*;
 import org.opalj.br.analyses.Project;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.EnumMap;
@@ -128,9 +130,7 @@ public class PartialCallGraph {
         File file = null;
         try {
             file = new MavenCoordinate.MavenResolver().downloadArtifact(coordinate, artifactRepo);
-            final var opalCG = new CallGraphConstructor(file, mainClass, algorithm);
-
-            final var partialCallGraph = new PartialCallGraph(opalCG, callSiteOnly);
+            final var partialCallGraph = generate(file, mainClass, algorithm, callSiteOnly);
 
             return new ExtendedRevisionJavaCallGraph(Constants.mvnForge, coordinate.getProduct(),
                     coordinate.getVersionConstraint(), timestamp,
@@ -144,6 +144,37 @@ public class PartialCallGraph {
         }
     }
 
+    /**
+     * Generates the class hierarchy and call graph of a file using OPAL or, if the same file was
+     * already analyzed in the same way, takes them from the default {@link CallGraphCache}.
+     *
+     * @param file         file of the package to analyze
+     * @param mainClass    main class of the package in case of application
+     * @param algorithm    algorithm for generating call graph
+     * @param callSiteOnly whether only call sites are kept as call metadata
+     * @return a call graph in which only the class hierarchy, the graph and the number of nodes are set
+     */
+    public static ExtendedRevisionJavaCallGraph generate(final File file, final String mainClass,
+                                                         final String algorithm, final boolean callSiteOnly)
+            throws OPALException {
+        final CallGraphCache.Analysis<OPALException> analysis = () -> {
+            final var partialCallGraph = new PartialCallGraph(
+                    new CallGraphConstructor(file, mainClass, algorithm), callSiteOnly);
+            return new ExtendedRevisionJavaCallGraph("", "", "", -1, partialCallGraph.getNodeCount(), "",
+                    partialCallGraph.getClassHierarchy(), partialCallGraph.getGraph());
+        };
+        final var cache = CallGraphCache.getDefault();
+        if (cache.isEmpty()) {
+            return analysis.run();
+        }
+        try {
+            return cache.get().get(file.toPath(), algorithm + ":" + mainClass + ":" + callSiteOnly, analysis);
+        } catch (IOException e) {
+            logger.warn("Could not use the call graph cache for " + file, e);
+            return analysis.run();
+        }
+    }
+
     /**
      * Creates a class hierarchy for the given call graph's artifact with entries
      * only in internalCHA. ExternalCHA to be added at a later stage.
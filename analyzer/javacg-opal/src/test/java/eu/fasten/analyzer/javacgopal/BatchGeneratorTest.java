@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgopal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import eu.fasten.core.data.opal.MavenCoordinate;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchGeneratorTest {
+
+    @Test
+    void testReadCoordinates(@TempDir Path dir) throws Exception {
+        var file = dir.resolve("coords.txt");
+        Files.writeString(file, "junit:junit:4.12\n\n# comment\n  org.slf4j:slf4j-api:1.7.30  \n");
+        var coordinates = BatchGenerator.readCoordinates(file);
+        assertEquals(List.of(new MavenCoordinate("junit", "junit", "4.12", "jar"),
+                new MavenCoordinate("org.slf4j", "slf4j-api", "1.7.30", "jar")), coordinates);
+
+        Files.writeString(file, "junit:junit\n");
+        assertThrows(IllegalArgumentException.class, () -> BatchGenerator.readCoordinates(file));
+    }
+
+    @Test
+    void testOutputPath() {
+        var coordinate = new MavenCoordinate("org.slf4j", "slf4j-api", "1.7.30", "jar");
+        assertEquals(String.join(File.separator, "mvn", "s", "slf4j-api", "slf4j-api_org.slf4j_1.7.30.json"),
+                BatchGenerator.outputPath(coordinate));
+    }
+
+    @Test
+    void testSkipsCompleteOutputs(@TempDir Path dir) throws Exception {
+        var coordinates = List.of(new MavenCoordinate("junit", "junit", "4.12", "jar"),
+                new MavenCoordinate("org.slf4j", "slf4j-api", "1.7.30", "jar"),
+                new MavenCoordinate("junit", "junit", "4.12", "jar"));
+        for (var coordinate : coordinates) {
+            var output = dir.resolve(BatchGenerator.outputPath(coordinate));
+            Files.createDirectories(output.getParent());
+            Files.writeString(output, "{}");
+        }
+
+        var results = new BatchGenerator(dir, 2, 1000, "1g", List.of()).run(coordinates);
+        assertEquals(2, results.size());
+        assertEquals("junit:junit:4.12", results.get(0).coordinate);
+        for (var result : results) {
+            assertEquals(BatchGenerator.Status.SKIPPED, result.status);
+        }
+        assertEquals(List.of("coordinate,status,millis", "junit:junit:4.12,SKIPPED,0", "org.slf4j:slf4j-api:1.7.30,SKIPPED,0"),
+                Files.readAllLines(dir.resolve(BatchGenerator.SUMMARY_FILE)).stream().sorted().collect(Collectors.toList()));
+    }
+}
@@ -22,6 +22,8 @@ import eu.fasten.core.data.Constants;
 import eu.fasten.core.data.ExtendedRevisionCCallGraph;
 import eu.fasten.core.data.ExtendedRevisionCallGraph;
 import eu.fasten.core.data.ExtendedRevisionJavaCallGraph;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraphBinaryReader;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraphReader;
 import eu.fasten.core.data.ExtendedRevisionPythonCallGraph;
 import eu.fasten.core.data.Graph;
 import eu.fasten.core.data.graphdb.ExtendedGidGraph;
@@ -71,6 +73,10 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
     protected GidGraph gidGraph = null;
     protected String outputPath;
     private String artifactRepository = null;
+    // Whether callables and call sites are ingested through COPY instead of multi-row inserts
+    protected boolean bulkIngestion = Boolean.parseBoolean(System.getenv(Constants.bulkIngestionEnvVariable));
+    // Whether call graphs stored in files are streamed to the database instead of being loaded in memory
+    protected boolean streamingIngestion = Boolean.parseBoolean(System.getenv(Constants.streamingIngestionEnvVariable));
 
     @Override
     public void setDBConnection(Map<String, DSLContext> dslContexts) {
@@ -81,6 +87,28 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
         return MetadataDBExtension.dslContext;
     }
 
+    /**
+     * Enables or disables bulk ingestion, which streams callables and call sites through COPY.
+     * Defaults to the value of the FASTEN_BULK_INGESTION environment variable.
+     *
+     * @param bulkIngestion true to enable bulk ingestion
+     */
+    public void setBulkIngestion(boolean bulkIngestion) {
+        this.bulkIngestion = bulkIngestion;
+    }
+
+    /**
+     * Enables or disables streaming ingestion, which reads call graphs stored in files incrementally
+     * and saves them to the database in batches, for the forges supported by extensions implementing
+     * {@link StreamingMetadataDBExtension}.
+     * Defaults to the value of the FASTEN_STREAMING_INGESTION environment variable.
+     *
+     * @param streamingIngestion true to enable streaming ingestion
+     */
+    public void setStreamingIngestion(boolean streamingIngestion) {
+        this.streamingIngestion = streamingIngestion;
+    }
+
     @Override
     public Optional<List<String>> consumeTopic() {
         return Optional.of(Collections.singletonList(consumerTopic));
@@ -101,13 +129,32 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
             consumedJson = consumedJson.getJSONObject("payload");
         }
         final var path = consumedJson.optString("dir");
+        final var contentType = consumedJson.optString(Constants.contentTypeKey, Constants.jsonContentType);
         final ExtendedRevisionCallGraph callgraph;
+        ExtendedRevisionJavaCallGraphReader reader = null;
+        ExtendedRevisionJavaCallGraph binaryCallGraph = null;
         if (!path.isEmpty()) {
             // Parse ERCG from file
             try {
-                JSONTokener tokener = new JSONTokener(new FileReader(path));
-                consumedJson = new JSONObject(tokener);
-            } catch (JSONException | IOException e) {
+                if (streamingIngestion && this instanceof StreamingMetadataDBExtension) {
+                    // Only read the header: the rest of the graph is streamed to the database
+                    reader = ExtendedRevisionJavaCallGraphReader.fromFile(Paths.get(path), contentType);
+                    consumedJson = reader.readHeader();
+                    if (!((StreamingMetadataDBExtension) this).supportsStreaming(consumedJson.optString("forge"))) {
+                        reader = null;
+                    }
+                }
+                if (reader == null) {
+                    if (contentType.equals(Constants.binaryCallGraphContentType)) {
+                        final var binaryReader = ExtendedRevisionJavaCallGraphBinaryReader.fromFile(Paths.get(path));
+                        consumedJson = binaryReader.readHeader();
+                        binaryCallGraph = binaryReader.read();
+                    } else {
+                        JSONTokener tokener = new JSONTokener(new FileReader(path));
+                        consumedJson = new JSONObject(tokener);
+                    }
+                }
+            } catch (JSONException | IOException | IllegalArgumentException e) {
                 logger.error("Error parsing JSON callgraph from path for '"
                         + Paths.get(path).getFileName() + "'", e);
                 processedRecord = false;
@@ -120,7 +167,13 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
                 throw new JSONException("forge");
             }
             final String forge = consumedJson.get("forge").toString();
-            callgraph = getExtendedRevisionCallGraph(forge, consumedJson);
+            if (binaryCallGraph != null) {
+                callgraph = binaryCallGraph;
+            } else {
+                callgraph = reader != null
+                        ? ExtendedRevisionJavaCallGraphReader.toCallGraphHeader(consumedJson)
+                        : getExtendedRevisionCallGraph(forge, consumedJson);
+            }
         } catch (JSONException e) {
             logger.error("Error parsing JSON callgraph for '"
                     + Paths.get(path).getFileName() + "'", e);
@@ -132,6 +185,7 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
         this.artifactRepository = consumedJson.optString("artifactRepository",
                 (callgraph instanceof ExtendedRevisionJavaCallGraph) ? MavenUtilities.MAVEN_CENTRAL_REPO : null);
         var revision = callgraph.product + Constants.mvnCoordinateSeparator + callgraph.version;
+        final var streamingReader = reader;
 
         int transactionRestartCount = 0;
         do {
@@ -143,7 +197,9 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
                     metadataDao.setContext(DSL.using(transaction));
                     long id;
                     try {
-                        id = saveToDatabase(callgraph, metadataDao);
+                        id = streamingReader != null
+                                ? ((StreamingMetadataDBExtension) this).saveToDatabase(callgraph, streamingReader, metadataDao)
+                                : saveToDatabase(callgraph, metadataDao);
                     } catch (RuntimeException e) {
                         processedRecord = false;
                         logger.error("Error saving to the database: '" + revision + "'", e);
@@ -230,21 +286,7 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
      * @return Package ID saved in the database
      */
     protected long saveToDatabase(ExtendedRevisionCallGraph callGraph, MetadataDao metadataDao) {
-        // Insert package record
-        final long packageId = metadataDao.insertPackage(callGraph.product, callGraph.forge);
-
-        Long artifactRepoId = null;
-        if (artifactRepository != null) {
-            if (artifactRepository.equals(MavenUtilities.MAVEN_CENTRAL_REPO)) {
-                artifactRepoId = -1L;
-            } else {
-                artifactRepoId = metadataDao.insertArtifactRepository(artifactRepository);
-            }
-        }
-        // Insert package version record
-        final long packageVersionId = metadataDao.insertPackageVersion(packageId,
-                callGraph.getCgGenerator(), callGraph.version, artifactRepoId, null,
-                getProperTimestamp(callGraph.timestamp), new JSONObject());
+        final long packageVersionId = insertPackageVersion(callGraph, metadataDao);
 
         var namespaceMap = getNamespaceMap(callGraph, metadataDao);
         var allCallables = insertDataExtractCallables(callGraph, metadataDao,
@@ -254,7 +296,7 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
 
         var callablesIds = new LongArrayList(callables.size());
         // Save all callables in the database
-        callablesIds.addAll(metadataDao.insertCallablesSeparately(callables, numInternal));
+        callablesIds.addAll(insertCallables(callables, numInternal, metadataDao));
 
         // Build a map from callable Local ID to Global ID
         var lidToGidMap = new Long2LongOpenHashMap();
@@ -276,20 +318,63 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
         }
         var internalNodesSet = new LongLinkedOpenHashSet(internalIds);
         var externalNodesSet = new LongLinkedOpenHashSet(externalIds);
-        numInternal = internalNodesSet.size();
-        callablesIds = new LongArrayList(internalNodesSet.size() + externalNodesSet.size());
-        callablesIds.addAll(internalNodesSet);
-        callablesIds.addAll(externalNodesSet);
 
         var gid2uriMap = new HashMap<Long, String>(callablesIds.size());
         callables.forEach(c -> gid2uriMap.put(lidToGidMap.get(c.getId().longValue()), c.getFastenUri()));
 
-        // Create a GID Graph for production
+        createGidGraph(callGraph, packageVersionId, internalNodesSet, externalNodesSet, edges,
+                gid2uriMap, namespaceMap);
+        return packageVersionId;
+    }
+
+    /**
+     * Inserts the package and the package version of a callgraph in the database.
+     *
+     * @param callGraph   Call graph to save to the database.
+     * @param metadataDao Data Access Object to insert records in the database
+     * @return Package version ID saved in the database
+     */
+    protected long insertPackageVersion(ExtendedRevisionCallGraph callGraph, MetadataDao metadataDao) {
+        // Insert package record
+        final long packageId = metadataDao.insertPackage(callGraph.product, callGraph.forge);
+
+        Long artifactRepoId = null;
+        if (artifactRepository != null) {
+            if (artifactRepository.equals(MavenUtilities.MAVEN_CENTRAL_REPO)) {
+                artifactRepoId = -1L;
+            } else {
+                artifactRepoId = metadataDao.insertArtifactRepository(artifactRepository);
+            }
+        }
+        // Insert package version record
+        return metadataDao.insertPackageVersion(packageId,
+                callGraph.getCgGenerator(), callGraph.version, artifactRepoId, null,
+                getProperTimestamp(callGraph.timestamp), new JSONObject());
+    }
+
+    /**
+     * Creates the GID Graph for production.
+     *
+     * @param callGraph        Call graph saved to the database
+     * @param packageVersionId Package version ID of the call graph
+     * @param internalNodesSet Global IDs of internal callables, without duplicates
+     * @param externalNodesSet Global IDs of external callables, without duplicates
+     * @param edges            Call sites saved to the database
+     * @param gid2uriMap       Map from Global IDs of callables to their FASTEN URIs
+     * @param namespaceMap     Map from namespaces to their IDs
+     */
+    protected void createGidGraph(ExtendedRevisionCallGraph callGraph, long packageVersionId,
+                                  LongLinkedOpenHashSet internalNodesSet, LongLinkedOpenHashSet externalNodesSet,
+                                  List<CallSitesRecord> edges, Map<Long, String> gid2uriMap,
+                                  Map<String, Long> namespaceMap) {
+        var callablesIds = new LongArrayList(internalNodesSet.size() + externalNodesSet.size());
+        callablesIds.addAll(internalNodesSet);
+        callablesIds.addAll(externalNodesSet);
+
         var typesMap = new HashMap<Long, String>(namespaceMap.size());
         namespaceMap.forEach((k, v) -> typesMap.put(v, k));
         this.gidGraph = new ExtendedGidGraph(packageVersionId, callGraph.product, callGraph.version,
-                callablesIds, numInternal, edges, gid2uriMap, typesMap);
-        return packageVersionId;
+                callablesIds, internalNodesSet.size(), edges, gid2uriMap, typesMap);
     }
 
     protected Map<String, Long> getNamespaceMap(ExtendedRevisionCallGraph graph, MetadataDao metadataDao) {
@@ -309,6 +394,44 @@ public class MetadataDBExtension implements KafkaPlugin, DBConnector {
         return new ArrayList<>();
     }
 
+    /**
+     * Saves callables to the database, in batches or, if bulk ingestion is enabled, all at once.
+     *
+     * @param callables   Callables to save. NB! First all internal callables and then all external.
+     * @param numInternal Number of internal callables in the callables list
+     * @param metadataDao Data Access Object to insert records in the database
+     * @return List of IDs of saved callables, in the same order as callables
+     */
+    protected List<Long> insertCallables(List<CallablesRecord> callables, int numInternal,
+                                         MetadataDao metadataDao) {
+        if (bulkIngestion) {
+            return metadataDao.bulkInsertCallables(callables, numInternal);
+        }
+        return metadataDao.insertCallablesSeparately(callables, numInternal);
+    }
+
+    /**
+     * Saves call sites to the database, in batches or, if bulk ingestion is enabled, all at once.
+     *
+     * @param callSites   Call sites to save
+     * @param metadataDao Data Access Object to insert records in the database
+     */
+    protected void saveEdges(List<CallSitesRecord> callSites, MetadataDao metadataDao) {
+        if (bulkIngestion) {
+            metadataDao.bulkInsertEdges(callSites);
+            return;
+        }
+        final var callSitesIterator = callSites.iterator();
+        while (callSitesIterator.hasNext()) {
+            var edgesBatch = new ArrayList<CallSitesRecord>(Constants.insertionBatchSize);
+            while (callSitesIterator.hasNext()
+                    && edgesBatch.size() < Constants.insertionBatchSize) {
+                edgesBatch.add(callSitesIterator.next());
+            }
+            metadataDao.batchInsertEdges(edgesBatch);
+        }
+    }
+
     protected Timestamp getProperTimestamp(long timestamp) {
         if (timestamp == -1) {
             return null;
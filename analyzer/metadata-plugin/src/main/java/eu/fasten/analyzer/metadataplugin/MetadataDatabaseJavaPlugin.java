@@ -26,6 +26,7 @@ import eu.fasten.core.data.metadatadb.codegen.enums.CallType;
 import eu.fasten.core.data.metadatadb.codegen.tables.records.CallSitesRecord;
 import eu.fasten.core.data.metadatadb.codegen.tables.records.CallablesRecord;
 import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.jooq.DSLContext;
@@ -37,6 +38,8 @@ import org.pf4j.Plugin;
 import org.pf4j.PluginWrapper;
 import java.util.*;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class MetadataDatabaseJavaPlugin extends Plugin {
     public MetadataDatabaseJavaPlugin(PluginWrapper wrapper) {
@@ -44,7 +47,9 @@ public class MetadataDatabaseJavaPlugin extends Plugin {
     }
 
     @Extension
-    public static class MetadataDBJavaExtension extends MetadataDBExtension {
+    public static class MetadataDBJavaExtension extends MetadataDBExtension implements StreamingMetadataDBExtension {
+        // Number of types read at a time when streaming a call graph
+        private static final int TYPES_BATCH_SIZE = 256;
         private static DSLContext dslContext;
 
         @Override
@@ -73,47 +78,110 @@ public class MetadataDatabaseJavaPlugin extends Plugin {
                     + groupId + File.separator + product + ".json";
         }
 
+        @Override
+        public boolean supportsStreaming(String forge) {
+            return Constants.mvnForge.equals(forge);
+        }
+
+        /**
+         * Saves a call graph stored in a file to the database, reading its types and call sites in
+         * batches. Namespaces are inserted when first encountered.
+         *
+         * <p>The call graph is never materialized: besides the batch being read, only a primitive map
+         * from local to global IDs is kept for it. The output GID graph (global IDs of the nodes, call
+         * sites and FASTEN URIs) is instead built in full, as it is produced as a single message: its
+         * size is still proportional to the size of the graph, but it is much smaller than the call
+         * graph it is derived from, which no longer needs to be held at the same time.
+         */
+        @Override
+        public long saveToDatabase(ExtendedRevisionCallGraph callGraph,
+                                   ExtendedRevisionJavaCallGraphReader reader, MetadataDao metadataDao) {
+            final long packageVersionId = insertPackageVersion(callGraph, metadataDao);
+            final var namespaceMap = new HashMap<String, Long>();
+            final var lidToGidMap = new Long2LongOpenHashMap();
+            final var internalNodesSet = new LongLinkedOpenHashSet();
+            final var externalNodesSet = new LongLinkedOpenHashSet();
+            final var gid2uriMap = new HashMap<Long, String>();
+            final var edges = new ArrayList<CallSitesRecord>();
+            try {
+                reader.readTypes(JavaScope.internalTypes, TYPES_BATCH_SIZE, types -> {
+                    insertNamespaces(collectNamespaces(types, new HashSet<>()), namespaceMap, metadataDao);
+                    var callables = insertTypes(types, packageVersionId, namespaceMap, metadataDao);
+                    var ids = insertCallables(callables, callables.size(), metadataDao);
+                    mapCallables(callables, ids, lidToGidMap, internalNodesSet, gid2uriMap);
+                });
+                reader.readTypes(JavaScope.externalTypes, TYPES_BATCH_SIZE, types -> {
+                    insertNamespaces(collectNamespaces(types, new HashSet<>()), namespaceMap, metadataDao);
+                    var callables = new ArrayList<CallablesRecord>();
+                    types.values().forEach(type -> callables.addAll(extractCallablesFromType(type, -1L, false)));
+                    var ids = insertCallables(callables, 0, metadataDao);
+                    mapCallables(callables, ids, lidToGidMap, externalNodesSet, gid2uriMap);
+                });
+                reader.readCallSites(Constants.insertionBatchSize, graph -> {
+                    insertNamespaces(collectReceivers(graph, new HashSet<>()), namespaceMap, metadataDao);
+                    edges.addAll(insertEdges(graph, lidToGidMap, namespaceMap, metadataDao));
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            createGidGraph(callGraph, packageVersionId, internalNodesSet, externalNodesSet, edges,
+                    gid2uriMap, namespaceMap);
+            return packageVersionId;
+        }
+
+        private void insertNamespaces(Set<String> namespaces, Map<String, Long> namespaceMap,
+                                      MetadataDao metadataDao) {
+            namespaces.removeAll(namespaceMap.keySet());
+            if (!namespaces.isEmpty()) {
+                namespaceMap.putAll(metadataDao.insertNamespaces(namespaces));
+            }
+        }
+
+        private void mapCallables(List<CallablesRecord> callables, List<Long> ids,
+                                  Long2LongOpenHashMap lidToGidMap, LongLinkedOpenHashSet nodesSet,
+                                  Map<Long, String> gid2uriMap) {
+            for (int i = 0; i < callables.size(); i++) {
+                var gid = ids.get(i);
+                lidToGidMap.put(callables.get(i).getId().longValue(), gid.longValue());
+                nodesSet.add(gid.longValue());
+                gid2uriMap.put(gid, callables.get(i).getFastenUri());
+            }
+        }
+
         protected Map<String, Long> getNamespaceMap(ExtendedRevisionCallGraph graph, MetadataDao metadataDao) {
             ExtendedRevisionJavaCallGraph javaGraph = (ExtendedRevisionJavaCallGraph) graph;
             var namespaces = new HashSet<String>();
-            namespaces.addAll(javaGraph.getClassHierarchy().get(JavaScope.internalTypes).keySet());
-            namespaces.addAll(javaGraph.getClassHierarchy().get(JavaScope.externalTypes).keySet());
-            javaGraph.getClassHierarchy().get(JavaScope.internalTypes).values().forEach(v -> namespaces.addAll(JavaType.toListOfString(v.getSuperInterfaces())));
-            javaGraph.getClassHierarchy().get(JavaScope.internalTypes).values().forEach(v -> namespaces.addAll(JavaType.toListOfString(v.getSuperClasses())));
-            javaGraph.getClassHierarchy().get(JavaScope.externalTypes).values().forEach(v -> namespaces.addAll(JavaType.toListOfString(v.getSuperInterfaces())));
-            javaGraph.getClassHierarchy().get(JavaScope.externalTypes).values().forEach(v -> namespaces.addAll(JavaType.toListOfString(v.getSuperClasses())));
-            for (var edgeEntry : ((JavaGraph) graph.getGraph()).getCallSites().entrySet()) {
-                for (var obj : edgeEntry.getValue().keySet()) {
-                    var pc = obj.toString();
-                    var metadataMap = (Map<String, Object>) edgeEntry.getValue().get(Integer.parseInt(pc));
-                    var callMetadata = new JSONObject();
-                    for (var key : metadataMap.keySet()) {
-                        callMetadata.put(key, metadataMap.get(key));
-                    }
-                    namespaces.addAll(Arrays.asList(callMetadata.optString("receiver")
-                            .replace("[", "").replace("]", "").split(",")));
+            collectNamespaces(javaGraph.getClassHierarchy().get(JavaScope.internalTypes), namespaces);
+            collectNamespaces(javaGraph.getClassHierarchy().get(JavaScope.externalTypes), namespaces);
+            collectReceivers(javaGraph.getGraph(), namespaces);
+            return metadataDao.insertNamespaces(namespaces);
+        }
 
+        private static Set<String> collectNamespaces(Map<String, JavaType> types, Set<String> namespaces) {
+            namespaces.addAll(types.keySet());
+            for (var type : types.values()) {
+                namespaces.addAll(JavaType.toListOfString(type.getSuperInterfaces()));
+                namespaces.addAll(JavaType.toListOfString(type.getSuperClasses()));
+            }
+            return namespaces;
+        }
+
+        private static Set<String> collectReceivers(JavaGraph graph, Set<String> namespaces) {
+            for (var callSite : graph.getCallSites().values()) {
+                for (var metadata : callSite.values()) {
+                    namespaces.addAll(Arrays.asList(getReceiverTypes((Map<?, ?>) metadata)));
                 }
             }
-            return metadataDao.insertNamespaces(namespaces);
+            return namespaces;
         }
 
         public Pair<ArrayList<CallablesRecord>, Integer> insertDataExtractCallables(
                 ExtendedRevisionCallGraph callgraph, MetadataDao metadataDao, long packageVersionId,
                 Map<String, Long> namespaceMap) {
             ExtendedRevisionJavaCallGraph javaCallGraph = (ExtendedRevisionJavaCallGraph) callgraph;
-            var callables = new ArrayList<CallablesRecord>();
             var cha = javaCallGraph.getClassHierarchy();
-            var internalTypes = cha.get(JavaScope.internalTypes);
-            // Insert all modules, files, module contents and extract callables from internal types
-            for (var fastenUri : internalTypes.keySet()) {
-                var type = internalTypes.get(fastenUri);
-                var moduleId = insertModule(type, FastenURI.create(fastenUri), packageVersionId,
-                        namespaceMap, metadataDao);
-                var fileId = metadataDao.insertFile(packageVersionId, type.getSourceFileName());
-                metadataDao.insertModuleContent(moduleId, fileId);
-                callables.addAll(extractCallablesFromType(type, moduleId, true));
-            }
+            var callables = insertTypes(cha.get(JavaScope.internalTypes), packageVersionId,
+                    namespaceMap, metadataDao);
 
             var numInternal = callables.size();
 
@@ -126,6 +194,21 @@ public class MetadataDatabaseJavaPlugin extends Plugin {
             return new ImmutablePair<>(callables, numInternal);
         }
 
+        private ArrayList<CallablesRecord> insertTypes(Map<String, JavaType> internalTypes, long packageVersionId,
+                                                       Map<String, Long> namespaceMap, MetadataDao metadataDao) {
+            var callables = new ArrayList<CallablesRecord>();
+            // Insert all modules, files, module contents and extract callables from internal types
+            for (var fastenUri : internalTypes.keySet()) {
+                var type = internalTypes.get(fastenUri);
+                var moduleId = insertModule(type, FastenURI.create(fastenUri), packageVersionId,
+                        namespaceMap, metadataDao);
+                var fileId = metadataDao.insertFile(packageVersionId, type.getSourceFileName());
+                metadataDao.insertModuleContent(moduleId, fileId);
+                callables.addAll(extractCallablesFromType(type, moduleId, true));
+            }
+            return callables;
+        }
+
         protected long insertModule(JavaType type, FastenURI fastenUri, long packageVersionId,
                                     Map<String, Long> namespaceMap, MetadataDao metadataDao) {
             var isFinal = type.isFinal();
@@ -215,51 +298,40 @@ public class MetadataDatabaseJavaPlugin extends Plugin {
                 var target = lidToGidMap.get((long) edgeEntry.getKey().secondInt());
 
                 // Create call-site record for each pc
-                var pcIterator = edgeEntry.getValue().keySet().iterator();
-                var pc = pcIterator.next().toString();
+                var metadataIterator = edgeEntry.getValue().values().iterator();
                 // Get edge metadata
-                var metadataMap = (Map<String, Object>) edgeEntry.getValue().get(Integer.parseInt(pc));
-                var callMetadata = new JSONObject();
-                for (var key : metadataMap.keySet()) {
-                    callMetadata.put(key, metadataMap.get(key));
-                }
-                var receiverTypes = callMetadata.optString("receiver")
-                        .replace("[", "").replace("]", "").split(",");
-                var receivers = new ArrayList<Long>(receiverTypes.length);
-                for (var receiverType : receiverTypes) {
+                var callMetadata = (Map<?, ?>) metadataIterator.next();
+                var receivers = new ArrayList<Long>();
+                for (var receiverType : getReceiverTypes(callMetadata)) {
                     receivers.add(typesMap.get(receiverType));
                 }
-                Integer line = callMetadata.optInt("line", -1);
-                CallType type = this.getCallType(callMetadata.optString("type"));
-                while (pcIterator.hasNext()) {
-                    pc = pcIterator.next().toString();
-                    metadataMap = (Map<String, Object>) edgeEntry.getValue().get(Integer.parseInt(pc));
-                    callMetadata = new JSONObject();
-                    for (var key : metadataMap.keySet()) {
-                        callMetadata.put(key, metadataMap.get(key));
-                    }
-                    receiverTypes = callMetadata.optString("receiver")
-                            .replace("[", "").replace("]", "").split(",");
-                    for (var receiverType : receiverTypes) {
+                var lineValue = callMetadata.get("line");
+                Integer line = lineValue instanceof Number ? ((Number) lineValue).intValue() : -1;
+                var typeValue = callMetadata.get("type");
+                CallType type = this.getCallType(typeValue == null ? "" : typeValue.toString());
+                while (metadataIterator.hasNext()) {
+                    for (var receiverType : getReceiverTypes((Map<?, ?>) metadataIterator.next())) {
                         receivers.add(typesMap.get(receiverType));
                     }
                 }
                 callSites.add(new CallSitesRecord(source, target, line, type, receivers.toArray(Long[]::new), null));
             }
 
-            // Batch insert all edges
-            final var callSitesIterator = callSites.iterator();
-            while (callSitesIterator.hasNext()) {
-                var edgesBatch = new ArrayList<CallSitesRecord>(Constants.insertionBatchSize);
-                while (callSitesIterator.hasNext()
-                        && edgesBatch.size() < Constants.insertionBatchSize) {
-                    edgesBatch.add(callSitesIterator.next());
-                }
-                metadataDao.batchInsertEdges(edgesBatch);
-            }
+            // Insert all edges
+            saveEdges(callSites, metadataDao);
             return callSites;
         }
 
+        /**
+         * Extracts the receiver types from the metadata of a call site, where they are stored as a
+         * string of the form "[/p/A,/q/B]".
+         */
+        private static String[] getReceiverTypes(Map<?, ?> callMetadata) {
+            var receiver = callMetadata.get("receiver");
+            return (receiver == null ? "" : receiver.toString())
+                    .replace("[", "").replace("]", "").split(",");
+        }
+
         private CallType getCallType(String type) {
             switch (type) {
                 case "invokestatic":
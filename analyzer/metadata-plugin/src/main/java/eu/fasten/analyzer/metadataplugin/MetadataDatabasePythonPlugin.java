@@ -165,16 +165,8 @@ public class MetadataDatabasePythonPlugin extends Plugin {
                 edges.add(new CallSitesRecord(source, target, null, null, null, null));
             }
 
-            // Batch insert all edges
-            final var edgesIterator = edges.iterator();
-            while (edgesIterator.hasNext()) {
-                var edgesBatch = new ArrayList<CallSitesRecord>(Constants.insertionBatchSize);
-                while (edgesIterator.hasNext()
-                        && edgesBatch.size() < Constants.insertionBatchSize) {
-                    edgesBatch.add(edgesIterator.next());
-                }
-                metadataDao.batchInsertEdges(edgesBatch);
-            }
+            // Insert all edges
+            saveEdges(edges, metadataDao);
             return edges;
         }
     }
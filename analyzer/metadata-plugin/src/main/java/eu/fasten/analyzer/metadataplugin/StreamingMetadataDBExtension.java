@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.metadataplugin;
+
+import eu.fasten.core.data.ExtendedRevisionCallGraph;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraphReader;
+import eu.fasten.core.data.metadatadb.MetadataDao;
+
+/**
+ * A {@link MetadataDBExtension} able to save call graphs stored in files to the database by reading them
+ * incrementally, rather than loading them in memory. Streaming ingestion is used only by extensions implementing
+ * this interface.
+ */
+public interface StreamingMetadataDBExtension {
+
+    /**
+     * Returns whether call graphs of a forge can be saved to the database by streaming them.
+     *
+     * @param forge Forge of the call graph
+     * @return true if {@link #saveToDatabase(ExtendedRevisionCallGraph, ExtendedRevisionJavaCallGraphReader, MetadataDao)}
+     * supports call graphs of the forge
+     */
+    boolean supportsStreaming(String forge);
+
+    /**
+     * Saves a callgraph stored in a file to the database, reading it incrementally.
+     *
+     * @param callGraph   Header of the call graph, without class hierarchy and call sites
+     * @param reader      Reader of the call graph
+     * @param metadataDao Data Access Object to insert records in the database
+     * @return Package ID saved in the database
+     */
+    long saveToDatabase(ExtendedRevisionCallGraph callGraph, ExtendedRevisionJavaCallGraphReader reader,
+                        MetadataDao metadataDao);
+}
@@ -20,8 +20,10 @@ package eu.fasten.analyzer.metadataplugin;
 
 import eu.fasten.core.data.Constants;
 import eu.fasten.core.data.ExtendedRevisionJavaCallGraph;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraphReader;
 import eu.fasten.core.data.metadatadb.MetadataDao;
 import eu.fasten.core.data.metadatadb.codegen.enums.Access;
+import eu.fasten.core.data.metadatadb.codegen.tables.records.CallablesRecord;
 import org.jooq.DSLContext;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -142,6 +144,76 @@ public class MetadataDatabaseJavaPluginTest {
         Mockito.verify(metadataDao).batchInsertEdges(Mockito.anyList());
     }
 
+    @Test
+    public void streamingSaveToDatabaseTest() {
+        var json = "{\"call-sites\": [[\"1\", \"3\", {\"5\": {\"receiver\": \"[/p/B]\", \"line\": 7, \"type\": \"invokevirtual\"}}],"
+                + " [\"2\", \"1\", {\"6\": {\"receiver\": \"[/p/A]\", \"line\": 9, \"type\": \"invokestatic\"},"
+                + " \"8\": {\"receiver\": \"[/q/C,/p/A]\", \"line\": 9, \"type\": \"invokestatic\"}}]],"
+                + " \"product\": \"g:a\", \"nodes\": 3, \"forge\": \"mvn\", \"generator\": \"OPAL\", \"version\": \"1.0\", \"timestamp\": 5,"
+                + " \"cha\": {\"externalTypes\": {\"/q/C\": {\"access\": \"\", \"final\": false, \"sourceFile\": \"\","
+                + " \"superClasses\": [], \"superInterfaces\": [], \"methods\": {\"3\": {\"uri\": \"/q/C.m()V\", \"metadata\": {}}}}},"
+                + " \"internalTypes\": {\"/p/A\": {\"access\": \"public\", \"final\": false, \"sourceFile\": \"A.java\","
+                + " \"superClasses\": [\"/java.lang/Object\"], \"superInterfaces\": [], \"methods\": {\"1\": {\"uri\": \"/p/A.a()V\","
+                + " \"metadata\": {\"first\": 1, \"last\": 2, \"defined\": true, \"access\": \"public\"}}}},"
+                + " \"/p/B\": {\"access\": \"public\", \"final\": true, \"sourceFile\": \"B.java\","
+                + " \"superClasses\": [\"/p/A\", \"/java.lang/Object\"], \"superInterfaces\": [], \"methods\": {\"2\": {\"uri\": \"/p/B.b()V\","
+                + " \"metadata\": {\"defined\": true, \"access\": \"private\"}}}}}, \"resolvedTypes\": {}}}";
+
+        var namespaces = List.of("/p/A", "/p/B", "/q/C", "/java.lang/Object");
+        var uris = List.of("/p/A.a()V", "/p/B.b()V", "/q/C.m()V");
+        var inMemoryDao = mockMetadataDao(namespaces, uris);
+        metadataDBExtension.saveToDatabase(new ExtendedRevisionJavaCallGraph(new JSONObject(json)), inMemoryDao);
+        var expected = new JSONObject(metadataDBExtension.produce().orElseThrow());
+
+        var streamingDao = mockMetadataDao(namespaces, uris);
+        var reader = ExtendedRevisionJavaCallGraphReader.fromString(json);
+        long id = metadataDBExtension.saveToDatabase(ExtendedRevisionJavaCallGraphReader.toCallGraphHeader(new JSONObject(json)),
+                reader, streamingDao);
+        assertEquals(42L, id);
+        var actual = new JSONObject(metadataDBExtension.produce().orElseThrow());
+        // Internal nodes are in file order rather than in hash order
+        assertEquals(new HashSet<>(expected.getJSONArray("nodes").toList()),
+                new HashSet<>(actual.getJSONArray("nodes").toList()));
+        assertEquals(66L, actual.getJSONArray("nodes").getLong(2));
+        expected.remove("nodes");
+        actual.remove("nodes");
+        assertTrue(expected.similar(actual));
+
+        Mockito.verify(streamingDao).insertPackageVersion(Mockito.eq(8L), Mockito.eq("OPAL"), Mockito.eq("1.0"),
+                Mockito.eq(null), Mockito.eq(null), Mockito.eq(new Timestamp(5000)), Mockito.any(JSONObject.class));
+        Mockito.verify(streamingDao).insertModule(Mockito.eq(42L), Mockito.eq(0L), Mockito.eq(false), Mockito.eq(Access.public_),
+                Mockito.eq(new Long[]{3L}), Mockito.eq(new Long[0]), Mockito.isNull(), Mockito.any(JSONObject.class));
+        Mockito.verify(streamingDao).insertModule(Mockito.eq(42L), Mockito.eq(1L), Mockito.eq(true), Mockito.eq(Access.public_),
+                Mockito.eq(new Long[]{0L, 3L}), Mockito.eq(new Long[0]), Mockito.isNull(), Mockito.any(JSONObject.class));
+        Mockito.verify(streamingDao).insertFile(42L, "A.java");
+        Mockito.verify(streamingDao).insertFile(42L, "B.java");
+        Mockito.verify(streamingDao).insertCallablesSeparately(Mockito.anyList(), Mockito.eq(2));
+        Mockito.verify(streamingDao).insertCallablesSeparately(Mockito.anyList(), Mockito.eq(0));
+        Mockito.verify(streamingDao).batchInsertEdges(Mockito.anyList());
+    }
+
+    /**
+     * Mocks a DAO assigning to namespaces and callables their index in the given lists as ID.
+     */
+    @SuppressWarnings("unchecked")
+    private static MetadataDao mockMetadataDao(List<String> namespaces, List<String> uris) {
+        var metadataDao = Mockito.mock(MetadataDao.class);
+        Mockito.when(metadataDao.insertPackage(Mockito.anyString(), Mockito.anyString())).thenReturn(8L);
+        Mockito.when(metadataDao.insertPackageVersion(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(JSONObject.class))).thenReturn(42L);
+        Mockito.when(metadataDao.insertNamespaces(Mockito.anyCollection())).thenAnswer(invocation -> {
+            var map = new HashMap<String, Long>();
+            ((Collection<String>) invocation.getArgument(0)).forEach(n -> map.put(n, (long) namespaces.indexOf(n)));
+            return map;
+        });
+        Mockito.when(metadataDao.insertCallablesSeparately(Mockito.anyList(), Mockito.anyInt())).thenAnswer(invocation -> {
+            var ids = new ArrayList<Long>();
+            ((List<CallablesRecord>) invocation.getArgument(0)).forEach(c -> ids.add(64L + uris.indexOf(c.getFastenUri())));
+            return ids;
+        });
+        return metadataDao;
+    }
+
     @Test
     public void saveToDatabaseEmptyJsonTest() {
         var metadataDao = Mockito.mock(MetadataDao.class);
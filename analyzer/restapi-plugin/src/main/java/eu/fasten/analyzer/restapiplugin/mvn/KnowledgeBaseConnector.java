@@ -22,6 +22,7 @@ import eu.fasten.core.data.graphdb.RocksDao;
 import eu.fasten.core.data.metadatadb.MetadataDao;
 import eu.fasten.core.dbconnectors.PostgresConnector;
 import eu.fasten.core.dbconnectors.RocksDBConnector;
+import eu.fasten.core.merge.ClassHierarchyIndex;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -47,6 +48,11 @@ public class KnowledgeBaseConnector {
 
     public static RocksDao graphDao;
 
+    /**
+     * Class hierarchies shared by all call graph mergers.
+     */
+    public static final ClassHierarchyIndex chaIndex = new ClassHierarchyIndex();
+
     public static String rcgBaseUrl;
 
     public static String dependencyGraphPath;
@@ -136,6 +142,7 @@ public class KnowledgeBaseConnector {
         logger.info("Establishing connection to the Graph Database at " + graphdbPath + "...");
         try {
             graphDao = RocksDBConnector.createReadOnlyRocksDBAccessObject(graphdbPath);
+            graphDao.addUpdateListener(chaIndex::update);
         } catch (RuntimeException e) {
             logger.error("Couldn't connect to the Graph Database", e);
             System.exit(1);
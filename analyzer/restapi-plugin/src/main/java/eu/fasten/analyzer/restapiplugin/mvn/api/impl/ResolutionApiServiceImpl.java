@@ -27,7 +27,6 @@ import eu.fasten.core.maven.GraphMavenResolver;
 import eu.fasten.core.maven.MavenResolver;
 import eu.fasten.core.maven.data.Revision;
 import eu.fasten.core.merge.CGMerger;
-import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -129,9 +128,8 @@ public class ResolutionApiServiceImpl implements ResolutionApiService {
             var id = KnowledgeBaseConnector.kbDao.getPackageVersionID(groupId + Constants.mvnCoordinateSeparator + artifactId, version);
             return new Revision(id, groupId, artifactId, version, new Timestamp(-1));
         }).collect(Collectors.toSet());
-        var virtualNode = this.graphResolver.addVirtualNode(new ObjectLinkedOpenHashSet<>(revisions));
-        var depSet = this.graphResolver.resolveDependencies(virtualNode, KnowledgeBaseConnector.dbContext, true);
-        this.graphResolver.removeVirtualNode(virtualNode);
+        // Release timestamps of the roots are unknown, so dependencies are resolved as of now
+        var depSet = this.graphResolver.resolveDependencies(revisions, System.currentTimeMillis(), true);
         var jsonArray = new JSONArray();
         depSet.stream().map(r -> {
             var json = new JSONObject();
@@ -159,7 +157,7 @@ public class ResolutionApiServiceImpl implements ResolutionApiService {
             var depSet = this.graphResolver.resolveDependencies(groupId,
                     artifactId, version, timestamp, KnowledgeBaseConnector.dbContext, true);
             var depIds = depSet.stream().map(r -> r.id).collect(Collectors.toSet());
-            var databaseMerger = new CGMerger(depIds, KnowledgeBaseConnector.dbContext, KnowledgeBaseConnector.graphDao);
+            var databaseMerger = new CGMerger(depIds, KnowledgeBaseConnector.dbContext, KnowledgeBaseConnector.graphDao, KnowledgeBaseConnector.chaIndex);
             graph = databaseMerger.mergeWithCHA(packageVersionId);
         } else {
             try {
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.vulnerabilitycacheprocessorplugin;
+
+import eu.fasten.core.data.DirectedGraph;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds which callables of a stitched call graph reach a set of (vulnerable) callables, together
+ * with a shortest witness path for each of them.
+ *
+ * <p>
+ * Instead of enumerating all simple paths between each pair of callables, which is exponential in
+ * the worst case, a single reverse breadth-first visit is started from all targets at once:
+ * every node reached by the visit reaches some target, and the visit tree provides a shortest path
+ * to the closest one. The visit uses primitive queues and bit sets over a compact renumbering of
+ * the nodes of the graph.
+ *
+ * <p>
+ * Each instance is subject to a time budget, checked during visits, and to a memory budget,
+ * checked at construction time against an estimate of the memory needed by a visit.
+ */
+public class ReachabilityPathFinder {
+
+    /**
+     * Thrown when the computation would exceed its time or memory budget.
+     */
+    public static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public BudgetExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /** Estimated number of bytes used by a visit for each node of the graph. */
+    private static final long BYTES_PER_NODE = 8 + 4 + 4 + 16;
+    /** Number of visited nodes between two checks of the time budget. */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private final DirectedGraph graph;
+    /** Maps compact node indices to GIDs. */
+    private final long[] index2Gid;
+    /** Maps GIDs to compact node indices. */
+    private final Long2IntOpenHashMap gid2Index;
+    /** The time (as returned by {@link System#currentTimeMillis()}) after which visits are aborted. */
+    private final long deadline;
+
+    /**
+     * Creates a path finder for a graph.
+     *
+     * @param graph             - the stitched call graph.
+     * @param timeBudgetMillis  - maximum time in milliseconds for all the computations of this instance.
+     * @param memoryBudgetBytes - maximum estimated memory in bytes used by a visit.
+     * @throws BudgetExceededException if a visit of the graph would exceed the memory budget.
+     */
+    public ReachabilityPathFinder(DirectedGraph graph, long timeBudgetMillis, long memoryBudgetBytes) {
+        final long estimatedMemory = BYTES_PER_NODE * graph.numNodes();
+        if (estimatedMemory > memoryBudgetBytes) {
+            throw new BudgetExceededException("Visiting a graph with " + graph.numNodes()
+                    + " nodes needs about " + estimatedMemory + " bytes, but the budget is " + memoryBudgetBytes);
+        }
+        this.graph = graph;
+        this.deadline = timeBudgetMillis == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + timeBudgetMillis;
+        final int n = graph.numNodes();
+        this.index2Gid = new long[n];
+        this.gid2Index = new Long2IntOpenHashMap(n);
+        gid2Index.defaultReturnValue(-1);
+        int i = 0;
+        for (final LongIterator iterator = graph.iterator(); iterator.hasNext(); i++) {
+            final long gid = iterator.nextLong();
+            index2Gid[i] = gid;
+            gid2Index.put(gid, i);
+        }
+    }
+
+    /**
+     * Computes, for each source reaching at least one target, a shortest path to the closest target.
+     *
+     * @param sources - callables whose reachability must be computed (e.g., internal callables).
+     * @param targets - callables to be reached (e.g., vulnerable callables).
+     * @return a map, in the iteration order of {@code sources}, from each source reaching a target to
+     * a shortest path (starting at the source and ending at a target); sources that are also targets
+     * are mapped to a single-node path.
+     * @throws BudgetExceededException if the visit exceeds the time budget.
+     */
+    public Long2ObjectLinkedOpenHashMap<List<Long>> shortestPaths(Collection<Long> sources, Collection<Long> targets) {
+        final int n = index2Gid.length;
+        // For each visited node, the next node on a shortest path to a target (targets point to themselves)
+        final int[] next = new int[n];
+        Arrays.fill(next, -1);
+        final BitSet visited = new BitSet(n);
+        final IntArrayFIFOQueue queue = new IntArrayFIFOQueue();
+        for (final long target : targets) {
+            final int t = gid2Index.get(target);
+            if (t != -1 && !visited.get(t)) {
+                visited.set(t);
+                next[t] = t;
+                queue.enqueue(t);
+            }
+        }
+
+        int count = 0;
+        while (!queue.isEmpty()) {
+            if (++count % DEADLINE_CHECK_INTERVAL == 0 && System.currentTimeMillis() > deadline) {
+                throw new BudgetExceededException("Time budget exceeded after visiting " + count + " nodes");
+            }
+            final int x = queue.dequeueInt();
+            for (final LongIterator iterator = graph.predecessors(index2Gid[x]).iterator(); iterator.hasNext();) {
+                final int p = gid2Index.get(iterator.nextLong());
+                // Predecessors outside of the node set of the graph are ignored
+                if (p != -1 && !visited.get(p)) {
+                    visited.set(p);
+                    next[p] = x;
+                    queue.enqueue(p);
+                }
+            }
+        }
+
+        final var result = new Long2ObjectLinkedOpenHashMap<List<Long>>();
+        for (final long source : sources) {
+            int x = gid2Index.get(source);
+            if (x == -1 || !visited.get(x) || result.containsKey(source)) continue;
+            final var path = new LongArrayList();
+            path.add(index2Gid[x]);
+            while (next[x] != x) {
+                x = next[x];
+                path.add(index2Gid[x]);
+            }
+            result.put(source, path);
+        }
+        return result;
+    }
+}
@@ -20,11 +20,13 @@ package eu.fasten.analyzer.vulnerabilitycacheprocessorplugin;
 
 import eu.fasten.core.data.Constants;
 import eu.fasten.core.data.DirectedGraph;
+import eu.fasten.core.data.ReachabilityIndex;
 import eu.fasten.core.data.graphdb.RocksDao;
 import eu.fasten.core.data.metadatadb.MetadataDao;
 import eu.fasten.core.maven.GraphMavenResolver;
 import eu.fasten.core.maven.data.Revision;
 import eu.fasten.core.merge.CGMerger;
+import eu.fasten.core.merge.ClassHierarchyIndex;
 import eu.fasten.core.plugins.DataWriter;
 import eu.fasten.core.plugins.DependencyGraphUser;
 import eu.fasten.core.plugins.GraphDBReader;
@@ -44,12 +46,16 @@ import java.io.IOException;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
 
 public class VulnerabilityCacheProcessorPlugin extends Plugin {
@@ -60,6 +66,23 @@ public class VulnerabilityCacheProcessorPlugin extends Plugin {
     @Extension
     public static class VulnerabilityCacheProcessorExtension implements KafkaPlugin, DependencyGraphUser, DataWriter, GraphDBReader {
 
+        /**
+         * How vulnerable paths are computed.
+         */
+        public enum PathMode {
+            /** Enumerate all simple paths between each internal callable and each vulnerable callable. */
+            ALL_PATHS,
+            /** Compute, for each internal callable, one shortest path to the closest vulnerable callable. */
+            REACHABILITY
+        }
+
+        /** Environment variable selecting the {@link PathMode} (default: {@link PathMode#ALL_PATHS}). */
+        public static final String PATH_MODE_ENV_VARIABLE = "VULN_PATHS_MODE";
+        /** Environment variable setting the time budget per artifact, in milliseconds, of {@link PathMode#REACHABILITY}. */
+        public static final String TIME_BUDGET_ENV_VARIABLE = "VULN_PATHS_TIME_BUDGET";
+        /** Environment variable setting the memory budget per artifact, in bytes, of {@link PathMode#REACHABILITY} and of the reachability index of {@link PathMode#ALL_PATHS}. */
+        public static final String MEMORY_BUDGET_ENV_VARIABLE = "VULN_PATHS_MEMORY_BUDGET";
+
         private final Logger logger = LoggerFactory.getLogger(VulnerabilityCacheProcessorExtension.class.getName());
         private String consumerTopic = "fasten.VulnerabilityCacheInvalidationExtension.out";
 
@@ -71,6 +94,42 @@ public class VulnerabilityCacheProcessorPlugin extends Plugin {
         private static DSLContext dbContext;
         private static MetadataDao kbDao;
         private static RocksDao graphDao;
+        private static final ClassHierarchyIndex chaIndex = new ClassHierarchyIndex();
+
+        private PathMode pathMode = pathModeFromEnv();
+        private long timeBudget = longFromEnv(TIME_BUDGET_ENV_VARIABLE, Long.MAX_VALUE);
+        private long memoryBudget = longFromEnv(MEMORY_BUDGET_ENV_VARIABLE, Runtime.getRuntime().maxMemory() / 2);
+
+        /**
+         * Returns the path mode set by {@link #PATH_MODE_ENV_VARIABLE}, falling back to
+         * {@link PathMode#ALL_PATHS} if the variable is not set or its value is invalid.
+         */
+        private PathMode pathModeFromEnv() {
+            final var value = System.getenv(PATH_MODE_ENV_VARIABLE);
+            if (value == null) return PathMode.ALL_PATHS;
+            try {
+                return PathMode.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid value '{}' of {}, valid values are {}; using {}", value, PATH_MODE_ENV_VARIABLE,
+                        Arrays.toString(PathMode.values()), PathMode.ALL_PATHS);
+                return PathMode.ALL_PATHS;
+            }
+        }
+
+        /**
+         * Returns the value of a numeric environment variable, falling back to a default value if
+         * the variable is not set or its value is invalid.
+         */
+        private long longFromEnv(final String name, final long defaultValue) {
+            final var value = System.getenv(name);
+            if (value == null) return defaultValue;
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                logger.error("Invalid value '{}' of {}; using {}", value, name, defaultValue);
+                return defaultValue;
+            }
+        }
 
         /**
          * The helper method that creates a graph resolver.
@@ -124,7 +183,10 @@ public class VulnerabilityCacheProcessorPlugin extends Plugin {
         /**
          * Helper method that traverses the directed graph and creates paths from source to vulnerable dependency.
          *
+         * Only nodes reaching the target are explored.
+         *
          * @param graph           - directed graph of the dependencies.
+         * @param reachesTarget   - whether a node reaches the target.
          * @param source          - source artifact.
          * @param target          - target vulnerable dependency.
          * @param visited         - helper argument for graph traverse.
@@ -132,7 +194,7 @@ public class VulnerabilityCacheProcessorPlugin extends Plugin {
          * @param vulnerablePaths - helper argument for preliminary vulnerable paths.
          * @return the list of paths for each vulnerable dependency.
          */
-        private List<List<Long>> getPathsToVulnerableNode(DirectedGraph graph, long source, long target,
+        private List<List<Long>> getPathsToVulnerableNode(DirectedGraph graph, LongPredicate reachesTarget, long source, long target,
                                                           Set<Long> visited, List<Long> path, List<List<Long>> vulnerablePaths) {
             if (path.isEmpty()) {
                 path.add(source);
@@ -143,9 +205,9 @@ public class VulnerabilityCacheProcessorPlugin extends Plugin {
             }
             visited.add(source);
             for (var node : graph.successors(source)) {
-                if (!visited.contains(node)) {
+                if (!visited.contains(node) && reachesTarget.test(node)) {
                     path.add(node);
-                    getPathsToVulnerableNode(graph, node, target, visited, path, vulnerablePaths);
+                    getPathsToVulnerableNode(graph, reachesTarget, node, target, visited, path, vulnerablePaths);
                     path.remove(node);
                 }
             }
@@ -153,9 +215,93 @@ public class VulnerabilityCacheProcessorPlugin extends Plugin {
             return vulnerablePaths;
         }
 
+        /**
+         * Helper method that finds the paths from internal callables to vulnerable callables, grouped by vulnerability.
+         *
+         * @param graph             - stitched call graph of the artifact.
+         * @param internalCallables - internal callables of the artifact.
+         * @param vulnerabilities   - vulnerable callables, mapped to their vulnerabilities.
+         * @return the list of paths for each vulnerability.
+         */
+        Map<String, List<List<Long>>> findVulnerablePaths(DirectedGraph graph, List<Long> internalCallables,
+                                                          Map<Long, JSONObject> vulnerabilities) {
+            var vulnerabilitiesMap = new HashMap<String, List<List<Long>>>();
+            if (pathMode == PathMode.REACHABILITY) {
+                // Group vulnerable callables by vulnerability, and find paths to each group with a single visit
+                var vulnerableCallables = new LinkedHashMap<String, List<Long>>();
+                for (var entry : vulnerabilities.entrySet()) {
+                    for (var vulnerability : entry.getValue().keySet()) {
+                        vulnerableCallables.computeIfAbsent(vulnerability, k -> new ArrayList<>()).add(entry.getKey());
+                    }
+                }
+                var pathFinder = new ReachabilityPathFinder(graph, timeBudget, memoryBudget);
+                for (var entry : vulnerableCallables.entrySet()) {
+                    var paths = pathFinder.shortestPaths(internalCallables, entry.getValue());
+                    if (!paths.isEmpty()) {
+                        vulnerabilitiesMap.put(entry.getKey(), new ArrayList<>(paths.values()));
+                    }
+                }
+                return vulnerabilitiesMap;
+            }
+
+            // Find all paths between any internal node and any vulnerable node in the graph
+            var index = new ReachabilityIndex(graph, memoryBudget);
+            logger.debug(index.toString());
+            // Without an index every query is a visit, so the nodes reaching each target are computed once instead
+            var reachesVulnerable = new HashMap<Long, LongPredicate>();
+            for (var vulnerable : vulnerabilities.keySet()) {
+                if (index.isIndexed()) {
+                    reachesVulnerable.put(vulnerable, node -> index.reaches(node, vulnerable));
+                } else {
+                    reachesVulnerable.put(vulnerable, index.coreachable(vulnerable)::contains);
+                }
+            }
+            var vulnerablePaths = new ArrayList<List<Long>>();
+            for (var internal : internalCallables) {
+                for (var vulnerable : vulnerabilities.keySet()) {
+                    var reachesTarget = reachesVulnerable.get(vulnerable);
+                    if (reachesTarget.test(internal)) {
+                        vulnerablePaths.addAll(getPathsToVulnerableNode(graph, reachesTarget, internal, vulnerable, new HashSet<>(), new ArrayList<>(), new ArrayList<>()));
+                    }
+                }
+            }
+
+            // Group vulnerable path by the vulnerabilities
+            for (var path : vulnerablePaths) {
+                var pathVulnerabilities = vulnerabilities.get(path.get(path.size() - 1)).keySet();
+                for (var vulnerability : pathVulnerabilities) {
+                    if (vulnerabilitiesMap.containsKey(vulnerability)) {
+                        var paths = vulnerabilitiesMap.get(vulnerability);
+                        var updatedPaths = new ArrayList<>(paths);
+                        updatedPaths.add(path);
+                        vulnerabilitiesMap.remove(vulnerability);
+                        vulnerabilitiesMap.put(vulnerability, updatedPaths);
+                    } else {
+                        var paths = new ArrayList<List<Long>>();
+                        paths.add(path);
+                        vulnerabilitiesMap.put(vulnerability, paths);
+                    }
+                }
+            }
+            return vulnerabilitiesMap;
+        }
+
+        public void setPathMode(PathMode pathMode) {
+            this.pathMode = pathMode;
+        }
+
+        public void setTimeBudget(long timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+
+        public void setMemoryBudget(long memoryBudget) {
+            this.memoryBudget = memoryBudget;
+        }
+
         @Override
         public void setRocksDao(RocksDao rocksDao) {
             VulnerabilityCacheProcessorExtension.graphDao = rocksDao;
+            rocksDao.addUpdateListener(chaIndex::update);
         }
 
         @Override
@@ -240,40 +386,22 @@ public class VulnerabilityCacheProcessorPlugin extends Plugin {
                 var depSet = graphResolver.resolveDependencies(revision, dbContext, true);
                 var depIds = depSet.stream().map(r -> r.id).collect(Collectors.toSet());
                 var vulnerableDependencies = kbDao.findVulnerablePackageVersions(depIds);
-                var databaseMerger = new CGMerger(depIds, dbContext, graphDao);
+                var databaseMerger = new CGMerger(depIds, dbContext, graphDao, chaIndex);
                 var graph = databaseMerger.mergeWithCHA(revision.product().toString() + Constants.mvnCoordinateSeparator + revision.version.toString());
                 var vulnerabilities = kbDao.findVulnerableCallables(vulnerableDependencies, graph.nodes());
                 var internalCallables = kbDao.getPackageInternalCallableIDs(revision.product().toString(), revision.version.toString());
 
-                // Find all paths between any internal node and any vulnerable node in the graph
-                var vulnerablePaths = new ArrayList<List<Long>>();
-                for (var internal : internalCallables) {
-                    for (var vulnerable : vulnerabilities.keySet()) {
-                        vulnerablePaths.addAll(getPathsToVulnerableNode(graph, internal, vulnerable, new HashSet<>(), new ArrayList<>(), new ArrayList<>()));
-                    }
-                }
-
-                // Group vulnerable path by the vulnerabilities
-                var vulnerabilitiesMap = new HashMap<String, List<List<Long>>>();
-                for (var path : vulnerablePaths) {
-                    var pathVulnerabilities = vulnerabilities.get(path.get(path.size() - 1)).keySet();
-                    for (var vulnerability : pathVulnerabilities) {
-                        if (vulnerabilitiesMap.containsKey(vulnerability)) {
-                            var paths = vulnerabilitiesMap.get(vulnerability);
-                            var updatedPaths = new ArrayList<>(paths);
-                            updatedPaths.add(path);
-                            vulnerabilitiesMap.remove(vulnerability);
-                            vulnerabilitiesMap.put(vulnerability, updatedPaths);
-                        } else {
-                            var paths = new ArrayList<List<Long>>();
-                            paths.add(path);
-                            vulnerabilitiesMap.put(vulnerability, paths);
-                        }
-                    }
+                Map<String, List<List<Long>>> vulnerabilitiesMap;
+                try {
+                    vulnerabilitiesMap = findVulnerablePaths(graph, internalCallables, vulnerabilities);
+                } catch (ReachabilityPathFinder.BudgetExceededException e) {
+                    logger.error("Could not compute vulnerable paths of " + revision, e);
+                    setPluginError(e);
+                    return;
                 }
 
                 var pathNodes = new HashSet<Long>();
-                vulnerablePaths.forEach(pathNodes::addAll);
+                vulnerabilitiesMap.values().forEach(paths -> paths.forEach(pathNodes::addAll));
                 var fastenUris = kbDao.getFullFastenUris(new ArrayList<>(pathNodes));
 
                 // Generate JSON response
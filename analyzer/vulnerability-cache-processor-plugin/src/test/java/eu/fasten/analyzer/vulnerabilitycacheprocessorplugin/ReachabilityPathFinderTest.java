@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.vulnerabilitycacheprocessorplugin;
+
+import eu.fasten.analyzer.vulnerabilitycacheprocessorplugin.VulnerabilityCacheProcessorPlugin.VulnerabilityCacheProcessorExtension;
+import eu.fasten.core.data.ArrayImmutableDirectedGraph;
+import eu.fasten.core.data.DirectedGraph;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReachabilityPathFinderTest {
+
+    private DirectedGraph graph;
+
+    @BeforeEach
+    public void setUp() {
+        // 1 -> 2 -> 3 -> 4 (vulnerable), 3 -> 2 (cycle), 1 -> 5 -> 4, 6 -> 7 (unrelated)
+        var builder = new ArrayImmutableDirectedGraph.Builder();
+        for (long node = 1; node <= 3; node++) builder.addInternalNode(node);
+        for (long node = 4; node <= 7; node++) builder.addExternalNode(node);
+        builder.addArc(1, 2);
+        builder.addArc(2, 3);
+        builder.addArc(3, 4);
+        builder.addArc(3, 2);
+        builder.addArc(1, 5);
+        builder.addArc(5, 4);
+        builder.addArc(6, 7);
+        graph = builder.build();
+    }
+
+    @Test
+    public void shortestPathsTest() {
+        var pathFinder = new ReachabilityPathFinder(graph, Long.MAX_VALUE, Long.MAX_VALUE);
+        var paths = pathFinder.shortestPaths(List.of(1L, 2L, 3L, 4L, 6L), List.of(4L));
+        assertEquals(Set.of(1L, 2L, 3L, 4L), paths.keySet());
+        assertEquals(List.of(1L, 5L, 4L), paths.get(1L));
+        assertEquals(List.of(2L, 3L, 4L), paths.get(2L));
+        assertEquals(List.of(3L, 4L), paths.get(3L));
+        assertEquals(List.of(4L), paths.get(4L));
+    }
+
+    @Test
+    public void unknownNodesTest() {
+        var pathFinder = new ReachabilityPathFinder(graph, Long.MAX_VALUE, Long.MAX_VALUE);
+        assertTrue(pathFinder.shortestPaths(List.of(1L, 42L), List.of(43L)).isEmpty());
+    }
+
+    @Test
+    public void predecessorsOutsideOfGraphTest() {
+        var spy = Mockito.spy(graph);
+        Mockito.when(spy.predecessors(4L)).thenReturn(LongList.of(3L, 5L, 42L));
+        var pathFinder = new ReachabilityPathFinder(spy, Long.MAX_VALUE, Long.MAX_VALUE);
+        var paths = pathFinder.shortestPaths(List.of(1L, 42L), List.of(4L));
+        assertEquals(Set.of(1L), paths.keySet());
+        assertEquals(List.of(1L, 5L, 4L), paths.get(1L));
+    }
+
+    @Test
+    public void memoryBudgetTest() {
+        assertThrows(ReachabilityPathFinder.BudgetExceededException.class,
+                () -> new ReachabilityPathFinder(graph, Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    public void reachabilityModeFindsSameCallablesTest() {
+        var extension = new VulnerabilityCacheProcessorExtension();
+        var vulnerabilities = Map.of(4L, new JSONObject(Map.of("CVE-1", "", "CVE-2", "")),
+                7L, new JSONObject(Map.of("CVE-2", "")));
+        var internalCallables = List.of(1L, 2L, 3L);
+
+        extension.setPathMode(VulnerabilityCacheProcessorExtension.PathMode.ALL_PATHS);
+        var allPaths = extension.findVulnerablePaths(graph, internalCallables, vulnerabilities);
+        extension.setPathMode(VulnerabilityCacheProcessorExtension.PathMode.REACHABILITY);
+        var shortestPaths = extension.findVulnerablePaths(graph, internalCallables, vulnerabilities);
+
+        assertEquals(allPaths.keySet(), shortestPaths.keySet());
+        for (var vulnerability : allPaths.keySet()) {
+            var sources = new HashSet<Long>();
+            allPaths.get(vulnerability).forEach(path -> sources.add(path.get(0)));
+            var shortestSources = new HashSet<Long>();
+            shortestPaths.get(vulnerability).forEach(path -> shortestSources.add(path.get(0)));
+            assertEquals(sources, shortestSources);
+            assertTrue(allPaths.get(vulnerability).containsAll(shortestPaths.get(vulnerability)));
+        }
+    }
+
+    @Test
+    public void allPathsWithoutIndexTest() {
+        var extension = new VulnerabilityCacheProcessorExtension();
+        var vulnerabilities = Map.of(4L, new JSONObject(Map.of("CVE-1", "")),
+                7L, new JSONObject(Map.of("CVE-2", "")));
+        var internalCallables = List.of(1L, 2L, 3L);
+
+        extension.setPathMode(VulnerabilityCacheProcessorExtension.PathMode.ALL_PATHS);
+        var indexed = extension.findVulnerablePaths(graph, internalCallables, vulnerabilities);
+        // No room for the reachability index: targets are reached through their coreachable sets
+        extension.setMemoryBudget(0);
+        var visited = extension.findVulnerablePaths(graph, internalCallables, vulnerabilities);
+
+        assertFalse(indexed.isEmpty());
+        assertEquals(indexed, visited);
+    }
+}
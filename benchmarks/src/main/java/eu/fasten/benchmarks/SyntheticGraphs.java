@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+
+import eu.fasten.core.data.ArrayImmutableDirectedGraph;
+import eu.fasten.core.data.ImmutableMergedDirectedGraph;
+import eu.fasten.core.data.MergedDirectedGraph;
+import eu.fasten.core.maven.data.DependencyEdge;
+import eu.fasten.core.maven.data.Revision;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Deterministic generators of synthetic graphs shaped like the ones seen in production.
+ * <p>
+ * All generators are seeded, so that every run of a benchmark works on exactly the same graph.
+ */
+public final class SyntheticGraphs {
+
+    /** The seed used by all benchmarks. */
+    public static final long SEED = 0xFA57E4L;
+
+    /** The first GID of synthetic call graphs; GIDs are not contiguous, as in the metadata database. */
+    private static final long FIRST_GID = 1_000_000L;
+
+    private SyntheticGraphs() {
+    }
+
+    /**
+     * A call graph in the form accepted by
+     * {@link eu.fasten.core.data.graphdb.RocksDao#saveToRocksDb(long, List, int, List)}.
+     */
+    public static final class CallGraph {
+        /** The GIDs of the nodes, internal nodes first. */
+        public final List<Long> nodes;
+        /** The number of internal nodes. */
+        public final int numInternal;
+        /** The arcs, as pairs of GIDs. */
+        public final List<List<Long>> edges;
+
+        private CallGraph(final List<Long> nodes, final int numInternal, final List<List<Long>> edges) {
+            this.nodes = nodes;
+            this.numInternal = numInternal;
+            this.edges = edges;
+        }
+
+        public ArrayImmutableDirectedGraph toArrayImmutableDirectedGraph() {
+            final var builder = new ArrayImmutableDirectedGraph.Builder();
+            for (int i = 0; i < numInternal; i++) builder.addInternalNode(nodes.get(i));
+            for (int i = numInternal; i < nodes.size(); i++) builder.addExternalNode(nodes.get(i));
+            for (final var edge : edges) builder.addArc(edge.get(0), edge.get(1));
+            return builder.build();
+        }
+
+        public MergedDirectedGraph toMergedDirectedGraph() {
+            final var graph = new MergedDirectedGraph();
+            for (final var node : nodes) graph.addVertex(node);
+            for (final var edge : edges) graph.addEdge(edge.get(0), edge.get(1));
+            return graph;
+        }
+
+        public ImmutableMergedDirectedGraph toImmutableMergedDirectedGraph() {
+            final var builder = new ImmutableMergedDirectedGraph.Builder();
+            for (final var node : nodes) builder.addNode(node);
+            for (final var edge : edges) builder.addArc(edge.get(0), edge.get(1));
+            return builder.build();
+        }
+    }
+
+    /**
+     * Generates a call graph. Only internal nodes have successors; most arcs point to nearby nodes
+     * (calls within the same class or package), the others to a uniformly chosen node.
+     *
+     * @param numNodes         the number of nodes.
+     * @param externalFraction the fraction of nodes that are external.
+     * @param averageOutdegree the average outdegree of internal nodes.
+     * @param seed             the seed of the generator.
+     * @return a call graph.
+     */
+    public static CallGraph callGraph(final int numNodes, final double externalFraction,
+                                      final int averageOutdegree, final long seed) {
+        final var random = new SplittableRandom(seed);
+        final int numInternal = Math.max(1, (int) (numNodes * (1 - externalFraction)));
+        final var nodes = new ArrayList<Long>(numNodes);
+        long gid = FIRST_GID;
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(gid);
+            gid += 1 + random.nextInt(3);
+        }
+        final var edges = new ArrayList<List<Long>>();
+        final var successors = new LongOpenHashSet();
+        for (int i = 0; i < numInternal; i++) {
+            successors.clear();
+            final int outdegree = random.nextInt(2 * averageOutdegree + 1);
+            for (int j = 0; j < outdegree; j++) {
+                final int target = random.nextInt(5) != 0
+                        ? Math.floorMod(i + random.nextInt(-32, 33), numInternal)
+                        : random.nextInt(numNodes);
+                if (target != i && successors.add(nodes.get(target).longValue())) {
+                    edges.add(List.of(nodes.get(i), nodes.get(target)));
+                }
+            }
+        }
+        return new CallGraph(Collections.unmodifiableList(nodes), numInternal, Collections.unmodifiableList(edges));
+    }
+
+    /**
+     * Generates a dependency graph in the form used by {@link eu.fasten.core.maven.GraphMavenResolver}.
+     * Products are released in order, and each revision depends on all versions (as a version range
+     * would) of products released before it, so that the graph is acyclic.
+     *
+     * @param numProducts          the number of products.
+     * @param versionsPerProduct   the number of versions of each product.
+     * @param dependenciesPerRevision the number of products each revision depends on.
+     * @param seed                 the seed of the generator.
+     * @return a dependency graph.
+     */
+    public static Graph<Revision, DependencyEdge> dependencyGraph(final int numProducts, final int versionsPerProduct,
+                                                                  final int dependenciesPerRevision, final long seed) {
+        final var random = new SplittableRandom(seed);
+        final var graph = new DefaultDirectedGraph<Revision, DependencyEdge>(DependencyEdge.class);
+        final var revisions = new ArrayList<List<Revision>>(numProducts);
+        for (int p = 0; p < numProducts; p++) {
+            final var versions = new ArrayList<Revision>(versionsPerProduct);
+            for (int v = 0; v < versionsPerProduct; v++) {
+                final var revision = new Revision(p * (long) versionsPerProduct + v, "org.example.g" + p % 97, "a" + p,
+                        "1." + v + ".0", new Timestamp(1_000_000L * (p + 1) + v));
+                graph.addVertex(revision);
+                versions.add(revision);
+            }
+            for (final var revision : versions) {
+                for (int d = 0; p > 0 && d < dependenciesPerRevision; d++) {
+                    final var scope = random.nextInt(10) == 0 ? "test" : "compile";
+                    for (final var target : revisions.get(random.nextInt(p))) {
+                        graph.addEdge(revision, target,
+                                new DependencyEdge(revision, target, scope, false, List.of(), "jar"));
+                    }
+                }
+            }
+            revisions.add(versions);
+        }
+        return graph;
+    }
+
+    /**
+     * Deletes a directory used by a benchmark, with all its contents.
+     *
+     * @param directory the directory to delete.
+     */
+    public static void deleteRecursively(final Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) return;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rocksdb.RocksDBException;
+
+import eu.fasten.benchmarks.SyntheticGraphs;
+import eu.fasten.core.data.graphdb.RocksDao;
+import it.unimi.dsi.fastutil.longs.LongIterators;
+
+/**
+ * Benchmarks the adjacency access of the implementations of {@link DirectedGraph}: every
+ * benchmark visits the successors (or predecessors) of all nodes of the same synthetic graph,
+ * either through the materialized lists or through the lazy iterators of {@link DirectedGraph}.
+ * Run with <code>-prof gc</code> to compare the allocation rates of the two access paths.
+ * <p>
+ * The BVGraph-backed {@link eu.fasten.core.data.graphdb.CallGraphData} is obtained by a round trip
+ * through the graph database, as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DirectedGraphBenchmark {
+
+    @Param({"ArrayImmutableDirectedGraph", "CallGraphData", "MergedDirectedGraph", "ImmutableMergedDirectedGraph"})
+    public String implementation;
+
+    @Param({"10000", "1000000"})
+    public int nodes;
+
+    @Param({"8"})
+    public int averageOutdegree;
+
+    private DirectedGraph graph;
+    private long[] gids;
+
+    @Setup
+    public void setUp() throws IOException, RocksDBException {
+        final var callGraph = SyntheticGraphs.callGraph(nodes, .2, averageOutdegree, SyntheticGraphs.SEED);
+        switch (implementation) {
+            case "ArrayImmutableDirectedGraph":
+                graph = callGraph.toArrayImmutableDirectedGraph();
+                break;
+            case "CallGraphData":
+                final var directory = Files.createTempDirectory("fasten-graph-benchmark");
+                try (var rocksDao = new RocksDao(directory.toString(), false, false, 0)) {
+                    rocksDao.saveToRocksDb(0, callGraph.nodes, callGraph.numInternal, callGraph.edges);
+                    graph = rocksDao.getGraphData(0);
+                } finally {
+                    SyntheticGraphs.deleteRecursively(directory);
+                }
+                break;
+            case "MergedDirectedGraph":
+                graph = callGraph.toMergedDirectedGraph();
+                break;
+            case "ImmutableMergedDirectedGraph":
+                graph = callGraph.toImmutableMergedDirectedGraph();
+                break;
+            default:
+                throw new IllegalArgumentException(implementation);
+        }
+        gids = LongIterators.unwrap(graph.iterator());
+    }
+
+    @Benchmark
+    public long successors() {
+        long sum = 0;
+        for (final long gid : gids) {
+            for (final var iterator = graph.successors(gid).iterator(); iterator.hasNext(); ) {
+                sum += iterator.nextLong();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long predecessors() {
+        long sum = 0;
+        for (final long gid : gids) {
+            for (final var iterator = graph.predecessors(gid).iterator(); iterator.hasNext(); ) {
+                sum += iterator.nextLong();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long successorIterator() {
+        long sum = 0;
+        for (final long gid : gids) {
+            for (final var iterator = graph.successorIterator(gid); iterator.hasNext(); ) {
+                sum += iterator.nextLong();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long predecessorIterator() {
+        long sum = 0;
+        for (final long gid : gids) {
+            for (final var iterator = graph.predecessorIterator(gid); iterator.hasNext(); ) {
+                sum += iterator.nextLong();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.graphdb;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rocksdb.RocksDBException;
+
+import eu.fasten.benchmarks.SyntheticGraphs;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.DirectedGraph;
+
+/**
+ * Benchmarks storing graphs in and retrieving graphs from the graph database.
+ * <p>
+ * Graphs with at most {@link Constants#MIN_COMPRESSED_GRAPH_SIZE} nodes are stored as
+ * {@link eu.fasten.core.data.ArrayImmutableDirectedGraph}s, larger ones are compressed with BVGraph,
+ * so the default sizes exercise both paths. Retrieval is measured with the graph cache disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RocksDaoBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int nodes;
+
+    @Param({"8"})
+    public int averageOutdegree;
+
+    private Path directory;
+    private RocksDao rocksDao;
+    private SyntheticGraphs.CallGraph graph;
+    private long nextIndex;
+
+    @Setup
+    public void setUp() throws IOException, RocksDBException {
+        directory = Files.createTempDirectory("fasten-rocksdb-benchmark");
+        rocksDao = new RocksDao(directory.toString(), false, false, 0);
+        graph = SyntheticGraphs.callGraph(nodes, .2, averageOutdegree, SyntheticGraphs.SEED);
+        rocksDao.saveToRocksDb(0, graph.nodes, graph.numInternal, graph.edges);
+        nextIndex = 1;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        rocksDao.close();
+        SyntheticGraphs.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public DirectedGraph saveToRocksDb() throws IOException, RocksDBException {
+        return rocksDao.saveToRocksDb(nextIndex++, graph.nodes, graph.numInternal, graph.edges);
+    }
+
+    @Benchmark
+    public DirectedGraph getGraphData() throws RocksDBException {
+        return rocksDao.getGraphData(0);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.fasten.benchmarks.SyntheticGraphs;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.webgraph.ArrayListMutableGraph;
+import it.unimi.dsi.webgraph.BVGraph;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.Transform;
+
+/**
+ * Benchmarks the compression of a graph and of its transpose into {@link BVGraph}s, as performed
+ * by {@link eu.fasten.core.data.graphdb.RocksDao#saveToRocksDb(long, List, int, List)}, in memory
+ * with {@link BVGraphCompressor} and through temporary files with
+ * {@link BVGraph#store(ImmutableGraph, CharSequence)} and {@link BVGraph#load(CharSequence)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BVGraphCompressorBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int nodes;
+
+    @Param({"8"})
+    public int averageOutdegree;
+
+    private Path directory;
+    private ImmutableGraph graph;
+    private ImmutableGraph transpose;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("fasten-bvgraph-benchmark");
+        final var callGraph = SyntheticGraphs.callGraph(nodes, .2, averageOutdegree, SyntheticGraphs.SEED);
+        final var gid2Node = new Long2IntOpenHashMap();
+        for (int i = 0; i < callGraph.nodes.size(); i++) gid2Node.put(callGraph.nodes.get(i).longValue(), i);
+        final var mutableGraph = new ArrayListMutableGraph(callGraph.nodes.size());
+        for (final List<Long> edge : callGraph.edges) mutableGraph.addArc(gid2Node.get(edge.get(0).longValue()), gid2Node.get(edge.get(1).longValue()));
+        graph = mutableGraph.immutableView();
+        transpose = new ArrayListMutableGraph(Transform.transpose(graph)).immutableView();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticGraphs.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public BVGraph[] compress() throws IOException {
+        return new BVGraph[] {
+                BVGraphCompressor.compress(graph, new Properties()),
+                BVGraphCompressor.compress(transpose, new Properties())
+        };
+    }
+
+    @Benchmark
+    public BVGraph[] storeAndLoad() throws IOException {
+        final String basename = directory.resolve("graph").toString();
+        final var properties = new Properties();
+        BVGraph.store(graph, basename);
+        try (final var propertyFile = Files.newInputStream(Path.of(basename + BVGraph.PROPERTIES_EXTENSION))) {
+            properties.load(propertyFile);
+        }
+        final BVGraph storedGraph = BVGraph.load(basename);
+        BVGraph.store(transpose, basename);
+        try (final var propertyFile = Files.newInputStream(Path.of(basename + BVGraph.PROPERTIES_EXTENSION))) {
+            properties.load(propertyFile);
+        }
+        return new BVGraph[] { storedGraph, BVGraph.load(basename) };
+    }
+}
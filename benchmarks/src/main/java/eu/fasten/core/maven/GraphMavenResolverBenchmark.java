@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.maven;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.fasten.benchmarks.SyntheticGraphs;
+import eu.fasten.core.maven.data.CompactDependencyGraph;
+import eu.fasten.core.maven.data.Revision;
+import eu.fasten.core.maven.utils.DependencyGraphUtilities;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+
+/**
+ * Benchmarks {@link GraphMavenResolver#resolveDependencies(String, String, String, long, DSLContext, boolean)}
+ * on a synthetic dependency graph, using the shared object graph or a {@link CompactGraphMavenResolver}.
+ * <p>
+ * The metadata database is replaced by a mock returning no rows, so that no parent artifacts are
+ * found and only the traversal of the dependency graph is measured. Each invocation resolves the
+ * next of a fixed, seeded sequence of 1024 revisions; with a {@link ResolutionCache} of that size,
+ * all invocations after the first 1024 are cache hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GraphMavenResolverBenchmark {
+
+    @Param({"10000"})
+    public int products;
+
+    @Param({"5"})
+    public int versionsPerProduct;
+
+    @Param({"3"})
+    public int dependenciesPerRevision;
+
+    @Param({"true", "false"})
+    public boolean transitive;
+
+    @Param({"0", "1024"})
+    public int resolutionCacheSize;
+
+    @Param({"object", "compact"})
+    public String graph;
+
+    private GraphMavenResolver resolver;
+    private DSLContext db;
+    private List<Revision> roots;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        GraphMavenResolver.dependencyGraph = SyntheticGraphs.dependencyGraph(products, versionsPerProduct,
+                dependenciesPerRevision, SyntheticGraphs.SEED);
+        GraphMavenResolver.dependentGraph = DependencyGraphUtilities.invertDependencyGraph(GraphMavenResolver.dependencyGraph);
+        resolver = "compact".equals(graph)
+                ? new CompactGraphMavenResolver(new CompactDependencyGraph(GraphMavenResolver.dependencyGraph))
+                : new GraphMavenResolver();
+        resolver.setResolutionCache(new ResolutionCache(resolutionCacheSize));
+        final var create = DSL.using(SQLDialect.POSTGRES);
+        db = DSL.using(new MockConnection(ctx -> new MockResult[]{new MockResult(0, create.newResult())}), SQLDialect.POSTGRES);
+
+        final var revisions = new ArrayList<>(GraphMavenResolver.dependencyGraph.vertexSet());
+        final var random = new SplittableRandom(SyntheticGraphs.SEED);
+        roots = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            roots.add(revisions.get(random.nextInt(revisions.size())));
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public ObjectLinkedOpenHashSet<Revision> resolveDependencies() {
+        final var root = roots.get(next++ & 1023);
+        return resolver.resolveDependencies(root.groupId, root.artifactId, root.version.toString(),
+                root.createdAt.getTime(), db, transitive);
+    }
+}
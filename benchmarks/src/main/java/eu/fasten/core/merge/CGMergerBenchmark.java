@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.merge;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.fasten.core.data.DirectedGraph;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraph;
+
+/**
+ * Benchmarks {@link CGMerger#mergeWithCHA(ExtendedRevisionJavaCallGraph)} on the checked-in
+ * dependency set of jpacman-framework, the same fixture used by the efficiency tests of core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CGMergerBenchmark {
+
+    /** The call graphs of the dependency set, in the <code>fixtures</code> resource directory. */
+    private static final String[] FIXTURES = {
+            "com.github.spotbugs.spotbugs-annotations-3.1.3.json",
+            "info.cukes.cucumber-java-1.2.5.json",
+            "info.cukes.cucumber-junit-1.2.5.json",
+            "junit.junit-4.12.json",
+            "org.junit.jupiter.junit-jupiter-api-5.1.1.json",
+            "org.junit.jupiter.junit-jupiter-engine-5.1.1.json",
+            "org.junit.jupiter.junit-jupiter-params-5.1.1.json"
+    };
+
+    /** The fixture whose call graph is merged with the rest of the dependency set. */
+    @Param({"org.junit.jupiter.junit-jupiter-engine-5.1.1.json", "junit.junit-4.12.json"})
+    public String artifact;
+
+    private List<ExtendedRevisionJavaCallGraph> dependencySet;
+    private ExtendedRevisionJavaCallGraph callGraph;
+    private CGMerger merger;
+
+    @Setup
+    public void setUp() throws IOException {
+        dependencySet = new ArrayList<>();
+        for (final var fixture : FIXTURES) {
+            final var graph = load(fixture);
+            dependencySet.add(graph);
+            if (fixture.equals(artifact)) callGraph = graph;
+        }
+        Objects.requireNonNull(callGraph, "Unknown fixture " + artifact);
+        merger = new CGMerger(dependencySet);
+    }
+
+    private static ExtendedRevisionJavaCallGraph load(final String fixture) throws IOException {
+        final var resource = CGMergerBenchmark.class.getResourceAsStream("/fixtures/" + fixture);
+        try (var reader = new InputStreamReader(Objects.requireNonNull(resource, fixture), StandardCharsets.UTF_8)) {
+            return new ExtendedRevisionJavaCallGraph(new JSONObject(new JSONTokener(reader)));
+        }
+    }
+
+    @Benchmark
+    public DirectedGraph mergeWithCHA() {
+        return merger.mergeWithCHA(callGraph);
+    }
+
+    @Benchmark
+    public CGMerger createMerger() {
+        return new CGMerger(dependencySet);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.fasten.benchmarks.SyntheticGraphs;
+import eu.fasten.core.data.DirectedGraph;
+import eu.fasten.core.search.SearchEngine.Result;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * Benchmarks the visit performed by {@link SearchEngine} on stitched graphs, forwards (as in
+ * {@link SearchEngine#from}) and backwards (as in {@link SearchEngine#to}).
+ * <p>
+ * Stitched graphs are {@link eu.fasten.core.data.ImmutableMergedDirectedGraph}s, as returned by
+ * {@link eu.fasten.core.merge.CGMerger}; the same graph as a mutable
+ * {@link eu.fasten.core.data.MergedDirectedGraph} and as an
+ * {@link eu.fasten.core.data.ArrayImmutableDirectedGraph} is provided for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchEngineBenchmark {
+
+    @Param({"ImmutableMergedDirectedGraph", "MergedDirectedGraph", "ArrayImmutableDirectedGraph"})
+    public String implementation;
+
+    @Param({"100000"})
+    public int nodes;
+
+    @Param({"8"})
+    public int averageOutdegree;
+
+    @Param({"16"})
+    public int seedSize;
+
+    @Param({"true", "false"})
+    public boolean forward;
+
+    private DirectedGraph graph;
+    private LongArrayList seed;
+
+    @Setup
+    public void setUp() {
+        final var callGraph = SyntheticGraphs.callGraph(nodes, .2, averageOutdegree, SyntheticGraphs.SEED);
+        switch (implementation) {
+            case "ImmutableMergedDirectedGraph":
+                graph = callGraph.toImmutableMergedDirectedGraph();
+                break;
+            case "MergedDirectedGraph":
+                graph = callGraph.toMergedDirectedGraph();
+                break;
+            case "ArrayImmutableDirectedGraph":
+                graph = callGraph.toArrayImmutableDirectedGraph();
+                break;
+            default:
+                throw new IllegalArgumentException(implementation);
+        }
+        final var random = new SplittableRandom(SyntheticGraphs.SEED);
+        seed = new LongArrayList();
+        for (int i = 0; i < seedSize; i++) {
+            seed.add(callGraph.nodes.get(random.nextInt(callGraph.numInternal)).longValue());
+        }
+    }
+
+    @Benchmark
+    public List<Result> bfs() {
+        final var results = new ArrayList<Result>();
+        SearchEngine.bfs(graph, forward, seed, x -> true, TrivialScorer.getInstance(), results);
+        return results;
+    }
+}
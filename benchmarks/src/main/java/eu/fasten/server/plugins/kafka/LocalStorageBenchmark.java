@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.server.plugins.kafka;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.fasten.benchmarks.SyntheticGraphs;
+
+/**
+ * Benchmarks the local storage of Kafka plugins, comparing the directory layout of {@link LocalStorage}
+ * with the logs of {@link IndexedLocalStorage}.
+ * <p>
+ * A single partition holding {@code hashes} hashes is used. The directory layout lists the whole partition
+ * folder at every check, so larger sizes are only worth measuring on the indexed layouts
+ * (e.g., {@code -p layout=indexed -p hashes=1000000}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LocalStorageBenchmark {
+
+    private static final int PARTITION = 0;
+
+    @Param({"directory", "indexed", "indexed-sync"})
+    public String layout;
+
+    @Param({"1000", "10000"})
+    public int hashes;
+
+    private Path directory;
+    private LocalStorage storage;
+    private int next;
+    private int nextNew;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("fasten-local-storage-benchmark");
+        storage = open();
+        for (int i = 0; i < hashes; i++) storage.store(message(i), PARTITION);
+        next = 0;
+        nextNew = hashes;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        storage.close();
+        SyntheticGraphs.deleteRecursively(directory);
+    }
+
+    private LocalStorage open() {
+        switch (layout) {
+            case "directory":
+                return new LocalStorage(directory.toString(), "benchmark");
+            case "indexed":
+                return new IndexedLocalStorage(directory.toString(), "benchmark", false);
+            case "indexed-sync":
+                return new IndexedLocalStorage(directory.toString(), "benchmark", true);
+            default:
+                throw new IllegalArgumentException("Unknown layout " + layout);
+        }
+    }
+
+    private static String message(int i) {
+        return "{\"message\": " + i + "}";
+    }
+
+    @Benchmark
+    public boolean exists() {
+        next = (next + 1) % hashes;
+        return storage.exists(message(next), PARTITION);
+    }
+
+    /**
+     * Stores and deletes the hash of a new message, as done for every record processed by a plugin.
+     */
+    @Benchmark
+    public boolean storeAndDelete() throws IOException {
+        var message = message(nextNew++);
+        storage.store(message, PARTITION);
+        return storage.delete(message, PARTITION);
+    }
+
+    /**
+     * Reopens the storage and checks a hash; for the indexed layouts, this replays the log of the partition.
+     */
+    @Benchmark
+    public boolean reopen() throws IOException {
+        storage.close();
+        storage = open();
+        return storage.exists(message(0), PARTITION);
+    }
+}
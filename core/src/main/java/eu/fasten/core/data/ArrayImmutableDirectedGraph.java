@@ -32,6 +32,7 @@ import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
 
 /**
  * A basic implementation of {@link DirectedGraph} based on explicit adjacency lists. The
@@ -180,27 +181,55 @@ public class ArrayImmutableDirectedGraph implements DirectedGraph, Serializable
 		return (succpred.length - GID2Offset.size()) / 2;
 	}
 
-	@Override
-	public LongList successors(final long node) {
+	private int offset(final long node) {
 		final int offset = GID2Offset.get(node);
 		if (offset == -1) throw new IllegalArgumentException("No such node: " + node);
+		return offset;
+	}
+
+	@Override
+	public LongList successors(final long node) {
+		final int offset = offset(node);
 		final int outdegree = (int)succpred[offset];
 		return LongArrayList.wrap(Arrays.copyOfRange(succpred, offset + 1, offset + 1 + outdegree));
 	}
 
+	@Override
+	public LongIterator successorIterator(final long node) {
+		final int offset = offset(node);
+		return LongIterators.wrap(succpred, offset + 1, (int)succpred[offset]);
+	}
+
+	@Override
+	public int outdegree(final long node) {
+		return (int)succpred[offset(node)];
+	}
+
 	@Override
 	public LongList predecessors(final long node) {
-		int offset = GID2Offset.get(node);
-		if (offset == -1) throw new IllegalArgumentException("No such node: " + node);
+		int offset = offset(node);
 		final int outdegree = (int)succpred[offset];
 		final int indegree = (int)(succpred[offset] >>> 32);
 		offset += 1 + outdegree;
 		return LongArrayList.wrap(Arrays.copyOfRange(succpred, offset, offset + indegree));
 	}
 
+	@Override
+	public LongIterator predecessorIterator(final long node) {
+		final int offset = offset(node);
+		final int outdegree = (int)succpred[offset];
+		final int indegree = (int)(succpred[offset] >>> 32);
+		return LongIterators.wrap(succpred, offset + 1 + outdegree, indegree);
+	}
+
+	@Override
+	public int indegree(final long node) {
+		return (int)(succpred[offset(node)] >>> 32);
+	}
+
 	@Override
 	public LongSet nodes() {
-		return GID2Offset.keySet();
+		return LongSets.unmodifiable(GID2Offset.keySet());
 	}
 
 	@Override
@@ -213,7 +242,7 @@ public class ArrayImmutableDirectedGraph implements DirectedGraph, Serializable
 
 	@Override
 	public LongSet externalNodes() {
-		return externalNodes;
+		return LongSets.unmodifiable(externalNodes);
 	}
 
 	@Override
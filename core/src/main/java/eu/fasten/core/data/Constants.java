@@ -26,7 +26,25 @@ public class Constants {
 
     public static final int MIN_COMPRESSED_GRAPH_SIZE = 100;
 
+    public static final String bulkIngestionEnvVariable = "FASTEN_BULK_INGESTION";
+
+    public static final String streamingIngestionEnvVariable = "FASTEN_STREAMING_INGESTION";
+
+    public static final String artifactCacheDirEnvVariable = "FASTEN_ARTIFACT_CACHE_DIR";
+
+    public static final String artifactCacheSizeEnvVariable = "FASTEN_ARTIFACT_CACHE_SIZE";
+
+    public static final String callGraphCacheSizeEnvVariable = "FASTEN_CALL_GRAPH_CACHE_SIZE";
+
     public static final String fastenApiUrlEnvVariable = "FASTEN_API_URL";
 
     public static final String fastenApiUrlDefault = "https://api.fasten.eu/api/";
+
+    public static final String contentTypeKey = "content_type";
+
+    public static final String jsonContentType = "application/json";
+
+    public static final String binaryCallGraphContentType = "application/vnd.fasten.ercg";
+
+    public static final String binaryCallGraphsEnvVariable = "FASTEN_BINARY_CALL_GRAPHS";
 }
@@ -139,6 +139,23 @@ public interface DirectedGraph extends org.jgrapht.Graph<Long, LongLongPair>, Lo
 		return successors(node).size();
 	}
 
+	/**
+	 * Returns an iterator over the successors of a given node.
+	 *
+	 * <p>
+	 * Implementations enumerate successors directly from their internal representation, without
+	 * materializing a list, so visits should prefer this method to {@link #successors(long)}.
+	 *
+	 * @implSpec This implementation iterates over {@link #successors(long)}.
+	 *
+	 * @param node a node in the graph.
+	 * @return an iterator over its successors.
+	 * @throws IllegalArgumentException if <code>node</code> is not a node of the graph.
+	 */
+	public default LongIterator successorIterator(final long node) {
+		return successors(node).iterator();
+	}
+
 	/**
 	 * The list of predecessors of a given node.
 	 *
@@ -159,6 +176,23 @@ public interface DirectedGraph extends org.jgrapht.Graph<Long, LongLongPair>, Lo
 		return predecessors(node).size();
 	}
 
+	/**
+	 * Returns an iterator over the predecessors of a given node.
+	 *
+	 * <p>
+	 * Implementations enumerate predecessors directly from their internal representation, without
+	 * materializing a list, so visits should prefer this method to {@link #predecessors(long)}.
+	 *
+	 * @implSpec This implementation iterates over {@link #predecessors(long)}.
+	 *
+	 * @param node a node in the graph.
+	 * @return an iterator over its predecessors.
+	 * @throws IllegalArgumentException if <code>node</code> is not a node of the graph.
+	 */
+	public default LongIterator predecessorIterator(final long node) {
+		return predecessors(node).iterator();
+	}
+
 	/**
 	 * The set of nodes of the graph.
 	 *
@@ -212,6 +246,26 @@ public interface DirectedGraph extends org.jgrapht.Graph<Long, LongLongPair>, Lo
 				return DirectedGraph.this.successors(node);
 			}
 
+			@Override
+			public LongIterator successorIterator(final long node) {
+				return DirectedGraph.this.predecessorIterator(node);
+			}
+
+			@Override
+			public LongIterator predecessorIterator(final long node) {
+				return DirectedGraph.this.successorIterator(node);
+			}
+
+			@Override
+			public int outdegree(final long node) {
+				return DirectedGraph.this.indegree(node);
+			}
+
+			@Override
+			public int indegree(final long node) {
+				return DirectedGraph.this.outdegree(node);
+			}
+
 			@Override
 			public int numNodes() {
 				return DirectedGraph.this.numNodes();
@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import static eu.fasten.core.data.ExtendedRevisionJavaCallGraphBinaryWriter.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.json.JSONObject;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIntPair;
+
+/**
+ * Reads the binary representation of an {@link ExtendedRevisionJavaCallGraph} written by
+ * {@link ExtendedRevisionJavaCallGraphBinaryWriter}.
+ * <p>
+ * The whole graph can be read in a single pass with {@link #read()}; alternatively, as with the
+ * JSON {@linkplain ExtendedRevisionJavaCallGraphReader reader} this class extends, the types of the
+ * class hierarchy and the call sites can be handed out in batches of bounded size, in which case
+ * every read scans the representation from the beginning. Objects are only built for the values a
+ * read is interested in, but strings must be decoded anyway, as they define the string table.
+ * <p>
+ * Reading a graph and converting it to JSON yields the same JSON object as converting the original
+ * graph, and reading a graph that was parsed from JSON yields an equal graph.
+ */
+public class ExtendedRevisionJavaCallGraphBinaryReader extends ExtendedRevisionJavaCallGraphReader {
+
+    /**
+     * A source of streams over the same binary representation.
+     */
+    @FunctionalInterface
+    private interface StreamSupplier {
+        InputStream open() throws IOException;
+    }
+
+    private final StreamSupplier source;
+
+    private ExtendedRevisionJavaCallGraphBinaryReader(final StreamSupplier source) {
+        this.source = source;
+    }
+
+    /**
+     * Creates a reader for a call graph stored in a file.
+     *
+     * @param path the path of a file containing the binary form of an {@link ExtendedRevisionJavaCallGraph}.
+     * @return a reader for the call graph.
+     */
+    public static ExtendedRevisionJavaCallGraphBinaryReader fromFile(final Path path) {
+        return new ExtendedRevisionJavaCallGraphBinaryReader(() -> Files.newInputStream(path));
+    }
+
+    /**
+     * Creates a reader for a call graph stored in an array.
+     *
+     * @param bytes the binary form of an {@link ExtendedRevisionJavaCallGraph}.
+     * @return a reader for the call graph.
+     */
+    public static ExtendedRevisionJavaCallGraphBinaryReader fromBytes(final byte[] bytes) {
+        return new ExtendedRevisionJavaCallGraphBinaryReader(() -> new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Returns whether a file starts with the magic number of the binary format.
+     *
+     * @param path the path of a file.
+     * @return whether the file contains a call graph in binary form.
+     */
+    public static boolean isBinary(final Path path) throws IOException {
+        try (final var in = Files.newInputStream(path)) {
+            return Arrays.equals(MAGIC, in.readNBytes(MAGIC.length));
+        }
+    }
+
+    /**
+     * Reads a whole call graph in a single pass.
+     *
+     * @param in a stream containing the binary form of an {@link ExtendedRevisionJavaCallGraph};
+     *           it is not closed.
+     * @return the call graph.
+     */
+    public static ExtendedRevisionJavaCallGraph read(final InputStream in) throws IOException {
+        final var decoder = new Decoder(in);
+        final var cha = new EnumMap<JavaScope, Map<String, JavaType>>(JavaScope.class);
+        for (final var scope : JavaScope.values()) {
+            cha.put(scope, new HashMap<>());
+        }
+        final var callSites = new HashMap<IntIntPair, Map<Object, Object>>();
+        decoder.decode(null, (scope, uri, type) -> cha.get(scope).put(uri, type), callSites::put);
+        return new ExtendedRevisionJavaCallGraph(decoder.forge, decoder.product, decoder.version, decoder.timestamp,
+            decoder.nodeCount, decoder.generator, cha, new JavaGraph(callSites));
+    }
+
+    /**
+     * Reads the whole call graph in a single pass.
+     *
+     * @return the call graph.
+     */
+    public ExtendedRevisionJavaCallGraph read() throws IOException {
+        try (final var in = source.open()) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads the header of the call graph, with the same keys as the JSON representation.
+     *
+     * @return a JSON object containing the forge, product, version, generator, timestamp (if any) and
+     *         number of nodes of the call graph.
+     */
+    @Override
+    public JSONObject readHeader() throws IOException {
+        try (final var in = source.open()) {
+            final var decoder = new Decoder(in);
+            final var header = new JSONObject();
+            header.put("product", decoder.product);
+            header.put("nodes", decoder.nodeCount);
+            header.put("forge", decoder.forge);
+            header.put("generator", decoder.generator);
+            header.put("version", decoder.version);
+            if (decoder.timestamp >= 0) {
+                header.put("timestamp", decoder.timestamp);
+            }
+            return header;
+        }
+    }
+
+    @Override
+    public void readTypes(final JavaScope scope, final int batchSize,
+                          final Consumer<Map<String, JavaType>> consumer) throws IOException {
+        final var batch = new LinkedHashMap<String, JavaType>();
+        try (final var in = source.open()) {
+            new Decoder(in).decode(scope, (s, uri, type) -> {
+                batch.put(uri, type);
+                if (batch.size() >= batchSize) {
+                    consumer.accept(new LinkedHashMap<>(batch));
+                    batch.clear();
+                }
+            }, null);
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    @Override
+    public void readCallSites(final int batchSize, final Consumer<JavaGraph> consumer) throws IOException {
+        final var batch = new LinkedHashMap<IntIntPair, Map<Object, Object>>();
+        try (final var in = source.open()) {
+            new Decoder(in).decode(null, null, (call, metadata) -> {
+                batch.put(call, metadata);
+                if (batch.size() >= batchSize) {
+                    consumer.accept(new JavaGraph(new LinkedHashMap<>(batch)));
+                    batch.clear();
+                }
+            });
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(new JavaGraph(batch));
+        }
+    }
+
+    @FunctionalInterface
+    private interface TypeHandler {
+        void handle(JavaScope scope, String uri, JavaType type);
+    }
+
+    @FunctionalInterface
+    private interface CallHandler {
+        void handle(IntIntPair call, Map<Object, Object> metadata);
+    }
+
+    /**
+     * Decodes the binary form of a call graph; the header is decoded at construction time.
+     */
+    private static final class Decoder {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+        private final String forge;
+        private final String product;
+        private final String version;
+        private final long timestamp;
+        private final int nodeCount;
+        private final String generator;
+
+        private Decoder(final InputStream in) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+            final byte[] magic = this.in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(MAGIC, magic)) {
+                throw new IOException("Not a binary call graph");
+            }
+            final int formatVersion = readInt();
+            if (formatVersion > FORMAT_VERSION) {
+                throw new IOException("Unsupported binary call graph version: " + formatVersion);
+            }
+            forge = readString();
+            product = readString();
+            version = readString();
+            timestamp = readLong();
+            nodeCount = readInt();
+            generator = readString();
+        }
+
+        /**
+         * Decodes the records of the graph, building types and call sites only if there is a handler.
+         *
+         * @param scope        the scope of the types to pass to {@code typeHandler}, or {@code null} for all scopes.
+         * @param typeHandler  a handler for types, or {@code null}.
+         * @param callHandler  a handler for call sites, or {@code null}.
+         */
+        @SuppressWarnings("unchecked")
+        private void decode(final JavaScope scope, final TypeHandler typeHandler, final CallHandler callHandler) throws IOException {
+            final var scopes = JavaScope.values();
+            for (int tag; (tag = readInt()) != END; ) {
+                if (tag >= TYPES && tag < TYPES + scopes.length) {
+                    final var typeScope = scopes[tag - TYPES];
+                    final boolean build = typeHandler != null && (scope == null || scope == typeScope);
+                    for (int i = readInt(); i-- != 0; ) {
+                        final var uri = readString();
+                        final var type = readType(uri, build);
+                        if (build) {
+                            typeHandler.handle(typeScope, uri, type);
+                        }
+                    }
+                } else if (tag == CALL_SITES) {
+                    final int n = readInt();
+                    final int[] sources = new int[n];
+                    for (int i = 0, previous = 0; i < n; i++) {
+                        previous = sources[i] = previous + readSignedInt();
+                    }
+                    final int[] targets = new int[n];
+                    for (int i = 0; i < n; i++) {
+                        targets[i] = sources[i] + readSignedInt();
+                    }
+                    for (int i = 0; i < n; i++) {
+                        final var metadata = (Map<Object, Object>) readValue();
+                        if (callHandler != null) {
+                            callHandler.handle(IntIntPair.of(sources[i], targets[i]), metadata);
+                        }
+                    }
+                } else {
+                    throw new IOException("Unknown record: " + tag);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private JavaType readType(final String uri, final boolean build) throws IOException {
+            final var sourceFile = readString();
+            final var access = readString();
+            final boolean isFinal = in.readBoolean();
+            final var superClasses = new LinkedList<FastenURI>();
+            for (int i = readInt(); i-- != 0; ) {
+                final var superClass = readString();
+                if (build) {
+                    superClasses.add(FastenURI.create(superClass));
+                }
+            }
+            final var superInterfaces = new ArrayList<FastenURI>();
+            for (int i = readInt(); i-- != 0; ) {
+                final var superInterface = readString();
+                if (build) {
+                    superInterfaces.add(FastenURI.create(superInterface));
+                }
+            }
+            final var annotations = new HashMap<String, List<Pair<String, String>>>();
+            for (int i = readInt(); i-- != 0; ) {
+                final var annotation = readString();
+                final var values = new ArrayList<Pair<String, String>>();
+                for (int j = readInt(); j-- != 0; ) {
+                    values.add(Pair.of(readString(), readString()));
+                }
+                annotations.put(annotation, values);
+            }
+            final var methods = new Int2ObjectOpenHashMap<JavaNode>();
+            final var defined = new HashMap<String, JavaNode>();
+            int id = 0;
+            for (int i = readInt(); i-- != 0; ) {
+                id += readSignedInt();
+                final var methodUri = readString();
+                final var metadata = (Map<String, Object>) readValue();
+                if (build) {
+                    final var node = new JavaNode(FastenURI.create(methodUri), metadata);
+                    methods.put(id, node);
+                    if (!metadata.isEmpty() && isTrue(metadata.get("defined"))) {
+                        defined.put(node.getSignature(), node);
+                    }
+                }
+            }
+            return build
+                ? new JavaType(uri, sourceFile, methods, defined, superClasses, superInterfaces, access, isFinal, annotations)
+                : null;
+        }
+
+        private static boolean isTrue(final Object value) {
+            return Boolean.TRUE.equals(value) || value instanceof String && ((String) value).equalsIgnoreCase("true");
+        }
+
+        private Object readValue() throws IOException {
+            final int tag = readInt();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case INT:
+                    return readSignedInt();
+                case LONG:
+                    return readLong();
+                case DOUBLE:
+                    return in.readDouble();
+                case FLOAT:
+                    return in.readFloat();
+                case BIG_INTEGER:
+                    return new BigInteger(readString());
+                case BIG_DECIMAL:
+                    return new BigDecimal(readString());
+                case STRING:
+                    return readString();
+                case LIST: {
+                    final int n = readInt();
+                    final var list = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                }
+                case MAP: {
+                    final int n = readInt();
+                    final var map = new HashMap<Object, Object>();
+                    for (int i = 0; i < n; i++) {
+                        final var key = readValue();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                }
+                default:
+                    throw new IOException("Unknown value: " + tag);
+            }
+        }
+
+        private String readString() throws IOException {
+            final int ref = readInt();
+            if (ref == NULL_STRING) {
+                return null;
+            }
+            if (ref != NEW_STRING) {
+                return strings.get(ref - NEW_STRING - 1);
+            }
+            final byte[] bytes = new byte[readInt()];
+            in.readFully(bytes);
+            final var s = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(s);
+            return s;
+        }
+
+        private int readSignedInt() throws IOException {
+            final int z = readInt();
+            return z >>> 1 ^ -(z & 1);
+        }
+
+        private int readInt() throws IOException {
+            int x = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final int b = in.readUnsignedByte();
+                x |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return x;
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+
+        private long readLong() throws IOException {
+            long z = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = in.readUnsignedByte();
+                z |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return z >>> 1 ^ -(z & 1);
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+    }
+}
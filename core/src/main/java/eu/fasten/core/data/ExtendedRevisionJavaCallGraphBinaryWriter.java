@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import it.unimi.dsi.fastutil.ints.IntIntPair;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * Writes an {@link ExtendedRevisionJavaCallGraph} in a compact, versioned binary format.
+ * <p>
+ * The format starts with a magic number and a format version, followed by the header of the call
+ * graph and by a sequence of records, each made of a tag and of a body: a batch of types of a
+ * scope of the class hierarchy, a block of call sites, or the end of the graph. All integers are
+ * variable-length (7 bits per byte, signed integers in zig-zag form), and all strings (URIs, types,
+ * metadata keys and values) are stored once in a string table that is built incrementally: the
+ * first occurrence of a string defines it, and the following ones refer to it by its index. In a
+ * block of call sites, the calls are sorted and stored column by column (sources, targets, and then
+ * call-site metadata), so that sources and targets become small deltas.
+ * <p>
+ * Since strings are defined where they first appear, records can be written as soon as they are
+ * available and read back in a single pass (see {@link ExtendedRevisionJavaCallGraphBinaryReader}).
+ * Metadata values can be {@code null}, booleans, numbers, strings, lists and maps thereof, which
+ * covers everything obtained by parsing the JSON form of a call graph.
+ */
+public class ExtendedRevisionJavaCallGraphBinaryWriter implements Closeable {
+
+    /** The magic number at the start of the binary format. */
+    static final byte[] MAGIC = {'F', 'E', 'R', 'C'};
+    /** The version of the binary format written by this class. */
+    static final int FORMAT_VERSION = 1;
+
+    /** The tag of the end of the graph. */
+    static final int END = 0;
+    /** The tag of a batch of types; the ordinal of the scope of the types is added to this value. */
+    static final int TYPES = 1;
+    /** The tag of a block of call sites. */
+    static final int CALL_SITES = TYPES + JavaScope.values().length;
+
+    /** A reference to the {@code null} string. */
+    static final int NULL_STRING = 0;
+    /** A reference to a string that is defined in place; references to existing strings are offset by this value. */
+    static final int NEW_STRING = 1;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int INT = 3;
+    static final int LONG = 4;
+    static final int DOUBLE = 5;
+    static final int FLOAT = 6;
+    static final int BIG_INTEGER = 7;
+    static final int BIG_DECIMAL = 8;
+    static final int STRING = 9;
+    static final int LIST = 10;
+    static final int MAP = 11;
+
+    /** The default maximum number of call sites in a block. */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private final DataOutputStream out;
+    private final Object2IntOpenHashMap<String> strings = new Object2IntOpenHashMap<>();
+    private boolean headerWritten;
+    private boolean closed;
+
+    /**
+     * Creates a writer. Output is buffered, and the stream is closed when the writer is closed.
+     *
+     * @param out the stream the call graph will be written to.
+     */
+    public ExtendedRevisionJavaCallGraphBinaryWriter(final OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        strings.defaultReturnValue(-1);
+    }
+
+    /**
+     * Writes a call graph.
+     *
+     * @param erjcg a call graph.
+     * @param out   the stream the call graph will be written to; it is closed at the end.
+     */
+    public static void write(final ExtendedRevisionJavaCallGraph erjcg, final OutputStream out) throws IOException {
+        try (final var writer = new ExtendedRevisionJavaCallGraphBinaryWriter(out)) {
+            writer.writeHeader(erjcg);
+            for (final var scope : JavaScope.values()) {
+                writer.writeTypes(scope, erjcg.getClassHierarchy().get(scope));
+            }
+            writer.writeCallSites(erjcg.getGraph().getCallSites());
+        }
+    }
+
+    /**
+     * Returns the binary form of a call graph.
+     *
+     * @param erjcg a call graph.
+     * @return the binary form of {@code erjcg}.
+     */
+    public static byte[] toByteArray(final ExtendedRevisionJavaCallGraph erjcg) {
+        final var bytes = new ByteArrayOutputStream();
+        try {
+            write(erjcg, bytes);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the header of a call graph, that is, everything but its class hierarchy and call sites.
+     * The header must be written first, and only once.
+     *
+     * @param erjcg a call graph.
+     */
+    public void writeHeader(final ExtendedRevisionJavaCallGraph erjcg) throws IOException {
+        writeHeader(erjcg.forge, erjcg.product, erjcg.version, erjcg.timestamp, erjcg.getNodeCount(), erjcg.getCgGenerator());
+    }
+
+    /**
+     * Writes the header of a call graph. The header must be written first, and only once.
+     *
+     * @param forge     the forge.
+     * @param product   the product.
+     * @param version   the version.
+     * @param timestamp the timestamp, or -1 if there is none.
+     * @param nodeCount the number of nodes.
+     * @param generator the name of the call graph generator.
+     */
+    public void writeHeader(final String forge, final String product, final String version, final long timestamp,
+                            final int nodeCount, final String generator) throws IOException {
+        if (headerWritten) {
+            throw new IllegalStateException("The header has already been written");
+        }
+        headerWritten = true;
+        out.write(MAGIC);
+        writeInt(FORMAT_VERSION);
+        writeString(forge);
+        writeString(product);
+        writeString(version);
+        writeLong(timestamp);
+        writeInt(nodeCount);
+        writeString(generator);
+    }
+
+    /**
+     * Writes a batch of types. The types of a scope can be split in any number of batches.
+     *
+     * @param scope the scope of the types.
+     * @param types a map from the {@link FastenURI} of types to types.
+     */
+    public void writeTypes(final JavaScope scope, final Map<String, JavaType> types) throws IOException {
+        checkHeader();
+        if (types.isEmpty()) {
+            return;
+        }
+        writeInt(TYPES + scope.ordinal());
+        writeInt(types.size());
+        for (final var entry : types.entrySet()) {
+            writeType(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void writeType(final String uri, final JavaType type) throws IOException {
+        writeString(uri);
+        writeString(type.getSourceFileName());
+        writeString(type.getAccess());
+        out.writeBoolean(type.isFinal());
+        writeUris(type.getSuperClasses());
+        writeUris(type.getSuperInterfaces());
+        final var annotations = type.getAnnotations();
+        writeInt(annotations.size());
+        for (final var annotation : annotations.entrySet()) {
+            writeString(annotation.getKey());
+            writeInt(annotation.getValue().size());
+            for (final Pair<String, String> value : annotation.getValue()) {
+                writeString(value.getLeft());
+                writeString(value.getRight());
+            }
+        }
+        final var methods = type.getMethods();
+        writeInt(methods.size());
+        // Method ids are usually close to each other
+        int previous = 0;
+        for (final var method : methods.int2ObjectEntrySet()) {
+            writeSignedInt(method.getIntKey() - previous);
+            previous = method.getIntKey();
+            writeString(method.getValue().getUri().toString());
+            writeValue(method.getValue().getMetadata());
+        }
+    }
+
+    private void writeUris(final List<FastenURI> uris) throws IOException {
+        writeInt(uris.size());
+        for (final var uri : uris) {
+            writeString(uri.toString());
+        }
+    }
+
+    /**
+     * Writes call sites, in blocks of at most {@link #DEFAULT_BLOCK_SIZE} calls.
+     *
+     * @param callSites a map from calls to their call-site metadata.
+     */
+    public void writeCallSites(final Map<IntIntPair, Map<Object, Object>> callSites) throws IOException {
+        writeCallSites(callSites, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Writes call sites, in blocks of bounded size.
+     *
+     * @param callSites a map from calls to their call-site metadata.
+     * @param blockSize the maximum number of calls in a block.
+     */
+    @SuppressWarnings("unchecked")
+    public void writeCallSites(final Map<IntIntPair, Map<Object, Object>> callSites, final int blockSize) throws IOException {
+        checkHeader();
+        final Map.Entry<IntIntPair, Map<Object, Object>>[] calls = callSites.entrySet().toArray(new Map.Entry[0]);
+        Arrays.sort(calls, Comparator.comparingInt((Map.Entry<IntIntPair, Map<Object, Object>> e) -> e.getKey().firstInt())
+                .thenComparingInt(e -> e.getKey().secondInt()));
+        for (int from = 0; from < calls.length; from += blockSize) {
+            final int to = Math.min(calls.length, from + blockSize);
+            writeInt(CALL_SITES);
+            writeInt(to - from);
+            int previous = 0;
+            for (int i = from; i < to; i++) {
+                writeSignedInt(calls[i].getKey().firstInt() - previous);
+                previous = calls[i].getKey().firstInt();
+            }
+            for (int i = from; i < to; i++) {
+                writeSignedInt(calls[i].getKey().secondInt() - calls[i].getKey().firstInt());
+            }
+            for (int i = from; i < to; i++) {
+                writeValue(calls[i].getValue());
+            }
+        }
+    }
+
+    /**
+     * Marks the end of the graph, flushes the output and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            checkHeader();
+            writeInt(END);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void checkHeader() {
+        if (!headerWritten) {
+            throw new IllegalStateException("The header must be written first");
+        }
+    }
+
+    private void writeValue(final Object value) throws IOException {
+        if (value == null) {
+            writeInt(NULL);
+        } else if (value instanceof Boolean) {
+            writeInt((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            writeInt(INT);
+            writeSignedInt((Integer) value);
+        } else if (value instanceof Long) {
+            writeInt(LONG);
+            writeLong((Long) value);
+        } else if (value instanceof Double) {
+            writeInt(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            writeInt(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof BigInteger) {
+            writeInt(BIG_INTEGER);
+            writeString(value.toString());
+        } else if (value instanceof BigDecimal) {
+            writeInt(BIG_DECIMAL);
+            writeString(value.toString());
+        } else if (value instanceof String) {
+            writeInt(STRING);
+            writeString((String) value);
+        } else if (value instanceof Collection) {
+            writeInt(LIST);
+            writeInt(((Collection<?>) value).size());
+            for (final var element : (Collection<?>) value) {
+                writeValue(element);
+            }
+        } else if (value instanceof Map) {
+            writeInt(MAP);
+            writeInt(((Map<?, ?>) value).size());
+            for (final var entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported metadata value: " + value.getClass().getName());
+        }
+    }
+
+    private void writeString(final String s) throws IOException {
+        if (s == null) {
+            writeInt(NULL_STRING);
+            return;
+        }
+        final int id = strings.getInt(s);
+        if (id != -1) {
+            writeInt(id + NEW_STRING + 1);
+            return;
+        }
+        strings.put(s, strings.size());
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeInt(NEW_STRING);
+        writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeSignedInt(final int x) throws IOException {
+        writeInt(x << 1 ^ x >> 31);
+    }
+
+    private void writeInt(int x) throws IOException {
+        while ((x & ~0x7F) != 0) {
+            out.writeByte(x & 0x7F | 0x80);
+            x >>>= 7;
+        }
+        out.writeByte(x);
+    }
+
+    private void writeLong(final long x) throws IOException {
+        long z = x << 1 ^ x >> 63;
+        while ((z & ~0x7FL) != 0) {
+            out.writeByte((int) (z & 0x7F | 0x80));
+            z >>>= 7;
+        }
+        out.writeByte((int) z);
+    }
+}
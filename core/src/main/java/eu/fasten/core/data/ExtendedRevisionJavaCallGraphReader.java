@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import it.unimi.dsi.fastutil.ints.IntIntPair;
+
+/**
+ * Reads the JSON representation of an {@link ExtendedRevisionJavaCallGraph} incrementally.
+ * <p>
+ * Instead of building the whole JSON tree and the whole call graph in memory, the types of the
+ * class hierarchy and the call sites are handed out in batches of bounded size, so that memory is
+ * proportional to the size of a batch (and of the largest type) rather than to the size of the
+ * graph. Since the keys of a JSON object can appear in any order, every read scans the
+ * representation from the beginning, skipping the values it is not interested in without
+ * materializing them.
+ */
+public class ExtendedRevisionJavaCallGraphReader {
+
+    private static final String CHA_KEY = "cha";
+    private static final String CALL_SITES_KEY = "call-sites";
+
+    /**
+     * A source of readers over the same JSON representation.
+     */
+    @FunctionalInterface
+    private interface ReaderSupplier {
+        Reader open() throws IOException;
+    }
+
+    /**
+     * Handles a value of a JSON object; the handler must consume exactly the value.
+     */
+    @FunctionalInterface
+    private interface ValueHandler {
+        void handle(String key, JSONTokener tokener) throws IOException;
+    }
+
+    private final ReaderSupplier source;
+
+    private ExtendedRevisionJavaCallGraphReader(final ReaderSupplier source) {
+        this.source = source;
+    }
+
+    /**
+     * Creates a reader for another representation of call graphs; subclasses must override all
+     * reading methods.
+     */
+    protected ExtendedRevisionJavaCallGraphReader() {
+        this.source = null;
+    }
+
+    /**
+     * Creates a reader for a call graph stored in a file.
+     *
+     * @param path the path of a JSON file containing an {@link ExtendedRevisionJavaCallGraph}.
+     * @return a reader for the call graph.
+     */
+    public static ExtendedRevisionJavaCallGraphReader fromFile(final Path path) {
+        return new ExtendedRevisionJavaCallGraphReader(() -> Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a reader for a call graph stored in a file in the given format.
+     *
+     * @param path        the path of a file containing an {@link ExtendedRevisionJavaCallGraph}.
+     * @param contentType the format of the file, either {@link Constants#jsonContentType} or
+     *                    {@link Constants#binaryCallGraphContentType}.
+     * @return a reader for the call graph.
+     */
+    public static ExtendedRevisionJavaCallGraphReader fromFile(final Path path, final String contentType) {
+        if (Constants.binaryCallGraphContentType.equals(contentType)) {
+            return ExtendedRevisionJavaCallGraphBinaryReader.fromFile(path);
+        }
+        if (!Constants.jsonContentType.equals(contentType)) {
+            throw new IllegalArgumentException("Unsupported content type: " + contentType);
+        }
+        return fromFile(path);
+    }
+
+    /**
+     * Creates a reader for a call graph stored in a string.
+     *
+     * @param json the JSON representation of an {@link ExtendedRevisionJavaCallGraph}.
+     * @return a reader for the call graph.
+     */
+    public static ExtendedRevisionJavaCallGraphReader fromString(final String json) {
+        return new ExtendedRevisionJavaCallGraphReader(() -> new StringReader(json));
+    }
+
+    /**
+     * Reads the top-level scalar values of the call graph (e.g., forge, product, version, generator,
+     * timestamp and number of nodes). Objects and arrays, such as the class hierarchy and the call
+     * sites, are skipped.
+     *
+     * @return a JSON object containing the top-level scalar values of the call graph.
+     */
+    public JSONObject readHeader() throws IOException {
+        final var header = new JSONObject();
+        scan((key, tokener) -> {
+            final char c = tokener.nextClean();
+            tokener.back();
+            if (c == '{' || c == '[') {
+                skipValue(tokener);
+            } else {
+                header.put(key, tokener.nextValue());
+            }
+        });
+        return header;
+    }
+
+    /**
+     * Reads the header of the call graph and returns it as an {@link ExtendedRevisionJavaCallGraph}
+     * with an empty class hierarchy and no call sites.
+     *
+     * @param header the header of the call graph, as returned by {@link #readHeader()}.
+     * @return an {@link ExtendedRevisionJavaCallGraph} containing only the header of the call graph.
+     */
+    public static ExtendedRevisionJavaCallGraph toCallGraphHeader(final JSONObject header) throws JSONException {
+        final var cha = new EnumMap<JavaScope, Map<String, JavaType>>(JavaScope.class);
+        for (final var scope : JavaScope.values()) {
+            cha.put(scope, new HashMap<>());
+        }
+        return new ExtendedRevisionJavaCallGraph(header.getString("forge"), header.getString("product"),
+            header.getString("version"), header.optLong("timestamp", -1), header.getInt("nodes"),
+            header.getString("generator"), cha, new JavaGraph());
+    }
+
+    /**
+     * Reads the types of a scope of the class hierarchy, in batches.
+     *
+     * @param scope     the scope of the types to read.
+     * @param batchSize the maximum number of types in a batch.
+     * @param consumer  a consumer that will be passed each batch, a map from the {@link FastenURI}
+     *                  of types to types.
+     */
+    public void readTypes(final JavaScope scope, final int batchSize,
+                          final Consumer<Map<String, JavaType>> consumer) throws IOException {
+        final var batch = new LinkedHashMap<String, JavaType>();
+        scan((key, tokener) -> {
+            if (!key.equals(CHA_KEY)) {
+                skipValue(tokener);
+                return;
+            }
+            forEachEntry(tokener, (scopeKey, scopeTokener) -> {
+                if (!scopeKey.equals(scope.name())) {
+                    skipValue(scopeTokener);
+                    return;
+                }
+                forEachEntry(scopeTokener, (uri, typeTokener) -> {
+                    batch.put(uri, new JavaType(uri, new JSONObject(typeTokener)));
+                    if (batch.size() >= batchSize) {
+                        consumer.accept(new LinkedHashMap<>(batch));
+                        batch.clear();
+                    }
+                });
+            });
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * Reads the call sites of the call graph, in batches.
+     *
+     * @param batchSize the maximum number of calls in a batch.
+     * @param consumer  a consumer that will be passed each batch, as a {@link JavaGraph}.
+     */
+    public void readCallSites(final int batchSize, final Consumer<JavaGraph> consumer) throws IOException {
+        final var parser = new JavaGraph();
+        final var batch = new LinkedHashMap<IntIntPair, Map<Object, Object>>();
+        scan((key, tokener) -> {
+            if (!key.equals(CALL_SITES_KEY)) {
+                skipValue(tokener);
+                return;
+            }
+            expect(tokener, '[');
+            if (tokener.nextClean() == ']') {
+                return;
+            }
+            tokener.back();
+            for (;;) {
+                batch.putAll(parser.getCall(new JSONArray(tokener)));
+                if (batch.size() >= batchSize) {
+                    consumer.accept(new JavaGraph(new LinkedHashMap<>(batch)));
+                    batch.clear();
+                }
+                final char c = tokener.nextClean();
+                if (c == ']') {
+                    return;
+                }
+                if (c != ',') {
+                    throw tokener.syntaxError("Expected ',' or ']'");
+                }
+            }
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(new JavaGraph(batch));
+        }
+    }
+
+    /**
+     * Scans the top-level object of the call graph, passing each of its values to a handler.
+     */
+    private void scan(final ValueHandler handler) throws IOException {
+        try (final var reader = source.open()) {
+            forEachEntry(new JSONTokener(reader), handler);
+        }
+    }
+
+    /**
+     * Iterates over the entries of a JSON object, passing each value to a handler.
+     */
+    private static void forEachEntry(final JSONTokener tokener, final ValueHandler handler) throws IOException {
+        expect(tokener, '{');
+        if (tokener.nextClean() == '}') {
+            return;
+        }
+        tokener.back();
+        for (;;) {
+            expect(tokener, '"');
+            final var key = tokener.nextString('"');
+            expect(tokener, ':');
+            handler.handle(key, tokener);
+            final char c = tokener.nextClean();
+            if (c == '}') {
+                return;
+            }
+            if (c != ',') {
+                throw tokener.syntaxError("Expected ',' or '}'");
+            }
+        }
+    }
+
+    /**
+     * Skips a JSON value without materializing it.
+     */
+    private static void skipValue(final JSONTokener tokener) {
+        char c = tokener.nextClean();
+        if (c == '"') {
+            tokener.nextString(c);
+        } else if (c == '{' || c == '[') {
+            int depth = 1;
+            while (depth > 0) {
+                c = tokener.next();
+                if (c == 0) {
+                    throw tokener.syntaxError("Unterminated value");
+                } else if (c == '"') {
+                    tokener.nextString(c);
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            }
+        } else {
+            tokener.back();
+            tokener.nextValue();
+        }
+    }
+
+    private static void expect(final JSONTokener tokener, final char expected) {
+        if (tokener.nextClean() != expected) {
+            throw tokener.syntaxError("Expected '" + expected + "'");
+        }
+    }
+}
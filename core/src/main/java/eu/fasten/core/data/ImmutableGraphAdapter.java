@@ -23,6 +23,7 @@ import java.util.Arrays;
 
 import it.unimi.dsi.fastutil.Hash;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.webgraph.AbstractLazyIntIterator;
 import it.unimi.dsi.webgraph.ImmutableGraph;
@@ -85,7 +86,7 @@ public class ImmutableGraphAdapter extends ImmutableGraph {
 
 		@Override
 		public int outdegree(final int x) {
-			return graph.predecessors(node2Id[x]).size();
+			return graph.indegree(node2Id[x]);
 		}
 
 		@Override
@@ -93,16 +94,12 @@ public class ImmutableGraphAdapter extends ImmutableGraph {
 			if (sorted) return LazyIntIterators.wrap(successorArray(x));
 
 			// Lazy scanning when sorted order not required
-			final LongList predecessors = graph.predecessors(node2Id[x]);
-			final int d = predecessors.size();
+			final LongIterator predecessors = graph.predecessorIterator(node2Id[x]);
 
 			return new AbstractLazyIntIterator() {
-				int i = 0;
-
 				@Override
 				public int nextInt() {
-					if (i == d) return -1;
-					return id2Node.get(predecessors.getLong(i++));
+					return predecessors.hasNext() ? id2Node.get(predecessors.nextLong()) : -1;
 				}
 			};
 		}
@@ -184,22 +181,19 @@ public class ImmutableGraphAdapter extends ImmutableGraph {
 
 	@Override
 	public int outdegree(final int x) {
-		return graph.successors(node2Id[x]).size();
+		return graph.outdegree(node2Id[x]);
 	}
 
 	@Override
 	public LazyIntIterator successors(final int x) {
 		if (sorted) return LazyIntIterators.wrap(successorArray(x));
 		// Lazy scanning when sorted order not required
-		final LongList successors = graph.successors(node2Id[x]);
-		final int d = successors.size();
+		final LongIterator successors = graph.successorIterator(node2Id[x]);
 
 		return new AbstractLazyIntIterator() {
-			int i = 0;
 			@Override
 			public int nextInt() {
-				if (i == d) return -1;
-				return id2Node.get(successors.getLong(i++));
+				return successors.hasNext() ? id2Node.get(successors.nextLong()) : -1;
 			}
 		};
 	}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import it.unimi.dsi.fastutil.longs.AbstractLongSet;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongIterators;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongLongPair;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+
+/**
+ * An immutable, compact counterpart of {@link MergedDirectedGraph}, meant to hold the result of
+ * stitching.
+ *
+ * <p>
+ * Nodes are kept in a sorted array of identifiers, and the position of a node in this array is
+ * its index; the index of a node is recovered by binary search. Successors and predecessors are
+ * stored in compressed-sparse-row form: for each direction, an array of offsets (one per node,
+ * plus one) delimits, in a single array of ints, the sorted indices of the neighbours of each
+ * node. As a result, a graph with <var>n</var> nodes and <var>m</var> arcs uses
+ * 16<var>n</var>&nbsp;+&nbsp;8<var>m</var> bytes, and the number of arcs cannot exceed two
+ * billions.
+ *
+ * <p>
+ * Instances are created either by {@linkplain MergedDirectedGraph#freeze() freezing} a
+ * {@link MergedDirectedGraph}, or directly using a {@link ImmutableMergedDirectedGraph.Builder
+ * Builder}, which avoids the cost of a mutable graph altogether. Successor and predecessor lists
+ * are sorted.
+ *
+ * <p>
+ * As for {@link MergedDirectedGraph}, nodes are neither {@linkplain #isInternal(long) internal}
+ * nor {@linkplain #isExternal(long) external}.
+ */
+
+public class ImmutableMergedDirectedGraph implements DirectedGraph, Serializable {
+	private static final long serialVersionUID = 0L;
+
+	public static class Builder {
+		private final LongArrayList nodes = new LongArrayList();
+		private final LongArrayList sources = new LongArrayList();
+		private final LongArrayList targets = new LongArrayList();
+
+		/**
+		 * Adds a node; adding a node twice has no effect.
+		 *
+		 * @param node a node identifier.
+		 */
+		public void addNode(final long node) {
+			nodes.add(node);
+		}
+
+		/**
+		 * Adds an arc, and its endpoints if necessary; adding an arc twice has no effect.
+		 *
+		 * @param x the source of the arc.
+		 * @param y the target of the arc.
+		 */
+		public void addArc(final long x, final long y) {
+			sources.add(x);
+			targets.add(y);
+		}
+
+		/**
+		 * Builds an {@link ImmutableMergedDirectedGraph} containing the nodes and arcs added so far.
+		 *
+		 * @return an {@link ImmutableMergedDirectedGraph}.
+		 */
+		public ImmutableMergedDirectedGraph build() {
+			// Sorted, duplicate-free node identifiers
+			final long[] node = new long[nodes.size() + sources.size() * 2];
+			nodes.getElements(0, node, 0, nodes.size());
+			sources.getElements(0, node, nodes.size(), sources.size());
+			targets.getElements(0, node, nodes.size() + sources.size(), targets.size());
+			LongArrays.parallelQuickSort(node);
+			int n = 0;
+			for (int i = 0; i < node.length; i++) if (n == 0 || node[i] != node[n - 1]) node[n++] = node[i];
+			final long[] id = Arrays.copyOf(node, n);
+
+			// Arcs as pairs of indices, packed in a long, sorted and without duplicates
+			final long[] arc = new long[sources.size()];
+			for (int i = 0; i < arc.length; i++) {
+				arc[i] = (long)Arrays.binarySearch(id, sources.getLong(i)) << 32 | Arrays.binarySearch(id, targets.getLong(i));
+			}
+			LongArrays.parallelQuickSort(arc);
+			int m = 0;
+			for (int i = 0; i < arc.length; i++) if (m == 0 || arc[i] != arc[m - 1]) arc[m++] = arc[i];
+			if (m > Integer.MAX_VALUE - 8) throw new IllegalStateException("Graph is too large");
+
+			final int[] succOffset = new int[n + 1];
+			final int[] predOffset = new int[n + 1];
+			for (int i = 0; i < m; i++) {
+				succOffset[(int)(arc[i] >>> 32) + 1]++;
+				predOffset[(int)arc[i] + 1]++;
+			}
+			for (int i = 0; i < n; i++) {
+				succOffset[i + 1] += succOffset[i];
+				predOffset[i + 1] += predOffset[i];
+			}
+
+			// Arcs are sorted by source, and then by target, so both lists come out sorted
+			final int[] succ = new int[m];
+			final int[] pred = new int[m];
+			final int[] next = Arrays.copyOf(predOffset, n);
+			for (int i = 0; i < m; i++) {
+				final int x = (int)(arc[i] >>> 32);
+				final int y = (int)arc[i];
+				succ[i] = y;
+				pred[next[y]++] = x;
+			}
+
+			return new ImmutableMergedDirectedGraph(id, succOffset, succ, predOffset, pred);
+		}
+	}
+
+	/** The sorted node identifiers; the index of a node is its position in this array. */
+	private final long[] node;
+	/** For each node index, the offset of its successors in {@link #succ}, followed by {@link #succ succ.length}. */
+	private final int[] succOffset;
+	/** The concatenation of the sorted successor lists, as node indices. */
+	private final int[] succ;
+	/** For each node index, the offset of its predecessors in {@link #pred}, followed by {@link #pred pred.length}. */
+	private final int[] predOffset;
+	/** The concatenation of the sorted predecessor lists, as node indices. */
+	private final int[] pred;
+
+	protected ImmutableMergedDirectedGraph(final long[] node, final int[] succOffset, final int[] succ, final int[] predOffset, final int[] pred) {
+		this.node = node;
+		this.succOffset = succOffset;
+		this.succ = succ;
+		this.predOffset = predOffset;
+		this.pred = pred;
+	}
+
+	private int index(final long node) {
+		final int index = Arrays.binarySearch(this.node, node);
+		if (index < 0) throw new IllegalArgumentException("No such node: " + node);
+		return index;
+	}
+
+	private LongList toList(final int[] a, final int from, final int to) {
+		final long[] s = new long[to - from];
+		for (int i = from; i < to; i++) s[i - from] = node[a[i]];
+		return LongArrayList.wrap(s);
+	}
+
+	private LongIterator toIterator(final int[] a, final int from, final int to) {
+		return new LongIterator() {
+			private int i = from;
+
+			@Override
+			public boolean hasNext() {
+				return i < to;
+			}
+
+			@Override
+			public long nextLong() {
+				if (i >= to) throw new NoSuchElementException();
+				return node[a[i++]];
+			}
+		};
+	}
+
+	@Override
+	public int numNodes() {
+		return node.length;
+	}
+
+	@Override
+	public long numArcs() {
+		return succ.length;
+	}
+
+	@Override
+	public LongList successors(final long node) {
+		final int x = index(node);
+		return toList(succ, succOffset[x], succOffset[x + 1]);
+	}
+
+	@Override
+	public LongIterator successorIterator(final long node) {
+		final int x = index(node);
+		return toIterator(succ, succOffset[x], succOffset[x + 1]);
+	}
+
+	@Override
+	public int outdegree(final long node) {
+		final int x = index(node);
+		return succOffset[x + 1] - succOffset[x];
+	}
+
+	@Override
+	public LongList predecessors(final long node) {
+		final int x = index(node);
+		return toList(pred, predOffset[x], predOffset[x + 1]);
+	}
+
+	@Override
+	public LongIterator predecessorIterator(final long node) {
+		final int x = index(node);
+		return toIterator(pred, predOffset[x], predOffset[x + 1]);
+	}
+
+	@Override
+	public int indegree(final long node) {
+		final int x = index(node);
+		return predOffset[x + 1] - predOffset[x];
+	}
+
+	@Override
+	public int outDegreeOf(final Long vertex) {
+		return outdegree(vertex);
+	}
+
+	@Override
+	public int inDegreeOf(final Long vertex) {
+		return indegree(vertex);
+	}
+
+	@Override
+	public boolean containsEdge(final Long sourceVertex, final Long targetVertex) {
+		final int x = Arrays.binarySearch(node, sourceVertex);
+		final int y = Arrays.binarySearch(node, targetVertex);
+		return x >= 0 && y >= 0 && Arrays.binarySearch(succ, succOffset[x], succOffset[x + 1], y) >= 0;
+	}
+
+	@Override
+	public boolean containsEdge(final LongLongPair e) {
+		return containsEdge(e.leftLong(), e.rightLong());
+	}
+
+	@Override
+	public LongLongPair getEdge(final Long sourceVertex, final Long targetVertex) {
+		return containsEdge(sourceVertex, targetVertex) ? LongLongPair.of(sourceVertex, targetVertex) : null;
+	}
+
+	@Override
+	public LongSet nodes() {
+		return new AbstractLongSet() {
+			@Override
+			public boolean contains(final long k) {
+				return Arrays.binarySearch(node, k) >= 0;
+			}
+
+			@Override
+			public LongIterator iterator() {
+				return ImmutableMergedDirectedGraph.this.iterator();
+			}
+
+			@Override
+			public int size() {
+				return node.length;
+			}
+		};
+	}
+
+	@Override
+	public LongIterator iterator() {
+		return LongIterators.wrap(node);
+	}
+
+	@Override
+	public LongSet externalNodes() {
+		return LongSets.EMPTY_SET;
+	}
+
+	@Override
+	public boolean isInternal(final long node) {
+		return false;
+	}
+
+	@Override
+	public boolean isExternal(final long node) {
+		return false;
+	}
+}
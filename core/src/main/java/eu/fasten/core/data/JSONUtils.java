@@ -1,5 +1,11 @@
 package eu.fasten.core.data;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +16,12 @@ import org.apache.commons.lang3.tuple.Pair;
 
 public class JSONUtils {
 
+    /**
+     * The number of characters above which {@link #writeJSON(ExtendedRevisionJavaCallGraph, Writer)}
+     * hands the JSON built so far to its writer.
+     */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
     public static String toJSONString(final DirectedGraph graph, final MavenCoordinate coordinate) {
         var result = new StringBuilder("{");
         appendArtifactInformation(result, coordinate, graph.numNodes());
@@ -68,9 +80,58 @@ public class JSONUtils {
      */
     public static String toJSONString(final ExtendedRevisionJavaCallGraph erjcg) {
         var result = new StringBuilder("{");
+        appendCallGraph(result, erjcg, null);
+        return result.toString();
+    }
+
+    /**
+     * Writes an {@link ExtendedRevisionJavaCallGraph} object as JSON to a {@link Writer}. The
+     * output is the same as that of {@link #toJSONString(ExtendedRevisionJavaCallGraph)}, but
+     * only a bounded part of it (plus one type or call) is kept in memory at any time.
+     *
+     * @param erjcg an object of java revision call graph to be written as JSON.
+     * @param out   the Writer to write the JSON to; it is flushed, but not closed.
+     * @throws IOException if writing fails.
+     */
+    public static void writeJSON(final ExtendedRevisionJavaCallGraph erjcg, final Writer out)
+            throws IOException {
+        var result = new StringBuilder(WRITE_BUFFER_SIZE + WRITE_BUFFER_SIZE / 4).append("{");
+        try {
+            appendCallGraph(result, erjcg, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.append(result);
+        out.flush();
+    }
+
+    /**
+     * Writes an {@link ExtendedRevisionJavaCallGraph} object as UTF-8 encoded JSON to an
+     * {@link OutputStream}.
+     *
+     * @param erjcg an object of java revision call graph to be written as JSON.
+     * @param out   the OutputStream to write the JSON to; it is flushed, but not closed.
+     * @throws IOException if writing fails.
+     * @see #writeJSON(ExtendedRevisionJavaCallGraph, Writer)
+     */
+    public static void writeJSON(final ExtendedRevisionJavaCallGraph erjcg, final OutputStream out)
+            throws IOException {
+        writeJSON(erjcg, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends an {@link ExtendedRevisionJavaCallGraph} to the StringBuilder, which must contain
+     * the opening brace, handing the StringBuilder to a Writer whenever it grows too large.
+     *
+     * @param result the StringBuilder to append the call graph to.
+     * @param erjcg  the call graph.
+     * @param out    the Writer to hand the StringBuilder to, or null to keep everything in it.
+     */
+    private static void appendCallGraph(StringBuilder result,
+                                        final ExtendedRevisionJavaCallGraph erjcg, final Writer out) {
         appendArtifactInformation(result, erjcg);
-        appendCha(result, erjcg.classHierarchy);
-        appendGraph(result, erjcg.getGraph());
+        appendCha(result, erjcg.classHierarchy, out);
+        appendGraph(result, erjcg.getGraph(), out);
         if (erjcg.timestamp >= 0) {
             appendKeyValue(result, "timestamp", erjcg.timestamp, true);
         }
@@ -78,7 +139,26 @@ public class JSONUtils {
             result.setLength(result.length() - 1);
         }
         result.append("}");
-        return result.toString();
+    }
+
+    /**
+     * Writes all but the last character of the StringBuilder to a Writer and removes them, if
+     * the StringBuilder is larger than {@link #WRITE_BUFFER_SIZE}. The last character is kept
+     * because it might be a "," that {@link #removeLastIfNotEmpty(StringBuilder, int)} removes.
+     *
+     * @param result the StringBuilder to write from.
+     * @param out    the Writer to write to, or null to do nothing.
+     */
+    private static void flushIfFull(StringBuilder result, final Writer out) {
+        if (out == null || result.length() < WRITE_BUFFER_SIZE) {
+            return;
+        }
+        try {
+            out.append(result, 0, result.length() - 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.delete(0, result.length() - 1);
     }
 
     /**
@@ -101,11 +181,13 @@ public class JSONUtils {
      *
      * @param graph  the graph object to extract the information from.
      * @param result the StringBuilder to append the information.
+     * @param out    the Writer to hand the StringBuilder to when it grows too large, or null.
      */
-    private static void appendGraph(StringBuilder result, final JavaGraph graph) {
+    private static void appendGraph(StringBuilder result, final JavaGraph graph, final Writer out) {
         result.append("\"call-sites\":[");
         for (final var entry : graph.getCallSites().entrySet()) {
             appendCall(result, entry);
+            flushIfFull(result, out);
         }
         removeLastIfNotEmpty(result, graph.getCallSites().size());
         result.append("],");
@@ -162,24 +244,28 @@ public class JSONUtils {
      *
      * @param cha    the cha Map to extract the information from.
      * @param result the StringBuilder to append information.
+     * @param out    the Writer to hand the StringBuilder to when it grows too large, or null.
      */
     private static void appendCha(StringBuilder result, final Map<JavaScope,
-            Map<String, JavaType>> cha) {
+            Map<String, JavaType>> cha, final Writer out) {
         result.append("\"cha\":{\"externalTypes\":{");
         for (final var entry : cha.get(JavaScope.externalTypes).entrySet()) {
             appendType(result, entry.getKey(), entry.getValue());
+            flushIfFull(result, out);
         }
         removeLastIfNotEmpty(result, cha.get(JavaScope.externalTypes).size());
 
         result.append("},\"internalTypes\":{");
         for (final var entry : cha.get(JavaScope.internalTypes).entrySet()) {
             appendType(result, entry.getKey(), entry.getValue());
+            flushIfFull(result, out);
         }
         removeLastIfNotEmpty(result, cha.get(JavaScope.internalTypes).size());
 
         result.append("},\"resolvedTypes\":{");
         for (final var entry : cha.get(JavaScope.resolvedTypes).entrySet()) {
             appendType(result, entry.getKey(), entry.getValue());
+            flushIfFull(result, out);
         }
         removeLastIfNotEmpty(result, cha.get(JavaScope.resolvedTypes).size());
 
@@ -1,7 +1,7 @@
 package eu.fasten.core.data;
 
-import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.longs.LongLongPair;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
@@ -9,7 +9,7 @@ import it.unimi.dsi.fastutil.longs.LongSet;
 import org.jgrapht.graph.DefaultDirectedGraph;
 
 import java.io.Serializable;
-import java.util.stream.Collectors;
+import java.util.Iterator;
 import org.jgrapht.graph.DefaultEdge;
 
 public class MergedDirectedGraph extends DefaultDirectedGraph<Long, LongLongPair> implements DirectedGraph, Serializable {
@@ -34,14 +34,54 @@ public class MergedDirectedGraph extends DefaultDirectedGraph<Long, LongLongPair
 
     @Override
     public LongList successors(long node) {
-        return new LongArrayList(
-                this.outgoingEdgesOf(node).stream().map(LongLongPair::rightLong).collect(Collectors.toList()));
+        return LongIterators.pour(successorIterator(node));
+    }
+
+    @Override
+    public LongIterator successorIterator(long node) {
+        final Iterator<LongLongPair> edges = this.outgoingEdgesOf(node).iterator();
+        return new LongIterator() {
+            @Override
+            public boolean hasNext() {
+                return edges.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return edges.next().rightLong();
+            }
+        };
+    }
+
+    @Override
+    public int outdegree(long node) {
+        return this.outDegreeOf(node);
     }
 
     @Override
     public LongList predecessors(long node) {
-        return new LongArrayList(
-                this.incomingEdgesOf(node).stream().map(LongLongPair::leftLong).collect(Collectors.toList()));
+        return LongIterators.pour(predecessorIterator(node));
+    }
+
+    @Override
+    public LongIterator predecessorIterator(long node) {
+        final Iterator<LongLongPair> edges = this.incomingEdgesOf(node).iterator();
+        return new LongIterator() {
+            @Override
+            public boolean hasNext() {
+                return edges.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return edges.next().leftLong();
+            }
+        };
+    }
+
+    @Override
+    public int indegree(long node) {
+        return this.inDegreeOf(node);
     }
 
     @Override
@@ -71,6 +111,22 @@ public class MergedDirectedGraph extends DefaultDirectedGraph<Long, LongLongPair
     }
 
 
+    /**
+     * Returns an immutable, compact copy of this graph.
+     *
+     * @return an {@link ImmutableMergedDirectedGraph} with the same nodes and arcs as this graph.
+     */
+    public ImmutableMergedDirectedGraph freeze() {
+        final var builder = new ImmutableMergedDirectedGraph.Builder();
+        for (final Long node : this.vertexSet()) {
+            builder.addNode(node);
+        }
+        for (final LongLongPair edge : this.edgeSet()) {
+            builder.addArc(edge.leftLong(), edge.rightLong());
+        }
+        return builder.build();
+    }
+
     public boolean addInternalNode(long node) {
         return addVertex(node);
     }
@@ -134,7 +134,7 @@ public class QueryDependentCentralities {
 				}
 
 				// Note that we are reversing the computation
-				final LongIterator iterator = graph.successors(gid).iterator();
+				final LongIterator iterator = graph.successorIterator(gid);
 
 				while (iterator.hasNext()) {
 					final long x = iterator.nextLong();
@@ -191,7 +191,7 @@ public class QueryDependentCentralities {
 				}
 
 				// Note that we are reversing the computation
-				final LongIterator iterator = graph.successors(gid).iterator();
+				final LongIterator iterator = graph.successorIterator(gid);
 
 				while (iterator.hasNext()) {
 					final long x = iterator.nextLong();
@@ -241,7 +241,7 @@ public class QueryDependentCentralities {
 				}
 
 				// Note that we are reversing the computation
-				final LongIterator iterator = graph.successors(gid).iterator();
+				final LongIterator iterator = graph.successorIterator(gid);
 
 				while (iterator.hasNext()) {
 					final long x = iterator.nextLong();
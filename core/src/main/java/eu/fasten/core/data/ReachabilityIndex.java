@@ -0,0 +1,445 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+
+/**
+ * A transitive-reachability index for a {@link DirectedGraph}.
+ *
+ * <p>
+ * The index is built once per graph and answers point queries (&ldquo;does <var>x</var> reach
+ * <var>y</var>?&rdquo;) with two hash lookups and a bit test, and set queries (&ldquo;what does
+ * <var>x</var> reach?&rdquo;) in time proportional to the size of the answer plus one bit per
+ * strongly connected component.
+ *
+ * <p>
+ * The graph is first condensed into its strongly connected components, which are numbered by
+ * Tarjan's algorithm in reverse topological order, so that every component reaches only
+ * components with a smaller or equal number. Each component then stores the bit set of the
+ * components it reaches; since reachable components are numbered close to each other in
+ * practice, each bit set keeps only the words between the lowest reachable component and the
+ * component itself.
+ *
+ * <p>
+ * The index is subject to a memory cap: if the estimated size of the index exceeds the cap, no
+ * index is built and queries are answered by breadth-first visits of the graph
+ * ({@link #isIndexed()} will return false). In both cases, reachability is reflexive (every node
+ * reaches itself) and nodes not in the graph reach, and are reached by, nothing.
+ *
+ * <p>
+ * Instances are immutable and can be queried concurrently, provided that the graph is not modified.
+ */
+
+public class ReachabilityIndex {
+
+	/** The default memory cap, in bytes. */
+	public static final long DEFAULT_MAX_BYTES = 256L << 20;
+	/** Estimated number of bytes used by the node maps for each node of the graph. */
+	private static final long BYTES_PER_NODE = 8 + 4 + 4 + 24;
+	/** Estimated number of bytes used for each component, besides its bit set. */
+	private static final long BYTES_PER_COMPONENT = 4 + 4 + 16;
+
+	/** The indexed graph. */
+	private final DirectedGraph graph;
+	/** Maps GIDs to node indices; {@code null} if the graph is not indexed. */
+	private final Long2IntOpenHashMap gid2Node;
+	/** The component of each node. */
+	private final int[] component;
+	/** The GIDs of the nodes of each component, by component. */
+	private final long[] componentGids;
+	/** The offset of the first GID of each component in {@link #componentGids} (plus a final sentinel). */
+	private final int[] componentStart;
+	/** The index of the first word of the bit set of each component. */
+	private final int[] base;
+	/** The bit sets of the components reachable from each component, starting from word {@link #base}. */
+	private final long[][] bits;
+	/** The estimated size of the index, in bytes. */
+	private final long size;
+
+	/**
+	 * Builds an index for the given graph using the {@linkplain #DEFAULT_MAX_BYTES default memory
+	 * cap}.
+	 *
+	 * @param graph a directed graph.
+	 */
+	public ReachabilityIndex(final DirectedGraph graph) {
+		this(graph, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Builds an index for the given graph, unless it would be larger than the given memory cap.
+	 *
+	 * @param graph a directed graph.
+	 * @param maxBytes the maximum estimated size of the index, in bytes; if the index would be
+	 *            larger, queries will be answered by visiting the graph.
+	 */
+	public ReachabilityIndex(final DirectedGraph graph, final long maxBytes) {
+		this.graph = graph;
+		final int n = graph.numNodes();
+		long size = BYTES_PER_NODE * n;
+
+		if (size + BYTES_PER_COMPONENT * n > maxBytes) {
+			// Not even the node maps would fit
+			gid2Node = null;
+			component = componentStart = base = null;
+			componentGids = null;
+			bits = null;
+			this.size = 0;
+			return;
+		}
+
+		// Map nodes to indices and build successor lists
+		final long[] node2Gid = new long[n];
+		final Long2IntOpenHashMap gid2Node = new Long2IntOpenHashMap(n);
+		gid2Node.defaultReturnValue(-1);
+		int i = 0;
+		for (final LongIterator iterator = graph.iterator(); iterator.hasNext(); i++) {
+			final long gid = iterator.nextLong();
+			node2Gid[i] = gid;
+			gid2Node.put(gid, i);
+		}
+
+		final int[] offset = new int[n + 1];
+		int[] successors = new int[Math.max(16, (int)Math.min(Integer.MAX_VALUE - 8, graph.numArcs()))];
+		int arcs = 0;
+		for (int x = 0; x < n; x++) {
+			for (final LongIterator iterator = graph.successorIterator(node2Gid[x]); iterator.hasNext();) {
+				final int y = gid2Node.get(iterator.nextLong());
+				if (y == -1) continue;
+				if (arcs == successors.length) successors = Arrays.copyOf(successors, (int)Math.min(Integer.MAX_VALUE - 8, 2L * arcs));
+				successors[arcs++] = y;
+			}
+			offset[x + 1] = arcs;
+		}
+
+		final int[] component = new int[n];
+		final int numComponents = components(n, offset, successors, component);
+
+		// Group GIDs by component
+		final int[] componentStart = new int[numComponents + 1];
+		for (int x = 0; x < n; x++) componentStart[component[x] + 1]++;
+		for (int c = 0; c < numComponents; c++) componentStart[c + 1] += componentStart[c];
+		final int[] nodes = new int[n];
+		final int[] next = Arrays.copyOf(componentStart, numComponents);
+		for (int x = 0; x < n; x++) nodes[next[component[x]]++] = x;
+
+		// Components reach only components with a smaller number, so their bases can be computed in order
+		final int[] base = new int[numComponents];
+		for (int c = 0; c < numComponents; c++) {
+			int b = c >>> 6;
+			for (int k = componentStart[c]; k < componentStart[c + 1]; k++) {
+				final int x = nodes[k];
+				for (int a = offset[x]; a < offset[x + 1]; a++) {
+					final int d = component[successors[a]];
+					// Arcs within the component (e.g., self-loops) do not extend its bit set
+					if (d != c) b = Math.min(b, base[d]);
+				}
+			}
+			base[c] = b;
+			size += BYTES_PER_COMPONENT + 16 + 8L * ((c >>> 6) - b + 1);
+		}
+
+		if (size > maxBytes) {
+			this.gid2Node = null;
+			this.component = this.componentStart = this.base = null;
+			this.componentGids = null;
+			this.bits = null;
+			this.size = 0;
+			return;
+		}
+
+		final long[][] bits = new long[numComponents][];
+		// The last component whose bit set has been merged into the current one
+		final int[] merged = new int[numComponents];
+		Arrays.fill(merged, -1);
+		for (int c = 0; c < numComponents; c++) {
+			final long[] b = bits[c] = new long[(c >>> 6) - base[c] + 1];
+			b[(c >>> 6) - base[c]] |= 1L << c;
+			merged[c] = c;
+			for (int k = componentStart[c]; k < componentStart[c + 1]; k++) {
+				final int x = nodes[k];
+				for (int a = offset[x]; a < offset[x + 1]; a++) {
+					final int d = component[successors[a]];
+					if (merged[d] == c) continue;
+					merged[d] = c;
+					final long[] s = bits[d];
+					final int shift = base[d] - base[c];
+					for (int w = s.length; w-- != 0;) b[w + shift] |= s[w];
+				}
+			}
+		}
+
+		final long[] componentGids = new long[n];
+		for (int k = 0; k < n; k++) componentGids[k] = node2Gid[nodes[k]];
+
+		this.gid2Node = gid2Node;
+		this.component = component;
+		this.componentGids = componentGids;
+		this.componentStart = componentStart;
+		this.base = base;
+		this.bits = bits;
+		this.size = size;
+	}
+
+	/**
+	 * Computes the strongly connected components of a graph using an iterative version of Tarjan's
+	 * algorithm.
+	 *
+	 * @param n the number of nodes.
+	 * @param offset the offset of the successors of each node in {@code successors} (plus a final
+	 *            sentinel).
+	 * @param successors the concatenated successor lists.
+	 * @param component an array that will be filled with the component of each node; components are
+	 *            numbered in reverse topological order.
+	 * @return the number of components.
+	 */
+	private static int components(final int n, final int[] offset, final int[] successors, final int[] component) {
+		final int[] index = new int[n];
+		final int[] low = new int[n];
+		final int[] arc = new int[n];
+		final int[] stack = new int[n];
+		final int[] visit = new int[n];
+		Arrays.fill(index, -1);
+		Arrays.fill(component, -1);
+		int counter = 0, sp = 0, numComponents = 0;
+
+		for (int r = 0; r < n; r++) {
+			if (index[r] != -1) continue;
+			int depth = 0;
+			visit[0] = r;
+			index[r] = low[r] = counter++;
+			arc[r] = offset[r];
+			stack[sp++] = r;
+
+			while (depth >= 0) {
+				final int v = visit[depth];
+				if (arc[v] < offset[v + 1]) {
+					final int w = successors[arc[v]++];
+					if (index[w] == -1) {
+						index[w] = low[w] = counter++;
+						arc[w] = offset[w];
+						stack[sp++] = w;
+						visit[++depth] = w;
+					} else if (component[w] == -1) low[v] = Math.min(low[v], index[w]); // w is on the stack
+				} else {
+					if (low[v] == index[v]) {
+						int w;
+						do {
+							w = stack[--sp];
+							component[w] = numComponents;
+						} while (w != v);
+						numComponents++;
+					}
+					if (--depth >= 0) {
+						final int u = visit[depth];
+						low[u] = Math.min(low[u], low[v]);
+					}
+				}
+			}
+		}
+
+		return numComponents;
+	}
+
+	/**
+	 * Returns whether queries are answered using the index, rather than by visiting the graph.
+	 *
+	 * @return true if the index fitted the memory cap.
+	 */
+	public boolean isIndexed() {
+		return bits != null;
+	}
+
+	/**
+	 * Returns the number of strongly connected components of the graph.
+	 *
+	 * @return the number of strongly connected components, or -1 if the graph is not
+	 *         {@linkplain #isIndexed() indexed}.
+	 */
+	public int numComponents() {
+		return bits == null ? -1 : bits.length;
+	}
+
+	/**
+	 * Returns the estimated size of the index.
+	 *
+	 * @return the estimated size of the index in bytes, or zero if the graph is not
+	 *         {@linkplain #isIndexed() indexed}.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns whether a node reaches another node.
+	 *
+	 * @param source a node.
+	 * @param target another node.
+	 * @return true if there is a (possibly empty) path from {@code source} to {@code target}.
+	 */
+	public boolean reaches(final long source, final long target) {
+		if (bits == null) {
+			if (!graph.nodes().contains(target)) return false;
+			return visit(LongSets.singleton(source), true, Long.valueOf(target)) == null;
+		}
+		final int s = gid2Node.get(source);
+		final int t = gid2Node.get(target);
+		if (s == -1 || t == -1) return false;
+		final int cs = component[s], ct = component[t];
+		if (ct > cs) return false;
+		final int word = (ct >>> 6) - base[cs];
+		return word >= 0 && (bits[cs][word] & 1L << ct) != 0;
+	}
+
+	/**
+	 * Returns the nodes reachable from a node.
+	 *
+	 * @param source a node.
+	 * @return the set of nodes reachable from {@code source}, including {@code source}.
+	 */
+	public LongSet reachable(final long source) {
+		return reachable(LongSets.singleton(source));
+	}
+
+	/**
+	 * Returns the nodes reachable from a set of nodes.
+	 *
+	 * @param sources a set of nodes; nodes not in the graph will be ignored.
+	 * @return the set of nodes reachable from some node in {@code sources}, including the nodes of
+	 *         {@code sources} in the graph.
+	 */
+	public LongSet reachable(final LongCollection sources) {
+		if (bits == null) return visit(sources, true, null);
+		final long[] union = new long[(bits.length + 63) >>> 6];
+		for (final LongIterator iterator = sources.iterator(); iterator.hasNext();) {
+			final int s = gid2Node.get(iterator.nextLong());
+			if (s == -1) continue;
+			final long[] b = bits[component[s]];
+			final int shift = base[component[s]];
+			for (int w = b.length; w-- != 0;) union[w + shift] |= b[w];
+		}
+		return gids(union);
+	}
+
+	/**
+	 * Returns the nodes coreachable from a node, that is, the nodes reaching it.
+	 *
+	 * @param target a node.
+	 * @return the set of nodes reaching {@code target}, including {@code target}.
+	 */
+	public LongSet coreachable(final long target) {
+		return coreachable(LongSets.singleton(target));
+	}
+
+	/**
+	 * Returns the nodes coreachable from a set of nodes, that is, the nodes reaching some of them.
+	 *
+	 * @param targets a set of nodes; nodes not in the graph will be ignored.
+	 * @return the set of nodes reaching some node in {@code targets}, including the nodes of
+	 *         {@code targets} in the graph.
+	 */
+	public LongSet coreachable(final LongCollection targets) {
+		if (bits == null) return visit(targets, false, null);
+		final long[] targetComponents = new long[(bits.length + 63) >>> 6];
+		int min = Integer.MAX_VALUE, max = -1;
+		for (final LongIterator iterator = targets.iterator(); iterator.hasNext();) {
+			final int t = gid2Node.get(iterator.nextLong());
+			if (t == -1) continue;
+			final int c = component[t];
+			targetComponents[c >>> 6] |= 1L << c;
+			min = Math.min(min, c);
+			max = Math.max(max, c);
+		}
+
+		final long[] result = new long[targetComponents.length];
+		// Only components with a number not smaller than that of a target can reach it
+		for (int c = min; c < bits.length; c++) {
+			final long[] b = bits[c];
+			final int from = Math.max(base[c], min >>> 6), to = Math.min(c >>> 6, max >>> 6);
+			for (int w = from; w <= to; w++) {
+				if ((b[w - base[c]] & targetComponents[w]) != 0) {
+					result[c >>> 6] |= 1L << c;
+					break;
+				}
+			}
+		}
+		return gids(result);
+	}
+
+	/**
+	 * Returns the GIDs of the nodes of a set of components.
+	 *
+	 * @param components a bit set of components.
+	 * @return the set of GIDs of the nodes of the given components.
+	 */
+	private LongSet gids(final long[] components) {
+		final LongOpenHashSet result = new LongOpenHashSet();
+		for (int w = 0; w < components.length; w++) {
+			for (long word = components[w]; word != 0; word &= word - 1) {
+				final int c = w << 6 | Long.numberOfTrailingZeros(word);
+				for (int k = componentStart[c]; k < componentStart[c + 1]; k++) result.add(componentGids[k]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Performs a breadth-first visit of the graph, used when the graph is not indexed.
+	 *
+	 * @param seed the nodes from which the visit starts; nodes not in the graph will be ignored.
+	 * @param forward if true, the visit follows arcs; if false, the visit follows arcs backwards.
+	 * @param stop if not {@code null}, the visit will stop as soon as it reaches this node, returning
+	 *            {@code null}.
+	 * @return the set of visited nodes, or {@code null} if {@code stop} was reached.
+	 */
+	private LongSet visit(final LongCollection seed, final boolean forward, final Long stop) {
+		final LongSet nodes = graph.nodes();
+		final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+		final LongOpenHashSet seen = new LongOpenHashSet();
+		for (final LongIterator iterator = seed.iterator(); iterator.hasNext();) {
+			final long gid = iterator.nextLong();
+			if (nodes.contains(gid) && seen.add(gid)) queue.enqueue(gid);
+		}
+
+		while (!queue.isEmpty()) {
+			final long gid = queue.dequeueLong();
+			if (stop != null && gid == stop.longValue()) return null;
+			for (final LongIterator iterator = forward ? graph.successorIterator(gid) : graph.predecessorIterator(gid); iterator.hasNext();) {
+				final long x = iterator.nextLong();
+				if (seen.add(x)) queue.enqueue(x);
+			}
+		}
+		return seen;
+	}
+
+	@Override
+	public String toString() {
+		if (bits == null) return "Reachability index for " + graph.numNodes() + " nodes (not indexed: visits will be used)";
+		return "Reachability index for " + graph.numNodes() + " nodes, " + bits.length + " components, " + size + " bytes";
+	}
+}
@@ -1,6 +1,7 @@
 package eu.fasten.core.data.graphdb;
 
 import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Properties;
 
 import eu.fasten.core.data.DirectedGraph;
@@ -12,7 +13,9 @@ import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
 import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.LazyIntIterator;
 
 /** Instances of this class contain the data relative to a call graph that are stored in the database. */
 public class CallGraphData implements DirectedGraph {
@@ -48,6 +51,32 @@ public class CallGraphData implements DirectedGraph {
 		this.nodes = new LongOpenHashSet(LID2GID);
 	}
 
+	private CallGraphData(final CallGraphData callGraphData) {
+		this.graph = callGraphData.graph.copy();
+		this.transpose = callGraphData.transpose.copy();
+		this.graphProperties = callGraphData.graphProperties;
+		this.transposeProperties = callGraphData.transposeProperties;
+		this.LID2GID = callGraphData.LID2GID;
+		this.GID2LID = callGraphData.GID2LID;
+		this.externalNodes = callGraphData.externalNodes;
+		this.size = callGraphData.size;
+		this.nodes = callGraphData.nodes;
+	}
+
+	/**
+	 * Returns a lightweight copy of this call graph that can be safely used by a different thread.
+	 *
+	 * <p>
+	 * The underlying compressed graphs are {@linkplain ImmutableGraph#copy() copied}, whereas all
+	 * other (immutable) data is shared; for this reason, {@link #nodes()} and {@link #externalNodes()}
+	 * return unmodifiable views.
+	 *
+	 * @return a lightweight copy of this call graph.
+	 */
+	public CallGraphData copy() {
+		return new CallGraphData(this);
+	}
+
 	@Override
 	public int numNodes() {
 		return graph.numNodes();
@@ -58,29 +87,84 @@ public class CallGraphData implements DirectedGraph {
 		return graph.numArcs();
 	}
 
-	@Override
-	public LongList successors(final long node) {
+	/**
+	 * Maps a node to its LID.
+	 *
+	 * @param node a GID.
+	 * @return the LID of <code>node</code>.
+	 * @throws IllegalArgumentException if <code>node</code> is not a node of the graph.
+	 */
+	private int lid(final long node) {
 		final int lid = (int)GID2LID.getLong(node);
 		if (lid < 0 || lid >= numNodes() || LID2GID[lid] != node) throw new IllegalArgumentException("GID " + node + " does not exist");
-		final int outdegree = graph.outdegree(lid);
-		final LongArrayList gidList = new LongArrayList(outdegree);
-		for (final int s: graph.successorArray(lid)) gidList.add(LID2GID[s]);
+		return lid;
+	}
+
+	/**
+	 * An iterator returning the GIDs corresponding to the LIDs returned by a {@link LazyIntIterator}.
+	 */
+	private final class GIDIterator implements LongIterator {
+		private final LazyIntIterator lids;
+		private int next;
+
+		private GIDIterator(final LazyIntIterator lids) {
+			this.lids = lids;
+			this.next = lids.nextInt();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != -1;
+		}
+
+		@Override
+		public long nextLong() {
+			if (next == -1) throw new NoSuchElementException();
+			final long gid = LID2GID[next];
+			next = lids.nextInt();
+			return gid;
+		}
+	}
+
+	@Override
+	public LongList successors(final long node) {
+		final int lid = lid(node);
+		final LongArrayList gidList = new LongArrayList(graph.outdegree(lid));
+		LongIterators.pour(new GIDIterator(graph.successors(lid)), gidList);
 		return gidList;
 	}
 
+	@Override
+	public LongIterator successorIterator(final long node) {
+		return new GIDIterator(graph.successors(lid(node)));
+	}
+
+	@Override
+	public int outdegree(final long node) {
+		return graph.outdegree(lid(node));
+	}
+
 	@Override
 	public LongList predecessors(final long node) {
-		final int lid = (int)GID2LID.getLong(node);
-		if (lid < 0 || lid >= numNodes() || LID2GID[lid] != node) throw new IllegalArgumentException("GID " + node + " does not exist");
-		final int indegree = transpose.outdegree(lid);
-		final LongArrayList gidList = new LongArrayList(indegree);
-		for (final int s: transpose.successorArray(lid)) gidList.add(LID2GID[s]);
+		final int lid = lid(node);
+		final LongArrayList gidList = new LongArrayList(transpose.outdegree(lid));
+		LongIterators.pour(new GIDIterator(transpose.successors(lid)), gidList);
 		return gidList;
 	}
 
+	@Override
+	public LongIterator predecessorIterator(final long node) {
+		return new GIDIterator(transpose.successors(lid(node)));
+	}
+
+	@Override
+	public int indegree(final long node) {
+		return transpose.outdegree(lid(node));
+	}
+
 	@Override
 	public LongSet nodes() {
-		return nodes;
+		return LongSets.unmodifiable(nodes);
 	}
 
 	@Override
@@ -90,7 +174,7 @@ public class CallGraphData implements DirectedGraph {
 
 	@Override
 	public LongSet externalNodes() {
-		return externalNodes;
+		return LongSets.unmodifiable(externalNodes);
 	}
 
 	@Override
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.graphdb;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import eu.fasten.core.data.DirectedGraph;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+/**
+ * A thread-safe LRU cache of decoded {@link DirectedGraph} instances, bounded by the estimated
+ * number of bytes occupied by the cached graphs rather than by the number of entries.
+ *
+ * <p>
+ * The cache is used by {@link RocksDao#getGraphData(long)} to avoid deserializing the same graph
+ * over and over. Graphs returned by {@link #get(long)} are safe to use from the calling thread:
+ * instances of {@link CallGraphData} are {@linkplain CallGraphData#copy() copied}, as the underlying
+ * compressed graphs are not thread-safe, whereas other implementations are assumed to be immutable.
+ *
+ * <p>
+ * To avoid caching stale data, a graph loaded before an {@linkplain #invalidate(long) invalidation}
+ * will be discarded by {@link #put(long, DirectedGraph, int, long)}: callers must obtain a stamp
+ * with {@link #stamp()} <em>before</em> reading the data from the database.
+ */
+public class GraphCache {
+    /** Estimated overhead in bytes, per node, of the data structures built when decoding a graph. */
+    private static final long NODE_OVERHEAD = 32;
+
+    private static final class Entry {
+        private final DirectedGraph graph;
+        private final long size;
+
+        private Entry(final DirectedGraph graph, final long size) {
+            this.graph = graph;
+            this.size = size;
+        }
+    }
+
+    /** The maximum overall estimated size of the cached graphs, in bytes. */
+    private final long maxSize;
+    /** The cached graphs, in access order (least recently used first). */
+    private final Long2ObjectLinkedOpenHashMap<Entry> cache = new Long2ObjectLinkedOpenHashMap<>();
+    /** The current overall estimated size of the cached graphs, in bytes. */
+    private long size;
+    /** Incremented at each invalidation, so that stale loads can be detected. */
+    private long epoch;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize the maximum overall estimated size in bytes of the cached graphs; if zero, the
+     *                cache will never contain any graph.
+     */
+    public GraphCache(final long maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("Negative cache size: " + maxSize);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Estimates the amount of memory used by a decoded graph.
+     *
+     * @param graph          a graph.
+     * @param serializedSize the size in bytes of its serialized form.
+     * @return the estimated size in bytes of {@code graph}.
+     */
+    public static long estimateSize(final DirectedGraph graph, final int serializedSize) {
+        return serializedSize + NODE_OVERHEAD * graph.numNodes();
+    }
+
+    /**
+     * Returns a stamp that must be passed to {@link #put(long, DirectedGraph, int, long)}.
+     *
+     * @return a stamp representing the current state of the cache.
+     */
+    public synchronized long stamp() {
+        return epoch;
+    }
+
+    /**
+     * Returns the graph associated with an index, if present.
+     *
+     * @param index the index of a graph.
+     * @return the cached graph, or {@code null} if the graph is not in the cache.
+     */
+    public DirectedGraph get(final long index) {
+        final Entry entry;
+        synchronized (this) {
+            entry = cache.getAndMoveToLast(index);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.graph instanceof CallGraphData ? ((CallGraphData)entry.graph).copy() : entry.graph;
+    }
+
+    /**
+     * Caches a graph, evicting least recently used graphs if necessary.
+     *
+     * <p>
+     * The graph will not be cached if it is larger than the cache, or if the cache has been
+     * invalidated after {@code stamp} was obtained.
+     *
+     * @param index          the index of the graph.
+     * @param graph          the graph; it must not be used afterwards by the caller, if it is an
+     *                       instance of {@link CallGraphData}.
+     * @param serializedSize the size in bytes of the serialized form of {@code graph}.
+     * @param stamp          a stamp obtained with {@link #stamp()} before loading {@code graph}.
+     */
+    public void put(final long index, final DirectedGraph graph, final int serializedSize, final long stamp) {
+        final long graphSize = estimateSize(graph, serializedSize);
+        if (graphSize > maxSize) return;
+        synchronized (this) {
+            if (stamp != epoch) return;
+            final Entry old = cache.putAndMoveToLast(index, new Entry(graph, graphSize));
+            if (old != null) size -= old.size;
+            size += graphSize;
+            while (size > maxSize) {
+                size -= cache.removeFirst().size;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes a graph from the cache, and prevents graphs loaded before this call from being cached.
+     *
+     * @param index the index of the graph.
+     */
+    public synchronized void invalidate(final long index) {
+        epoch++;
+        final Entry old = cache.remove(index);
+        if (old != null) size -= old.size;
+    }
+
+    /** Removes all graphs from the cache. */
+    public synchronized void clear() {
+        epoch++;
+        cache.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the number of cached graphs.
+     *
+     * @return the number of cached graphs.
+     */
+    public synchronized int numGraphs() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the overall estimated size of the cached graphs.
+     *
+     * @return the overall estimated size in bytes of the cached graphs.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum overall estimated size of the cached graphs.
+     *
+     * @return the maximum overall estimated size in bytes of the cached graphs.
+     */
+    public long maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get(long)} that found a graph in the cache.
+     *
+     * @return the number of cache hits.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of calls to {@link #get(long)} that did not find a graph in the cache.
+     *
+     * @return the number of cache misses.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of graphs evicted from the cache to make room for other graphs.
+     *
+     * @return the number of evictions.
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "[graphs: " + numGraphs() + ", size: " + size() + "/" + maxSize + ", hits: " + hits() + ", misses: " + misses() + ", evictions: " + evictions() + "]";
+    }
+}
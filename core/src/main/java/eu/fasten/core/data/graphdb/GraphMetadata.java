@@ -26,7 +26,8 @@ import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
  * This class contains the metadata associated with the nodes of a call graph.
  * Such metadata is stored by the {@link RocksDao} class in a suitable column family of the RocksDB
  * database, and can be recovered after reading the graph using
- * {@link RocksDao#getGraphMetadata(long, eu.fasten.core.data.DirectedGraph)}, if needed.
+ * {@link RocksDao#getGraphMetadata(long, eu.fasten.core.data.DirectedGraph)}, if needed, or just
+ * for some nodes using {@link RocksDao#getGraphMetadata(long, it.unimi.dsi.fastutil.longs.LongCollection)}.
  */
 
 public class GraphMetadata {
@@ -24,22 +24,33 @@ import static eu.fasten.core.utils.VariableLengthByteCoder.writeLong;
 import static eu.fasten.core.utils.VariableLengthByteCoder.writeString;
 
 import java.io.Closeable;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.math3.util.Pair;
+import org.rocksdb.AbstractNativeReference;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.CompressionType;
 import org.rocksdb.DBOptions;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.IngestExternalFileOptions;
+import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.SstFileWriter;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +59,7 @@ import com.esotericsoftware.kryo.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
 import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import com.esotericsoftware.kryo.util.Pool;
 import com.google.common.primitives.Longs;
 
 import eu.fasten.core.data.ArrayImmutableDirectedGraph;
@@ -60,15 +72,17 @@ import eu.fasten.core.data.graphdb.GraphMetadata.NodeMetadata;
 import eu.fasten.core.data.graphdb.GraphMetadata.ReceiverRecord;
 import eu.fasten.core.data.graphdb.GraphMetadata.ReceiverRecord.CallType;
 import eu.fasten.core.data.metadatadb.codegen.tables.records.CallSitesRecord;
+import eu.fasten.core.index.BVGraphCompressor;
 import eu.fasten.core.index.BVGraphSerializer;
 import eu.fasten.core.index.LayeredLabelPropagation;
-import eu.fasten.core.legacy.KnowledgeBase;
 import it.unimi.dsi.Util;
 import it.unimi.dsi.fastutil.io.FastByteArrayInputStream;
 import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
 import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongCollection;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
@@ -85,32 +99,62 @@ import it.unimi.dsi.webgraph.Transform;
 public class RocksDao implements Closeable {
 
     private final static byte[] METADATA_COLUMN_FAMILY = "metadata".getBytes();
+    /** The first byte of metadata in indexed format; metadata in legacy format never starts with a zero byte. */
+    private final static byte INDEXED_METADATA_MARKER = 0;
+    /** The version of the indexed metadata format. */
+    private final static byte INDEXED_METADATA_VERSION = 1;
+    /** The default maximum estimated size in bytes of the cache of decoded graphs. */
+    public final static long DEFAULT_GRAPH_CACHE_SIZE = 256L * 1024 * 1024;
     private final RocksDB rocksDb;
     private final ColumnFamilyHandle defaultHandle;
     private ColumnFamilyHandle metadataHandle;
-    private Kryo kryo;
+    /** A pool of Kryo instances, as Kryo is not thread-safe. */
+    private final Pool<Kryo> kryoPool = new Pool<>(true, false) {
+        @Override
+        protected Kryo create() {
+            return createKryo();
+        }
+    };
+    private final GraphCache graphCache;
+    /** Listeners notified with the index of each graph that is saved or deleted. */
+    private final List<LongConsumer> updateListeners = new CopyOnWriteArrayList<>();
+    private final DBOptions dbOptions;
+    private final ColumnFamilyOptions defaultOptions;
+    private ColumnFamilyOptions metadataOptions;
+    /** Native objects created for the tuning options, to be closed with the database. */
+    private final List<AbstractNativeReference> resources = new ArrayList<>();
     private final static Logger logger = LoggerFactory.getLogger(RocksDao.class.getName());
 
     public RocksDao(final String dbDir, final boolean readOnly) throws RocksDBException {
         this(dbDir, readOnly, false);
     }
 
+    public RocksDao(final String dbDir, final boolean readOnly, final boolean onlyDefaultColumnFamily) throws RocksDBException {
+        this(dbDir, readOnly, onlyDefaultColumnFamily, DEFAULT_GRAPH_CACHE_SIZE);
+    }
+
+    public RocksDao(final String dbDir, final boolean readOnly, final boolean onlyDefaultColumnFamily, final long graphCacheSize) throws RocksDBException {
+        this(dbDir, readOnly, onlyDefaultColumnFamily, graphCacheSize, RocksDaoOptions.DEFAULT);
+    }
+
     /**
      * Constructor of RocksDao (Database Access Object).
      *
      * @param dbDir Directory where RocksDB data will be stored
+     * @param graphCacheSize Maximum estimated size in bytes of the cache of decoded graphs (0 disables caching)
+     * @param options Tuning parameters for RocksDB
      * @throws RocksDBException if there is an error loading or opening RocksDB instance
      */
-    public RocksDao(final String dbDir, final boolean readOnly, final boolean onlyDefaultColumnFamily) throws RocksDBException {    // TODO: Remove onlyDefaultColumnFamily
+    public RocksDao(final String dbDir, final boolean readOnly, final boolean onlyDefaultColumnFamily, final long graphCacheSize, final RocksDaoOptions options) throws RocksDBException {    // TODO: Remove onlyDefaultColumnFamily
         RocksDB.loadLibrary();
-		final ColumnFamilyOptions defaultOptions = new ColumnFamilyOptions();
-        ColumnFamilyOptions metadataOptions = null;
+		this.defaultOptions = new ColumnFamilyOptions();
         if (!onlyDefaultColumnFamily) {
-            metadataOptions = new ColumnFamilyOptions().setCompressionType(CompressionType.ZSTD_COMPRESSION);
+            this.metadataOptions = new ColumnFamilyOptions().setCompressionType(CompressionType.ZSTD_COMPRESSION);
         }
-        @SuppressWarnings("resource") final DBOptions dbOptions = new DBOptions()
+        options.apply(onlyDefaultColumnFamily ? List.of(defaultOptions) : List.of(defaultOptions, metadataOptions), resources);
+        this.dbOptions = options.apply(new DBOptions()
                 .setCreateIfMissing(true)
-                .setCreateMissingColumnFamilies(true);
+                .setCreateMissingColumnFamilies(true));
 		final List<ColumnFamilyDescriptor> cfDescriptors = onlyDefaultColumnFamily ?
                 List.of(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, defaultOptions)) :
                 List.of(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, defaultOptions), new ColumnFamilyDescriptor(METADATA_COLUMN_FAMILY, metadataOptions));
@@ -122,11 +166,11 @@ public class RocksDao implements Closeable {
         if (!onlyDefaultColumnFamily) {
             this.metadataHandle = columnFamilyHandles.get(1);
         }
-        initKryo();
+        this.graphCache = new GraphCache(graphCacheSize);
     }
 
-    private void initKryo() {
-        kryo = new Kryo();
+    private static Kryo createKryo() {
+        final Kryo kryo = new Kryo();
         kryo.register(BVGraph.class, new BVGraphSerializer(kryo));
         kryo.register(Boolean.class);
         kryo.register(byte[].class);
@@ -141,6 +185,36 @@ public class RocksDao implements Closeable {
         kryo.register(LongOpenHashSet.class);
         kryo.register(ArrayImmutableDirectedGraph.class);
         kryo.register(GOV3LongFunction.class, new JavaSerializer());
+        return kryo;
+    }
+
+    /**
+     * Returns the cache of decoded graphs used by {@link #getGraphData(long)}.
+     *
+     * @return the cache of decoded graphs.
+     */
+    public GraphCache getGraphCache() {
+        return graphCache;
+    }
+
+    /**
+     * Adds a listener that will be notified with the index of each graph saved or deleted through
+     * this object, after the change has been written to the database.
+     *
+     * <p>Listeners are invoked by the thread performing the change, and must not throw.
+     *
+     * @param listener a listener accepting the index of an updated graph.
+     */
+    public void addUpdateListener(final LongConsumer listener) {
+        updateListeners.add(listener);
+    }
+
+    /**
+     * Invalidates the cached copy of a graph and notifies the update listeners.
+     */
+    private void graphUpdated(final long index) {
+        graphCache.invalidate(index);
+        for (final LongConsumer listener : updateListeners) listener.accept(index);
     }
 
     private GraphMetadata.ReceiverRecord.CallType transformCallType(eu.fasten.core.data.metadatadb.codegen.enums.CallType type) {
@@ -160,54 +234,98 @@ public class RocksDao implements Closeable {
         }
     }
 
-    public void saveToRocksDb(final GidGraph gidGraph) throws IOException, RocksDBException {
-        // Save and obtain graph
-        final DirectedGraph graph = saveToRocksDb(gidGraph.getIndex(), gidGraph.getNodes(), gidGraph.getNumInternalNodes(), gidGraph.getEdges());
-        if (gidGraph instanceof ExtendedGidGraph) {
-            // Save metadata
-			final ExtendedGidGraph extendedGidGraph = (ExtendedGidGraph)gidGraph;
-
-			final Map<Pair<Long, Long>, CallSitesRecord> edgesInfo = extendedGidGraph.getCallsInfo();
-			final Map<Long, String> typeMap = extendedGidGraph.getTypeMap();
-            final Long2ObjectOpenHashMap<List<ReceiverRecord>> map = new Long2ObjectOpenHashMap<>();
-
-            final Map<Long, String> gidToUriMap = extendedGidGraph.getGidToUriMap();
-
-            // Gather data by source and store it in lists of GraphMetadata.ReceiverRecord.
-            edgesInfo.forEach((pair, record) -> map.compute(pair.getFirst().longValue(), (k, list) -> {
-                if (list == null) list = new ArrayList<>();
-                list.add(new ReceiverRecord(record.getLine(), transformCallType(record.getCallType()), gidToUriMap.get(pair.getFirst()), Arrays.stream(record.getReceiverTypeIds()).map(typeMap::get).collect(Collectors.toList())));
-                return list;
-            }));
-
+    /**
+     * A destination for the values of graphs and of their metadata: the database, or a {@link Batch}.
+     */
+    @FunctionalInterface
+    private interface Sink {
+        void put(ColumnFamilyHandle handle, long index, byte[] value, int length) throws RocksDBException;
+    }
 
-            // Serialize information in compact form, following the standard node enumeration order
-            final FastByteArrayOutputStream fbaos = new FastByteArrayOutputStream();
-			for (final LongIterator iterator = graph.iterator(); iterator.hasNext();) {
-                final long node = iterator.nextLong();
+    /**
+     * Inserts a graph, and its metadata if it is an {@link ExtendedGidGraph}, into RocksDB database.
+     * The graph and its metadata are written atomically.
+     *
+     * @param gidGraph the graph to insert
+     * @throws IOException if there was a problem compressing the graph
+     * @throws RocksDBException if there was a problem inserting in the database
+     */
+    public void saveToRocksDb(final GidGraph gidGraph) throws IOException, RocksDBException {
+        try (final Batch batch = newBatch(false)) {
+            batch.add(gidGraph);
+            batch.commit();
+        }
+    }
 
-                final FastenJavaURI uri = FastenJavaURI.create(gidToUriMap.get(node)).decanonicalize();
-                writeString("/" + uri.getNamespace() + "/" + uri.getClassName(), fbaos);
-                writeString(StringUtils.substringAfter(uri.getEntity(), "."), fbaos);
-
-				final List<ReceiverRecord> list = map.get(node);
-                // TODO: is this acceptable behavior?
-                if (list == null) writeLong(0, fbaos); // no data
-                else {
-                    // Encode list length
-                    writeLong(list.size(), fbaos);
-                    // Encode elements
-					for (final var r : list) {
-                        writeLong(r.line, fbaos);
-                        writeLong(r.callType.ordinal(), fbaos);
-						writeString(r.receiverSignature, fbaos);
-						writeLong(r.receiverTypes.size(), fbaos);
-						for (final String s : r.receiverTypes) writeString(s, fbaos);
-                    }
+    /**
+     * Serializes the metadata of a graph.
+     */
+    private void saveMetadata(final ExtendedGidGraph extendedGidGraph, final DirectedGraph graph, final Sink sink) throws IOException, RocksDBException {
+		final Map<Pair<Long, Long>, CallSitesRecord> edgesInfo = extendedGidGraph.getCallsInfo();
+		final Map<Long, String> typeMap = extendedGidGraph.getTypeMap();
+        final Long2ObjectOpenHashMap<List<ReceiverRecord>> map = new Long2ObjectOpenHashMap<>();
+
+        final Map<Long, String> gidToUriMap = extendedGidGraph.getGidToUriMap();
+
+        // Gather data by source and store it in lists of GraphMetadata.ReceiverRecord.
+        edgesInfo.forEach((pair, record) -> map.compute(pair.getFirst().longValue(), (k, list) -> {
+            if (list == null) list = new ArrayList<>();
+            list.add(new ReceiverRecord(record.getLine(), transformCallType(record.getCallType()), gidToUriMap.get(pair.getFirst()), Arrays.stream(record.getReceiverTypeIds()).map(typeMap::get).collect(Collectors.toList())));
+            return list;
+        }));
+
+
+        // Serialize information in compact form, one record per node in GID order
+        final long[] gids = graph.nodes().toLongArray();
+        Arrays.sort(gids);
+        final int[] offsets = new int[gids.length + 1];
+        final FastByteArrayOutputStream fbaos = new FastByteArrayOutputStream();
+        for (int i = 0; i < gids.length; i++) {
+            final long node = gids[i];
+            offsets[i] = fbaos.length;
+
+            final FastenJavaURI uri = FastenJavaURI.create(gidToUriMap.get(node)).decanonicalize();
+            writeString("/" + uri.getNamespace() + "/" + uri.getClassName(), fbaos);
+            writeString(StringUtils.substringAfter(uri.getEntity(), "."), fbaos);
+
+			final List<ReceiverRecord> list = map.get(node);
+            // TODO: is this acceptable behavior?
+            if (list == null) writeLong(0, fbaos); // no data
+            else {
+                // Encode list length
+                writeLong(list.size(), fbaos);
+                // Encode elements
+				for (final var r : list) {
+                    writeLong(r.line, fbaos);
+                    writeLong(r.callType.ordinal(), fbaos);
+					writeString(r.receiverSignature, fbaos);
+					writeLong(r.receiverTypes.size(), fbaos);
+					for (final String s : r.receiverTypes) writeString(s, fbaos);
                 }
             }
-			rocksDb.put(metadataHandle, Longs.toByteArray(gidGraph.getIndex()), 0, 8, fbaos.array, 0, fbaos.length);
-		}
+        }
+        offsets[gids.length] = fbaos.length;
+
+        // Prepend the sorted GIDs and the offsets of the records, so that single records can be decoded
+        final int headerLength = metadataHeaderLength(gids.length);
+        final ByteBuffer metadata = ByteBuffer.allocate(headerLength + fbaos.length);
+        metadata.put(INDEXED_METADATA_MARKER).put(INDEXED_METADATA_VERSION).putInt(gids.length);
+        for (final long gid : gids) metadata.putLong(gid);
+        for (final int offset : offsets) metadata.putInt(headerLength + offset);
+        metadata.put(fbaos.array, 0, fbaos.length);
+        sink.put(metadataHandle, extendedGidGraph.getIndex(), metadata.array(), metadata.capacity());
+    }
+
+    /**
+     * Serializes an object using a pooled Kryo instance.
+     */
+    private void writeObject(final ByteBufferOutput bbo, final Object object) {
+        final Kryo kryo = kryoPool.obtain();
+        try {
+            kryo.writeObject(bbo, object);
+        } finally {
+            kryoPool.free(kryo);
+        }
     }
 
     /**
@@ -219,15 +337,25 @@ public class RocksDao implements Closeable {
 	 * @param edges List of edges (pairs of GIDs)
 	 * @return the stored {@link DirectedGraph}, or {@code null} if the provided index key is already
 	 *         present.
-	 * @throws IOException if there was a problem writing to files
+	 * @throws IOException if there was a problem compressing the graph
 	 * @throws RocksDBException if there was a problem inserting in the database
 	 */
-    public DirectedGraph saveToRocksDb(final long index, List<Long> nodes, int numInternal, final List<List<Long>> edges)
+    public DirectedGraph saveToRocksDb(final long index, final List<Long> nodes, final int numInternal, final List<List<Long>> edges)
             throws IOException, RocksDBException {
         if (this.getGraphData(index) != null) {
             logger.info("Graph with index {} is already in the database", index);
             return null;
         }
+        final DirectedGraph graph = saveGraph(index, nodes, numInternal, edges, (handle, i, value, length) -> rocksDb.put(handle, Longs.toByteArray(i), 0, 8, value, 0, length));
+        graphUpdated(index);
+        return graph;
+    }
+
+    /**
+     * Serializes a graph.
+     */
+    private DirectedGraph saveGraph(final long index, List<Long> nodes, int numInternal, final List<List<Long>> edges, final Sink sink)
+            throws IOException, RocksDBException {
         final var internalIds = new LongArrayList(numInternal);
         final var externalIds = new LongArrayList(nodes.size() - numInternal);
         for (int i = 0; i < numInternal; i++) {
@@ -269,19 +397,20 @@ public class RocksDao implements Closeable {
             final ArrayImmutableDirectedGraph graph = builder.build();
             final FastByteArrayOutputStream fbaos = new FastByteArrayOutputStream();
             final ByteBufferOutput bbo = new ByteBufferOutput(fbaos);
-            kryo.writeObject(bbo, Boolean.FALSE);
-            kryo.writeObject(bbo, graph);
+            writeObject(bbo, Boolean.FALSE);
+            writeObject(bbo, graph);
             bbo.flush();
             // Write to DB
-            rocksDb.put(defaultHandle, Longs.toByteArray(index), 0, 8, fbaos.array, 0, fbaos.length);
+            sink.put(defaultHandle, index, fbaos.array, fbaos.length);
             return graph;
         } else {
             /*
              * In this case we compress the graph: first, we remap GIDs into a compact temporary ID space
              * [0..nodes.size()). Then, we build an ArrayListMutableGraph that represent the original graph in
              * the temporary ID space. We run LLP on the graph obtaining a permutation of the temporary ID space
-             * that improves greatly compression. Finally, we store the permuted graph and the transpose using
-             * BVGraph, and store the bijective mapping between GIDs and the (permuted) temporary ID space.
+             * that improves greatly compression. Finally, we compress in memory the permuted graph and the
+             * transpose using BVGraph, and store the bijective mapping between GIDs and the (permuted)
+             * temporary ID space.
              */
             final long[] temporary2GID = new long[nodes.size()];
             final var nodesList = new LongArrayList(nodes);
@@ -307,10 +436,8 @@ public class RocksDao implements Closeable {
                     logger.error("Duplicate arc (" + sourceId + " -> " + targetId + ")", e);
                 }
             }
-            final var file = File.createTempFile(KnowledgeBase.class.getSimpleName(), ".tmpgraph");
             final var graphProperties = new Properties();
             final var transposeProperties = new Properties();
-            FileInputStream propertyFile;
 
             final ImmutableGraph unpermutedGraph = mutableGraph.immutableView();
             final int numNodes = unpermutedGraph.numNodes();
@@ -329,17 +456,13 @@ public class RocksDao implements Closeable {
             }
             Util.invertPermutationInPlace(sorted);
 
-            // Permute, compress and load the graph
+            // Permute and compress the graph in memory
             final ImmutableGraph graph = Transform.map(unpermutedGraph, sorted);
-            BVGraph.store(graph, file.toString());
-            propertyFile = new FileInputStream(file + BVGraph.PROPERTIES_EXTENSION);
-            graphProperties.load(propertyFile);
-            propertyFile.close();
             final FastByteArrayOutputStream fbaos = new FastByteArrayOutputStream();
             final ByteBufferOutput bbo = new ByteBufferOutput(fbaos);
-            kryo.writeObject(bbo, Boolean.TRUE);
-            final ImmutableGraph storedGraph = BVGraph.load(file.toString());
-            kryo.writeObject(bbo, storedGraph);
+            writeObject(bbo, Boolean.TRUE);
+            final ImmutableGraph storedGraph = BVGraphCompressor.compress(graph, graphProperties);
+            writeObject(bbo, storedGraph);
 
             // Compute LIDs according to the current node numbering based on the LLP permutation
             final long[] LID2GID = new long[temporary2GID.length];
@@ -350,48 +473,207 @@ public class RocksDao implements Closeable {
             // Compute a succinct version of the function mapping GIDs to LIDs
             final GOV3LongFunction GID2LID = new GOV3LongFunction.Builder().keys(LongArrayList.wrap(LID2GID)).build();
 
-            // Compress and load the transpose
-            BVGraph.store(Transform.transpose(graph), file.toString());
-            propertyFile = new FileInputStream(file + BVGraph.PROPERTIES_EXTENSION);
-            transposeProperties.load(propertyFile);
-            propertyFile.close();
-            final ImmutableGraph storedTranspose = BVGraph.load(file.toString());
-            kryo.writeObject(bbo, storedTranspose);
-            kryo.writeObject(bbo, numInternal);
+            // Compress the transpose in memory
+            final ImmutableGraph storedTranspose = BVGraphCompressor.compress(Transform.transpose(graph), transposeProperties);
+            writeObject(bbo, storedTranspose);
+            writeObject(bbo, numInternal);
             // Write out properties
-            kryo.writeObject(bbo, graphProperties);
-            kryo.writeObject(bbo, transposeProperties);
+            writeObject(bbo, graphProperties);
+            writeObject(bbo, transposeProperties);
             // Write out maps
-            kryo.writeObject(bbo, LID2GID);
-            kryo.writeObject(bbo, GID2LID);
+            writeObject(bbo, LID2GID);
+            writeObject(bbo, GID2LID);
             bbo.flush();
             // Write to DB
-            rocksDb.put(defaultHandle, Longs.toByteArray(index), 0, 8, fbaos.array, 0, fbaos.length);
-			final var fileProperties = new File(file + BVGraph.PROPERTIES_EXTENSION);
-			final var fileOffsets = new File(file + BVGraph.OFFSETS_EXTENSION);
-			final var fileGraph = new File(file + BVGraph.GRAPH_EXTENSION);
+            sink.put(defaultHandle, index, fbaos.array, fbaos.length);
+            return new CallGraphData(storedGraph, storedTranspose, graphProperties, transposeProperties,
+                    LID2GID, GID2LID, numInternal, fbaos.length);
+
+        }
+    }
+
+    /**
+     * A batch of graphs to be inserted into RocksDB database, obtained from {@link #newBatch(boolean)}
+     * or {@link #newBulkLoad()}.
+     *
+     * <p>
+     * Graphs {@linkplain #add(GidGraph) added} to a batch are serialized immediately, but they are not
+     * visible until the batch is {@linkplain #commit() committed}; graphs that have not been committed
+     * when the batch is closed are discarded. A batch can be reused after a commit. Batches are not
+     * thread-safe.
+     */
+    public abstract class Batch implements AutoCloseable {
+        /** The indices of the graphs added since the last commit. */
+        protected final LongOpenHashSet indices = new LongOpenHashSet();
+
+        private Batch() {
+        }
+
+        /**
+         * Adds a graph, and its metadata if it is an {@link ExtendedGidGraph}, to this batch.
+         *
+         * @param gidGraph the graph to add
+         * @return the stored {@link DirectedGraph}, or {@code null} if the index of the graph is already
+         *         present in the database or in this batch.
+         * @throws IOException if there was a problem compressing the graph
+         * @throws RocksDBException if there was a problem writing to the batch
+         */
+        public DirectedGraph add(final GidGraph gidGraph) throws IOException, RocksDBException {
+            final long index = gidGraph.getIndex();
+            if (indices.contains(index) || getGraphData(index) != null) {
+                logger.info("Graph with index {} is already in the database", index);
+                return null;
+            }
+            final DirectedGraph graph = saveGraph(index, gidGraph.getNodes(), gidGraph.getNumInternalNodes(), gidGraph.getEdges(), this::put);
+            if (gidGraph instanceof ExtendedGidGraph) saveMetadata((ExtendedGidGraph)gidGraph, graph, this::put);
+            indices.add(index);
+            return graph;
+        }
+
+        /**
+         * Returns the number of graphs added since the last commit.
+         *
+         * @return the number of graphs added since the last commit.
+         */
+        public int size() {
+            return indices.size();
+        }
+
+        /**
+         * Writes to the database all graphs added since the last commit.
+         *
+         * @throws IOException if there was a problem writing temporary files
+         * @throws RocksDBException if there was a problem writing to the database
+         */
+        public void commit() throws IOException, RocksDBException {
+            if (indices.isEmpty()) return;
+            write();
+            for (final LongIterator iterator = indices.iterator(); iterator.hasNext();) graphUpdated(iterator.nextLong());
+            indices.clear();
+        }
+
+        /** Adds a value to the pending data. */
+        protected abstract void put(ColumnFamilyHandle handle, long index, byte[] value, int length) throws RocksDBException;
+
+        /** Writes the pending data to the database and clears it. */
+        protected abstract void write() throws IOException, RocksDBException;
+
+        /** Discards the pending data and releases the resources associated with this batch. */
+        @Override
+        public abstract void close();
+    }
+
+    /** A batch accumulating graphs in a {@link WriteBatch}. */
+    private final class AtomicBatch extends Batch {
+        private final WriteBatch writeBatch = new WriteBatch();
+        private final WriteOptions writeOptions;
+
+        private AtomicBatch(final boolean disableWAL) {
+            writeOptions = new WriteOptions().setDisableWAL(disableWAL);
+        }
+
+        @Override
+        protected void put(final ColumnFamilyHandle handle, final long index, final byte[] value, final int length) throws RocksDBException {
+            writeBatch.put(handle, Longs.toByteArray(index), Arrays.copyOf(value, length));
+        }
+
+        @Override
+        protected void write() throws RocksDBException {
+            rocksDb.write(writeOptions, writeBatch);
+            writeBatch.clear();
+        }
+
+        @Override
+        public void close() {
+            writeBatch.close();
+            writeOptions.close();
+        }
+    }
+
+    /** A batch accumulating graphs in memory, and writing them as SST files that are then ingested. */
+    private final class IngestionBatch extends Batch {
+        private final Long2ObjectOpenHashMap<byte[]> graphs = new Long2ObjectOpenHashMap<>();
+        private final Long2ObjectOpenHashMap<byte[]> metadata = new Long2ObjectOpenHashMap<>();
+
+        @Override
+        protected void put(final ColumnFamilyHandle handle, final long index, final byte[] value, final int length) {
+            (handle == defaultHandle ? graphs : metadata).put(index, Arrays.copyOf(value, length));
+        }
+
+        @Override
+        protected void write() throws IOException, RocksDBException {
+            final Path directory = Files.createTempDirectory(RocksDao.class.getSimpleName());
             try {
-                FileUtils.forceDelete(fileProperties);
-                FileUtils.forceDelete(fileOffsets);
-                FileUtils.forceDelete(fileGraph);
-                FileUtils.forceDelete(file);
+                // Metadata first, as the presence of a graph implies that its metadata is available
+                if (!metadata.isEmpty()) ingest(metadataHandle, metadataOptions, metadata, directory.resolve("metadata.sst"));
+                ingest(defaultHandle, defaultOptions, graphs, directory.resolve("graphs.sst"));
             } finally {
-                if (fileProperties.exists()) {
-                    fileProperties.delete();
-                }
-                if (fileOffsets.exists()) {
-                    fileOffsets.delete();
-                }
-                if (fileGraph.exists()) {
-                    fileGraph.delete();
-                }
-                if (file.exists()) {
-                    file.delete();
-                }
+                FileUtils.deleteDirectory(directory.toFile());
             }
-            return new CallGraphData(storedGraph, storedTranspose, graphProperties, transposeProperties,
-                    LID2GID, GID2LID, numInternal, fbaos.length);
+            graphs.clear();
+            metadata.clear();
+        }
 
+        private void ingest(final ColumnFamilyHandle handle, final ColumnFamilyOptions columnFamilyOptions, final Long2ObjectOpenHashMap<byte[]> values, final Path file) throws RocksDBException {
+            // SST files must be written in key order, and keys are compared lexicographically as unsigned bytes
+            final long[] keys = values.keySet().toLongArray();
+            LongArrays.quickSort(keys, Long::compareUnsigned);
+            try (final EnvOptions envOptions = new EnvOptions();
+                    final Options options = new Options(dbOptions, columnFamilyOptions);
+                    final SstFileWriter writer = new SstFileWriter(envOptions, options)) {
+                writer.open(file.toString());
+                for (final long key : keys) writer.put(Longs.toByteArray(key), values.get(key));
+                writer.finish();
+            }
+            try (final IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions().setMoveFiles(true)) {
+                rocksDb.ingestExternalFile(handle, List.of(file.toString()), ingestOptions);
+            }
+        }
+
+        @Override
+        public void close() {
+            graphs.clear();
+            metadata.clear();
+        }
+    }
+
+    /**
+     * Returns a new batch that writes atomically all graphs added since the last commit.
+     *
+     * <p>
+     * Disabling the write-ahead log speeds up bulk reindexing, but graphs committed since the last
+     * {@link #flush()} will be lost if the process crashes.
+     *
+     * @param disableWAL whether commits should bypass the write-ahead log
+     * @return a new batch
+     */
+    public Batch newBatch(final boolean disableWAL) {
+        return new AtomicBatch(disableWAL);
+    }
+
+    /**
+     * Returns a new batch for bulk loading, which writes at each commit an SST file per column family
+     * and ingests it into the database, bypassing the memtables and the write-ahead log.
+     *
+     * <p>
+     * Graphs are kept in memory until committed, so large loads should be split into several
+     * commits. The metadata of a commit is ingested before the graphs, so the two are not written
+     * atomically, but a graph is never visible without its metadata.
+     *
+     * @return a new batch for bulk loading
+     */
+    public Batch newBulkLoad() {
+        return new IngestionBatch();
+    }
+
+    /**
+     * Flushes all memtables to disk, making durable data written with the write-ahead log disabled.
+     *
+     * @throws RocksDBException if there was a problem flushing data
+     */
+    public void flush() throws RocksDBException {
+        try (final FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+            rocksDb.flush(flushOptions, metadataHandle == null ? List.of(defaultHandle) : List.of(defaultHandle, metadataHandle));
         }
     }
 
@@ -403,11 +685,30 @@ public class RocksDao implements Closeable {
      * @throws RocksDBException if there was problem retrieving data from RocksDB
      */
     public DirectedGraph getGraphData(final long index) throws RocksDBException {
+        final DirectedGraph cached = graphCache.get(index);
+        if (cached != null) return cached;
+        final long stamp = graphCache.stamp();
+        final byte[] buffer = rocksDb.get(Longs.toByteArray(index));
+        if (buffer == null) {
+            logger.warn("Graph with index " + index + " could not be found");
+            return null;
+        }
+        final DirectedGraph graph = readGraph(buffer);
+        graphCache.put(index, graph, buffer.length, stamp);
+        // The cached instance might be copied concurrently by other threads
+        return graph instanceof CallGraphData ? ((CallGraphData)graph).copy() : graph;
+    }
+
+    /**
+     * Deserializes a graph stored by {@link #saveToRocksDb(long, List, int, List)}.
+     *
+     * @param buffer the serialized graph.
+     * @return the deserialized graph.
+     */
+    private DirectedGraph readGraph(final byte[] buffer) {
+        final Kryo kryo = kryoPool.obtain();
         try {
-            final byte[] buffer = rocksDb.get(Longs.toByteArray(index));
             final Input input = new Input(buffer);
-            assert kryo != null;
-
             final boolean compressed = kryo.readObject(input, Boolean.class);
             if (compressed) {
                 final var graphs = new ImmutableGraph[]{
@@ -426,10 +727,65 @@ public class RocksDao implements Closeable {
             } else {
                 return kryo.readObject(input, ArrayImmutableDirectedGraph.class);
             }
-        } catch (final NullPointerException e) {
-            logger.warn("Graph with index " + index + " could not be found");
-            return null;
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    /**
+     * Returns the length of the header of metadata in indexed format: a marker, a version, the
+     * number of nodes, their sorted GIDs and the offsets of their records (plus a final offset).
+     */
+    private static int metadataHeaderLength(final int numNodes) {
+        return 2 + Integer.BYTES + numNodes * (Long.BYTES + Integer.BYTES) + Integer.BYTES;
+    }
+
+    /**
+     * Returns whether the given metadata is in indexed format. Metadata in legacy format is either
+     * empty or starts with the length of a nonempty string, which is never encoded by a zero byte.
+     */
+    private static boolean isIndexedMetadata(final byte[] metadata) {
+        if (metadata.length == 0 || metadata[0] != INDEXED_METADATA_MARKER) return false;
+        if (metadata[1] != INDEXED_METADATA_VERSION) throw new IllegalStateException("Unknown metadata version " + metadata[1]);
+        return true;
+    }
+
+    /**
+     * Decodes the metadata of a node.
+     */
+    private static NodeMetadata readNodeMetadata(final FastByteArrayInputStream fbais) throws IOException {
+        final String type = readString(fbais);
+        final String signature = readString(fbais);
+
+        final long length = readLong(fbais);
+        List<ReceiverRecord> list;
+        if (length == 0) list = Collections.emptyList();
+        else {
+            list = new ArrayList<>();
+			for (long i = 0; i < length; i++) {
+				final int line = (int)readLong(fbais);
+				final CallType callType = CallType.values()[(int)readLong(fbais)];
+				final String receiverSignature = readString(fbais);
+				final int size = (int)readLong(fbais);
+				final ArrayList<String> t = new ArrayList<>();
+				for (int j = 0; j < size; j++) t.add(readString(fbais));
+				list.add(new ReceiverRecord(line, callType, receiverSignature, t));
+			}
         }
+
+        // Make the list immutable
+        return new NodeMetadata(type, signature, List.copyOf(list));
+    }
+
+    /**
+     * Decodes metadata in legacy format, which follows the standard node enumeration order of the
+     * graph and does not support random access.
+     */
+    private static Long2ObjectOpenHashMap<NodeMetadata> readLegacyMetadata(final byte[] metadata, final DirectedGraph graph) throws IOException {
+        final Long2ObjectOpenHashMap<NodeMetadata> map = new Long2ObjectOpenHashMap<>();
+        final FastByteArrayInputStream fbais = new FastByteArrayInputStream(metadata);
+		for (final LongIterator iterator = graph.iterator(); iterator.hasNext();) map.put(iterator.nextLong(), readNodeMetadata(fbais));
+        return map;
     }
 
     /**
@@ -444,44 +800,84 @@ public class RocksDao implements Closeable {
     public GraphMetadata getGraphMetadata(final long index, final DirectedGraph graph) throws RocksDBException {
         final byte[] metadata = rocksDb.get(metadataHandle, Longs.toByteArray(index));
         if (metadata != null) {
-            final Long2ObjectOpenHashMap<NodeMetadata> map = new Long2ObjectOpenHashMap<>();
-
-            final FastByteArrayInputStream fbais = new FastByteArrayInputStream(metadata);
-
             try {
-                // Deserialize map following the standard node enumeration order
-				for (final LongIterator iterator = graph.iterator(); iterator.hasNext();) {
-                    final long node = iterator.nextLong();
+                if (!isIndexedMetadata(metadata)) return new GraphMetadata(readLegacyMetadata(metadata, graph));
+
+                // Records are stored contiguously in GID order
+                final ByteBuffer buffer = ByteBuffer.wrap(metadata);
+                final int numNodes = buffer.getInt(2);
+                final Long2ObjectOpenHashMap<NodeMetadata> map = new Long2ObjectOpenHashMap<>(numNodes);
+                final FastByteArrayInputStream fbais = new FastByteArrayInputStream(metadata);
+                fbais.position(metadataHeaderLength(numNodes));
+                for (int i = 0; i < numNodes; i++) map.put(buffer.getLong(6 + i * Long.BYTES), readNodeMetadata(fbais));
+                return new GraphMetadata(map);
+            } catch (final IOException cantHappen) {
+                // Not really I/O
+                throw new RuntimeException(cantHappen.getCause());
+            }
+        }
+        return null;
+    }
 
-                    final String type = readString(fbais);
-                    final String signature = readString(fbais);
+    /**
+     * Retrieves from RocksDB database the metadata of some nodes of a graph.
+     *
+     * <p>
+     * Only the records of the specified nodes are decoded, unless the metadata has been stored in
+     * the legacy format, in which case the graph is retrieved using {@link #getGraphData(long)} and
+     * all metadata is decoded.
+     *
+     * @param index index of the graph
+     * @param nodeIds the GIDs of the nodes whose metadata should be returned; GIDs that are not
+     * nodes of the graph are ignored
+     * @return the metadata associated with the specified nodes, or {@code null}
+     * if no metadata record exists for the provided graph
+     * @throws RocksDBException if there was problem retrieving data from RocksDB
+     */
+    public GraphMetadata getGraphMetadata(final long index, final LongCollection nodeIds) throws RocksDBException {
+        final byte[] metadata = rocksDb.get(metadataHandle, Longs.toByteArray(index));
+        if (metadata == null) return null;
+        final Long2ObjectOpenHashMap<NodeMetadata> map = new Long2ObjectOpenHashMap<>(nodeIds.size());
+        try {
+            if (!isIndexedMetadata(metadata)) {
+                final DirectedGraph graph = getGraphData(index);
+                if (graph == null) return null;
+                final Long2ObjectOpenHashMap<NodeMetadata> all = readLegacyMetadata(metadata, graph);
+                for (final LongIterator iterator = nodeIds.iterator(); iterator.hasNext();) {
+                    final long node = iterator.nextLong();
+                    final NodeMetadata nodeMetadata = all.get(node);
+                    if (nodeMetadata != null) map.put(node, nodeMetadata);
+                }
+                return new GraphMetadata(map);
+            }
 
-                    final long length = readLong(fbais);
-                    List<ReceiverRecord> list;
-                    if (length == 0) list = Collections.emptyList();
+            final ByteBuffer buffer = ByteBuffer.wrap(metadata);
+            final int numNodes = buffer.getInt(2);
+            final int offsetsStart = 6 + numNodes * Long.BYTES;
+            final FastByteArrayInputStream fbais = new FastByteArrayInputStream(metadata);
+            for (final LongIterator iterator = nodeIds.iterator(); iterator.hasNext();) {
+                final long node = iterator.nextLong();
+                // Binary search among the sorted GIDs
+                int from = 0, to = numNodes - 1, pos = -1;
+                while (from <= to) {
+                    final int mid = (from + to) >>> 1;
+                    final long gid = buffer.getLong(6 + mid * Long.BYTES);
+                    if (gid < node) from = mid + 1;
+                    else if (gid > node) to = mid - 1;
                     else {
-                        list = new ArrayList<>();
-						for (long i = 0; i < length; i++) {
-							final int line = (int)readLong(fbais);
-							final CallType callType = CallType.values()[(int)readLong(fbais)];
-							final String receiverSignature = readString(fbais);
-							final int size = (int)readLong(fbais);
-							final ArrayList<String> t = new ArrayList<>();
-							for (int j = 0; j < size; j++) t.add(readString(fbais));
-							list.add(new ReceiverRecord(line, callType, receiverSignature, t));
-						}
+                        pos = mid;
+                        break;
                     }
-
-                    // Make the list immutable
-                    map.put(node, new NodeMetadata(type, signature, List.copyOf(list)));
                 }
-            } catch (final IOException cantHappen) {
-                // Not really I/O
-                throw new RuntimeException(cantHappen.getCause());
+                if (pos == -1) continue;
+                fbais.position(buffer.getInt(offsetsStart + pos * Integer.BYTES));
+                map.put(node, readNodeMetadata(fbais));
             }
-            return new GraphMetadata(map);
+        } catch (final IOException cantHappen) {
+            // Not really I/O
+            throw new RuntimeException(cantHappen.getCause());
         }
-        return null;
+        return new GraphMetadata(map);
     }
 
 
@@ -498,6 +894,8 @@ public class RocksDao implements Closeable {
         } catch (final RocksDBException e) {
             logger.error("Could not delete graph with index " + index, e);
             return false;
+        } finally {
+            graphUpdated(index);
         }
         return true;
     }
@@ -507,8 +905,17 @@ public class RocksDao implements Closeable {
         if (defaultHandle != null) {
             defaultHandle.close();
         }
+        if (metadataHandle != null) {
+            metadataHandle.close();
+        }
         if (rocksDb != null) {
             rocksDb.close();
         }
+        dbOptions.close();
+        defaultOptions.close();
+        if (metadataOptions != null) {
+            metadataOptions.close();
+        }
+        for (final AbstractNativeReference resource : resources) resource.close();
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.graphdb;
+
+import java.util.List;
+
+import org.rocksdb.AbstractNativeReference;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.DBOptions;
+import org.rocksdb.LRUCache;
+
+/**
+ * Tuning parameters for the RocksDB instance opened by {@link RocksDao}.
+ *
+ * <p>
+ * Instances are built using a {@link Builder}; every parameter that is not set keeps the RocksDB
+ * default, so {@link #DEFAULT} opens the database exactly as {@link RocksDao} always did. The block
+ * cache, if any, is shared by all column families.
+ */
+public class RocksDaoOptions {
+    /** Options leaving all parameters to their RocksDB default. */
+    public static final RocksDaoOptions DEFAULT = new Builder().build();
+
+    /** The size in bytes of the block cache, or 0 for the RocksDB default. */
+    public final long blockCacheSize;
+    /** The number of bits per key of Bloom filters, or 0 for no filter. */
+    public final double bloomFilterBitsPerKey;
+    /** The compaction style, or {@code null} for the RocksDB default. */
+    public final CompactionStyle compactionStyle;
+    /** The maximum number of concurrent background jobs, or 0 for the RocksDB default. */
+    public final int maxBackgroundJobs;
+
+    private RocksDaoOptions(final Builder builder) {
+        this.blockCacheSize = builder.blockCacheSize;
+        this.bloomFilterBitsPerKey = builder.bloomFilterBitsPerKey;
+        this.compactionStyle = builder.compactionStyle;
+        this.maxBackgroundJobs = builder.maxBackgroundJobs;
+    }
+
+    public static final class Builder {
+        private long blockCacheSize;
+        private double bloomFilterBitsPerKey;
+        private CompactionStyle compactionStyle;
+        private int maxBackgroundJobs;
+
+        /**
+         * Sets the size of the block cache shared by all column families.
+         *
+         * @param blockCacheSize the size in bytes of the block cache.
+         * @return this builder.
+         */
+        public Builder blockCacheSize(final long blockCacheSize) {
+            if (blockCacheSize <= 0) throw new IllegalArgumentException("Nonpositive block cache size: " + blockCacheSize);
+            this.blockCacheSize = blockCacheSize;
+            return this;
+        }
+
+        /**
+         * Enables Bloom filters, which avoid disk reads when looking up missing graphs.
+         *
+         * @param bitsPerKey the number of bits per key of the filters (10 yields a 1% false-positive rate).
+         * @return this builder.
+         */
+        public Builder bloomFilterBitsPerKey(final double bitsPerKey) {
+            if (bitsPerKey <= 0) throw new IllegalArgumentException("Nonpositive number of bits per key: " + bitsPerKey);
+            this.bloomFilterBitsPerKey = bitsPerKey;
+            return this;
+        }
+
+        /**
+         * Sets the compaction style of all column families.
+         *
+         * @param compactionStyle a compaction style.
+         * @return this builder.
+         */
+        public Builder compactionStyle(final CompactionStyle compactionStyle) {
+            this.compactionStyle = compactionStyle;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent background jobs (flushes and compactions).
+         *
+         * @param maxBackgroundJobs the maximum number of concurrent background jobs.
+         * @return this builder.
+         */
+        public Builder maxBackgroundJobs(final int maxBackgroundJobs) {
+            if (maxBackgroundJobs <= 0) throw new IllegalArgumentException("Nonpositive number of background jobs: " + maxBackgroundJobs);
+            this.maxBackgroundJobs = maxBackgroundJobs;
+            return this;
+        }
+
+        public RocksDaoOptions build() {
+            return new RocksDaoOptions(this);
+        }
+    }
+
+    /**
+     * Applies these options to the options of a database.
+     *
+     * @param dbOptions the options of a database.
+     * @return {@code dbOptions}.
+     */
+    DBOptions apply(final DBOptions dbOptions) {
+        if (maxBackgroundJobs != 0) dbOptions.setMaxBackgroundJobs(maxBackgroundJobs);
+        return dbOptions;
+    }
+
+    /**
+     * Applies these options to the options of some column families.
+     *
+     * @param columnFamilyOptions the options of the column families.
+     * @param resources a list to which native objects that must be closed with the database will be
+     *            added.
+     */
+    void apply(final List<ColumnFamilyOptions> columnFamilyOptions, final List<AbstractNativeReference> resources) {
+        LRUCache blockCache = null;
+        if (blockCacheSize != 0) resources.add(blockCache = new LRUCache(blockCacheSize));
+        for (final ColumnFamilyOptions options : columnFamilyOptions) {
+            if (compactionStyle != null) options.setCompactionStyle(compactionStyle);
+            if (blockCache == null && bloomFilterBitsPerKey == 0) continue;
+            final BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+            if (blockCache != null) tableConfig.setBlockCache(blockCache);
+            if (bloomFilterBitsPerKey != 0) {
+                final BloomFilter filter = new BloomFilter(bloomFilterBitsPerKey, false);
+                resources.add(filter);
+                tableConfig.setFilterPolicy(filter);
+            }
+            options.setTableFormatConfig(tableConfig);
+        }
+    }
+}
@@ -34,14 +34,18 @@ import org.jooq.*;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.postgresql.PGConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.*;
 import static org.jooq.impl.DSL.*;
 
 public class MetadataDao {
     private final Logger logger = LoggerFactory.getLogger(MetadataDao.class.getName());
+    // Number of characters buffered before being sent to the database during a COPY
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
     private DSLContext context;
 
     public MetadataDao(DSLContext context) {
@@ -651,6 +655,176 @@ public class MetadataDao {
         return ids;
     }
 
+    /**
+     * Inserts all the callables from the CG using PostgreSQL's COPY, as an alternative to
+     * {@link #insertCallablesSeparately(List, int)} for large call graphs.
+     * Callables are streamed into a temporary staging table, then internal callables are upserted and
+     * new external callables are inserted with one statement each. The IDs of all callables are
+     * finally fetched with a join between the staging table and the 'callables' table.
+     *
+     * @param callables   List of callables. NB! First all internal callables and then all external.
+     * @param numInternal Number of internal callables in the callables list
+     * @return List of IDs of inserted callables from the database, in the same order as callables.
+     */
+    public List<Long> bulkInsertCallables(List<CallablesRecord> callables, int numInternal) {
+        context.execute("CREATE TEMPORARY TABLE IF NOT EXISTS callables_staging (ord INTEGER, module_id BIGINT, "
+                + "fasten_uri TEXT, is_internal_call BOOLEAN, line_start INTEGER, line_end INTEGER, "
+                + "type CALLABLE_TYPE, defined BOOLEAN, access ACCESS, metadata JSONB)");
+        context.execute("TRUNCATE callables_staging");
+        var rows = new ArrayList<Object[]>(callables.size());
+        for (int i = 0; i < callables.size(); i++) {
+            var callable = callables.get(i);
+            rows.add(new Object[]{i, callable.getModuleId(), callable.getFastenUri(), callable.getIsInternalCall(),
+                    callable.getLineStart(), callable.getLineEnd(), callable.getType(), callable.getDefined(),
+                    callable.getAccess(), callable.getMetadata()});
+        }
+        copyIn("COPY callables_staging FROM STDIN", rows);
+
+        final var columns = "module_id, fasten_uri, is_internal_call, line_start, line_end, type, defined, access, metadata";
+        // Duplicates would make the upsert fail, so only the last occurrence of each callable is kept
+        final var distinct = "SELECT DISTINCT ON (module_id, fasten_uri, is_internal_call) " + columns
+                + " FROM callables_staging WHERE ord %s ? ORDER BY module_id, fasten_uri, is_internal_call, ord DESC";
+        // Upsert internal callables
+        context.execute("INSERT INTO callables (" + columns + ") " + String.format(distinct, "<")
+                + " ON CONFLICT ON CONSTRAINT unique_uri_call DO UPDATE SET"
+                + " line_start = EXCLUDED.line_start, line_end = EXCLUDED.line_end, type = EXCLUDED.type,"
+                + " defined = EXCLUDED.defined, access = EXCLUDED.access,"
+                + " metadata = coalesce(callables.metadata, '{}'::jsonb) || EXCLUDED.metadata", numInternal);
+        // Insert external callables which are not in the database yet
+        context.execute("INSERT INTO callables (" + columns + ") " + String.format(distinct, ">=")
+                + " ON CONFLICT ON CONSTRAINT unique_uri_call DO NOTHING", numInternal);
+
+        var result = context.fetch("SELECT s.ord, c.id FROM callables_staging s JOIN callables c"
+                + " ON c.module_id = s.module_id AND c.fasten_uri = s.fasten_uri AND c.is_internal_call = s.is_internal_call");
+        var ids = new Long[callables.size()];
+        for (var record : result) {
+            ids[record.get(0, Integer.class)] = record.get(1, Long.class);
+        }
+        context.execute("TRUNCATE callables_staging");
+        return Arrays.asList(ids);
+    }
+
+    /**
+     * Inserts call sites using PostgreSQL's COPY, as an alternative to {@link #batchInsertEdges(List)}
+     * for large call graphs. Call sites are streamed into a temporary staging table and then merged
+     * into the 'call_sites' table with a single upsert.
+     *
+     * @param callsites List of callsites records to insert
+     */
+    public void bulkInsertEdges(List<CallSitesRecord> callsites) {
+        context.execute("CREATE TEMPORARY TABLE IF NOT EXISTS call_sites_staging (ord INTEGER, source_id BIGINT, "
+                + "target_id BIGINT, call_type CALL_TYPE, receiver_type_ids BIGINT[], line INTEGER, metadata JSONB)");
+        context.execute("TRUNCATE call_sites_staging");
+        var rows = new ArrayList<Object[]>(callsites.size());
+        for (int i = 0; i < callsites.size(); i++) {
+            var call = callsites.get(i);
+            rows.add(new Object[]{i, call.getSourceId(), call.getTargetId(), call.getCallType(),
+                    call.getReceiverTypeIds(), call.getLine(), call.getMetadata()});
+        }
+        copyIn("COPY call_sites_staging FROM STDIN", rows);
+
+        context.execute("INSERT INTO call_sites (source_id, target_id, call_type, receiver_type_ids, line, metadata)"
+                + " SELECT DISTINCT ON (source_id, target_id) source_id, target_id, call_type, receiver_type_ids, line, metadata"
+                + " FROM call_sites_staging ORDER BY source_id, target_id, ord DESC"
+                + " ON CONFLICT ON CONSTRAINT unique_source_target DO UPDATE SET"
+                + " call_type = EXCLUDED.call_type, receiver_type_ids = EXCLUDED.receiver_type_ids, line = EXCLUDED.line,"
+                + " metadata = coalesce(call_sites.metadata, '{}'::jsonb) || EXCLUDED.metadata");
+        context.execute("TRUNCATE call_sites_staging");
+    }
+
+    /**
+     * Streams rows to the database with a COPY ... FROM STDIN statement in text format.
+     *
+     * @param sql  COPY statement
+     * @param rows Rows to copy; values are encoded by {@link #toCopyText(Object)}
+     */
+    private void copyIn(String sql, List<Object[]> rows) {
+        context.connection(connection -> {
+            var copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                var buffer = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+                for (var row : rows) {
+                    appendCopyRow(buffer, row);
+                    if (buffer.length() >= COPY_BUFFER_SIZE) {
+                        var bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                        copyIn.writeToCopy(bytes, 0, bytes.length);
+                        buffer.setLength(0);
+                    }
+                }
+                var bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+    }
+
+    /**
+     * Appends a row in the text format of COPY to a buffer.
+     *
+     * @param buffer Buffer to append to
+     * @param row    Values of the row
+     */
+    static void appendCopyRow(StringBuilder buffer, Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                buffer.append('\t');
+            }
+            buffer.append(toCopyText(row[i]));
+        }
+        buffer.append('\n');
+    }
+
+    /**
+     * Encodes a value in the text format of COPY.
+     *
+     * @param value Value to encode
+     * @return Encoded value, with special characters escaped
+     */
+    static String toCopyText(Object value) {
+        if (value == null) {
+            return "\\N";
+        }
+        String text;
+        if (value instanceof EnumType) {
+            text = ((EnumType) value).getLiteral();
+        } else if (value instanceof JSONB) {
+            text = ((JSONB) value).data();
+        } else if (value instanceof Object[]) {
+            var joiner = new StringJoiner(",", "{", "}");
+            for (var element : (Object[]) value) {
+                joiner.add(element == null ? "NULL" : element.toString());
+            }
+            text = joiner.toString();
+        } else {
+            text = value.toString();
+        }
+        var escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
     public void insertIngestedArtifact(String packageName, String version, Timestamp timestamp) {
         context.insertInto(IngestedArtifacts.INGESTED_ARTIFACTS,
                 IngestedArtifacts.INGESTED_ARTIFACTS.PACKAGE_NAME,
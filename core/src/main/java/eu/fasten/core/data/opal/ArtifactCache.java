@@ -0,0 +1,385 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.opal;
+
+import eu.fasten.core.data.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * A local, size-bounded, content-addressed cache of Maven artifacts.
+ * <p>
+ * The contents of each artifact are stored once in <code>blobs/</code>, under their SHA-256 digest,
+ * and every URL an artifact was fetched from is mapped to its digest by a small file in
+ * <code>refs/</code>; identical artifacts published under different coordinates or repositories are
+ * thus stored only once. Files are first written to <code>tmp/</code> and then atomically moved in
+ * place, so that concurrent readers (in this or in other processes sharing the directory) never
+ * see partial contents. When the total size of the blobs exceeds the budget, the least recently
+ * used ones are evicted.
+ * <p>
+ * {@link #get(String, Loader)} returns a private hard link to (or, where hard links are not
+ * supported, a copy of) the cached blob, which the caller owns and may delete, exactly as with a
+ * freshly downloaded temporary file; evictions do not affect links that were already handed out.
+ * When an artifact is loaded, the link is created from the downloaded file before it is moved to
+ * <code>blobs/</code>, so a concurrent eviction can never make a successful download fail.
+ */
+public class ArtifactCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactCache.class);
+
+    /** The default budget, in bytes, if {@link Constants#artifactCacheSizeEnvVariable} is not set. */
+    public static final long DEFAULT_MAX_BYTES = 10L << 30;
+
+    /** Temporary files older than this are considered leftovers of crashed processes. */
+    private static final Duration STALE_TMP_AGE = Duration.ofDays(1);
+
+    /** The number of lock stripes used to serialize fetches of the same key. */
+    private static final int LOCK_STRIPES = 64;
+
+    private static ArtifactCache defaultCache;
+    private static boolean defaultCacheInitialized;
+
+    /**
+     * Opens the contents of an artifact that is not in the cache.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        InputStream open() throws IOException;
+    }
+
+    private final Path blobDir;
+    private final Path refDir;
+    private final Path tmpDir;
+    private final long maxBytes;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /** The known blobs and their size, in access order. Guarded by {@code this}. */
+    private final LinkedHashMap<String, Long> blobs = new LinkedHashMap<>(16, .75f, true);
+    private long size;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Opens (or creates) a cache in the given directory. Blobs already in the directory are
+     * indexed in order of last access, and evicted if they exceed the budget.
+     *
+     * @param directory the directory of the cache.
+     * @param maxBytes  the maximum total size of the cached artifacts.
+     */
+    public ArtifactCache(final Path directory, final long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The size of the cache must be positive: " + maxBytes);
+        }
+        this.blobDir = Files.createDirectories(directory.resolve("blobs"));
+        this.refDir = Files.createDirectories(directory.resolve("refs"));
+        this.tmpDir = Files.createDirectories(directory.resolve("tmp"));
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+
+        final var threshold = FileTime.from(Instant.now().minus(STALE_TMP_AGE));
+        try (var files = Files.list(tmpDir)) {
+            for (final var file : files.collect(Collectors.toList())) {
+                if (Files.getLastModifiedTime(file).compareTo(threshold) < 0) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        try (var files = Files.list(blobDir)) {
+            for (final var file : files.sorted(Comparator.comparing(ArtifactCache::lastModified)).collect(Collectors.toList())) {
+                final long bytes = Files.size(file);
+                blobs.put(file.getFileName().toString(), bytes);
+                size += bytes;
+            }
+        }
+        evict();
+    }
+
+    /**
+     * Returns the cache configured by {@link Constants#artifactCacheDirEnvVariable} and
+     * {@link Constants#artifactCacheSizeEnvVariable}, shared by the whole process.
+     *
+     * @return the default cache, or an empty optional if no cache directory is configured.
+     */
+    public static synchronized Optional<ArtifactCache> getDefault() {
+        if (!defaultCacheInitialized) {
+            defaultCacheInitialized = true;
+            final var directory = System.getenv(Constants.artifactCacheDirEnvVariable);
+            if (directory != null && !directory.isEmpty()) {
+                final var maxBytes = System.getenv(Constants.artifactCacheSizeEnvVariable);
+                try {
+                    defaultCache = new ArtifactCache(Path.of(directory),
+                            maxBytes != null ? Long.parseLong(maxBytes) : DEFAULT_MAX_BYTES);
+                    logger.info("Using artifact cache in {}: {}", directory, defaultCache);
+                } catch (IOException e) {
+                    logger.error("Could not open artifact cache in " + directory + ", caching disabled", e);
+                }
+            }
+        }
+        return Optional.ofNullable(defaultCache);
+    }
+
+    /**
+     * Returns a file with the contents of the artifact with the given key, loading and caching
+     * them if necessary. Concurrent requests for the same key load the artifact only once.
+     *
+     * @param key    the key of the artifact, usually the URL it is fetched from.
+     * @param loader opens the contents of the artifact if it is not in the cache.
+     * @return a file, owned by the caller, with the contents of the artifact.
+     */
+    public Path get(final String key, final Loader loader) throws IOException {
+        final var extension = extension(key);
+        synchronized (locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)]) {
+            final var ref = refDir.resolve(sha256(key.getBytes(StandardCharsets.UTF_8)));
+            String digest = null;
+            try {
+                digest = Files.readString(ref).trim();
+            } catch (NoSuchFileException e) {
+                // Never cached
+            }
+            if (digest != null) {
+                final var file = checkout(digest, extension);
+                if (file != null) {
+                    hits.incrementAndGet();
+                    return file;
+                }
+            }
+
+            misses.incrementAndGet();
+            final var tmp = Files.createTempFile(tmpDir, "download", ".part");
+            Path file = null;
+            try {
+                digest = download(loader, tmp);
+                file = link(tmp, extension);
+                store(tmp, digest);
+                writeAtomically(ref, digest.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | RuntimeException e) {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+                throw e;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            evict();
+            return file;
+        }
+    }
+
+    /**
+     * Links a blob to a fresh file and marks it as recently used.
+     *
+     * @return the file, or {@code null} if the blob does not exist (anymore).
+     */
+    private Path checkout(final String digest, final String extension) throws IOException {
+        final var blob = blobDir.resolve(digest);
+        final Path file;
+        try {
+            file = link(blob, extension);
+        } catch (NoSuchFileException e) {
+            synchronized (this) {
+                final var bytes = blobs.remove(digest);
+                if (bytes != null) {
+                    size -= bytes;
+                }
+            }
+            return null;
+        }
+        Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+        synchronized (this) {
+            if (blobs.get(digest) == null) {
+                // Stored by another process
+                final long bytes = Files.size(file);
+                blobs.put(digest, bytes);
+                size += bytes;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Links a file to a fresh file, or copies it where hard links are not supported.
+     *
+     * @return the fresh file.
+     * @throws NoSuchFileException if the source file does not exist.
+     */
+    private Path link(final Path source, final String extension) throws IOException {
+        final var file = Files.createTempFile(tmpDir, "artifact", extension);
+        try {
+            Files.delete(file);
+            try {
+                Files.createLink(file, source);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                if (e instanceof NoSuchFileException) {
+                    throw e;
+                }
+                Files.copy(source, file);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Writes the contents of an artifact to a file, returning their digest.
+     */
+    private static String download(final Loader loader, final Path file) throws IOException {
+        final var digest = newDigest();
+        try (var in = loader.open(); var out = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+            in.transferTo(out);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Moves a downloaded file to the blob with the given digest.
+     */
+    private void store(final Path file, final String digest) throws IOException {
+        final long bytes = Files.size(file);
+        Files.move(file, blobDir.resolve(digest), StandardCopyOption.ATOMIC_MOVE);
+        synchronized (this) {
+            if (blobs.put(digest, bytes) == null) {
+                size += bytes;
+            }
+        }
+    }
+
+    private void writeAtomically(final Path target, final byte[] contents) throws IOException {
+        final var tmp = Files.createTempFile(tmpDir, "ref", ".part");
+        try {
+            Files.write(tmp, contents);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Evicts the least recently used blobs until the cache fits its budget. References to evicted
+     * blobs are left in place, and are treated as misses when looked up.
+     */
+    private synchronized void evict() throws IOException {
+        final var iterator = blobs.entrySet().iterator();
+        while (size > maxBytes && iterator.hasNext()) {
+            final var entry = iterator.next();
+            Files.deleteIfExists(blobDir.resolve(entry.getKey()));
+            size -= entry.getValue();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /** @return the number of requests served from the cache. */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** @return the number of requests that had to load the artifact. */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** @return the number of blobs evicted to respect the budget. */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /** @return the fraction of requests served from the cache, or 0 if there were no requests. */
+    public double getHitRatio() {
+        final long hits = getHits();
+        final long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /** @return the total size, in bytes, of the cached artifacts. */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /** @return the number of cached artifacts (distinct contents). */
+    public synchronized int getCount() {
+        return blobs.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d artifacts, %d/%d bytes, %d hits, %d misses (hit ratio %.2f), %d evictions",
+                getCount(), getSize(), maxBytes, getHits(), getMisses(), getHitRatio(), getEvictions());
+    }
+
+    private static String extension(final String key) {
+        final int slash = key.lastIndexOf('/');
+        final int dot = key.lastIndexOf('.');
+        return dot > slash ? key.substring(dot) : "";
+    }
+
+    private static FileTime lastModified(final Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(final byte[] bytes) {
+        return toHex(newDigest().digest(bytes));
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final var sb = new StringBuilder(2 * bytes.length);
+        for (final byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
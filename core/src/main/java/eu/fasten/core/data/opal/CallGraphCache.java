@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.opal;
+
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraph;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraphBinaryReader;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraphBinaryWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory, size-bounded cache of the class hierarchies and call graphs of artifacts.
+ * <p>
+ * Popular libraries are analyzed over and over, e.g., when the call graphs of the dependencies of
+ * many artifacts are generated in the same process. This cache keeps the result of each analysis,
+ * keyed by the SHA-256 digest of the contents of the artifact and by a description of the
+ * analysis (algorithm, entry points...), so that a repeated analysis skips reading the bytecode,
+ * building the class hierarchy and constructing the call graph. Results are stored in the binary
+ * format of {@link ExtendedRevisionJavaCallGraphBinaryWriter}: this makes their size, which is
+ * what counts against the budget, exact, and every lookup returns a fresh copy that the caller
+ * can modify. When the cached results exceed the budget, the least recently used ones are
+ * evicted.
+ * <p>
+ * For every hit, the time the original analysis took minus the time spent decoding the cached
+ * result is added to {@link #getTimeSaved()}.
+ */
+public class CallGraphCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CallGraphCache.class);
+
+    /** The number of lock stripes used to serialize analyses of the same key. */
+    private static final int LOCK_STRIPES = 64;
+
+    private static CallGraphCache defaultCache;
+    private static boolean defaultCacheInitialized;
+
+    /**
+     * Analyzes an artifact that is not in the cache.
+     */
+    @FunctionalInterface
+    public interface Analysis<E extends Exception> {
+        ExtendedRevisionJavaCallGraph run() throws E;
+    }
+
+    /** A cached result, and the time it took to compute it. */
+    private static final class Entry {
+        final byte[] callGraph;
+        final long nanos;
+
+        Entry(final byte[] callGraph, final long nanos) {
+            this.callGraph = callGraph;
+            this.nanos = nanos;
+        }
+    }
+
+    private final long maxBytes;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /** The cached results, in access order. Guarded by {@code this}. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, .75f, true);
+    private long size;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes the maximum total size of the cached results.
+     */
+    public CallGraphCache(final long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The size of the cache must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the cache configured by {@link Constants#callGraphCacheSizeEnvVariable}, shared by
+     * the whole process.
+     *
+     * @return the default cache, or an empty optional if no size is configured.
+     */
+    public static synchronized Optional<CallGraphCache> getDefault() {
+        if (!defaultCacheInitialized) {
+            defaultCacheInitialized = true;
+            final var maxBytes = System.getenv(Constants.callGraphCacheSizeEnvVariable);
+            if (maxBytes != null && !maxBytes.isEmpty()) {
+                try {
+                    defaultCache = new CallGraphCache(Long.parseLong(maxBytes));
+                    logger.info("Using call graph cache: {}", defaultCache);
+                } catch (IllegalArgumentException e) {
+                    logger.error("Invalid call graph cache size " + maxBytes + ", caching disabled", e);
+                }
+            }
+        }
+        return Optional.ofNullable(defaultCache);
+    }
+
+    /**
+     * Returns the result of an analysis of an artifact, running the analysis and caching its
+     * result if necessary. Concurrent requests for the same artifact and analysis run the
+     * analysis only once.
+     *
+     * @param artifact the artifact to analyze.
+     * @param analysis a description of the analysis, e.g., its algorithm; results are cached
+     *                 separately for each artifact and description.
+     * @param loader   runs the analysis if its result is not in the cache.
+     * @return the result of the analysis, owned by the caller.
+     */
+    public <E extends Exception> ExtendedRevisionJavaCallGraph get(final Path artifact, final String analysis,
+                                                                   final Analysis<E> loader) throws IOException, E {
+        final var key = sha256(artifact) + "/" + analysis;
+        synchronized (locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)]) {
+            final Entry entry;
+            synchronized (this) {
+                entry = entries.get(key);
+            }
+            if (entry != null) {
+                final long start = System.nanoTime();
+                final var callGraph = ExtendedRevisionJavaCallGraphBinaryReader.fromBytes(entry.callGraph).read();
+                hits.incrementAndGet();
+                savedNanos.addAndGet(Math.max(0, entry.nanos - (System.nanoTime() - start)));
+                return callGraph;
+            }
+
+            misses.incrementAndGet();
+            final long start = System.nanoTime();
+            final var callGraph = loader.run();
+            final long nanos = System.nanoTime() - start;
+            final var bytes = ExtendedRevisionJavaCallGraphBinaryWriter.toByteArray(callGraph);
+            if (bytes.length <= maxBytes) {
+                synchronized (this) {
+                    final var previous = entries.put(key, new Entry(bytes, nanos));
+                    size += bytes.length - (previous == null ? 0 : previous.callGraph.length);
+                    evict();
+                }
+            }
+            return callGraph;
+        }
+    }
+
+    /**
+     * Evicts the least recently used results until the cache fits its budget.
+     */
+    private synchronized void evict() {
+        final var iterator = entries.values().iterator();
+        while (size > maxBytes && iterator.hasNext()) {
+            size -= iterator.next().callGraph.length;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /** @return the number of requests served from the cache. */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** @return the number of requests that had to run the analysis. */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** @return the number of results evicted to respect the budget. */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /** @return the analysis time saved by serving requests from the cache. */
+    public Duration getTimeSaved() {
+        return Duration.ofNanos(savedNanos.get());
+    }
+
+    /** @return the total size, in bytes, of the cached results. */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /** @return the number of cached results. */
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d call graphs, %d/%d bytes, %d hits, %d misses, %d evictions, %.3f seconds saved",
+                getCount(), getSize(), maxBytes, getHits(), getMisses(), getEvictions(), getTimeSaved().toMillis() / 1000d);
+    }
+
+    private static String sha256(final Path file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final var buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        final var sb = new StringBuilder(2 * digest.getDigestLength());
+        for (final byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -28,7 +28,6 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -157,7 +156,16 @@ public class MavenCoordinate {
      * @return product URL
      */
     public String toProductUrl(String repo, String extension) {
-        return this.toURL(repo) + "/" + this.artifactID + "-" + this.versionConstraint
+        return repo + this.toProductPath(extension);
+    }
+
+    /**
+     * Convert to the path of the product relative to a repository.
+     *
+     * @return product path
+     */
+    public String toProductPath(String extension) {
+        return this.toURL("") + "/" + this.artifactID + "-" + this.versionConstraint
                 + "." + extension;
     }
 
@@ -170,6 +178,28 @@ public class MavenCoordinate {
                 "aar", "car", "nar", "kar"};
         private static final String[] defaultPackaging = {"zip", "aar", "tar.gz", "jar"};
 
+        private final MavenRepositoryClient client;
+        private final ArtifactCache cache;
+
+        /**
+         * Creates a resolver fetching artifacts over the network, through the
+         * {@linkplain ArtifactCache#getDefault() default cache} if one is configured.
+         */
+        public MavenResolver() {
+            this(MavenRepositoryClient.remote(), ArtifactCache.getDefault().orElse(null));
+        }
+
+        /**
+         * Creates a resolver fetching artifacts with the given client.
+         *
+         * @param client the backend used to fetch artifacts.
+         * @param cache  the cache of downloaded artifacts, or {@code null} to always download them.
+         */
+        public MavenResolver(final MavenRepositoryClient client, final ArtifactCache cache) {
+            this.client = client;
+            this.cache = cache;
+        }
+
         /**
          * Download a JAR file indicated by the provided Maven coordinate.
          *
@@ -191,8 +221,7 @@ public class MavenCoordinate {
                 try {
                     if (Arrays.asList(packaging).contains(mavenCoordinate.getPackaging())) {
                         found = true;
-                        jar = httpGetFile(mavenCoordinate
-                                .toProductUrl(repos.get(i), mavenCoordinate.getPackaging()));
+                        jar = getFile(repos.get(i), mavenCoordinate.toProductPath(mavenCoordinate.getPackaging()));
                     }
                 } catch (MissingArtifactException e) {
                     found = false;
@@ -215,7 +244,7 @@ public class MavenCoordinate {
                     startTime = System.nanoTime();
                     try {
                         found = true;
-                        jar = httpGetFile(mavenCoordinate.toProductUrl(repos.get(i), s));
+                        jar = getFile(repos.get(i), mavenCoordinate.toProductPath(s));
                     } catch (MissingArtifactException e) {
                         found = false;
 
@@ -241,17 +270,21 @@ public class MavenCoordinate {
         }
 
         /**
-         * Utility function that stores the contents of GET request to a temporary file.
+         * Utility function that stores the contents of a file of a repository to a temporary file,
+         * going through the cache if there is one.
          */
-        private static Optional<File> httpGetFile(final String url) throws MissingArtifactException {
+        private Optional<File> getFile(final String repo, final String path) throws MissingArtifactException {
             Path tempFile = null;
             try {
-                    final var packaging = url.substring(url.lastIndexOf("."));
+                    if (cache != null) {
+                        return Optional.of(cache.get(repo + path, () -> client.open(repo, path)).toFile());
+                    }
+                    final var packaging = path.substring(path.lastIndexOf("."));
                     tempFile = Files.createTempFile("fasten", packaging);
 
-                    final InputStream in = new URL(url).openStream();
-                    Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
-                    in.close();
+                    try (final InputStream in = client.open(repo, path)) {
+                        Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
 
                     return Optional.of(new File(tempFile.toAbsolutePath().toString()));
             } catch (IOException e) {
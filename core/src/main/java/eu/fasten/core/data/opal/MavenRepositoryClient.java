@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.opal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The backend used by {@link MavenCoordinate.MavenResolver} to fetch files from a Maven repository.
+ */
+@FunctionalInterface
+public interface MavenRepositoryClient {
+
+    /**
+     * Opens a file of a Maven repository.
+     *
+     * @param repo the base URL of the repository, ending with a slash.
+     * @param path the path of the file relative to the repository, as returned by
+     *             {@link MavenCoordinate#toProductPath(String)}.
+     * @return a stream over the contents of the file; the caller is responsible for closing it.
+     * @throws IOException if the file does not exist or cannot be read.
+     */
+    InputStream open(String repo, String path) throws IOException;
+
+    /**
+     * Returns a client fetching files over the network from the URL of the repository.
+     *
+     * @return a client for remote repositories.
+     */
+    static MavenRepositoryClient remote() {
+        return (repo, path) -> new URL(repo + path).openStream();
+    }
+
+    /**
+     * Returns a client serving every repository from a local directory with the layout of a
+     * Maven repository (e.g., <code>~/.m2/repository</code>); mostly useful for testing.
+     *
+     * @param root the root of the local repository.
+     * @return a client for a local repository.
+     */
+    static MavenRepositoryClient local(final Path root) {
+        return (repo, path) -> Files.newInputStream(root.resolve(path));
+    }
+}
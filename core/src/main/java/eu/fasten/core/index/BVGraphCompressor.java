@@ -0,0 +1,507 @@
+package eu.fasten.core.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.io.FastByteArrayInputStream;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterators;
+import it.unimi.dsi.io.InputBitStream;
+import it.unimi.dsi.io.OutputBitStream;
+import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
+import it.unimi.dsi.webgraph.BVGraph;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.NodeIterator;
+
+/**
+ * Compresses an {@link ImmutableGraph} into a {@link BVGraph} entirely in memory.
+ *
+ * <p>
+ * The usual way of obtaining a {@link BVGraph} is {@linkplain BVGraph#store(ImmutableGraph, CharSequence)
+ * storing} a graph on disk and {@linkplain BVGraph#load(CharSequence) loading} it back. This class
+ * replicates the compression performed by {@link BVGraph#store(ImmutableGraph, CharSequence)} with
+ * default parameters, including its splitting in parallel parts, but writes the bit stream and the
+ * offsets in memory: the returned graph has the same bit stream, the same offsets and the same
+ * properties as a graph stored and loaded with the default methods, with the only exception of its
+ * {@linkplain BVGraph#basename() basename}, which is {@code null}.
+ *
+ * <p>
+ * Besides avoiding temporary files, compression is faster, as the cost of each candidate reference
+ * is computed from the lengths of the instantaneous codes involved, rather than by actually
+ * compressing the successor list on a null stream. The implementation extends {@link BVGraph} only
+ * to access its protected coding methods.
+ */
+public class BVGraphCompressor extends BVGraph {
+	private static final long serialVersionUID = 0L;
+
+	/** The system property used by {@link BVGraph} to override the number of compression threads. */
+	private static final String THREADS_PROPERTY = "it.unimi.dsi.webgraph.threads";
+
+	private BVGraphCompressor() {}
+
+	/**
+	 * Compresses a graph in memory.
+	 *
+	 * @param graph a graph.
+	 * @param properties a property object that will be filled with the properties that
+	 *            {@link BVGraph#store(ImmutableGraph, CharSequence)} would have written.
+	 * @return a {@link BVGraph} identical to the one that would be returned by
+	 *         {@link BVGraph#load(CharSequence)} after {@link BVGraph#store(ImmutableGraph, CharSequence)},
+	 *         except for the basename.
+	 */
+	public static BVGraph compress(final ImmutableGraph graph, final Properties properties) throws IOException {
+		return new BVGraphCompressor().compressInternal(graph, properties);
+	}
+
+	private BVGraph compressInternal(final ImmutableGraph graph, final Properties properties) throws IOException {
+		final int numNodes = graph.numNodes();
+		// The same choice of parallelism of BVGraph.store(), as it determines the output
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (threads > numNodes / 100000) threads = Math.max(1, numNodes / 100000);
+		threads = Integer.parseInt(System.getProperty(THREADS_PROPERTY, Integer.toString(threads)));
+		if (threads > 1 && !graph.hasCopiableIterators()) threads = 1;
+
+		final Part[] parts = new Part[threads];
+		if (threads == 1) {
+			parts[0] = new Part(graph.nodeIterator());
+			parts[0].call();
+		} else {
+			final NodeIterator[] nodeIterators = graph.splitNodeIterators(threads);
+			for (int i = 0; i < threads; i++) parts[i] = new Part(nodeIterators[i]);
+			final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+			try {
+				for (final Future<Void> future : executorService.invokeAll(List.of(parts))) future.get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			} catch (final ExecutionException e) {
+				if (e.getCause() instanceof IOException) throw (IOException)e.getCause();
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+				throw new IOException(e.getCause());
+			} finally {
+				executorService.shutdown();
+			}
+		}
+
+		// Concatenate the bit streams of the parts, and compute absolute offsets
+		final long[] offsets = new long[numNodes + 1];
+		final byte[] graphMemory;
+		long graphWrittenBits = 0;
+		int node = 0;
+		if (threads == 1) {
+			final LongArrayList partOffsets = parts[0].offsets;
+			for (int i = 0; i < partOffsets.size(); i++) offsets[node++] = partOffsets.getLong(i);
+			graphWrittenBits = parts[0].graphWrittenBits;
+			parts[0].graphMemory.trim();
+			graphMemory = parts[0].graphMemory.array;
+		} else {
+			final FastByteArrayOutputStream graphMemoryStream = new FastByteArrayOutputStream();
+			final OutputBitStream graphObs = new OutputBitStream(graphMemoryStream);
+			for (final Part part : parts) {
+				if (part.nodeIterator == null) continue;
+				final LongArrayList partOffsets = part.offsets;
+				for (int i = 0; i < partOffsets.size(); i++) offsets[node++] = graphWrittenBits + partOffsets.getLong(i);
+				final InputBitStream ibs = new InputBitStream(part.graphMemory.array);
+				ibs.copyTo(graphObs, part.graphWrittenBits);
+				ibs.close();
+				graphWrittenBits += part.graphWrittenBits;
+			}
+			graphObs.close();
+			graphMemoryStream.trim();
+			graphMemory = graphMemoryStream.array;
+		}
+		if (node != numNodes) throw new IllegalStateException("The node iterators returned " + node + " nodes, but the graph has " + numNodes + " nodes");
+		offsets[numNodes] = graphWrittenBits;
+
+		final long totLinks = sum(parts, p -> p.totLinks);
+		fillProperties(properties, parts, numNodes, totLinks, graphWrittenBits);
+
+		n = numNodes;
+		m = totLinks;
+		isMemory = true;
+		offsetType = 1;
+		this.graphMemory = graphMemory;
+		this.offsets = new EliasFanoMonotoneLongBigList(numNodes + 1, graphMemory.length * 8L + 1, LongIterators.wrap(offsets));
+		// copy() returns a plain BVGraph sharing our bit stream and offsets
+		return copy();
+	}
+
+	private interface PartStatistic {
+		long get(Part part);
+	}
+
+	private static long sum(final Part[] parts, final PartStatistic statistic) {
+		long sum = 0;
+		for (final Part part : parts) sum += statistic.get(part);
+		return sum;
+	}
+
+	private static double stirling(final double n) {
+		return n * Math.log(n) - n + (1. / 2) * Math.log(2 * Math.PI * n);
+	}
+
+	/**
+	 * Fills the given property object exactly as {@link BVGraph#store(ImmutableGraph, CharSequence)}
+	 * would do when writing the property file.
+	 */
+	private void fillProperties(final Properties properties, final Part[] parts, final int numNodes, final long totLinks, final long graphWrittenBits) throws IOException {
+		final DecimalFormat format = (DecimalFormat)NumberFormat.getInstance(Locale.US);
+		format.applyPattern("0.###");
+		final Properties stored = new Properties();
+		stored.setProperty("nodes", String.valueOf(numNodes));
+		stored.setProperty("arcs", String.valueOf(totLinks));
+		stored.setProperty("windowsize", String.valueOf(windowSize));
+		stored.setProperty("maxrefcount", String.valueOf(maxRefCount));
+		stored.setProperty("minintervallength", String.valueOf(minIntervalLength));
+		if (residualCoding == ZETA) stored.setProperty("zetak", String.valueOf(zetaK));
+		// Default compression flags are represented by the empty string
+		stored.setProperty("compressionflags", "");
+		stored.setProperty("avgref", format.format((double)sum(parts, p -> p.totRef) / numNodes));
+		stored.setProperty("avgdist", format.format((double)sum(parts, p -> p.totDist) / numNodes));
+		stored.setProperty("copiedarcs", String.valueOf(sum(parts, p -> p.copiedArcs)));
+		stored.setProperty("intervalisedarcs", String.valueOf(sum(parts, p -> p.intervalisedArcs)));
+		stored.setProperty("residualarcs", String.valueOf(sum(parts, p -> p.residualArcs)));
+		stored.setProperty("bitsperlink", format.format((double)graphWrittenBits / totLinks));
+		stored.setProperty("compratio", format.format(graphWrittenBits * Math.log(2) / (stirling((double)numNodes * numNodes) - stirling(totLinks) - stirling((double)numNodes * numNodes - totLinks))));
+		stored.setProperty("bitspernode", format.format((double)graphWrittenBits / numNodes));
+		stored.setProperty("avgbitsforoutdegrees", format.format((double)sum(parts, p -> p.bitsForOutdegrees) / numNodes));
+		stored.setProperty("avgbitsforreferences", format.format((double)sum(parts, p -> p.bitsForReferences) / numNodes));
+		stored.setProperty("avgbitsforblocks", format.format((double)sum(parts, p -> p.bitsForBlocks) / numNodes));
+		stored.setProperty("avgbitsforresiduals", format.format((double)sum(parts, p -> p.bitsForResiduals) / numNodes));
+		stored.setProperty("avgbitsforintervals", format.format((double)sum(parts, p -> p.bitsForIntervals) / numNodes));
+		stored.setProperty("bitsforoutdegrees", Long.toString(sum(parts, p -> p.bitsForOutdegrees)));
+		stored.setProperty("bitsforreferences", Long.toString(sum(parts, p -> p.bitsForReferences)));
+		stored.setProperty("bitsforblocks", Long.toString(sum(parts, p -> p.bitsForBlocks)));
+		stored.setProperty("bitsforresiduals", Long.toString(sum(parts, p -> p.bitsForResiduals)));
+		stored.setProperty("bitsforintervals", Long.toString(sum(parts, p -> p.bitsForIntervals)));
+		stored.setProperty("graphclass", BVGraph.class.getName());
+		stored.setProperty("version", String.valueOf(BVGRAPH_VERSION));
+		fillGapStatistics(stored, "successor", parts, p -> p.successorGapStats);
+		fillGapStatistics(stored, "residual", parts, p -> p.residualGapStats);
+
+		/*
+		 * BVGraph.store() writes the properties to a file, and BVGraph.load() reads them back: the
+		 * iteration order of the resulting object (and thus its serialized form) depends on this
+		 * round trip, so we replicate it in memory.
+		 */
+		final FastByteArrayOutputStream fbaos = new FastByteArrayOutputStream();
+		stored.store(fbaos, "BVGraph properties");
+		properties.load(new FastByteArrayInputStream(fbaos.array, 0, fbaos.length));
+	}
+
+	private interface PartGapStatistics {
+		long[] get(Part part);
+	}
+
+	private static void fillGapStatistics(final Properties properties, final String prefix, final Part[] parts, final PartGapStatistics statistics) {
+		final long[] stats = new long[32];
+		for (final Part part : parts) for (int i = 0; i < stats.length; i++) stats[i] += statistics.get(part)[i];
+		int max = stats.length;
+		while (max-- != 0 && stats[max] == 0);
+
+		final StringBuilder s = new StringBuilder();
+		BigInteger totGap = BigInteger.ZERO;
+		double totLogGap = 0;
+		long numGaps = 0;
+		long g = 1;
+		for (int i = 0; i <= max; i++) {
+			if (i != 0) s.append(',');
+			s.append(stats[i]);
+			numGaps += stats[i];
+			totGap = totGap.add(BigInteger.valueOf(g * 2 + g - 1).multiply(BigInteger.valueOf(stats[i])));
+			totLogGap += (Fast.log2(g * 2 + g + 1) - 1) * stats[i];
+			g *= 2;
+		}
+
+		properties.setProperty(prefix + "expstats", s.toString());
+		properties.setProperty(prefix + "avggap", numGaps == 0 ? "0" : new BigDecimal(totGap).divide(BigDecimal.valueOf(numGaps * 2), 3, RoundingMode.HALF_EVEN).toString());
+		properties.setProperty(prefix + "avgloggap", numGaps == 0 ? "0" : Double.toString(totLogGap / numGaps));
+	}
+
+	/**
+	 * Compresses the nodes returned by a node iterator, as {@link BVGraph}'s compression threads do,
+	 * but writing the bit stream to memory.
+	 */
+	private final class Part implements Callable<Void> {
+		private final NodeIterator nodeIterator;
+		/** The bit stream. */
+		private final FastByteArrayOutputStream graphMemory = new FastByteArrayOutputStream();
+		/** The offset in bits of each node in {@link #graphMemory}. */
+		private final LongArrayList offsets = new LongArrayList();
+		private long graphWrittenBits;
+
+		private long totLinks, totRef, totDist;
+		private long copiedArcs, intervalisedArcs, residualArcs;
+		private long bitsForOutdegrees, bitsForReferences, bitsForBlocks, bitsForResiduals, bitsForIntervals;
+		private final long[] successorGapStats = new long[32];
+		private final long[] residualGapStats = new long[32];
+
+		private final IntArrayList extras = new IntArrayList(), blocks = new IntArrayList(), residuals = new IntArrayList(), left = new IntArrayList(), len = new IntArrayList();
+
+		private Part(final NodeIterator nodeIterator) {
+			this.nodeIterator = nodeIterator;
+		}
+
+		@Override
+		public Void call() throws IOException {
+			if (nodeIterator == null) return null;
+			final OutputBitStream graphObs = new OutputBitStream(graphMemory);
+			final int cyclicBufferSize = windowSize + 1;
+			final int[][] list = new int[cyclicBufferSize][INITIAL_SUCCESSOR_LIST_LENGTH];
+			final int[] listLen = new int[cyclicBufferSize];
+			final int[] refCount = new int[cyclicBufferSize];
+
+			while (nodeIterator.hasNext()) {
+				final int currNode = nodeIterator.nextInt();
+				final int outd = nodeIterator.outdegree();
+				final int currIndex = currNode % cyclicBufferSize;
+				offsets.add(graphObs.writtenBits());
+				bitsForOutdegrees += writeOutdegree(graphObs, outd);
+
+				list[currIndex] = IntArrays.ensureCapacity(list[currIndex], outd, 0);
+				System.arraycopy(nodeIterator.successorArray(), 0, list[currIndex], 0, outd);
+				listLen[currIndex] = outd;
+
+				if (outd > 0) {
+					updateBins(currNode, list[currIndex], outd, successorGapStats);
+					// Try all possible references within the window, and choose the best one
+					long bestComp = Long.MAX_VALUE;
+					int bestCand = -1, bestRef = -1;
+					refCount[currIndex] = -1;
+					for (int r = 0; r < cyclicBufferSize; r++) {
+						final int cand = (int)(((long)currNode - r + cyclicBufferSize) % cyclicBufferSize);
+						if (refCount[cand] < maxRefCount && listLen[cand] != 0) {
+							final long diffComp = diffCost(currNode, r, list[cand], listLen[cand], list[currIndex], listLen[currIndex]);
+							if (diffComp < bestComp) {
+								bestComp = diffComp;
+								bestCand = cand;
+								bestRef = r;
+							}
+						}
+					}
+					refCount[currIndex] = refCount[bestCand] + 1;
+					diffComp(graphObs, currNode, bestRef, list[bestCand], listLen[bestCand], list[currIndex], listLen[currIndex]);
+					totLinks += outd;
+					totRef += refCount[currIndex];
+					totDist += bestRef;
+				}
+			}
+
+			graphWrittenBits = graphObs.writtenBits();
+			graphObs.close();
+			return null;
+		}
+
+		/**
+		 * Computes the blocks of successors copied from a reference list, and the extra successors.
+		 */
+		private void diff(final int[] refList, final int refLen, final int[] currList, final int currLen) {
+			int j = 0, k = 0, currBlockLen = 0;
+			boolean copying = true;
+			extras.clear();
+			blocks.clear();
+
+			while (j < currLen && k < refLen) {
+				if (copying) {
+					if (currList[j] > refList[k]) {
+						blocks.add(currBlockLen);
+						copying = false;
+						currBlockLen = 0;
+					} else if (currList[j] < refList[k]) extras.add(currList[j++]);
+					else {
+						j++;
+						k++;
+						currBlockLen++;
+					}
+				} else {
+					if (currList[j] < refList[k]) extras.add(currList[j++]);
+					else if (currList[j] > refList[k]) {
+						k++;
+						currBlockLen++;
+					} else {
+						blocks.add(currBlockLen);
+						copying = true;
+						currBlockLen = 0;
+					}
+				}
+			}
+			if (copying && k < refLen) blocks.add(currBlockLen);
+			while (j < currLen) extras.add(currList[j++]);
+		}
+
+		/**
+		 * Returns the number of bits that {@link #diffComp(OutputBitStream, int, int, int[], int, int[], int)}
+		 * would write, without writing them.
+		 *
+		 * <p>
+		 * {@link BVGraph} computes this number by compressing each candidate reference on a null stream,
+		 * which accounts for most of the compression time. Here we use instead the lengths of the
+		 * default codes: unary for references, &gamma; for blocks and intervals, and &zeta;<sub><var>k</var></sub>
+		 * for residuals.
+		 */
+		private long diffCost(final int currNode, final int ref, final int[] refList, final int refLen, final int[] currList, final int currLen) {
+			diff(refList, ref == 0 ? 0 : refLen, currList, currLen);
+			final int[] block = blocks.elements();
+			final int blockCount = blocks.size();
+			final int[] extra = extras.elements();
+			final int extraCount = extras.size();
+
+			long cost = 0;
+			if (windowSize > 0) cost += ref + 1;
+			if (ref != 0) {
+				cost += gammaLength(blockCount);
+				for (int i = 0; i < blockCount; i++) cost += gammaLength(i == 0 ? block[i] : block[i] - 1);
+			}
+
+			if (extraCount > 0) {
+				// Intervals and residuals are computed as in BVGraph.intervalize()
+				int intervalCount = 0, residualCount = 0, prevInterval = 0, prevResidual = 0;
+				for (int i = 0; i < extraCount; i++) {
+					int j = 0;
+					if (minIntervalLength != NO_INTERVALS && i < extraCount - 1 && extra[i] + 1 == extra[i + 1]) {
+						do j++; while (i + j < extraCount - 1 && extra[i + j] + 1 == extra[i + j + 1]);
+						j++;
+						if (j >= minIntervalLength) {
+							cost += intervalCount++ == 0 ? longGammaLength(Fast.int2nat((long)extra[i] - currNode)) : gammaLength(extra[i] - prevInterval - 1);
+							cost += gammaLength(j - minIntervalLength);
+							prevInterval = extra[i] + j;
+							i += j - 1;
+						}
+					}
+					if (minIntervalLength == NO_INTERVALS || j < minIntervalLength) {
+						if (residualCount++ == 0) cost += longZetaLength(Fast.int2nat((long)extra[i] - currNode), zetaK);
+						else {
+							if (extra[i] == prevResidual) throw new IllegalArgumentException("Repeated successor " + prevResidual + " in successor list of node " + currNode);
+							cost += zetaLength(extra[i] - prevResidual - 1, zetaK);
+						}
+						prevResidual = extra[i];
+					}
+				}
+				if (minIntervalLength != NO_INTERVALS) cost += gammaLength(intervalCount);
+			}
+
+			return cost;
+		}
+
+		/**
+		 * Writes the successor list of a node, possibly by reference to a previous list, and returns
+		 * the number of bits written.
+		 */
+		private long diffComp(final OutputBitStream obs, final int currNode, final int ref, final int[] refList, final int refLen, final int[] currList, final int currLen) throws IOException {
+			final long writtenBitsAtStart = obs.writtenBits();
+			diff(refList, ref == 0 ? 0 : refLen, currList, currLen);
+			final int[] block = blocks.elements();
+			final int blockCount = blocks.size();
+			final int extraCount = extras.size();
+			copiedArcs += currLen - extraCount;
+
+			if (windowSize > 0) bitsForReferences += writeReference(obs, ref);
+
+			if (ref != 0) {
+				bitsForBlocks += writeBlockCount(obs, blockCount);
+				if (blockCount > 0) {
+					bitsForBlocks += writeBlock(obs, block[0]);
+					for (int i = 1; i < blockCount; i++) bitsForBlocks += writeBlock(obs, block[i] - 1);
+				}
+			}
+
+			if (extraCount > 0) {
+				final int[] residual;
+				final int residualCount;
+				int prev = 0;
+				if (minIntervalLength != NO_INTERVALS) {
+					final int intervalCount = intervalize(extras, minIntervalLength, left, len, residuals);
+					bitsForIntervals += obs.writeGamma(intervalCount);
+
+					for (int i = 0; i < intervalCount; i++) {
+						if (i == 0) bitsForIntervals += obs.writeLongGamma(Fast.int2nat((long)(prev = left.getInt(i)) - currNode));
+						else bitsForIntervals += obs.writeGamma(left.getInt(i) - prev - 1);
+						final int currIntLen = len.getInt(i);
+						prev = left.getInt(i) + currIntLen;
+						intervalisedArcs += currIntLen;
+						bitsForIntervals += obs.writeGamma(currIntLen - minIntervalLength);
+					}
+
+					residual = residuals.elements();
+					residualCount = residuals.size();
+				} else {
+					residual = extras.elements();
+					residualCount = extras.size();
+				}
+
+				if (residualCount != 0) {
+					residualArcs += residualCount;
+					updateBins(currNode, residual, residualCount, residualGapStats);
+					bitsForResiduals += writeResidual(obs, Fast.int2nat((long)(prev = residual[0]) - currNode));
+					for (int i = 1; i < residualCount; i++) {
+						if (residual[i] == prev) throw new IllegalArgumentException("Repeated successor " + prev + " in successor list of node " + currNode);
+						bitsForResiduals += writeResidual(obs, residual[i] - prev - 1);
+						prev = residual[i];
+					}
+				}
+			}
+
+			return obs.writtenBits() - writtenBitsAtStart;
+		}
+	}
+
+	/** Returns the length of the &gamma; code of a natural number, as written by {@link OutputBitStream#writeGamma(int)}. */
+	private static int gammaLength(final int x) {
+		return 2 * Fast.mostSignificantBit(x + 1) + 1;
+	}
+
+	/** Returns the length of the &gamma; code of a natural number, as written by {@link OutputBitStream#writeLongGamma(long)}. */
+	private static int longGammaLength(final long x) {
+		return 2 * Fast.mostSignificantBit(x + 1) + 1;
+	}
+
+	/** Returns the length of the &zeta;<sub><var>k</var></sub> code of a natural number, as written by {@link OutputBitStream#writeZeta(int, int)}. */
+	private static int zetaLength(final int x, final int k) {
+		final int msb = Fast.mostSignificantBit(x + 1);
+		final int h = msb / k;
+		final int left = 1 << h * k;
+		return h + 1 + (x + 1 - left < left ? h * k + k - 1 : h * k + k);
+	}
+
+	/** Returns the length of the &zeta;<sub><var>k</var></sub> code of a natural number, as written by {@link OutputBitStream#writeLongZeta(long, int)}. */
+	private static int longZetaLength(final long x, final int k) {
+		final int msb = Fast.mostSignificantBit(x + 1);
+		final int h = msb / k;
+		final long left = 1L << h * k;
+		return h + 1 + (x + 1 - left < left ? h * k + k - 1 : h * k + k);
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.maven;
+
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+import org.apache.commons.math3.util.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.fasten.core.maven.data.CompactDependencyGraph;
+import eu.fasten.core.maven.data.MavenProduct;
+import eu.fasten.core.maven.data.Revision;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+
+/**
+ * A {@link GraphMavenResolver} resolving dependencies on a {@link CompactDependencyGraph} rather than
+ * on the shared object graph.
+ *
+ * <p>
+ * Resolution visits the int-indexed graph using only primitive collections, and returns exactly
+ * the same dependency sets as {@link GraphMavenResolver}, in the same order: products appear in
+ * the order in which they are first met; among revisions of a product released at the same time
+ * the first one met is selected, as in {@link #filterDependenciesByTimestamp(List, long)}, and
+ * among revisions at the same distance from the root the last one met, as in
+ * {@link #resolveConflicts(ObjectLinkedOpenHashSet)}.
+ *
+ * <p>
+ * Dependents are still resolved on the shared object graph.
+ */
+public class CompactGraphMavenResolver extends GraphMavenResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactGraphMavenResolver.class);
+
+    /** Above this number of successors, they are grouped by product using a hash map rather than by linear search. */
+    private static final int LINEAR_GROUPING_THRESHOLD = 16;
+
+    private final CompactDependencyGraph graph;
+
+    /**
+     * Creates a resolver on a compact dependency graph.
+     *
+     * @param graph a compact dependency graph.
+     */
+    public CompactGraphMavenResolver(final CompactDependencyGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the compact dependency graph this resolver works on.
+     *
+     * @return the compact dependency graph.
+     */
+    public CompactDependencyGraph getCompactDependencyGraph() {
+        return graph;
+    }
+
+    @Override
+    protected Object resolutionGraph() {
+        return graph;
+    }
+
+    @Override
+    public Triple<ObjectLinkedOpenHashSet<Revision>, List<Pair<Revision, MavenProduct>>, Map<Revision, Revision>>
+    dependencyBFS(String groupId, String artifactId, String version, long timestamp, boolean transitive) {
+        assert (timestamp > 0);
+        var artifact = new Revision(groupId, artifactId, version, new Timestamp(timestamp));
+        var root = graph.id(artifact);
+        if (root == -1) {
+            throw new RuntimeException("Revision " + artifact + " is not in the dependency graph. Probably it is missing in the database");
+        }
+        logger.debug("BFS from root: {}:{}:{}", groupId, artifactId, version);
+        var visit = new Visit(timestamp);
+        var successors = new IntArrayList();
+        for (int e = graph.edgeStart(root), end = graph.edgeEnd(root); e < end; e++) {
+            visit.edge(root, e);
+            successors.add(graph.target(e));
+        }
+        return visit.run(visit.filterByTimestamp(successors), transitive);
+    }
+
+    @Override
+    public ObjectLinkedOpenHashSet<Revision> resolveDependencies(Collection<Revision> roots, long timestamp, boolean transitive) {
+        var firstLevel = new IntArrayList(roots.size());
+        var latest = Long.MIN_VALUE;
+        for (var root : roots) {
+            var id = graph.id(root);
+            if (id == -1) {
+                if (getIgnoreMissing()) {
+                    continue;
+                }
+                throw new RuntimeException("Revision " + root + " is not in the dependency graph. Probably it is missing in the database");
+            }
+            firstLevel.add(id);
+            latest = Math.max(latest, root.createdAt.getTime());
+        }
+        if (timestamp == -1) {
+            timestamp = firstLevel.isEmpty() ? -1 : latest;
+        }
+        var triple = new Visit(timestamp).run(firstLevel, transitive);
+        return filterDependenciesByExclusions(triple.getLeft(), triple.getMiddle(), triple.getRight());
+    }
+
+    /**
+     * The state of a single resolution; the graph is only read, so resolutions can run concurrently.
+     */
+    private final class Visit {
+        private final long timestamp;
+        private final boolean[] allowedScopes = new boolean[graph.numScopes()];
+        private final boolean[] allowedTypes = new boolean[graph.numTypes()];
+        /** Maps each visited target to the revision it has been reached from last, as the descendants map. */
+        private final Int2IntOpenHashMap parents = new Int2IntOpenHashMap();
+        /** The revisions declaring exclusions, in parallel with {@link #excludedProducts}. */
+        private final IntArrayList excludingRevisions = new IntArrayList();
+        private final IntArrayList excludedProducts = new IntArrayList();
+
+        private Visit(final long timestamp) {
+            this.timestamp = timestamp;
+            for (int s = 0; s < allowedScopes.length; s++) allowedScopes[s] = scopes.contains(graph.scopeName(s));
+            for (int t = 0; t < allowedTypes.length; t++) allowedTypes[t] = types.contains(graph.typeName(t));
+            parents.defaultReturnValue(-1);
+        }
+
+        /** Records the exclusions of an edge and the parent of its target. */
+        private void edge(final int source, final int e) {
+            final int[] exclusions = graph.exclusions(e);
+            if (exclusions != null) {
+                for (final int p : exclusions) {
+                    excludingRevisions.add(source);
+                    excludedProducts.add(p);
+                }
+            }
+            parents.put(graph.target(e), source);
+        }
+
+        /**
+         * Selects, for each product, the latest revision released not after the timestamp, as
+         * {@link #filterDependenciesByTimestamp(List, long)} does.
+         */
+        private IntArrayList filterByTimestamp(final IntArrayList successors) {
+            final var groupProducts = new IntArrayList();
+            final var latest = new IntArrayList();
+            final var latestTimestamps = new LongArrayList();
+            final var groups = successors.size() > LINEAR_GROUPING_THRESHOLD ? new Int2IntOpenHashMap() : null;
+            if (groups != null) groups.defaultReturnValue(-1);
+            for (int i = 0; i < successors.size(); i++) {
+                final int x = successors.getInt(i);
+                final int p = graph.productOf(x);
+                int g = groups != null ? groups.get(p) : groupProducts.indexOf(p);
+                if (g == -1) {
+                    g = groupProducts.size();
+                    if (groups != null) groups.put(p, g);
+                    groupProducts.add(p);
+                    latest.add(-1);
+                    latestTimestamps.add(-1);
+                }
+                final long createdAt = graph.createdAt(x);
+                if (createdAt <= timestamp && createdAt > latestTimestamps.getLong(g)) {
+                    latestTimestamps.set(g, createdAt);
+                    latest.set(g, x);
+                }
+            }
+            final var dependencies = new IntArrayList(groupProducts.size());
+            for (final int x : latest) {
+                if (x != -1) dependencies.add(x);
+            }
+            return dependencies;
+        }
+
+        private Triple<ObjectLinkedOpenHashSet<Revision>, List<Pair<Revision, MavenProduct>>, Map<Revision, Revision>>
+        run(final IntArrayList firstLevel, final boolean transitive) {
+            if (!transitive) {
+                var result = new ObjectLinkedOpenHashSet<Revision>(firstLevel.size());
+                for (final int x : firstLevel) result.add(graph.revision(x));
+                return triple(result);
+            }
+
+            final var queue = new IntArrayList(firstLevel);
+            final var depths = new IntArrayList(firstLevel.size());
+            for (int i = 0; i < firstLevel.size(); i++) depths.add(1);
+            final var visited = new IntOpenHashSet(firstLevel);
+            // Conflict resolution, as resolveConflicts() applied to the distinct (revision, depth) pairs in visit order
+            final var pairs = new LongOpenHashSet();
+            final var conflictGroups = new Int2IntOpenHashMap();
+            conflictGroups.defaultReturnValue(-1);
+            final var selected = new IntArrayList();
+            final var selectedDepths = new IntArrayList();
+            final var successors = new IntArrayList();
+
+            for (int head = 0; head < queue.size(); head++) {
+                final int x = queue.getInt(head), depth = depths.getInt(head);
+                visited.add(x);
+
+                if (pairs.add((long) x << 32 | depth)) {
+                    final int p = graph.productOf(x);
+                    int g = conflictGroups.get(p);
+                    if (g == -1) {
+                        conflictGroups.put(p, selected.size());
+                        selected.add(x);
+                        selectedDepths.add(depth);
+                    } else if (selectedDepths.getInt(g) >= depth) {
+                        selected.set(g, x);
+                        selectedDepths.set(g, depth);
+                    }
+                }
+
+                successors.clear();
+                for (int e = graph.edgeStart(x), end = graph.edgeEnd(x); e < end; e++) {
+                    edge(x, e);
+                    if (!graph.optional(e) && allowedScopes[graph.scope(e)] && allowedTypes[graph.type(e)]) {
+                        successors.add(graph.target(e));
+                    }
+                }
+                for (final int dependency : filterByTimestamp(successors)) {
+                    if (!visited.contains(dependency)) {
+                        queue.add(dependency);
+                        depths.add(depth + 1);
+                    }
+                }
+            }
+            logger.debug("BFS finished: {} successors", queue.size());
+
+            final var result = new ObjectLinkedOpenHashSet<Revision>(selected.size());
+            for (final int x : selected) result.add(graph.revision(x));
+            return triple(result);
+        }
+
+        private Triple<ObjectLinkedOpenHashSet<Revision>, List<Pair<Revision, MavenProduct>>, Map<Revision, Revision>>
+        triple(final ObjectLinkedOpenHashSet<Revision> result) {
+            final var exclusions = new ArrayList<Pair<Revision, MavenProduct>>(excludingRevisions.size());
+            for (int i = 0; i < excludingRevisions.size(); i++) {
+                exclusions.add(new Pair<>(graph.revision(excludingRevisions.getInt(i)), graph.product(excludedProducts.getInt(i))));
+            }
+            return new ImmutableTriple<>(result, exclusions, new DescendantsMap(parents));
+        }
+    }
+
+    /**
+     * A read-only view of the parents recorded by a visit as a map between revisions; only
+     * {@link #get(Object)} is efficient.
+     */
+    private final class DescendantsMap extends AbstractMap<Revision, Revision> {
+        private final Int2IntOpenHashMap parents;
+
+        private DescendantsMap(final Int2IntOpenHashMap parents) {
+            this.parents = parents;
+        }
+
+        @Override
+        public Revision get(final Object key) {
+            if (!(key instanceof Revision)) return null;
+            final int x = graph.id((Revision) key);
+            if (x == -1) return null;
+            final int parent = parents.get(x);
+            return parent == -1 ? null : graph.revision(parent);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return parents.size();
+        }
+
+        @Override
+        public Set<Entry<Revision, Revision>> entrySet() {
+            final var entries = new ObjectLinkedOpenHashSet<Entry<Revision, Revision>>(parents.size());
+            for (final var entry : parents.int2IntEntrySet()) {
+                entries.add(new SimpleImmutableEntry<>(graph.revision(entry.getIntKey()), graph.revision(entry.getIntValue())));
+            }
+            return entries;
+        }
+    }
+}
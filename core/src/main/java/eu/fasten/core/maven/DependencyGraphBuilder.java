@@ -24,13 +24,17 @@ import eu.fasten.core.data.metadatadb.codegen.tables.PackageVersions;
 import eu.fasten.core.data.metadatadb.codegen.tables.Packages;
 import eu.fasten.core.dbconnectors.PostgresConnector;
 import eu.fasten.core.maven.data.Dependency;
+import eu.fasten.core.maven.data.MavenProduct;
 import eu.fasten.core.maven.data.Revision;
 import eu.fasten.core.maven.data.DependencyEdge;
+import eu.fasten.core.maven.data.VersionIndex;
+import eu.fasten.core.maven.data.VersionRange;
 import eu.fasten.core.maven.utils.DependencyGraphUtilities;
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +43,7 @@ import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -48,6 +53,16 @@ public class DependencyGraphBuilder {
 
     private static final Logger logger = LoggerFactory.getLogger(DependencyGraphBuilder.class);
 
+    /** The maximum number of package names in a single query, to stay well below the limit on bind values. */
+    private static final int PACKAGE_NAMES_PER_QUERY = 1000;
+
+    /**
+     * The default number of package version ids below the watermark that are retrieved again at each update.
+     *
+     * @see #updateDependencyGraph(DSLContext, Graph, long, long)
+     */
+    public static final long DEFAULT_SAFETY_WINDOW = 10_000;
+
     public static void main(String[] args) throws Exception {
         var dbContext = PostgresConnector.getDSLContext("jdbc:postgresql://localhost:5432/fasten_java", "fastenro", true);
 
@@ -56,12 +71,54 @@ public class DependencyGraphBuilder {
             path = args[0];
         }
 
-        if (DependencyGraphUtilities.loadDependencyGraph(path).isEmpty()) {
+        var graph = DependencyGraphUtilities.loadDependencyGraph(path);
+        if (graph.isEmpty()) {
             DependencyGraphUtilities.buildDependencyGraphFromScratch(dbContext, path);
+        } else {
+            DependencyGraphUtilities.updateDependencyGraph(dbContext, graph.get(), path);
         }
     }
 
     public Map<Revision, List<Dependency>> getDependencyList(DSLContext dbContext) {
+        return getDependencyList(dbContext, DSL.noCondition());
+    }
+
+    /**
+     * Retrieves the package versions with an id larger than a watermark, with their dependencies.
+     *
+     * @param watermark the largest package version id that should not be retrieved.
+     * @return a map from the package versions to their dependencies.
+     * @see #watermark(Graph)
+     */
+    public Map<Revision, List<Dependency>> getDependencyList(DSLContext dbContext, long watermark) {
+        return getDependencyList(dbContext, PackageVersions.PACKAGE_VERSIONS.ID.gt(watermark));
+    }
+
+    /**
+     * Retrieves the package versions that depend on some products, each with its dependencies on those
+     * products only.
+     *
+     * @param products the products whose dependents should be retrieved.
+     * @return a map from the dependents to their dependencies on {@code products}.
+     */
+    public Map<Revision, List<Dependency>> getDependentList(DSLContext dbContext, Collection<MavenProduct> products) {
+        var packageNames = products.stream()
+                .map(p -> p.groupId + Constants.mvnCoordinateSeparator + p.artifactId)
+                .distinct()
+                .collect(Collectors.toList());
+        var dependents = new HashMap<Revision, List<Dependency>>();
+        for (int i = 0; i < packageNames.size(); i += PACKAGE_NAMES_PER_QUERY) {
+            var dependencyIds = DSL.select(Packages.PACKAGES.ID)
+                    .from(Packages.PACKAGES)
+                    .where(Packages.PACKAGES.FORGE.eq(Constants.mvnForge))
+                    .and(Packages.PACKAGES.PACKAGE_NAME.in(packageNames.subList(i, Math.min(i + PACKAGE_NAMES_PER_QUERY, packageNames.size()))));
+            getDependencyList(dbContext, Dependencies.DEPENDENCIES.DEPENDENCY_ID.in(dependencyIds)).forEach((revision, dependencies) ->
+                    dependents.merge(revision, dependencies, DependencyGraphBuilder::concat));
+        }
+        return dependents;
+    }
+
+    private Map<Revision, List<Dependency>> getDependencyList(DSLContext dbContext, Condition condition) {
         return dbContext.select(PackageVersions.PACKAGE_VERSIONS.ID,
                 Packages.PACKAGES.PACKAGE_NAME,
                 PackageVersions.PACKAGE_VERSIONS.VERSION,
@@ -74,6 +131,7 @@ public class DependencyGraphBuilder {
                 .on(Dependencies.DEPENDENCIES.PACKAGE_VERSION_ID.eq(PackageVersions.PACKAGE_VERSIONS.ID))
                 .where(Packages.PACKAGES.FORGE.eq(Constants.mvnForge))
                 .and(PackageVersions.PACKAGE_VERSIONS.CREATED_AT.isNotNull())
+                .and(condition)
                 .fetch()
                 .parallelStream()
                 .map(x -> {
@@ -98,59 +156,45 @@ public class DependencyGraphBuilder {
                 .collect(Collectors.toConcurrentMap(
                         AbstractMap.SimpleEntry::getKey,
                         x -> List.of(x.getValue()),
-                        (x, y) -> {
-                            var z = new ArrayList<Dependency>();
-                            z.addAll(x);
-                            z.addAll(y);
-                            return z;
-                        }
+                        DependencyGraphBuilder::concat
                 ));
     }
 
+    private static <T> List<T> concat(List<T> x, List<T> y) {
+        var z = new ArrayList<T>();
+        z.addAll(x);
+        z.addAll(y);
+        return z;
+    }
+
     public List<Revision> findMatchingRevisions(List<Revision> revisions,
                                                 List<Dependency.VersionConstraint> constraints) {
         if (revisions == null) {
             return Collections.emptyList();
         }
-        return revisions.stream().filter(r -> {
-            for (var constraint : constraints) {
-                if ((constraint.toString().startsWith("[") || constraint.toString().startsWith("("))
-                        && (constraint.toString().endsWith("]") || constraint.toString().endsWith(")"))) {
-                    if (checkVersionLowerBound(constraint, r.version) &&
-                            checkVersionUpperBound(constraint, r.version)) {
-                        return true;
-                    }
-                } else {
-                    if (constraint.lowerBound.equals(constraint.upperBound) &&
-                            new DefaultArtifactVersion(constraint.lowerBound).equals(r.version)) {
-                        return true;
-                    }
-                }
-            }
-            return false;
-        }).collect(Collectors.toList());
+        return findMatchingRevisions(new VersionIndex(revisions), constraints);
     }
 
-    private boolean checkVersionLowerBound(Dependency.VersionConstraint constraint, DefaultArtifactVersion version) {
-        if (constraint.lowerBound.isEmpty()) {
-            return true;
-        }
-        if (constraint.isLowerHardRequirement) {
-            return version.compareTo(new DefaultArtifactVersion(constraint.lowerBound)) >= 0;
-        } else {
-            return version.compareTo(new DefaultArtifactVersion(constraint.lowerBound)) > 0;
+    /**
+     * Finds the revisions matching some version constraints by binary search over the sorted versions of a product.
+     *
+     * @param revisions the revisions of a product, or {@code null} if the product has none.
+     * @return the matching revisions, in the order in which they were indexed.
+     */
+    public List<Revision> findMatchingRevisions(VersionIndex revisions,
+                                                List<Dependency.VersionConstraint> constraints) {
+        if (revisions == null) {
+            return Collections.emptyList();
         }
+        return revisions.matching(VersionRange.of(constraints));
     }
 
-    private boolean checkVersionUpperBound(Dependency.VersionConstraint constraint, DefaultArtifactVersion version) {
-        if (constraint.upperBound.isEmpty()) {
-            return true;
-        }
-        if (constraint.isUpperHardRequirement) {
-            return version.compareTo(new DefaultArtifactVersion(constraint.upperBound)) <= 0;
-        } else {
-            return version.compareTo(new DefaultArtifactVersion(constraint.upperBound)) < 0;
-        }
+    /**
+     * Indexes the revisions of each product by version.
+     */
+    private static Map<MavenProduct, VersionIndex> indexVersions(Map<MavenProduct, List<Revision>> productRevisionMap) {
+        return productRevisionMap.entrySet().parallelStream()
+                .collect(Collectors.toConcurrentMap(Map.Entry::getKey, e -> new VersionIndex(e.getValue())));
     }
 
     public Graph<Revision, DependencyEdge> buildDependencyGraph(DSLContext dbContext) {
@@ -161,17 +205,21 @@ public class DependencyGraphBuilder {
         logger.info("Retrieved {} package versions: {} ms", dependencies.size(),
                 System.currentTimeMillis() - startDepRet);
 
+        var dependencyGraph = buildDependencyGraph(dependencies);
+        logger.info("Maven dependency graph generated: {} ms", System.currentTimeMillis() - startTs);
+        return dependencyGraph;
+    }
+
+    /**
+     * Builds a dependency graph from the given package versions and their dependencies.
+     */
+    public Graph<Revision, DependencyEdge> buildDependencyGraph(Map<Revision, List<Dependency>> dependencies) {
         var startIdx = System.currentTimeMillis();
-        var productRevisionMap = dependencies.keySet().stream().collect(Collectors.toConcurrentMap(
+        var productRevisionMap = indexVersions(dependencies.keySet().stream().collect(Collectors.toConcurrentMap(
                 Revision::product,
                 List::of,
-                (x, y) -> {
-                    var z = new ArrayList<Revision>();
-                    z.addAll(x);
-                    z.addAll(y);
-                    return z;
-                })
-        );
+                DependencyGraphBuilder::concat)
+        ));
         logger.debug("Indexed {} products: {} ms", productRevisionMap.size(), System.currentTimeMillis() - startIdx);
 
         logger.info("Creating dependency graph");
@@ -182,31 +230,164 @@ public class DependencyGraphBuilder {
 
         logger.info("Generating graph edges");
         var startGenEdgesTs = System.currentTimeMillis();
-        var allEdges = dependencies.entrySet().parallelStream().map(e -> {
-            var source = e.getKey();
-            var edges = new ArrayList<DependencyEdge>();
-            for (var dependency : e.getValue()) {
-                if (dependency.equals(Dependency.empty)) {
-                    continue;
-                }
-                var potentialRevisions = productRevisionMap.get(dependency.product());
-                var matchingRevisions = findMatchingRevisions(potentialRevisions, dependency.versionConstraints);
-                for (var target : matchingRevisions) {
-                    var edge = new DependencyEdge(source, target, dependency.scope, dependency.optional,
-                            dependency.exclusions, dependency.type);
-                    edges.add(edge);
-                }
-            }
-            return edges;
-        }).flatMap(Collection::stream).collect(Collectors.toList());
+        var allEdges = dependencies.entrySet().parallelStream()
+                .map(e -> generateEdges(e.getKey(), e.getValue(), productRevisionMap))
+                .flatMap(Collection::stream).collect(Collectors.toList());
         logger.debug("Generated {} edges: {} ms", allEdges.size(), System.currentTimeMillis() - startGenEdgesTs);
 
         var startAddEdgesTs = System.currentTimeMillis();
         allEdges.forEach(e -> dependencyGraph.addEdge(e.source, e.target, e));
         logger.debug("Added {} edges to the graph: {} ms", allEdges.size(),
                 System.currentTimeMillis() - startAddEdgesTs);
-
-        logger.info("Maven dependency graph generated: {} ms", System.currentTimeMillis() - startTs);
         return dependencyGraph;
     }
+
+    /**
+     * Generates the edges from a revision to the revisions matching the version constraints of its dependencies.
+     */
+    private List<DependencyEdge> generateEdges(Revision source, List<Dependency> dependencies,
+                                               Map<MavenProduct, VersionIndex> productRevisionMap) {
+        var edges = new ArrayList<DependencyEdge>();
+        for (var dependency : dependencies) {
+            if (dependency.equals(Dependency.empty)) {
+                continue;
+            }
+            var potentialRevisions = productRevisionMap.get(dependency.product());
+            var matchingRevisions = findMatchingRevisions(potentialRevisions, dependency.versionConstraints);
+            for (var target : matchingRevisions) {
+                var edge = new DependencyEdge(source, target, dependency.scope, dependency.optional,
+                        dependency.exclusions, dependency.type);
+                edges.add(edge);
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Returns the watermark of a dependency graph, that is, the largest package version id among its revisions.
+     * Package version ids grow with ingestion, unlike release timestamps, so all package versions with a larger id
+     * have been ingested after the graph was built; the converse does not hold, see
+     * {@link #updateDependencyGraph(DSLContext, Graph, long, long)}.
+     *
+     * @return the largest package version id in {@code graph}, or -1 if the graph is empty.
+     */
+    public static long watermark(Graph<Revision, DependencyEdge> graph) {
+        return graph.vertexSet().stream().mapToLong(r -> r.id).max().orElse(-1);
+    }
+
+    /**
+     * Updates a dependency graph with the package versions ingested after a watermark, using the
+     * {@linkplain #DEFAULT_SAFETY_WINDOW default safety window}.
+     *
+     * @param watermark the watermark of {@code graph}.
+     * @return the new watermark of {@code graph}.
+     * @see #updateDependencyGraph(DSLContext, Graph, long, long)
+     */
+    public long updateDependencyGraph(DSLContext dbContext, Graph<Revision, DependencyEdge> graph, long watermark) {
+        return updateDependencyGraph(dbContext, graph, watermark, DEFAULT_SAFETY_WINDOW);
+    }
+
+    /**
+     * Updates a dependency graph with the package versions ingested after a watermark. See
+     * {@link #updateDependencyGraph(Graph, Map, Map)}.
+     * <p>
+     * Package version ids are assigned when a row is inserted, but become visible only when the inserting transaction
+     * commits, so a package version with an id smaller than the watermark may appear after the graph has been
+     * updated. To pick such package versions up, the package versions whose id is within {@code safetyWindow} of the
+     * watermark are retrieved again, and those already in the graph are ignored; the window should exceed the number
+     * of package versions that can be inserted while an ingestion transaction is open. We use a window rather than a
+     * commit-ordered marker because the metadata database records no commit order.
+     *
+     * @param watermark    the watermark of {@code graph}.
+     * @param safetyWindow the number of package version ids below the watermark that are retrieved again.
+     * @return the new watermark of {@code graph}.
+     * @see #watermark(Graph)
+     */
+    public long updateDependencyGraph(DSLContext dbContext, Graph<Revision, DependencyEdge> graph, long watermark,
+                                      long safetyWindow) {
+        var startTs = System.currentTimeMillis();
+        var retrieved = getDependencyList(dbContext, Math.max(-1, watermark - safetyWindow));
+        var newWatermark = retrieved.keySet().stream().mapToLong(r -> r.id).reduce(watermark, Math::max);
+        var newRevisions = new HashMap<Revision, List<Dependency>>();
+        retrieved.forEach((revision, dependencies) -> {
+            if (!graph.containsVertex(revision)) {
+                newRevisions.put(revision, dependencies);
+            }
+        });
+        if (newRevisions.isEmpty()) {
+            logger.info("No package versions ingested after {}", watermark);
+            return newWatermark;
+        }
+        var newProducts = newRevisions.keySet().stream().map(Revision::product).collect(Collectors.toSet());
+        var dependents = getDependentList(dbContext, newProducts);
+        logger.info("Retrieved {} new package versions and {} dependents: {} ms", newRevisions.size(), dependents.size(),
+                System.currentTimeMillis() - startTs);
+
+        updateDependencyGraph(graph, newRevisions, dependents);
+        logger.info("Maven dependency graph updated: {} ms", System.currentTimeMillis() - startTs);
+        return newWatermark;
+    }
+
+    /**
+     * Adds new package versions to a dependency graph, with the edges a full rebuild would generate for them:
+     * edges from each new revision to the revisions matching its dependencies, and edges from existing revisions
+     * whose version constraints match a new revision. Edges among existing revisions are left untouched, as version
+     * constraints only match revisions of the product they refer to.
+     * <p>
+     * Revisions that are already in the graph are ignored.
+     *
+     * @param newRevisions the new package versions and their dependencies.
+     * @param dependents   the package versions depending on the products of {@code newRevisions}, with (at least)
+     *                     their dependencies on those products; revisions that are not in the graph are ignored.
+     * @return the number of edges added to {@code graph}.
+     */
+    public int updateDependencyGraph(Graph<Revision, DependencyEdge> graph, Map<Revision, List<Dependency>> newRevisions,
+                                     Map<Revision, List<Dependency>> dependents) {
+        var added = new HashMap<Revision, List<Dependency>>();
+        newRevisions.forEach((revision, dependencies) -> {
+            if (graph.addVertex(revision)) {
+                added.put(revision, dependencies);
+            }
+        });
+        if (added.size() < newRevisions.size()) {
+            logger.debug("Ignored {} package versions already in the graph", newRevisions.size() - added.size());
+        }
+        var addedByProduct = indexVersions(added.keySet().stream().collect(Collectors.groupingBy(Revision::product)));
+
+        // Existing revisions of the products the new revisions depend on
+        var productRevisions = new HashMap<MavenProduct, List<Revision>>();
+        for (var dependencies : added.values()) {
+            for (var dependency : dependencies) {
+                if (!dependency.equals(Dependency.empty)) {
+                    productRevisions.put(dependency.product(), new ArrayList<>());
+                }
+            }
+        }
+        addedByProduct.keySet().forEach(p -> productRevisions.put(p, new ArrayList<>()));
+        for (var revision : graph.vertexSet()) {
+            var revisions = productRevisions.get(revision.product());
+            if (revisions != null) {
+                revisions.add(revision);
+            }
+        }
+        var productRevisionMap = indexVersions(productRevisions);
+
+        var newEdges = added.entrySet().parallelStream()
+                .map(e -> generateEdges(e.getKey(), e.getValue(), productRevisionMap))
+                .flatMap(Collection::stream).collect(Collectors.toList());
+        // Edges from existing revisions whose constraints now match a new revision
+        newEdges.addAll(dependents.entrySet().parallelStream()
+                .filter(e -> !added.containsKey(e.getKey()) && graph.containsVertex(e.getKey()))
+                .map(e -> generateEdges(e.getKey(), e.getValue(), addedByProduct))
+                .flatMap(Collection::stream).collect(Collectors.toList()));
+
+        var count = 0;
+        for (var edge : newEdges) {
+            if (graph.addEdge(edge.source, edge.target, edge)) {
+                count++;
+            }
+        }
+        logger.info("Added {} package versions and {} edges to the dependency graph", added.size(), count);
+        return count;
+    }
 }
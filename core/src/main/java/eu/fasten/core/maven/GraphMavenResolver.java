@@ -22,6 +22,7 @@ import eu.fasten.core.data.Constants;
 import eu.fasten.core.data.metadatadb.codegen.tables.PackageVersions;
 import eu.fasten.core.data.metadatadb.codegen.tables.Packages;
 import eu.fasten.core.dbconnectors.PostgresConnector;
+import eu.fasten.core.maven.data.CompactDependencyGraph;
 import eu.fasten.core.maven.data.DependencyEdge;
 import eu.fasten.core.maven.data.MavenProduct;
 import eu.fasten.core.maven.data.Revision;
@@ -42,6 +43,7 @@ import picocli.CommandLine;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @CommandLine.Command(name = "GraphMavenResolver")
@@ -67,10 +69,18 @@ public class GraphMavenResolver implements Runnable {
             defaultValue = "postgres")
     protected String dbUser;
 
+    @CommandLine.Option(names = {"-c", "--compact"},
+            description = "Resolve dependencies on a compact copy of the dependency graph")
+    protected boolean compact;
+
     private boolean ignoreMissing = false;
 
-    static Graph<Revision, DependencyEdge> dependencyGraph;
-    static Graph<Revision, DependencyEdge> dependentGraph;
+    private ResolutionCache resolutionCache = new ResolutionCache(ResolutionCache.DEFAULT_MAX_SIZE);
+
+    static volatile Graph<Revision, DependencyEdge> dependencyGraph;
+    /** The number of in-place modifications of {@link #dependencyGraph}, used to invalidate resolution caches. */
+    private static final AtomicLong dependencyGraphModifications = new AtomicLong();
+    static volatile Graph<Revision, DependencyEdge> dependentGraph;
 
     static List<String> scopes = new ArrayList<>();
 
@@ -99,6 +109,34 @@ public class GraphMavenResolver implements Runnable {
         this.ignoreMissing = ignoreMissing;
     }
 
+    /**
+     * Returns the cache used by {@link #resolveDependencies(String, String, String, long, DSLContext, boolean)}.
+     *
+     * @return the cache of resolved dependency sets.
+     */
+    public ResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
+
+    /**
+     * Sets the cache used by {@link #resolveDependencies(String, String, String, long, DSLContext, boolean)}.
+     *
+     * @param resolutionCache the cache of resolved dependency sets.
+     */
+    public void setResolutionCache(ResolutionCache resolutionCache) {
+        this.resolutionCache = resolutionCache;
+    }
+
+    /**
+     * Returns the dependency graph that resolutions are computed on, which identifies the validity of the
+     * {@linkplain #getResolutionCache() resolution cache}.
+     *
+     * @return the dependency graph used by this resolver.
+     */
+    protected Object resolutionGraph() {
+        return dependencyGraph;
+    }
+
     public static void main(String[] args) {
         final int exitCode = new CommandLine(new GraphMavenResolver()).execute(args);
         System.exit(exitCode);
@@ -125,7 +163,13 @@ public class GraphMavenResolver implements Runnable {
             return;
         }
 
-        repl(dbContext);
+        if (compact && dependencyGraph != null) {
+            var compactGraph = new CompactDependencyGraph(dependencyGraph);
+            logger.info("Compact dependency graph: {}", compactGraph);
+            new CompactGraphMavenResolver(compactGraph).repl(dbContext);
+        } else {
+            repl(dbContext);
+        }
     }
 
     public void repl(DSLContext db) {
@@ -177,7 +221,7 @@ public class GraphMavenResolver implements Runnable {
                         collect(Collectors.toList())) {
                     System.out.println(rev.toString());
                 }
-                System.err.println(revisions.size() + " revisions, " + (System.currentTimeMillis() - startTS) + " ms");
+                System.err.println(revisions.size() + " revisions, " + (System.currentTimeMillis() - startTS) + " ms, resolution cache: " + resolutionCache);
             }
         }
     }
@@ -185,12 +229,27 @@ public class GraphMavenResolver implements Runnable {
     /**
      * Performs a BFS on the dependency graph to resolve the dependencies of the provided {@link Revision}, as specified
      * by the provided revision details.
+     * <p>
+     * Results are memoized in the {@linkplain #getResolutionCache() resolution cache}, which is cleared whenever the
+     * dependency graph is reloaded or modified.
      *
      * @return The (transitive) dependency set
      */
     public ObjectLinkedOpenHashSet<Revision> resolveDependencies(String groupId, String artifactId, String version, long timestamp,
                                                                  DSLContext db, boolean transitive) {
+        var key = new ResolutionCache.Key(groupId, artifactId, version, timestamp, transitive, scopes, types, ignoreMissing);
+        var stamp = resolutionCache.stamp(resolutionGraph(), dependencyGraphModifications.get());
+        var cached = resolutionCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        var dependencies = resolveDependenciesUncached(groupId, artifactId, version, timestamp, db, transitive);
+        resolutionCache.put(key, dependencies, stamp);
+        return dependencies;
+    }
 
+    private ObjectLinkedOpenHashSet<Revision> resolveDependenciesUncached(String groupId, String artifactId, String version, long timestamp,
+                                                                          DSLContext db, boolean transitive) {
         if (timestamp == -1) {
             var ts = getCreatedAt(groupId, artifactId, version, db);
             if (ts > 0) {
@@ -198,11 +257,7 @@ public class GraphMavenResolver implements Runnable {
             }
         }
 
-        var resultTriples = new ArrayList<Triple<ObjectLinkedOpenHashSet<Revision>, List<Pair<Revision, MavenProduct>>, Map<Revision, Revision>>>();
-
         ObjectLinkedOpenHashSet<Revision> allDeps = new ObjectLinkedOpenHashSet<>();
-        var exclusions = new ArrayList<Pair<Revision, MavenProduct>>();
-        var descendants = new HashMap<Revision, Revision>();
 
         try {
             var parent = getParentArtifact(groupId, artifactId, version, db);
@@ -213,14 +268,10 @@ public class GraphMavenResolver implements Runnable {
             logger.warn("Parent for revision {}:{}:{} not found: {}", groupId, artifactId, version, e.getMessage());
         }
 
-        resultTriples.add(dependencyBFS(groupId, artifactId, version, timestamp, transitive));
-        for (var triple : resultTriples) {
-            allDeps.addAll(triple.getLeft());
-            exclusions.addAll(triple.getMiddle());
-            descendants.putAll(triple.getRight());
-        }
+        var triple = dependencyBFS(groupId, artifactId, version, timestamp, transitive);
+        allDeps.addAll(triple.getLeft());
 
-        return filterDependenciesByExclusions(allDeps, exclusions, descendants);
+        return filterDependenciesByExclusions(allDeps, triple.getMiddle(), triple.getRight());
     }
 
     /**
@@ -235,19 +286,63 @@ public class GraphMavenResolver implements Runnable {
                 r.createdAt.getTime(), db, transitive);
     }
 
+    /**
+     * Resolves the dependencies of an artifact whose direct dependencies are the provided roots, according to the
+     * Maven dependency resolution rules. The roots are part of the returned set, and conflicts among them and their
+     * dependencies are resolved as if they were the direct (compile-scope) dependencies of a single artifact.
+     * <p>
+     * Unlike {@link #addVirtualNode(ObjectLinkedOpenHashSet)}, this method does not modify the dependency graph,
+     * which is never modified by resolution: thus, it can be called concurrently from several threads.
+     *
+     * @param roots      the revisions to start the resolution from
+     * @param timestamp  the timestamp used to select the revisions of the (transitive) dependencies, or -1 to use the
+     *                   release timestamp of the latest root
+     * @param transitive whether the BFS should recurse into the graph
+     * @return The (transitive) dependency set, including the roots
+     */
+    public ObjectLinkedOpenHashSet<Revision> resolveDependencies(Collection<Revision> roots, long timestamp, boolean transitive) {
+        var graph = dependencyGraph;
+        var firstLevel = new ArrayList<Revision>(roots.size());
+        for (var root : roots) {
+            if (!graph.containsVertex(root)) {
+                if (ignoreMissing) {
+                    continue;
+                }
+                throw new RuntimeException("Revision " + root + " is not in the dependency graph. Probably it is missing in the database");
+            }
+            firstLevel.add(root);
+        }
+        if (timestamp == -1) {
+            timestamp = firstLevel.stream().mapToLong(r -> r.createdAt.getTime()).max().orElse(-1);
+        }
+        var triple = dependencyBFS(graph, firstLevel, new ArrayList<>(), new HashMap<>(), timestamp, transitive);
+        return filterDependenciesByExclusions(triple.getLeft(), triple.getMiddle(), triple.getRight());
+    }
+
+    /**
+     * @deprecated Modifies the shared dependency graph, so it cannot be used concurrently with resolution; use
+     * {@link #resolveDependencies(Collection, long, boolean)} instead.
+     */
+    @Deprecated
     public Revision addVirtualNode(ObjectLinkedOpenHashSet<Revision> directDependencies) {
         var nodeGroup = String.valueOf(directDependencies.stream().reduce(0, (x, r) -> x + r.groupId.hashCode(), Integer::sum));
         var nodeArtifact = String.valueOf(directDependencies.stream().reduce(0, (x, r) -> x + r.artifactId.hashCode(), Integer::sum));
         var nodeVersion = String.valueOf(directDependencies.stream().reduce(0, (x, r) -> x + r.version.hashCode(), Integer::sum));
         var node = new Revision(-1, nodeGroup, nodeArtifact, nodeVersion, new Timestamp(-1));
+        dependencyGraphModifications.incrementAndGet();
         dependencyGraph.addVertex(node);
         directDependencies.forEach(d -> dependencyGraph.addVertex(d));
         directDependencies.forEach(d -> dependencyGraph.addEdge(node, d, new DependencyEdge(node, d, "compile", false, new ArrayList<>(), "jar")));
         return node;
     }
 
+    /**
+     * @deprecated See {@link #addVirtualNode(ObjectLinkedOpenHashSet)}.
+     */
+    @Deprecated
     public void removeVirtualNode(Revision virtualNode) {
-        var edges = dependencyGraph.outgoingEdgesOf(virtualNode);
+        dependencyGraphModifications.incrementAndGet();
+        var edges = new ArrayList<>(dependencyGraph.outgoingEdgesOf(virtualNode));
         edges.forEach(e -> dependencyGraph.removeEdge(e));
         dependencyGraph.removeVertex(virtualNode);
     }
@@ -259,12 +354,13 @@ public class GraphMavenResolver implements Runnable {
         var startTS = System.currentTimeMillis();
         logger.debug("BFS from root: {}:{}:{}", groupId, artifactId, version);
 
+        var graph = dependencyGraph;
         var excludeProducts = new ArrayList<Pair<Revision, MavenProduct>>();
         var artifact = new Revision(groupId, artifactId, version, new Timestamp(timestamp));
-        if (!dependencyGraph.containsVertex(artifact)) {
+        if (!graph.containsVertex(artifact)) {
             throw new RuntimeException("Revision " + artifact + " is not in the dependency graph. Probably it is missing in the database");
         }
-        var edges = dependencyGraph.outgoingEdgesOf(artifact);
+        var edges = graph.outgoingEdgesOf(artifact);
         for (var exclusionEdge : edges.stream().filter(e -> !e.exclusions.isEmpty()).collect(Collectors.toList())) {
             for (var exclusion : exclusionEdge.exclusions) {
                 var product = new MavenProduct(exclusion.groupId, exclusion.artifactId);
@@ -274,12 +370,22 @@ public class GraphMavenResolver implements Runnable {
         var descendantsMap = new HashMap<Revision, Revision>();
         edges.forEach(e -> descendantsMap.put(e.target, e.source));
 
-        var successors = Graphs.successorListOf(dependencyGraph, artifact);
-        var workQueue = filterDependenciesByTimestamp(successors, timestamp).stream().
-                map(x -> new Pair<>(x, 1)).collect(Collectors.toCollection(ArrayDeque::new));
+        var successors = filterDependenciesByTimestamp(Graphs.successorListOf(graph, artifact), timestamp);
 
-        logger.debug("Obtaining first level successors: {} items, {} ms", workQueue.size(),
+        logger.debug("Obtaining first level successors: {} items, {} ms", successors.size(),
                 System.currentTimeMillis() - startTS);
+        return dependencyBFS(graph, successors, excludeProducts, descendantsMap, timestamp, transitive);
+    }
+
+    /**
+     * Performs a BFS on a dependency graph starting from the given first-level dependencies. The graph is only read,
+     * so this method can be called concurrently as long as the graph is not modified.
+     */
+    private Triple<ObjectLinkedOpenHashSet<Revision>, List<Pair<Revision, MavenProduct>>, Map<Revision, Revision>>
+    dependencyBFS(Graph<Revision, DependencyEdge> graph, List<Revision> firstLevel, List<Pair<Revision, MavenProduct>> excludeProducts,
+                  Map<Revision, Revision> descendantsMap, long timestamp, boolean transitive) {
+        var workQueue = firstLevel.stream().
+                map(x -> new Pair<>(x, 1)).collect(Collectors.toCollection(ArrayDeque::new));
         var result = new ObjectLinkedOpenHashSet<Revision>();
         workQueue.stream().map(Pair::getFirst).forEachOrdered(result::add);
 
@@ -293,14 +399,14 @@ public class GraphMavenResolver implements Runnable {
             var rev = workQueue.poll();
             result.add(rev.getFirst());
             depthRevisions.add(rev);
-            if (!dependencyGraph.containsVertex(rev.getFirst())) {
+            if (!graph.containsVertex(rev.getFirst())) {
                 if (ignoreMissing) {
                     continue;
                 } else {
                     throw new RuntimeException("Revision " + rev.getFirst() + " is not in the dependency graph. Probably it is missing in the database");
                 }
             }
-            var outgoingEdges = new ObjectLinkedOpenHashSet<>(dependencyGraph.outgoingEdgesOf(rev.getFirst()));
+            var outgoingEdges = new ObjectLinkedOpenHashSet<>(graph.outgoingEdgesOf(rev.getFirst()));
             for (var exclusionEdge : outgoingEdges.stream().filter(e -> !e.exclusions.isEmpty()).collect(Collectors.toList())) {
                 for (var exclusion : exclusionEdge.exclusions) {
                     var product = new MavenProduct(exclusion.groupId, exclusion.artifactId);
@@ -400,6 +506,9 @@ public class GraphMavenResolver implements Runnable {
                                                                             List<Pair<Revision, MavenProduct>> exclusions,
                                                                             Map<Revision, Revision> descendantsMap) {
         var finalSet = new ObjectLinkedOpenHashSet<>(dependencies);
+        if (exclusions.isEmpty()) {
+            return finalSet;
+        }
         var dependenciesByProduct = dependencies.stream().collect(Collectors.groupingBy(Revision::product));
         for (var excludeProduct : exclusions) {
             if (!dependenciesByProduct.containsKey(excludeProduct.getSecond())) {
@@ -431,11 +540,14 @@ public class GraphMavenResolver implements Runnable {
      * Given a set of n successors for a revision r which are different revisions of the same product, select the
      * revisions that are closest to the release timestamp of r.
      *
+     * <p>Products are returned in the order of their first occurrence in {@code successors}; among revisions of a
+     * product released at the same time, the first one is selected.
+     *
      * @return A list of unique revisions per unique product in the input list.
      */
     protected List<Revision> filterDependenciesByTimestamp(List<Revision> successors, long timestamp) {
         return successors.stream().
-                collect(Collectors.groupingBy(Revision::product)).
+                collect(Collectors.groupingBy(Revision::product, LinkedHashMap::new, Collectors.toList())).
                 values().stream().
                 map(revisions -> {
                     var latestTimestamp = -1L;
@@ -498,6 +610,9 @@ public class GraphMavenResolver implements Runnable {
 
     /**
      * Resolve conflicts (duplicate products with different versions) by picking revisions that are closer to the root.
+     *
+     * <p>Products are returned in the order of their first occurrence in {@code depthRevisions}; among revisions of a
+     * product at the same distance from the root, the last one is selected.
      */
     protected ObjectLinkedOpenHashSet<Revision> resolveConflicts(ObjectLinkedOpenHashSet<Pair<Revision, Integer>> depthRevisions) {
         var result = new ObjectLinkedOpenHashSet<Revision>();
@@ -516,7 +631,8 @@ public class GraphMavenResolver implements Runnable {
                                 y.getFirst(), y.getSecond(), x.getFirst(), x.getSecond());
                         return y;
                     }
-                })).values().stream().map(Pair::getFirst).forEachOrdered(result::add);
+                },
+                LinkedHashMap::new)).values().stream().map(Pair::getFirst).forEachOrdered(result::add);
         return result;
     }
 
@@ -524,6 +640,8 @@ public class GraphMavenResolver implements Runnable {
         var graphOpt = DependencyGraphUtilities.loadDependencyGraph(serializedGraphPath);
         if (graphOpt.isEmpty()) {
             dependencyGraph = DependencyGraphUtilities.buildDependencyGraphFromScratch(dbContext, serializedGraphPath);
+        } else if (dbContext != null) {
+            dependencyGraph = DependencyGraphUtilities.updateDependencyGraph(dbContext, graphOpt.get(), serializedGraphPath);
         } else {
             dependencyGraph = graphOpt.get();
         }
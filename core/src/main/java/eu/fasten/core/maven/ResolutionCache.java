@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.maven;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import eu.fasten.core.maven.data.Revision;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+
+/**
+ * A thread-safe LRU cache of the dependency sets computed by
+ * {@link GraphMavenResolver#resolveDependencies(String, String, String, long, org.jooq.DSLContext, boolean)},
+ * bounded by the number of entries.
+ *
+ * <p>
+ * Entries are valid only for a specific state of the dependency graph: {@link #stamp(Object, long)}
+ * must be called before each resolution with the current graph and its number of in-place
+ * modifications, and it will clear the cache if either changed. As in
+ * {@link eu.fasten.core.data.graphdb.GraphCache}, a result computed before an invalidation will be
+ * discarded by {@link #put(Key, ObjectLinkedOpenHashSet, long)}.
+ *
+ * <p>
+ * Dependency sets are mutable, so the cache stores and returns copies.
+ */
+public class ResolutionCache {
+    /** The default maximum number of cached dependency sets. */
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    /**
+     * The full description of a resolution request.
+     */
+    public static final class Key {
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+        private final long timestamp;
+        private final boolean transitive;
+        private final List<String> scopes;
+        private final List<String> types;
+        private final boolean ignoreMissing;
+        private final int hashCode;
+
+        public Key(final String groupId, final String artifactId, final String version, final long timestamp, final boolean transitive,
+                   final List<String> scopes, final List<String> types, final boolean ignoreMissing) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.timestamp = timestamp;
+            this.transitive = transitive;
+            this.scopes = List.copyOf(scopes);
+            this.types = List.copyOf(types);
+            this.ignoreMissing = ignoreMissing;
+            this.hashCode = Objects.hash(groupId, artifactId, version, timestamp, transitive, this.scopes, this.types, ignoreMissing);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            final Key other = (Key) obj;
+            return hashCode == other.hashCode && timestamp == other.timestamp && transitive == other.transitive
+                    && ignoreMissing == other.ignoreMissing && groupId.equals(other.groupId)
+                    && artifactId.equals(other.artifactId) && version.equals(other.version)
+                    && scopes.equals(other.scopes) && types.equals(other.types);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return groupId + ":" + artifactId + ":" + version + "@" + timestamp + (transitive ? " (transitive)" : "");
+        }
+    }
+
+    /** The maximum number of cached dependency sets. */
+    private final int maxSize;
+    /** The cached dependency sets, in access order (least recently used first). */
+    private final Object2ObjectLinkedOpenHashMap<Key, ObjectLinkedOpenHashSet<Revision>> cache = new Object2ObjectLinkedOpenHashMap<>();
+    /** The graph the cached dependency sets have been computed on. */
+    private Object graph;
+    /** The number of in-place modifications of {@link #graph} when the cached dependency sets have been computed. */
+    private long modifications;
+    /** Incremented at each invalidation, so that stale results can be detected. */
+    private long epoch;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize the maximum number of cached dependency sets; if zero, the cache will never
+     *                contain any dependency set.
+     */
+    public ResolutionCache(final int maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("Negative cache size: " + maxSize);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a stamp that must be passed to {@link #put(Key, ObjectLinkedOpenHashSet, long)},
+     * clearing the cache if the dependency graph has been replaced or modified.
+     *
+     * @param graph         the current dependency graph.
+     * @param modifications the number of in-place modifications of {@code graph}.
+     * @return a stamp representing the current state of the cache.
+     */
+    public synchronized long stamp(final Object graph, final long modifications) {
+        if (graph != this.graph || modifications != this.modifications) {
+            if (this.graph != null) invalidations.incrementAndGet();
+            this.graph = graph;
+            this.modifications = modifications;
+            clear();
+        }
+        return epoch;
+    }
+
+    /**
+     * Returns a copy of the dependency set associated with a request, if present.
+     *
+     * @param key a resolution request.
+     * @return a copy of the cached dependency set, or {@code null} if the request is not in the cache.
+     */
+    public ObjectLinkedOpenHashSet<Revision> get(final Key key) {
+        final ObjectLinkedOpenHashSet<Revision> dependencies;
+        synchronized (this) {
+            dependencies = cache.getAndMoveToLast(key);
+        }
+        if (dependencies == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return dependencies.clone();
+    }
+
+    /**
+     * Caches a copy of a dependency set, evicting the least recently used dependency set if necessary.
+     *
+     * <p>
+     * The dependency set will not be cached if the cache has been invalidated after {@code stamp}
+     * was obtained.
+     *
+     * @param key          a resolution request.
+     * @param dependencies the dependency set resolved for {@code key}.
+     * @param stamp        a stamp obtained with {@link #stamp(Object, long)} before resolving
+     *                     {@code key}.
+     */
+    public void put(final Key key, final ObjectLinkedOpenHashSet<Revision> dependencies, final long stamp) {
+        if (maxSize == 0) return;
+        final ObjectLinkedOpenHashSet<Revision> copy = dependencies.clone();
+        synchronized (this) {
+            if (stamp != epoch) return;
+            cache.putAndMoveToLast(key, copy);
+            while (cache.size() > maxSize) {
+                cache.removeFirst();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /** Removes all dependency sets from the cache. */
+    public synchronized void clear() {
+        epoch++;
+        cache.clear();
+    }
+
+    /**
+     * Returns the number of cached dependency sets.
+     *
+     * @return the number of cached dependency sets.
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the maximum number of cached dependency sets.
+     *
+     * @return the maximum number of cached dependency sets.
+     */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get(Key)} that found a dependency set in the cache.
+     *
+     * @return the number of cache hits.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of calls to {@link #get(Key)} that did not find a dependency set in the cache.
+     *
+     * @return the number of cache misses.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the fraction of calls to {@link #get(Key)} that found a dependency set in the cache.
+     *
+     * @return the hit ratio, or {@link Double#NaN} if {@link #get(Key)} has never been called.
+     */
+    public double hitRatio() {
+        final long hits = hits(), total = hits + misses();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    /**
+     * Returns the number of dependency sets evicted from the cache to make room for other ones.
+     *
+     * @return the number of evictions.
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of times the cache has been cleared because the dependency graph was
+     * replaced or modified.
+     *
+     * @return the number of invalidations.
+     */
+    public long invalidations() {
+        return invalidations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "[entries: " + size() + "/" + maxSize + ", hits: " + hits() + ", misses: " + misses() + ", hit ratio: " + String.format("%.3f", hitRatio())
+                + ", evictions: " + evictions() + ", invalidations: " + invalidations() + "]";
+    }
+}
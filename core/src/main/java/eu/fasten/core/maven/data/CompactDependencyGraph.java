@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.maven.data;
+
+import java.util.List;
+
+import org.jgrapht.Graph;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+/**
+ * An immutable, int-indexed representation of a Maven dependency graph.
+ *
+ * <p>
+ * Revisions are numbered from 0 in the iteration order of the vertex set of the source graph, and
+ * their release timestamps and products are stored in parallel primitive arrays. Outgoing edges
+ * are stored in compressed sparse row form: the edges of revision <var>x</var> are those in the
+ * interval [{@link #edgeStart(int) edgeStart(x)}..{@link #edgeEnd(int) edgeEnd(x)}), in the order
+ * of {@link Graph#outgoingEdgesOf(Object)}. The scope, type and optional flag of each edge are
+ * packed in a single int, and scopes and types are indices into small string tables, with a
+ * {@code null} or empty scope (type) replaced by {@code compile} ({@code jar}) as Maven does.
+ * Exclusions, which are rare, are stored sparsely as arrays of product indices.
+ *
+ * <p>
+ * The only objects kept are the {@link Revision} and {@link MavenProduct} instances returned by
+ * {@link #revision(int)} and {@link #product(int)}; an instance can be shared by any number of
+ * threads.
+ */
+public class CompactDependencyGraph {
+    /** The scope of edges with a {@code null} or empty scope. */
+    public static final String DEFAULT_SCOPE = "compile";
+    /** The type of edges with a {@code null} or empty type. */
+    public static final String DEFAULT_TYPE = "jar";
+
+    private static final int OPTIONAL_MASK = 1;
+    private static final int TYPE_SHIFT = 1;
+    private static final int TYPE_MASK = 0x7FFF;
+    private static final int SCOPE_SHIFT = 16;
+
+    /** The revisions, by index. */
+    private final Revision[] revisions;
+    /** The index of each revision. */
+    private final Object2IntOpenHashMap<Revision> ids;
+    /** The release timestamp of each revision. */
+    private final long[] createdAt;
+    /** The product index of each revision. */
+    private final int[] productOf;
+    /** The products, by index; they include products that appear only in exclusions. */
+    private final MavenProduct[] products;
+    /** The index of the first outgoing edge of each revision, followed by the number of edges. */
+    private final int[] offsets;
+    /** The target of each edge. */
+    private final int[] targets;
+    /** The scope, type and optional flag of each edge. */
+    private final int[] flags;
+    /** The excluded products of the edges with exclusions. */
+    private final Int2ObjectOpenHashMap<int[]> exclusions;
+    /** The distinct scopes, by index. */
+    private final String[] scopes;
+    /** The distinct types, by index. */
+    private final String[] types;
+
+    /**
+     * Creates a compact copy of a dependency graph.
+     *
+     * @param graph a dependency graph.
+     */
+    public CompactDependencyGraph(final Graph<Revision, DependencyEdge> graph) {
+        final int n = graph.vertexSet().size();
+        revisions = graph.vertexSet().toArray(new Revision[n]);
+        ids = new Object2IntOpenHashMap<>(n);
+        ids.defaultReturnValue(-1);
+        createdAt = new long[n];
+        productOf = new int[n];
+
+        final var productIds = new Object2IntOpenHashMap<MavenProduct>();
+        productIds.defaultReturnValue(-1);
+        final var productList = new ObjectArrayList<MavenProduct>();
+        for (int x = 0; x < n; x++) {
+            final var revision = revisions[x];
+            ids.put(revision, x);
+            createdAt[x] = revision.createdAt.getTime();
+            productOf[x] = intern(new MavenProduct(revision.groupId, revision.artifactId), productIds, productList);
+        }
+
+        final var scopeIds = new Object2IntOpenHashMap<String>();
+        scopeIds.defaultReturnValue(-1);
+        final var scopeList = new ObjectArrayList<String>();
+        final var typeIds = new Object2IntOpenHashMap<String>();
+        typeIds.defaultReturnValue(-1);
+        final var typeList = new ObjectArrayList<String>();
+        final int m = graph.edgeSet().size();
+        offsets = new int[n + 1];
+        targets = new int[m];
+        flags = new int[m];
+        exclusions = new Int2ObjectOpenHashMap<>();
+        int e = 0;
+        for (int x = 0; x < n; x++) {
+            offsets[x] = e;
+            for (final var edge : graph.outgoingEdgesOf(revisions[x])) {
+                targets[e] = ids.getInt(graph.getEdgeTarget(edge));
+                final String scope = edge.scope == null || edge.scope.isEmpty() ? DEFAULT_SCOPE : edge.scope;
+                final String type = edge.type == null || edge.type.isEmpty() ? DEFAULT_TYPE : edge.type;
+                flags[e] = intern(scope, scopeIds, scopeList) << SCOPE_SHIFT | intern(type, typeIds, typeList) << TYPE_SHIFT
+                        | (edge.optional ? OPTIONAL_MASK : 0);
+                if (edge.exclusions != null && !edge.exclusions.isEmpty()) {
+                    exclusions.put(e, internExclusions(edge.exclusions, productIds, productList));
+                }
+                e++;
+            }
+        }
+        offsets[n] = e;
+        if (scopeList.size() > Short.MAX_VALUE || typeList.size() > TYPE_MASK) {
+            throw new IllegalArgumentException("Too many distinct scopes or types: " + scopeList.size() + ", " + typeList.size());
+        }
+
+        products = productList.toArray(new MavenProduct[0]);
+        scopes = scopeList.toArray(new String[0]);
+        types = typeList.toArray(new String[0]);
+        exclusions.trim();
+    }
+
+    private static <T> int intern(final T value, final Object2IntOpenHashMap<T> ids, final ObjectArrayList<T> values) {
+        final int id = ids.getInt(value);
+        if (id != -1) return id;
+        ids.put(value, values.size());
+        values.add(value);
+        return values.size() - 1;
+    }
+
+    private static int[] internExclusions(final List<Dependency.Exclusion> exclusions, final Object2IntOpenHashMap<MavenProduct> productIds,
+                                          final ObjectArrayList<MavenProduct> productList) {
+        final int[] excluded = new int[exclusions.size()];
+        for (int i = 0; i < excluded.length; i++) {
+            final var exclusion = exclusions.get(i);
+            excluded[i] = intern(new MavenProduct(exclusion.groupId, exclusion.artifactId), productIds, productList);
+        }
+        return excluded;
+    }
+
+    /**
+     * Returns the number of revisions.
+     *
+     * @return the number of revisions.
+     */
+    public int numRevisions() {
+        return revisions.length;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return the number of edges.
+     */
+    public int numEdges() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the number of products, including products that appear only in exclusions.
+     *
+     * @return the number of products.
+     */
+    public int numProducts() {
+        return products.length;
+    }
+
+    /**
+     * Returns the index of a revision.
+     *
+     * @param revision a revision.
+     * @return the index of {@code revision}, or -1 if it is not in the graph.
+     */
+    public int id(final Revision revision) {
+        return ids.getInt(revision);
+    }
+
+    /**
+     * Returns the revision with a given index.
+     *
+     * @param x the index of a revision.
+     * @return the revision with index {@code x}.
+     */
+    public Revision revision(final int x) {
+        return revisions[x];
+    }
+
+    /**
+     * Returns the release timestamp of a revision.
+     *
+     * @param x the index of a revision.
+     * @return the release timestamp of revision {@code x}, in milliseconds.
+     */
+    public long createdAt(final int x) {
+        return createdAt[x];
+    }
+
+    /**
+     * Returns the product index of a revision.
+     *
+     * @param x the index of a revision.
+     * @return the index of the product of revision {@code x}.
+     */
+    public int productOf(final int x) {
+        return productOf[x];
+    }
+
+    /**
+     * Returns the product with a given index.
+     *
+     * @param p the index of a product.
+     * @return the product with index {@code p}.
+     */
+    public MavenProduct product(final int p) {
+        return products[p];
+    }
+
+    /**
+     * Returns the index of the first outgoing edge of a revision.
+     *
+     * @param x the index of a revision.
+     * @return the index of the first outgoing edge of revision {@code x}.
+     */
+    public int edgeStart(final int x) {
+        return offsets[x];
+    }
+
+    /**
+     * Returns the index following the last outgoing edge of a revision.
+     *
+     * @param x the index of a revision.
+     * @return the index following the last outgoing edge of revision {@code x}.
+     */
+    public int edgeEnd(final int x) {
+        return offsets[x + 1];
+    }
+
+    /**
+     * Returns the target of an edge.
+     *
+     * @param e the index of an edge.
+     * @return the index of the revision the edge points to.
+     */
+    public int target(final int e) {
+        return targets[e];
+    }
+
+    /**
+     * Returns whether an edge is optional.
+     *
+     * @param e the index of an edge.
+     * @return whether the dependency represented by the edge is optional.
+     */
+    public boolean optional(final int e) {
+        return (flags[e] & OPTIONAL_MASK) != 0;
+    }
+
+    /**
+     * Returns the scope index of an edge.
+     *
+     * @param e the index of an edge.
+     * @return the index of the scope of the edge.
+     * @see #scopeName(int)
+     */
+    public int scope(final int e) {
+        return flags[e] >>> SCOPE_SHIFT;
+    }
+
+    /**
+     * Returns the type index of an edge.
+     *
+     * @param e the index of an edge.
+     * @return the index of the type of the edge.
+     * @see #typeName(int)
+     */
+    public int type(final int e) {
+        return flags[e] >>> TYPE_SHIFT & TYPE_MASK;
+    }
+
+    /**
+     * Returns the excluded products of an edge.
+     *
+     * @param e the index of an edge.
+     * @return the indices of the products excluded by the edge, in order, or {@code null} if the edge
+     *         has no exclusions; the array must not be modified.
+     */
+    public int[] exclusions(final int e) {
+        return exclusions.get(e);
+    }
+
+    /**
+     * Returns the number of distinct scopes.
+     *
+     * @return the number of distinct scopes.
+     */
+    public int numScopes() {
+        return scopes.length;
+    }
+
+    /**
+     * Returns the scope with a given index.
+     *
+     * @param scope the index of a scope.
+     * @return the scope with index {@code scope}.
+     */
+    public String scopeName(final int scope) {
+        return scopes[scope];
+    }
+
+    /**
+     * Returns the number of distinct types.
+     *
+     * @return the number of distinct types.
+     */
+    public int numTypes() {
+        return types.length;
+    }
+
+    /**
+     * Returns the type with a given index.
+     *
+     * @param type the index of a type.
+     * @return the type with index {@code type}.
+     */
+    public String typeName(final int type) {
+        return types[type];
+    }
+
+    @Override
+    public String toString() {
+        return "[revisions: " + numRevisions() + ", edges: " + numEdges() + ", products: " + numProducts() + ", edges with exclusions: "
+                + exclusions.size() + "]";
+    }
+}
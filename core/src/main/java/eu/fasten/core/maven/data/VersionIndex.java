@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.maven.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+/**
+ * The revisions of a product, sorted by version so that the revisions matching a list of
+ * {@linkplain VersionRange version ranges} can be found by binary search.
+ *
+ * <p>
+ * Only {@linkplain VersionRange#isRegular(String) regular} versions are sorted; the few revisions
+ * with irregular versions, and ranges with irregular bounds, are checked one by one.
+ *
+ * <p>
+ * Matching revisions are returned in the order in which they were passed to the constructor, as a
+ * linear scan would. An instance can be shared by any number of threads.
+ */
+public final class VersionIndex {
+    /** The revisions, in their original order. */
+    private final Revision[] revisions;
+    /** The regular versions of the revisions, sorted. */
+    private final DefaultArtifactVersion[] versions;
+    /** The original position of the revision of each sorted version. */
+    private final int[] positions;
+    /** The original positions of the revisions with irregular versions. */
+    private final int[] irregular;
+
+    /**
+     * Creates an index over some revisions, usually those of a single product.
+     *
+     * @param revisions the revisions to index.
+     */
+    public VersionIndex(final Collection<Revision> revisions) {
+        this.revisions = revisions.toArray(new Revision[0]);
+        final var regular = new IntArrayList(this.revisions.length);
+        final var irregular = new IntArrayList();
+        for (int i = 0; i < this.revisions.length; i++) {
+            (VersionRange.isRegular(this.revisions[i].version.toString()) ? regular : irregular).add(i);
+        }
+        positions = regular.toIntArray();
+        IntArrays.stableSort(positions, (x, y) -> this.revisions[x].version.compareTo(this.revisions[y].version));
+        versions = new DefaultArtifactVersion[positions.length];
+        for (int i = 0; i < positions.length; i++) versions[i] = this.revisions[positions[i]].version;
+        this.irregular = irregular.toIntArray();
+    }
+
+    /**
+     * Returns the number of indexed revisions.
+     *
+     * @return the number of indexed revisions.
+     */
+    public int size() {
+        return revisions.length;
+    }
+
+    /**
+     * Returns the indexed revisions.
+     *
+     * @return the indexed revisions, in their original order.
+     */
+    public List<Revision> revisions() {
+        return Collections.unmodifiableList(Arrays.asList(revisions));
+    }
+
+    /**
+     * Returns the revisions matching at least one of some version ranges.
+     *
+     * @param ranges a list of version ranges.
+     * @return the revisions whose version is in one of {@code ranges}, in their original order.
+     */
+    public List<Revision> matching(final List<VersionRange> ranges) {
+        final var matches = new IntArrayList();
+        for (final var range : ranges) {
+            if (range.isEmpty()) continue;
+            if (!range.isRegular()) {
+                for (int i = 0; i < revisions.length; i++) {
+                    if (range.contains(revisions[i].version)) matches.add(i);
+                }
+                continue;
+            }
+            final int from = firstNotBelow(range);
+            final int to = firstAbove(range, from);
+            if (from < to) matches.addElements(matches.size(), positions, from, to - from);
+            for (final int i : irregular) {
+                if (range.contains(revisions[i].version)) matches.add(i);
+            }
+        }
+        if (matches.isEmpty()) return Collections.emptyList();
+        final int[] a = matches.elements();
+        final int count = matches.size();
+        Arrays.sort(a, 0, count);
+        final var result = new ArrayList<Revision>(count);
+        for (int i = 0; i < count; i++) {
+            // Overlapping ranges match some revisions more than once
+            if (i == 0 || a[i] != a[i - 1]) result.add(revisions[a[i]]);
+        }
+        return result;
+    }
+
+    /** Returns the index of the first sorted version that is not below the lower bound of a range. */
+    private int firstNotBelow(final VersionRange range) {
+        int from = 0, to = versions.length;
+        while (from < to) {
+            final int mid = from + to >>> 1;
+            if (range.belowLowerBound(versions[mid])) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    /** Returns the index of the first sorted version, starting at a given one, that is above the upper bound of a range. */
+    private int firstAbove(final VersionRange range, int from) {
+        int to = versions.length;
+        while (from < to) {
+            final int mid = from + to >>> 1;
+            if (range.aboveUpperBound(versions[mid])) to = mid;
+            else from = mid + 1;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.maven.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+
+/**
+ * A precompiled {@link Dependency.VersionConstraint}: an interval of versions whose bounds have
+ * already been parsed.
+ *
+ * <p>
+ * A constraint whose {@linkplain Dependency.VersionConstraint#toString() specification} is a range
+ * matches the versions between its bounds, an empty bound meaning no bound; any other constraint
+ * matches exactly its (soft) version, or nothing if its bounds differ. Versions are compared with
+ * {@link DefaultArtifactVersion#compareTo(org.apache.maven.artifact.versioning.ArtifactVersion)},
+ * so a range is a contiguous interval of a sorted array of versions (see {@link VersionIndex}).
+ *
+ * <p>
+ * This only holds for {@linkplain #isRegular(String) regular} versions: Maven does not order
+ * versions that start with a qualifier consistently (e.g., {@code latest} is smaller than
+ * {@code 0-alpha}, which is smaller than {@code 0}, which is smaller than {@code latest}), so
+ * ranges with such bounds must be checked against every version.
+ */
+public final class VersionRange {
+    /** A range that matches no version. */
+    public static final VersionRange EMPTY = new VersionRange(null, false, null, false, true, true);
+
+    /** The lower bound, or {@code null} if there is none. */
+    private final DefaultArtifactVersion lowerBound;
+    private final boolean lowerInclusive;
+    /** The upper bound, or {@code null} if there is none. */
+    private final DefaultArtifactVersion upperBound;
+    private final boolean upperInclusive;
+    private final boolean empty;
+    /** Whether both bounds are absent or regular. */
+    private final boolean regular;
+
+    private VersionRange(final DefaultArtifactVersion lowerBound, final boolean lowerInclusive, final DefaultArtifactVersion upperBound,
+                         final boolean upperInclusive, final boolean empty, final boolean regular) {
+        this.lowerBound = lowerBound;
+        this.lowerInclusive = lowerInclusive;
+        this.upperBound = upperBound;
+        this.upperInclusive = upperInclusive;
+        this.empty = empty;
+        this.regular = regular;
+    }
+
+    /**
+     * Returns whether a version is regular, that is, whether it starts with a digit. Regular versions
+     * are totally ordered by {@link DefaultArtifactVersion#compareTo}.
+     *
+     * @param version a version.
+     * @return whether {@code version} is regular.
+     */
+    public static boolean isRegular(final String version) {
+        return !version.isEmpty() && Character.isDigit(version.charAt(0));
+    }
+
+    /**
+     * Compiles a version constraint.
+     *
+     * @param constraint a version constraint.
+     * @return the range of versions matched by {@code constraint}.
+     */
+    public static VersionRange of(final Dependency.VersionConstraint constraint) {
+        final String spec = constraint.toString();
+        if ((spec.startsWith("[") || spec.startsWith("(")) && (spec.endsWith("]") || spec.endsWith(")"))) {
+            final String lower = constraint.lowerBound, upper = constraint.upperBound;
+            return new VersionRange(lower.isEmpty() ? null : new DefaultArtifactVersion(lower), constraint.isLowerHardRequirement,
+                    upper.isEmpty() ? null : new DefaultArtifactVersion(upper), constraint.isUpperHardRequirement, false,
+                    (lower.isEmpty() || isRegular(lower)) && (upper.isEmpty() || isRegular(upper)));
+        }
+        if (!constraint.lowerBound.equals(constraint.upperBound)) return EMPTY;
+        final var version = new DefaultArtifactVersion(constraint.lowerBound);
+        return new VersionRange(version, true, version, true, false, isRegular(constraint.lowerBound));
+    }
+
+    /**
+     * Compiles a list of version constraints.
+     *
+     * @param constraints a list of version constraints.
+     * @return the ranges of versions matched by {@code constraints}, in the same order.
+     */
+    public static List<VersionRange> of(final List<Dependency.VersionConstraint> constraints) {
+        final var ranges = new ArrayList<VersionRange>(constraints.size());
+        for (final var constraint : constraints) ranges.add(of(constraint));
+        return ranges;
+    }
+
+    /**
+     * Returns whether this range contains a version.
+     *
+     * @param version a version.
+     * @return whether {@code version} is in this range.
+     */
+    public boolean contains(final DefaultArtifactVersion version) {
+        return !empty && !belowLowerBound(version) && !aboveUpperBound(version);
+    }
+
+    /**
+     * Returns whether this range matches no version because it is {@linkplain #EMPTY empty}; ranges
+     * whose lower bound exceeds their upper bound are not considered empty.
+     *
+     * @return whether this range is {@link #EMPTY}.
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Returns whether the bounds of this range are absent or {@linkplain #isRegular(String) regular}, so
+     * that the regular versions it contains form an interval of the sorted regular versions.
+     *
+     * @return whether this range has only regular bounds.
+     */
+    public boolean isRegular() {
+        return regular;
+    }
+
+    /**
+     * Returns whether a version is smaller than every version in this range.
+     *
+     * @param version a version.
+     * @return whether {@code version} is below the lower bound of this range.
+     */
+    public boolean belowLowerBound(final DefaultArtifactVersion version) {
+        if (lowerBound == null) return false;
+        final int cmp = version.compareTo(lowerBound);
+        return lowerInclusive ? cmp < 0 : cmp <= 0;
+    }
+
+    /**
+     * Returns whether a version is larger than every version in this range.
+     *
+     * @param version a version.
+     * @return whether {@code version} is above the upper bound of this range.
+     */
+    public boolean aboveUpperBound(final DefaultArtifactVersion version) {
+        if (upperBound == null) return false;
+        final int cmp = version.compareTo(upperBound);
+        return upperInclusive ? cmp > 0 : cmp >= 0;
+    }
+
+    @Override
+    public String toString() {
+        if (empty) return "{}";
+        return (lowerInclusive ? "[" : "(") + (lowerBound == null ? "" : lowerBound) + "," + (upperBound == null ? "" : upperBound)
+                + (upperInclusive ? "]" : ")");
+    }
+}
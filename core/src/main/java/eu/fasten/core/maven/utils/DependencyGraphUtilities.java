@@ -36,6 +36,9 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
@@ -120,11 +123,14 @@ public final class DependencyGraphUtilities {
     }
 
     /**
-     * Serialize a Maven dependency graph to a file. Independently serializes nodes and edges.
+     * Serialize a Maven dependency graph to a file. Independently serializes nodes and edges, and stores the
+     * watermark of the graph in a separate file so that later updates only load newer package versions.
      *
+     * @param watermark the largest package version id that has been applied to the graph.
      * @throws Exception When the files that hold the serialized data cannot be created.
      */
-    public static void serializeDependencyGraph(Graph<Revision, DependencyEdge> graph, String path) throws Exception {
+    public static void serializeDependencyGraph(Graph<Revision, DependencyEdge> graph, String path, long watermark)
+            throws Exception {
         var kryo = setupKryo();
 
         var nodes = new Output(new FileOutputStream(path + ".nodes"));
@@ -135,6 +141,33 @@ public final class DependencyGraphUtilities {
 
         kryo.writeObject(edges, graph.edgeSet());
         edges.close();
+
+        Files.writeString(Path.of(path + ".watermark"), Long.toString(watermark));
+    }
+
+    /**
+     * Serialize a Maven dependency graph to the indicated file, with the largest package version id it contains
+     * as its watermark.
+     *
+     * @throws Exception When the files that will hold the serialized graph cannot be written.
+     * @see DependencyGraphBuilder#watermark(Graph)
+     */
+    public static void serializeDependencyGraph(Graph<Revision, DependencyEdge> graph, String path) throws Exception {
+        serializeDependencyGraph(graph, path, DependencyGraphBuilder.watermark(graph));
+    }
+
+    /**
+     * Reads the watermark of a serialized dependency graph.
+     *
+     * @return the watermark stored with the graph at {@code path}, or -1 if there is none.
+     * @throws IOException When the watermark file exists but cannot be read.
+     */
+    public static long readWatermark(String path) throws IOException {
+        var file = Path.of(path + ".watermark");
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        return Long.parseLong(Files.readString(file).trim());
     }
 
     /**
@@ -200,4 +233,35 @@ public final class DependencyGraphUtilities {
 
         return graph;
     }
+
+    /**
+     * Updates a deserialized Maven dependency graph with the package versions ingested after its watermark, and
+     * serializes it back to the provided path along with the new watermark if anything changed. Graphs serialized
+     * without a watermark use the largest package version id they contain. Package versions committed late with an
+     * id below the watermark are picked up as described in
+     * {@link DependencyGraphBuilder#updateDependencyGraph(DSLContext, Graph, long, long)}.
+     *
+     * @throws Exception When serialization fails.
+     */
+    public static Graph<Revision, DependencyEdge> updateDependencyGraph(DSLContext dbContext,
+                                                                        Graph<Revision, DependencyEdge> graph,
+                                                                        String path) throws Exception {
+        var watermark = readWatermark(path);
+        if (watermark < 0) {
+            watermark = DependencyGraphBuilder.watermark(graph);
+        }
+        var tsStart = System.currentTimeMillis();
+        var numRevisions = graph.vertexSet().size();
+        var newWatermark = new DependencyGraphBuilder().updateDependencyGraph(dbContext, graph, watermark);
+        logger.info("Graph has {} nodes and {} edges ({} ms)", graph.vertexSet().size(),
+                graph.edgeSet().size(), System.currentTimeMillis() - tsStart);
+
+        if (newWatermark != watermark || graph.vertexSet().size() != numRevisions) {
+            tsStart = System.currentTimeMillis();
+            logger.info("Serializing graph to {}", path);
+            DependencyGraphUtilities.serializeDependencyGraph(graph, path, newWatermark);
+            logger.info("Finished serializing graph ({} ms)", System.currentTimeMillis() - tsStart);
+        }
+        return graph;
+    }
 }
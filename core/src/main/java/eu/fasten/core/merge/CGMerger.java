@@ -31,7 +31,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.jgrapht.Graphs;
@@ -39,7 +38,6 @@ import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
-import org.jooq.Record3;
 import org.json.JSONObject;
 import org.rocksdb.RocksDBException;
 import org.slf4j.Logger;
@@ -51,15 +49,13 @@ import com.google.common.collect.HashBiMap;
 import eu.fasten.core.data.Constants;
 import eu.fasten.core.data.DirectedGraph;
 import eu.fasten.core.data.ExtendedRevisionJavaCallGraph;
+import eu.fasten.core.data.ImmutableMergedDirectedGraph;
 import eu.fasten.core.data.MergedDirectedGraph;
-import eu.fasten.core.data.FastenJavaURI;
 import eu.fasten.core.data.FastenURI;
 import eu.fasten.core.data.JavaScope;
 import eu.fasten.core.data.graphdb.GraphMetadata;
 import eu.fasten.core.data.graphdb.RocksDao;
 import eu.fasten.core.data.metadatadb.codegen.tables.Callables;
-import eu.fasten.core.data.metadatadb.codegen.tables.ModuleNames;
-import eu.fasten.core.data.metadatadb.codegen.tables.Modules;
 import eu.fasten.core.data.metadatadb.codegen.tables.PackageVersions;
 import eu.fasten.core.data.metadatadb.codegen.tables.Packages;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
@@ -79,7 +75,6 @@ public class CGMerger {
     private DSLContext dbContext;
     private RocksDao rocksDao;
     private Set<Long> dependencySet;
-    private Map<Long, String> namespaceMap;
 
     private List<Pair<DirectedGraph, ExtendedRevisionJavaCallGraph>> ercgDependencySet;
     private BiMap<Long, String> allUris;
@@ -163,16 +158,7 @@ public class CGMerger {
      */
     public CGMerger(final List<String> dependencySet,
                     final DSLContext dbContext, final RocksDao rocksDao) {
-        this.dbContext = dbContext;
-        this.rocksDao = rocksDao;
-        this.dependencySet = getDependenciesIds(dependencySet, dbContext);
-        final var universalCHA = createUniversalCHA(this.dependencySet, dbContext, rocksDao);
-        this.universalChildren = new HashMap<>(universalCHA.getRight().size());
-        universalCHA.getRight()
-                .forEach((k, v) -> this.universalChildren.put(k, new ArrayList<>(v)));
-        this.universalParents = new HashMap<>(universalCHA.getLeft().size());
-        universalCHA.getLeft().forEach((k, v) -> this.universalParents.put(k, new ArrayList<>(v)));
-        this.typeDictionary = createTypeDictionary(this.dependencySet, dbContext, rocksDao);
+        this(getDependenciesIds(dependencySet, dbContext), dbContext, rocksDao);
     }
 
     /**
@@ -184,16 +170,28 @@ public class CGMerger {
      */
     public CGMerger(final Set<Long> dependencySet,
                     final DSLContext dbContext, final RocksDao rocksDao) {
+        this(dependencySet, dbContext, rocksDao, new ClassHierarchyIndex());
+    }
+
+    /**
+     * Create instance of callgraph merger from package versions ids, reusing the class hierarchy
+     * and type dictionary stored in a shared index.
+     *
+     * @param dependencySet dependencies present in the resolution
+     * @param dbContext     DSL context
+     * @param rocksDao      rocks DAO
+     * @param chaIndex      shared index of class hierarchies
+     */
+    public CGMerger(final Set<Long> dependencySet,
+                    final DSLContext dbContext, final RocksDao rocksDao,
+                    final ClassHierarchyIndex chaIndex) {
         this.dbContext = dbContext;
         this.rocksDao = rocksDao;
         this.dependencySet = dependencySet;
-        final var universalCHA = createUniversalCHA(dependencySet, dbContext, rocksDao);
-        this.universalChildren = new HashMap<>(universalCHA.getRight().size());
-        universalCHA.getRight()
-                .forEach((k, v) -> this.universalChildren.put(k, new ArrayList<>(v)));
-        this.universalParents = new HashMap<>(universalCHA.getLeft().size());
-        universalCHA.getLeft().forEach((k, v) -> this.universalParents.put(k, new ArrayList<>(v)));
-        this.typeDictionary = createTypeDictionary(dependencySet, dbContext, rocksDao);
+        final var universalCHA = chaIndex.getUniversalCHA(dependencySet, dbContext, rocksDao);
+        this.universalChildren = universalCHA.children;
+        this.universalParents = universalCHA.parents;
+        this.typeDictionary = universalCHA.typeDictionary;
     }
 
     public DirectedGraph mergeWithCHA(final long id) {
@@ -213,7 +211,7 @@ public class CGMerger {
             }
         }
         logger.warn("This cg does not exist in the dependency set.");
-        return new MergedDirectedGraph();
+        return new ImmutableMergedDirectedGraph.Builder().build();
     }
 
     /**
@@ -235,42 +233,6 @@ public class CGMerger {
         }
     }
 
-    /**
-     * Node containing method signature and type information.
-     */
-    private static class Node {
-        private final String signature;
-        private final String typeUri;
-
-        /**
-         * Create new Node instance.
-         *
-         * @param uri fastenURI
-         */
-        public Node(final FastenJavaURI uri) {
-            this.typeUri = "/" + uri.getNamespace() + "/" + uri.getClassName();
-            this.signature = StringUtils.substringAfter(uri.decanonicalize().getEntity(), ".");
-        }
-
-        /**
-         * Check if the given method is a constructor.
-         *
-         * @return true, if the method is constructor
-         */
-        public boolean isConstructor() {
-            return signature.startsWith("<init>");
-        }
-
-        /**
-         * Get full fastenURI.
-         *
-         * @return fastenURI
-         */
-        public String getUri() {
-            return typeUri + "." + signature;
-        }
-    }
-
     private long updateNode(final long node, final long offset,
                             final BiMap<Integer, String> uris) {
         var uri = uris.get((int) node);
@@ -352,8 +314,6 @@ public class CGMerger {
             return null;
         }
 
-        var result = new MergedDirectedGraph();
-
         if (graphArcs == null) {
             return null;
         }
@@ -369,9 +329,11 @@ public class CGMerger {
         });
 
 
-        for(LongLongPair edge: edges) {
-            addEdge(result, edge.firstLong(), edge.secondLong());
+        final var builder = new ImmutableMergedDirectedGraph.Builder();
+        for (LongLongPair edge : edges) {
+            builder.addArc(edge.firstLong(), edge.secondLong());
         }
+        final var result = builder.build();
 
         logger.info("Merged call graphs in {} seconds, num node: {}, num edges: {}",
             new DecimalFormat("#0.000").format(
@@ -482,45 +444,6 @@ public class CGMerger {
                 "receiver")).replace("[", "").replace("]", "").split(",")));
     }
 
-    /**
-     * Create a mapping from types and method signatures to callable IDs.
-     *
-     * @param dependenciesIds IDs of dependencies
-     * @param dbContext       DSL context
-     * @param rocksDao        rocks DAO
-     * @return a type dictionary
-     */
-    private Map<String, Map<String, LongSet>> createTypeDictionary(
-            final Set<Long> dependenciesIds, final DSLContext dbContext, final RocksDao rocksDao) {
-        final long startTime = System.currentTimeMillis();
-        var result = new HashMap<String, Map<String, LongSet>>();
-
-        var callables = getCallables(dependenciesIds, rocksDao);
-
-        dbContext.select(Callables.CALLABLES.FASTEN_URI, Callables.CALLABLES.ID)
-                .from(Callables.CALLABLES)
-                .where(Callables.CALLABLES.ID.in(callables))
-                .fetch()
-                .forEach(callable -> {
-                    var node = new Node(FastenJavaURI.create(callable.value1()).decanonicalize());
-                    result.putIfAbsent(node.typeUri, new HashMap<>());
-                    var type = result.get(node.typeUri);
-                    var newestSet = new LongOpenHashSet();
-                    newestSet.add(callable.value2().longValue());
-                    type.merge(node.signature, newestSet, (old, newest) -> {
-                        old.addAll(newest);
-                        return old;
-                    });
-                });
-
-        logger.info("Created the type dictionary with {} types in {} seconds", result.size(),
-                new DecimalFormat("#0.000")
-                        .format((System.currentTimeMillis() - startTime) / 1000d));
-
-        return result;
-    }
-
-
     /**
      * Create a universal CHA for all dependencies including the artifact to resolve.
      *
@@ -561,85 +484,6 @@ public class CGMerger {
         return ImmutablePair.of(universalParents, universalChildren);
     }
 
-    /**
-     * Create a universal class hierarchy from all dependencies.
-     *
-     * @param dependenciesIds IDs of dependencies
-     * @param dbContext       DSL context
-     * @param rocksDao        rocks DAO
-     * @return universal CHA
-     */
-    private Pair<Map<String, Set<String>>, Map<String, Set<String>>> createUniversalCHA(
-            final Set<Long> dependenciesIds, final DSLContext dbContext, final RocksDao rocksDao) {
-        final long startTime = System.currentTimeMillis();
-        var universalCHA = new DefaultDirectedGraph<String, DefaultEdge>(DefaultEdge.class);
-
-        var callables = getCallables(dependenciesIds, rocksDao);
-
-        var modulesIds = dbContext
-                .select(Callables.CALLABLES.MODULE_ID)
-                .from(Callables.CALLABLES)
-                .where(Callables.CALLABLES.ID.in(callables))
-                .fetch();
-
-        var modules = dbContext
-                .select(Modules.MODULES.MODULE_NAME_ID, Modules.MODULES.SUPER_CLASSES,
-                        Modules.MODULES.SUPER_INTERFACES)
-                .from(Modules.MODULES)
-                .where(Modules.MODULES.ID.in(modulesIds))
-                .fetch();
-
-        var namespaceIDs = new HashSet<>(modules.map(Record3::value1));
-        modules.forEach(m -> namespaceIDs.addAll(Arrays.asList(m.value2())));
-        modules.forEach(m -> namespaceIDs.addAll(Arrays.asList(m.value3())));
-        var namespaceResults = dbContext
-                .select(ModuleNames.MODULE_NAMES.ID, ModuleNames.MODULE_NAMES.NAME)
-                .from(ModuleNames.MODULE_NAMES)
-                .where(ModuleNames.MODULE_NAMES.ID.in(namespaceIDs))
-                .fetch();
-        this.namespaceMap = new HashMap<>(namespaceResults.size());
-        namespaceResults.forEach(r -> namespaceMap.put(r.value1(), r.value2()));
-
-        for (var callable : modules) {
-            if (!universalCHA.containsVertex(namespaceMap.get(callable.value1()))) {
-                universalCHA.addVertex(namespaceMap.get(callable.value1()));
-            }
-
-            try {
-                var superClasses = Arrays.stream(callable.value2()).map(n -> namespaceMap.get(n))
-                        .collect(Collectors.toList());
-                addSuperTypes(universalCHA, namespaceMap.get(callable.value1()), superClasses);
-            } catch (NullPointerException ignore) {
-            }
-            try {
-                var superInterfaces = Arrays.stream(callable.value3()).map(n -> namespaceMap.get(n))
-                        .collect(Collectors.toList());
-                addSuperTypes(universalCHA, namespaceMap.get(callable.value1()), superInterfaces);
-            } catch (NullPointerException ignore) {
-            }
-        }
-
-        final Map<String, Set<String>> universalParents = new HashMap<>();
-        final Map<String, Set<String>> universalChildren = new HashMap<>();
-        for (final var type : universalCHA.vertexSet()) {
-
-            final var children = new HashSet<>(Collections.singletonList(type));
-            children.addAll(getAllChildren(universalCHA, type));
-            universalChildren.put(type, children);
-
-            final var parents = new HashSet<>(Collections.singletonList(type));
-            parents.addAll(getAllParents(universalCHA, type));
-            universalParents.put(type, parents);
-        }
-
-        logger.info("Created the Universal CHA with {} vertices in {}",
-                universalCHA.vertexSet().size(),
-                new DecimalFormat("#0.000")
-                        .format((System.currentTimeMillis() - startTime) / 1000d));
-
-        return ImmutablePair.of(universalParents, universalChildren);
-    }
-
     private List<String> organize(ArrayList<String> parents) {
         final List<String> result = new ArrayList<>();
         for (String parent : parents) {
@@ -741,7 +585,7 @@ public class CGMerger {
      */
     private void cloneNodesAndArcs(final MergedDirectedGraph result,
                                    final DirectedGraph callGraphData) {
-        var internalNodes = callGraphData.nodes();
+        var internalNodes = new LongOpenHashSet(callGraphData.nodes());
         internalNodes.removeAll(callGraphData.externalNodes());
         for (var node : internalNodes) {
             result.addInternalNode(node);
@@ -847,35 +691,13 @@ public class CGMerger {
                 .component1();
     }
 
-    /**
-     * Get callables from dependencies.
-     *
-     * @param dependenciesIds dependencies IDs
-     * @param rocksDao        rocks DAO
-     * @return list of callables
-     */
-    private List<Long> getCallables(final Set<Long> dependenciesIds, final RocksDao rocksDao) {
-        var callables = new ArrayList<Long>();
-        for (var id : dependenciesIds) {
-            try {
-                var cg = rocksDao.getGraphData(id);
-                var nodes = cg.nodes();
-                nodes.removeAll(cg.externalNodes());
-                callables.addAll(nodes);
-            } catch (RocksDBException | NullPointerException e) {
-                logger.error("Couldn't retrieve a call graph with ID: {}", id);
-            }
-        }
-        return callables;
-    }
-
     /**
      * Get dependencies IDs from a metadata database.
      *
      * @param dbContext DSL context
      * @return set of IDs of dependencies
      */
-    private Set<Long> getDependenciesIds(final List<String> dependencySet,
+    private static Set<Long> getDependenciesIds(final List<String> dependencySet,
                                          final DSLContext dbContext) {
         var coordinates = new HashSet<>(dependencySet);
 
@@ -65,8 +65,8 @@ public class CallGraphUtils {
         final String graphPath =
                 resultPath + graphNumber + "_" + firstGraph.product + "." + firstGraph.version;
 
-        writeToFile(graphPath, JSONUtils.toJSONString(firstGraph), "_1.txt");
-        writeToFile(graphPath, JSONUtils.toJSONString(secondGraph), "_2.txt");
+        writeToFile(graphPath, firstGraph, "_1.txt");
+        writeToFile(graphPath, secondGraph, "_2.txt");
 
         Runtime.getRuntime().exec(new String[]{"sh", "-c",
                 "diff " + graphPath + "_1.txt" + " " + graphPath + "_2.txt" + " > " + graphPath
@@ -92,6 +92,22 @@ public class CallGraphUtils {
         writer.close();
     }
 
+    /**
+     * Writes a call graph as JSON to a file without building the whole JSON in memory.
+     *
+     * @param path   the path to write
+     * @param graph  the call graph to be written to a file
+     * @param suffix the suffix to put at the end of the path, most of the time file name
+     * @throws IOException throws if IO problems occur during writing in a file
+     */
+    public static void writeToFile(final String path, final ExtendedRevisionJavaCallGraph graph,
+                                   final String suffix) throws IOException {
+        logger.info("Writing graph to {}", path + suffix);
+        try (final var writer = new BufferedWriter(new FileWriter(path + suffix))) {
+            JSONUtils.writeJSON(graph, writer);
+        }
+    }
+
     /**
      * Converts {@link ExtendedRevisionCallGraph} graph into the list of node pairs.
      *
@@ -0,0 +1,401 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.merge;
+
+import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jooq.DSLContext;
+import org.jooq.Record3;
+import org.rocksdb.RocksDBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.fasten.core.data.DirectedGraph;
+import eu.fasten.core.data.FastenJavaURI;
+import eu.fasten.core.data.graphdb.RocksDao;
+import eu.fasten.core.data.metadatadb.codegen.tables.Callables;
+import eu.fasten.core.data.metadatadb.codegen.tables.ModuleNames;
+import eu.fasten.core.data.metadatadb.codegen.tables.Modules;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+
+/**
+ * A reusable index of the class hierarchy and of the type dictionary used by {@link CGMerger}.
+ *
+ * <p>
+ * Building the universal CHA and the type dictionary of a resolution requires fetching from the
+ * metadata database, and parsing, the FASTEN URIs of all callables of all dependencies. This index
+ * stores, for each package version, its contribution to both structures, already parsed, so that
+ * merging the contributions of a dependency set does not touch the database for package versions
+ * that have been seen before. The universal CHA of the most recently used dependency sets is cached,
+ * too, so that mergers created for the same resolution only perform lookups.
+ *
+ * <p>
+ * Package versions whose call graph is not (yet) in the graph database are not stored, and the
+ * universal CHA of a dependency set is cached only if all its members could be loaded, so a
+ * dependency set is completed as soon as its missing members are ingested. When a package version
+ * is ingested, deleted or re-ingested, {@link #update(long)} must be called; this happens
+ * automatically for changes made through a {@link RocksDao} to which the index has been
+ * {@linkplain RocksDao#addUpdateListener(java.util.function.LongConsumer) attached}, as in
+ * <pre>
+ *     rocksDao.addUpdateListener(index::update);
+ * </pre>
+ * Changes made by other processes are not detected.
+ *
+ * <p>
+ * Instances of this class are thread-safe, and are meant to be shared by all mergers of an
+ * application.
+ */
+public class ClassHierarchyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassHierarchyIndex.class);
+
+    /** The default maximum number of package versions in the index. */
+    public static final int DEFAULT_MAX_PACKAGE_VERSIONS = 4096;
+    /** The default maximum number of cached dependency sets. */
+    public static final int DEFAULT_MAX_DEPENDENCY_SETS = 64;
+
+    /**
+     * The contribution of a single package version: supertypes of its types, and callables
+     * defined by its types.
+     */
+    private static final class PackageVersionEntry {
+        /** Maps each type to the list of its direct superclasses and superinterfaces. */
+        private final Map<String, List<String>> superTypes;
+        /** Maps each type to a map from method signatures to callable IDs. */
+        private final Map<String, Map<String, LongSet>> typeDictionary;
+
+        private PackageVersionEntry(final Map<String, List<String>> superTypes,
+                                    final Map<String, Map<String, LongSet>> typeDictionary) {
+            this.superTypes = superTypes;
+            this.typeDictionary = typeDictionary;
+        }
+    }
+
+    /**
+     * The universal CHA and type dictionary of a dependency set. All maps are read-only.
+     */
+    public static final class UniversalCHA {
+        /** Maps each type to itself and all its ancestors. */
+        public final Map<String, List<String>> parents;
+        /** Maps each type to itself and all its descendants. */
+        public final Map<String, List<String>> children;
+        /** Maps each type to a map from method signatures to callable IDs. */
+        public final Map<String, Map<String, LongSet>> typeDictionary;
+
+        private UniversalCHA(final Map<String, List<String>> parents,
+                             final Map<String, List<String>> children,
+                             final Map<String, Map<String, LongSet>> typeDictionary) {
+            this.parents = parents;
+            this.children = children;
+            this.typeDictionary = typeDictionary;
+        }
+    }
+
+    private final int maxPackageVersions;
+    private final int maxDependencySets;
+    /** The contributions of package versions, in access order. */
+    private final Long2ObjectLinkedOpenHashMap<PackageVersionEntry> packageVersions = new Long2ObjectLinkedOpenHashMap<>();
+    /** The universal CHAs of dependency sets (as sorted arrays of IDs), in access order. */
+    private final Object2ObjectLinkedOpenHashMap<LongArrayList, UniversalCHA> dependencySets = new Object2ObjectLinkedOpenHashMap<>();
+
+    /**
+     * Incremented at each update; entries loaded before an update are not stored, as they might
+     * predate it.
+     */
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ClassHierarchyIndex() {
+        this(DEFAULT_MAX_PACKAGE_VERSIONS, DEFAULT_MAX_DEPENDENCY_SETS);
+    }
+
+    /**
+     * Creates a new index.
+     *
+     * @param maxPackageVersions maximum number of package versions kept in the index
+     * @param maxDependencySets  maximum number of dependency sets whose universal CHA is cached
+     */
+    public ClassHierarchyIndex(final int maxPackageVersions, final int maxDependencySets) {
+        this.maxPackageVersions = maxPackageVersions;
+        this.maxDependencySets = maxDependencySets;
+    }
+
+    /**
+     * Returns the universal CHA and type dictionary of a dependency set, loading from the
+     * databases the package versions that are not in the index.
+     *
+     * @param dependenciesIds IDs of the package versions in the dependency set
+     * @param dbContext       DSL context
+     * @param rocksDao        rocks DAO
+     * @return the universal CHA of the dependency set
+     */
+    public UniversalCHA getUniversalCHA(final Set<Long> dependenciesIds, final DSLContext dbContext,
+                                        final RocksDao rocksDao) {
+        final var key = new LongArrayList(dependenciesIds.size());
+        for (final var id : dependenciesIds) key.add(id.longValue());
+        LongArrays.quickSort(key.elements(), 0, key.size());
+
+        synchronized (dependencySets) {
+            final var universalCHA = dependencySets.getAndMoveToLast(key);
+            if (universalCHA != null) {
+                hits.incrementAndGet();
+                return universalCHA;
+            }
+        }
+        misses.incrementAndGet();
+
+        final long startTime = System.currentTimeMillis();
+        final long stamp = epoch.get();
+        final var entries = new ArrayList<PackageVersionEntry>(key.size());
+        for (final long id : key) {
+            final var entry = getPackageVersionEntry(id, dbContext, rocksDao, stamp);
+            if (entry != null) entries.add(entry);
+        }
+        final var universalCHA = merge(entries);
+        logger.info("Created the Universal CHA with {} types in {} seconds", universalCHA.parents.size(),
+                new DecimalFormat("#0.000").format((System.currentTimeMillis() - startTime) / 1000d));
+
+        if (entries.size() < key.size()) {
+            logger.warn("{} package versions of the dependency set are missing; the Universal CHA will not be cached",
+                    key.size() - entries.size());
+            return universalCHA;
+        }
+        synchronized (dependencySets) {
+            if (epoch.get() != stamp) return universalCHA;
+            dependencySets.putAndMoveToLast(key, universalCHA);
+            while (dependencySets.size() > maxDependencySets) dependencySets.removeFirst();
+        }
+        return universalCHA;
+    }
+
+    /**
+     * Removes a package version from the index, together with all cached dependency sets
+     * containing it. The package version will be reloaded at the next request.
+     *
+     * <p>
+     * Universal CHAs and package versions being loaded concurrently are not stored, as they might
+     * have been computed before the update.
+     *
+     * @param packageVersionId the ID of a package version that has been ingested, deleted or
+     *                         re-ingested
+     */
+    public void update(final long packageVersionId) {
+        epoch.incrementAndGet();
+        synchronized (packageVersions) {
+            packageVersions.remove(packageVersionId);
+        }
+        synchronized (dependencySets) {
+            dependencySets.keySet().removeIf(key -> key.contains(packageVersionId));
+        }
+    }
+
+    /** Removes all package versions and dependency sets from the index. */
+    public void clear() {
+        epoch.incrementAndGet();
+        synchronized (packageVersions) {
+            packageVersions.clear();
+        }
+        synchronized (dependencySets) {
+            dependencySets.clear();
+        }
+    }
+
+    /**
+     * Returns the number of requests for the universal CHA of a dependency set that was cached.
+     *
+     * @return the number of cache hits
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of requests for the universal CHA of a dependency set that was not cached.
+     *
+     * @return the number of cache misses
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    private PackageVersionEntry getPackageVersionEntry(final long id, final DSLContext dbContext,
+                                                       final RocksDao rocksDao, final long stamp) {
+        synchronized (packageVersions) {
+            final var entry = packageVersions.getAndMoveToLast(id);
+            if (entry != null) return entry;
+        }
+        final var entry = loadPackageVersionEntry(id, dbContext, rocksDao);
+        if (entry != null) {
+            synchronized (packageVersions) {
+                if (epoch.get() != stamp) return entry;
+                packageVersions.putAndMoveToLast(id, entry);
+                while (packageVersions.size() > maxPackageVersions) packageVersions.removeFirst();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Loads the contribution of a package version from the databases.
+     *
+     * @return the contribution of the package version, or {@code null} if its call graph is not
+     * in the graph database
+     */
+    private PackageVersionEntry loadPackageVersionEntry(final long id, final DSLContext dbContext,
+                                                        final RocksDao rocksDao) {
+        final DirectedGraph cg;
+        try {
+            cg = rocksDao.getGraphData(id);
+        } catch (RocksDBException e) {
+            logger.error("Couldn't retrieve a call graph with ID: {}", id);
+            return null;
+        }
+        if (cg == null) {
+            logger.error("Couldn't retrieve a call graph with ID: {}", id);
+            return null;
+        }
+        final var callables = new LongArrayList(cg.numNodes());
+        for (final long node : cg.nodes()) if (cg.isInternal(node)) callables.add(node);
+
+        final Map<String, Map<String, LongSet>> typeDictionary = new HashMap<>();
+        dbContext.select(Callables.CALLABLES.FASTEN_URI, Callables.CALLABLES.ID)
+                .from(Callables.CALLABLES)
+                .where(Callables.CALLABLES.ID.in(callables))
+                .fetch()
+                .forEach(callable -> {
+                    final var uri = FastenJavaURI.create(callable.value1()).decanonicalize();
+                    final var typeUri = "/" + uri.getNamespace() + "/" + uri.getClassName();
+                    final var signature = StringUtils.substringAfter(uri.decanonicalize().getEntity(), ".");
+                    typeDictionary.computeIfAbsent(typeUri, k -> new HashMap<>())
+                            .computeIfAbsent(signature, k -> new LongOpenHashSet())
+                            .add(callable.value2().longValue());
+                });
+
+        final var modulesIds = dbContext
+                .select(Callables.CALLABLES.MODULE_ID)
+                .from(Callables.CALLABLES)
+                .where(Callables.CALLABLES.ID.in(callables))
+                .fetch();
+        final var modules = dbContext
+                .select(Modules.MODULES.MODULE_NAME_ID, Modules.MODULES.SUPER_CLASSES,
+                        Modules.MODULES.SUPER_INTERFACES)
+                .from(Modules.MODULES)
+                .where(Modules.MODULES.ID.in(modulesIds))
+                .fetch();
+
+        final var namespaceIDs = new HashSet<>(modules.map(Record3::value1));
+        for (final var m : modules) {
+            if (m.value2() != null) namespaceIDs.addAll(Arrays.asList(m.value2()));
+            if (m.value3() != null) namespaceIDs.addAll(Arrays.asList(m.value3()));
+        }
+        final var namespaceMap = new HashMap<Long, String>(namespaceIDs.size());
+        dbContext.select(ModuleNames.MODULE_NAMES.ID, ModuleNames.MODULE_NAMES.NAME)
+                .from(ModuleNames.MODULE_NAMES)
+                .where(ModuleNames.MODULE_NAMES.ID.in(namespaceIDs))
+                .fetch()
+                .forEach(r -> namespaceMap.put(r.value1(), r.value2()));
+
+        final Map<String, List<String>> superTypes = new HashMap<>();
+        for (final var module : modules) {
+            final var type = namespaceMap.get(module.value1());
+            if (type == null) continue;
+            final var supers = superTypes.computeIfAbsent(type, k -> new ArrayList<>());
+            for (final var superTypeIds : List.of(Objects.requireNonNullElse(module.value2(), new Long[0]),
+                    Objects.requireNonNullElse(module.value3(), new Long[0]))) {
+                for (final var superTypeId : superTypeIds) {
+                    final var superType = namespaceMap.get(superTypeId);
+                    if (superType != null) supers.add(superType);
+                }
+            }
+        }
+        return new PackageVersionEntry(superTypes, typeDictionary);
+    }
+
+    /**
+     * Merges the contributions of several package versions into a universal CHA.
+     */
+    private static UniversalCHA merge(final List<PackageVersionEntry> entries) {
+        final Map<String, Set<String>> superTypes = new HashMap<>();
+        final Map<String, Set<String>> subTypes = new HashMap<>();
+        final Map<String, Map<String, LongSet>> typeDictionary = new HashMap<>();
+        for (final var entry : entries) {
+            entry.superTypes.forEach((type, supers) -> {
+                superTypes.computeIfAbsent(type, k -> new LinkedHashSet<>());
+                subTypes.computeIfAbsent(type, k -> new LinkedHashSet<>());
+                for (final var superType : supers) {
+                    superTypes.get(type).add(superType);
+                    superTypes.computeIfAbsent(superType, k -> new LinkedHashSet<>());
+                    subTypes.computeIfAbsent(superType, k -> new LinkedHashSet<>()).add(type);
+                }
+            });
+            entry.typeDictionary.forEach((type, signatures) -> {
+                final var merged = typeDictionary.computeIfAbsent(type, k -> new HashMap<>());
+                signatures.forEach((signature, ids) -> merged.merge(signature, ids, (old, newest) -> {
+                    final var union = new LongOpenHashSet(old);
+                    union.addAll(newest);
+                    return union;
+                }));
+            });
+        }
+
+        final Map<String, List<String>> parents = new HashMap<>(superTypes.size());
+        final Map<String, List<String>> children = new HashMap<>(subTypes.size());
+        for (final var type : superTypes.keySet()) {
+            parents.put(type, Collections.unmodifiableList(new ArrayList<>(reachable(superTypes, type))));
+            children.put(type, Collections.unmodifiableList(new ArrayList<>(reachable(subTypes, type))));
+        }
+        return new UniversalCHA(Collections.unmodifiableMap(parents), Collections.unmodifiableMap(children),
+                Collections.unmodifiableMap(typeDictionary));
+    }
+
+    /**
+     * Returns a type together with all types reachable from it in a hierarchy.
+     */
+    private static Set<String> reachable(final Map<String, Set<String>> hierarchy, final String type) {
+        final var result = new HashSet<String>();
+        final var queue = new ArrayDeque<String>();
+        result.add(type);
+        queue.add(type);
+        while (!queue.isEmpty()) {
+            for (final var next : hierarchy.getOrDefault(queue.poll(), Collections.emptySet())) {
+                if (result.add(next)) queue.add(next);
+            }
+        }
+        return result;
+    }
+}
@@ -18,6 +18,11 @@
 
 package eu.fasten.core.plugins;
 
+import eu.fasten.core.data.Constants;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
@@ -65,6 +70,35 @@ public interface KafkaPlugin extends FastenPlugin {
      */
     String getOutputPath();
 
+    /**
+     * Writes the result of the computation to the file at {@link #getOutputPath()}. By default,
+     * the result of {@link #produce()} is written in UTF-8. Plugins that can write their result
+     * directly, or in a more compact form, override this method together with
+     * {@link #getOutputContentType()}.
+     *
+     * @param out the stream to write the result to
+     * @return false if there is no result to write
+     */
+    default boolean writeOutput(OutputStream out) throws IOException {
+        var result = produce();
+        if (result.isEmpty()) {
+            return false;
+        }
+        var writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(result.get());
+        writer.flush();
+        return true;
+    }
+
+    /**
+     * Returns the content type of the files written by {@link #writeOutput(OutputStream)}. It is
+     * sent along with the path of the file so that consumers know how to read it.
+     *
+     * @return the content type of the output files
+     */
+    default String getOutputContentType() {
+        return Constants.jsonContentType;
+    }
 
     /**
      * Corresponds to `max.poll.interval.ms` in the Kafka Consumer config.
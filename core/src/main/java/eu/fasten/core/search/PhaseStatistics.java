@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.search;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * A thread-safe collector of the durations of a phase of a query (e.g., resolution, stitching or
+ * visit), providing aggregates and percentiles.
+ *
+ * <p>
+ * Durations are expressed in nanoseconds. Every {@linkplain #add(long) sample} is stored, so that
+ * exact percentiles can be computed; the number of samples is bounded by the number of dependents
+ * analyzed by a query.
+ */
+
+public class PhaseStatistics {
+	/** The name of the phase. */
+	private final String name;
+	/** The durations of the phase, in nanoseconds. */
+	private final LongArrayList samples = new LongArrayList();
+	/** The sum of {@link #samples}. */
+	private long total;
+
+	/**
+	 * Creates new, empty statistics.
+	 *
+	 * @param name the name of the phase.
+	 */
+	public PhaseStatistics(final String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos a duration in nanoseconds.
+	 */
+	public synchronized void add(final long nanos) {
+		samples.add(nanos);
+		total += nanos;
+	}
+
+	/** Discards all recorded durations. */
+	public synchronized void clear() {
+		samples.clear();
+		total = 0;
+	}
+
+	/**
+	 * Returns the number of recorded durations.
+	 *
+	 * @return the number of recorded durations.
+	 */
+	public synchronized int count() {
+		return samples.size();
+	}
+
+	/**
+	 * Returns the sum of the recorded durations.
+	 *
+	 * @return the sum in nanoseconds of the recorded durations.
+	 */
+	public synchronized long total() {
+		return total;
+	}
+
+	/**
+	 * Returns a percentile of the recorded durations, using the nearest-rank method.
+	 *
+	 * @param p a percentile in the range (0..100].
+	 * @return the smallest recorded duration such that at least {@code p}% of the recorded durations
+	 *         are smaller than or equal to it, or zero if no duration has been recorded.
+	 */
+	public long percentile(final double p) {
+		if (p <= 0 || p > 100) throw new IllegalArgumentException("Percentile out of range: " + p);
+		final long[] sorted;
+		synchronized (this) {
+			if (samples.isEmpty()) return 0;
+			sorted = samples.toLongArray();
+		}
+		Arrays.sort(sorted);
+		return sorted[(int)Math.ceil(p / 100 * sorted.length) - 1];
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s time: %.3fs (%d samples, p50: %.3fs, p90: %.3fs, p99: %.3fs, max: %.3fs)", name, total() * 1E-9, count(), percentile(50) * 1E-9, percentile(90) * 1E-9, percentile(99) * 1E-9, percentile(100) * 1E-9);
+	}
+}
@@ -21,15 +21,23 @@ package eu.fasten.core.search;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.LongPredicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import eu.fasten.core.merge.CGMerger;
+import eu.fasten.core.merge.ClassHierarchyIndex;
 import org.jooq.DSLContext;
 import org.jooq.Record2;
 import org.jooq.conf.ParseUnknownFunctions;
@@ -46,6 +54,7 @@ import com.martiansoftware.jsap.UnflaggedOption;
 import eu.fasten.core.data.DirectedGraph;
 import eu.fasten.core.data.FastenJavaURI;
 import eu.fasten.core.data.FastenURI;
+import eu.fasten.core.data.ReachabilityIndex;
 import eu.fasten.core.data.graphdb.RocksDao;
 import eu.fasten.core.data.metadatadb.codegen.tables.PackageVersions;
 import eu.fasten.core.data.metadatadb.codegen.tables.Packages;
@@ -89,6 +98,8 @@ public class SearchEngine {
 
 	/** Maximum number of stitched graphs in the cache. */
 	private static final int STITCHED_MAX_SIZE = 1024;
+	/** Maximum number of reachability indices in the cache. */
+	private static final int REACHABILITY_INDEX_MAX_SIZE = 16;
 
 	/** The regular expression for commands. */
 	private static Pattern COMMAND_REGEXP = Pattern.compile("\\$\\s*(.*)\\s*");
@@ -164,15 +175,30 @@ public class SearchEngine {
 
 	/** LRU cache of stitched graphs. */
 	private final Long2ObjectLinkedOpenHashMap<DirectedGraph> stitchedGraphCache = new Long2ObjectLinkedOpenHashMap<>();
+	/** LRU cache of reachability indices of stitched graphs. */
+	private final Long2ObjectLinkedOpenHashMap<ReachabilityIndex> reachabilityIndexCache = new Long2ObjectLinkedOpenHashMap<>();
+	/** The memory cap, in bytes, of each reachability index. */
+	private long reachabilityIndexMaxBytes = ReachabilityIndex.DEFAULT_MAX_BYTES;
+	/** Class hierarchies and type dictionaries shared by all mergers created by this engine. */
+	private final ClassHierarchyIndex chaIndex = new ClassHierarchyIndex();
 
 	/** Time spent during resolution (dependency and dependents). */
-	private long resolveTime;
+	private final PhaseStatistics resolveTime = new PhaseStatistics("Resolve");
 	/** Time spent stitching graphs (mergeWithCHA()). */
-	private long stitchingTime;
+	private final PhaseStatistics stitchingTime = new PhaseStatistics("Stitching");
 	/** Time spent during {@linkplain #bfs visits}. */
-	private long visitTime;
+	private final PhaseStatistics visitTime = new PhaseStatistics("Visit");
+	/** Time spent building {@linkplain ReachabilityIndex reachability indices}. */
+	private final PhaseStatistics indexingTime = new PhaseStatistics("Indexing");
 	/** Throwables thrown by mergeWithCHA(). */
-	private final List<Throwable> throwables = new ArrayList<>();
+	private final List<Throwable> throwables = Collections.synchronizedList(new ArrayList<>());
+
+	/** Creates a new {@link DSLContext} for each worker of {@link #to}; if {@code null}, dependents are always analyzed sequentially. */
+	private final Callable<DSLContext> contextFactory;
+	/** The number of workers analyzing dependents in {@link #to}. */
+	private int threads = 1;
+	/** Whether {@link #to} should stop analyzing dependents as soon as {@link #limit} results have been found. */
+	private boolean stopAtLimit;
 
 	/**
 	 * Creates a new search engine using a given JDBC URI, database name and path to RocksDB.
@@ -190,12 +216,16 @@ public class SearchEngine {
 	 *            {@link TrivialScorer} will be used instead.
 	 */
 	public SearchEngine(final String jdbcURI, final String database, final String rocksDb, final String resolverGraph, final String scorer) throws Exception {
-		this(PostgresConnector.getDSLContext(jdbcURI, database, false), new RocksDao(rocksDb, true), resolverGraph, scorer == null ? TrivialScorer.getInstance() : ObjectParser.fromSpec(scorer, Scorer.class));
+		this(PostgresConnector.getDSLContext(jdbcURI, database, false), () -> PostgresConnector.getDSLContext(jdbcURI, database, false), new RocksDao(rocksDb, true), resolverGraph, scorer == null ? TrivialScorer.getInstance() : ObjectParser.fromSpec(scorer, Scorer.class));
 	}
 
 	/**
 	 * Creates a new search engine using a given {@link DSLContext} and {@link RocksDao}.
 	 *
+	 * <p>
+	 * Since a single {@link DSLContext} cannot be shared among threads, an instance created with this
+	 * constructor will always analyze dependents sequentially.
+	 *
 	 * @param context the DSL context.
 	 * @param rocksDao the RocksDB DAO.
 	 * @param resolverGraph the path to a serialized resolver graph (will be created if it does not
@@ -205,8 +235,29 @@ public class SearchEngine {
 	 */
 
 	public SearchEngine(final DSLContext context, final RocksDao rocksDao, final String resolverGraph, final Scorer scorer) throws Exception {
+		this(context, null, rocksDao, resolverGraph, scorer);
+	}
+
+	/**
+	 * Creates a new search engine using a given {@link DSLContext}, a factory of {@link DSLContext}
+	 * instances for parallel workers, and a {@link RocksDao}.
+	 *
+	 * @param context the DSL context.
+	 * @param contextFactory a factory returning a new DSL context (usually, backed by a new
+	 *            connection) at each call, used by the workers of {@link #to}; if {@code null},
+	 *            dependents will always be analyzed sequentially.
+	 * @param rocksDao the RocksDB DAO.
+	 * @param resolverGraph the path to a serialized resolver graph (will be created if it does not
+	 *            exist).
+	 * @param scorer a scorer that will be used to sort results; if {@code null}, a
+	 *            {@link TrivialScorer} will be used instead.
+	 */
+
+	public SearchEngine(final DSLContext context, final Callable<DSLContext> contextFactory, final RocksDao rocksDao, final String resolverGraph, final Scorer scorer) throws Exception {
 		this.context = context;
+		this.contextFactory = contextFactory;
 		this.rocksDao = rocksDao;
+		rocksDao.addUpdateListener(chaIndex::update);
 		this.scorer = scorer == null ? TrivialScorer.getInstance() : scorer;
 		resolver = new GraphMavenResolver();
 		resolver.buildDependencyGraph(null, resolverGraph);
@@ -237,8 +288,12 @@ public class SearchEngine {
 				"\t$and                            The last two filters are substituted by their conjunction (and)\n" +
 				"\t$not                            The last filter is substituted by its negation (not)\n" +
 				"\t$limit <LIMIT>                  Print at most <LIMIT> results (-1 for infinity)\n" +
-				"\t$maxDependents <LIMIT>          Maximum number of dependents considered in coreachable query resolution (-1 for infinity)" +
+				"\t$maxDependents <LIMIT>          Maximum number of dependents considered in coreachable query resolution (-1 for infinity)\n" +
+				"\t$threads <THREADS>              Number of dependents analyzed in parallel in coreachable query resolution\n" +
+				"\t$stopAtLimit <true|false>       Stop analyzing dependents in coreachable query resolution as soon as <LIMIT> results have been found\n" +
+				"\t$reachabilityIndex <BYTES>      Memory cap of reachability indices (0 to always visit the graph)\n" +
 				"\t±<URI>                          Find reachable (+) or coreachable (-) callables from the given callable <URI> satisfying all filters\n" +
+				"\t?<URI> <URI>                    Tell whether the first callable reaches the second one\n" +
 				"";
 		try {
 			switch(commandAndArgs[0].toLowerCase()) {
@@ -255,6 +310,20 @@ public class SearchEngine {
 				maxDependents = Long.parseLong(commandAndArgs[1]);
 				if (maxDependents < 0) maxDependents = Long.MAX_VALUE;
 				break;
+			case "threads":
+				threads = Integer.parseInt(commandAndArgs[1]);
+				if (threads < 1) throw new IllegalArgumentException("The number of threads must be positive");
+				break;
+			case "stopatlimit":
+				stopAtLimit = Boolean.parseBoolean(commandAndArgs[1]);
+				break;
+			case "reachabilityindex":
+				reachabilityIndexMaxBytes = Long.parseLong(commandAndArgs[1]);
+				if (reachabilityIndexMaxBytes < 0) throw new IllegalArgumentException("The memory cap must be nonnegative");
+				synchronized (reachabilityIndexCache) {
+					reachabilityIndexCache.clear();
+				}
+				break;
 
 			case "clear":
 				predicateFilters.clear();
@@ -367,17 +436,96 @@ public class SearchEngine {
 	 *         provided artifact is not present in the graph database).
 	 */
 	private DirectedGraph getStitchedGraph(final CGMerger dm, final long id) {
-		DirectedGraph result = stitchedGraphCache.getAndMoveToFirst(id);
+		DirectedGraph result;
+		synchronized (stitchedGraphCache) {
+			result = stitchedGraphCache.getAndMoveToFirst(id);
+		}
 		if (result == null) {
 			result = dm.mergeWithCHA(id);
 			if (result != null) {
-				stitchedGraphCache.putAndMoveToFirst(id, result);
-				if (stitchedGraphCache.size() > STITCHED_MAX_SIZE) stitchedGraphCache.removeLast();
+				synchronized (stitchedGraphCache) {
+					stitchedGraphCache.putAndMoveToFirst(id, result);
+					if (stitchedGraphCache.size() > STITCHED_MAX_SIZE) stitchedGraphCache.removeLast();
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the dependencies of the given revision and returns its stitched graph.
+	 *
+	 * @param rev the database id of a revision.
+	 * @return the stitched graph for the revision with database identifier {@code rev}.
+	 */
+	private DirectedGraph getStitchedGraph(final long rev) {
+		final Record2<String, String> record = context.select(Packages.PACKAGES.PACKAGE_NAME, PackageVersions.PACKAGE_VERSIONS.VERSION).from(PackageVersions.PACKAGE_VERSIONS).join(Packages.PACKAGES).on(PackageVersions.PACKAGE_VERSIONS.PACKAGE_ID.eq(Packages.PACKAGES.ID)).where(PackageVersions.PACKAGE_VERSIONS.ID.eq(Long.valueOf(rev))).fetchOne();
+		final String[] a = record.component1().split(":");
+		final String groupId = a[0];
+		final String artifactId = a[1];
+		final String version = record.component2();
+		long start = System.nanoTime();
+		final Set<Revision> dependencySet = resolver.resolveDependencies(groupId, artifactId, version, -1, context, true);
+		resolveTime.add(System.nanoTime() - start);
+
+		LOGGER.debug("Found " + dependencySet.size() + " dependencies");
+
+		start = System.nanoTime();
+		final var dm = new CGMerger(LongOpenHashSet.toSet(dependencySet.stream().mapToLong(x -> x.id)), context, rocksDao, chaIndex);
+		final var stitchedGraph = getStitchedGraph(dm, rev);
+		stitchingTime.add(System.nanoTime() - start);
+
+		if (stitchedGraph == null) throw new NullPointerException("mergeWithCHA() returned null");
+
+		LOGGER.debug("Stiched graph has " + stitchedGraph.numNodes() + " nodes");
+		return stitchedGraph;
+	}
+
+	/**
+	 * Returns a {@link ReachabilityIndex} for the stitched graph of the given revision, building it
+	 * if necessary.
+	 *
+	 * <p>
+	 * Indices are kept in an LRU cache and are subject to the memory cap
+	 * {@link #reachabilityIndexMaxBytes}: when an index would be larger, queries are answered by
+	 * visiting the graph.
+	 *
+	 * @param rev the database id of a revision.
+	 * @return a reachability index for the stitched graph of the revision with database identifier
+	 *         {@code rev}.
+	 */
+	public ReachabilityIndex getReachabilityIndex(final long rev) {
+		ReachabilityIndex result;
+		synchronized (reachabilityIndexCache) {
+			result = reachabilityIndexCache.getAndMoveToFirst(rev);
+		}
+		if (result == null) {
+			final DirectedGraph stitchedGraph = getStitchedGraph(rev);
+			final long start = System.nanoTime();
+			result = new ReachabilityIndex(stitchedGraph, reachabilityIndexMaxBytes);
+			indexingTime.add(System.nanoTime() - start);
+			LOGGER.debug(result.toString());
+			synchronized (reachabilityIndexCache) {
+				reachabilityIndexCache.putAndMoveToFirst(rev, result);
+				if (reachabilityIndexCache.size() > REACHABILITY_INDEX_MAX_SIZE) reachabilityIndexCache.removeLast();
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Returns whether a callable reaches another callable in the stitched graph associated with the
+	 * revision of the first callable.
+	 *
+	 * @param source the global ID of a callable.
+	 * @param target the global ID of another callable.
+	 * @return true if {@code source} reaches {@code target} in the stitched graph of the revision of
+	 *         {@code source}.
+	 */
+	public boolean reaches(final long source, final long target) {
+		return getReachabilityIndex(Util.getRevision(source, context)).reaches(source, target);
+	}
+
 	/**
 	 * Performs a breadth-first visit of the given graph, starting from the provided seed, using the
 	 * provided predicate and returning a collection of {@link Result} instances scored using the
@@ -417,7 +565,7 @@ public class SearchEngine {
 				if (!results.contains(probe)) results.add(new Result(gid, scorer.score(graph, gid, d)));
 			}
 
-			final LongIterator iterator = forward ? graph.successors(gid).iterator() : graph.predecessors(gid).iterator();
+			final LongIterator iterator = forward ? graph.successorIterator(gid) : graph.predecessorIterator(gid);
 
 			while (iterator.hasNext()) {
 				final long x = iterator.nextLong();
@@ -495,31 +643,13 @@ public class SearchEngine {
 
 		LOGGER.debug("Revision call graph has " + graph.numNodes() + " nodes");
 
-		final Record2<String, String> record = context.select(Packages.PACKAGES.PACKAGE_NAME, PackageVersions.PACKAGE_VERSIONS.VERSION).from(PackageVersions.PACKAGE_VERSIONS).join(Packages.PACKAGES).on(PackageVersions.PACKAGE_VERSIONS.PACKAGE_ID.eq(Packages.PACKAGES.ID)).where(PackageVersions.PACKAGE_VERSIONS.ID.eq(Long.valueOf(rev))).fetchOne();
-		final String[] a = record.component1().split(":");
-		final String groupId = a[0];
-		final String artifactId = a[1];
-		final String version = record.component2();
-		resolveTime -= System.nanoTime();
-		final Set<Revision> dependencySet = resolver.resolveDependencies(groupId, artifactId, version, -1, context, true);
-		resolveTime += System.nanoTime();
-
-		LOGGER.debug("Found " + dependencySet.size() + " dependencies");
-
-		stitchingTime -= System.nanoTime();
-		final var dm = new CGMerger(LongOpenHashSet.toSet(dependencySet.stream().mapToLong(x -> x.id)), context, rocksDao);
-		final var stitchedGraph = getStitchedGraph(dm, rev);
-		stitchingTime += System.nanoTime();
-
-		if (stitchedGraph == null) throw new NullPointerException("mergeWithCHA() returned null");
-
-		LOGGER.debug("Stiched graph has " + stitchedGraph.numNodes() + " nodes");
+		final DirectedGraph stitchedGraph = getStitchedGraph(rev);
 
 		final ObjectLinkedOpenHashSet<Result> results = new ObjectLinkedOpenHashSet<>();
 
-		visitTime -= System.nanoTime();
+		final long start = System.nanoTime();
 		bfs(stitchedGraph, true, seed, filter, scorer, results);
-		visitTime += System.nanoTime();
+		visitTime.add(System.nanoTime() - start);
 
 		LOGGER.debug("Found " + results.size() + " reachable nodes");
 
@@ -581,6 +711,14 @@ public class SearchEngine {
 	 * Computes the callables satisfying the given predicate and coreachable from the provided seed, in
 	 * the stitched graph associated with the provided revision, and returns them in a ranked list.
 	 *
+	 * <p>
+	 * Dependents are analyzed by {@link #threads} workers, each using its own {@link DSLContext}
+	 * obtained from {@link #contextFactory}. In this case, the filter is invoked by one worker at a
+	 * time, as predicates are usually not thread-safe, and if the same callable is coreachable in the
+	 * stitched graphs of several dependents, the score in the result will be the one computed by the
+	 * first worker that found it. If {@link #stopAtLimit} is true, no further dependent is analyzed once
+	 * {@link #limit} results have been found.
+	 *
 	 * @param revId the database id of a revision.
 	 * @param seed a collection of GIDs that will be used as a seed for the visit; if {@code null}, the
 	 *            entire set of GIDs of the specified revision will be used as a seed.
@@ -593,12 +731,9 @@ public class SearchEngine {
 		if (graph == null) throw new NoSuchElementException("Revision associated with callable missing from the graph database");
 		if (seed == null) seed = graph.nodes();
 
-		String[] data = Util.getGroupArtifactVersion(revId, context);
-		String groupId = data[0];
-		String artifactId = data[1];
-		String version = data[2];
-		resolveTime -= System.nanoTime();
-		final Set<Revision> s = resolver.resolveDependents(groupId, artifactId, version, -1, true);
+		final String[] data = Util.getGroupArtifactVersion(revId, context);
+		final long start = System.nanoTime();
+		final Set<Revision> s = resolver.resolveDependents(data[0], data[1], data[2], -1, true);
 		final Set<Revision> dependentSet = new ObjectOpenHashSet<>();
 
 		// Temporary reduction in size to circumvent mergeWithCHA() crashes
@@ -608,7 +743,7 @@ public class SearchEngine {
 			dependentSet.add(r);
 		}
 
-		resolveTime += System.nanoTime();
+		resolveTime.add(System.nanoTime() - start);
 
 		LOGGER.debug("Found " + dependentSet.size() + " dependents");
 
@@ -619,68 +754,133 @@ public class SearchEngine {
 
 		long trueDependents = 0;
 
-		for (final var iterator = dependentIds.iterator(); iterator.hasNext();) {
-			final long dependentId = iterator.nextLong();
-
-			data = Util.getGroupArtifactVersion(dependentId, context);
+		if (threads == 1 || contextFactory == null) {
+			if (threads > 1) LOGGER.warn("No context factory available: dependents will be analyzed sequentially");
+			for (final var iterator = dependentIds.iterator(); iterator.hasNext();) {
+				if (analyzeDependent(revId, iterator.nextLong(), seed, filter, context, results)) trueDependents++;
+				if (stopAtLimit && results.size() >= limit) break;
+			}
+		} else {
+			final LongCollection finalSeed = seed;
+			final LongPredicate synchronizedFilter = x -> {
+				synchronized (filter) {
+					return filter.test(x);
+				}
+			};
+			final LongIterator iterator = dependentIds.iterator();
+			final AtomicBoolean stop = new AtomicBoolean();
+			final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+			final List<Future<Long>> futures = new ArrayList<>();
+
+			for (int i = 0; i < threads; i++) futures.add(executorService.submit(() -> {
+				final DSLContext workerContext = contextFactory.call();
+				try {
+					long workerTrueDependents = 0;
+					for (;;) {
+						final long dependentId;
+						synchronized (iterator) {
+							if (stop.get() || !iterator.hasNext()) break;
+							dependentId = iterator.nextLong();
+						}
+						final ObjectLinkedOpenHashSet<Result> dependentResults = new ObjectLinkedOpenHashSet<>();
+						if (analyzeDependent(revId, dependentId, finalSeed, synchronizedFilter, workerContext, dependentResults)) workerTrueDependents++;
+						synchronized (results) {
+							results.addAll(dependentResults);
+							if (stopAtLimit && results.size() >= limit) stop.set(true);
+						}
+					}
+					return Long.valueOf(workerTrueDependents);
+				} finally {
+					workerContext.connection(c -> c.close());
+				}
+			}));
 
-			if (data == null) {
-				LOGGER.warn("Dependent with id " + dependentId + " not found in the database");
-				continue;
+			executorService.shutdown();
+			try {
+				for (final var future : futures) trueDependents += future.get().longValue();
+			} catch (final InterruptedException e) {
+				executorService.shutdownNow();
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (final ExecutionException e) {
+				executorService.shutdownNow();
+				if (e.getCause() instanceof RocksDBException) throw (RocksDBException)e.getCause();
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+				throw new RuntimeException(e.getCause());
 			}
+		}
 
-			groupId = data[0];
-			artifactId = data[1];
-			version = data[2];
+		LOGGER.debug("Found " + trueDependents + " true dependents");
+		LOGGER.debug("Found overall " + results.size() + " coreachable nodes");
 
-			LOGGER.debug("Analyzing dependent " + groupId + ":" + artifactId + ":" + version);
+		final Result[] array = results.toArray(new Result[0]);
+		Arrays.sort(array, (x, y) -> Double.compare(y.score, x.score));
+		return Arrays.asList(array);
+	}
 
-			resolveTime -= System.nanoTime();
-			final Set<Revision> dependencySet = resolver.resolveDependencies(groupId, artifactId, version, -1, context, true);
-			resolveTime += System.nanoTime();
+	/**
+	 * Resolves the dependencies of a dependent, stitches its graph and adds to the given results the
+	 * callables coreachable from the provided seed and satisfying the given predicate.
+	 *
+	 * @param revId the database id of the revision containing the seed.
+	 * @param dependentId the database id of a dependent of {@code revId} (possibly, {@code revId}
+	 *            itself).
+	 * @param seed a collection of GIDs that will be used as a seed for the visit.
+	 * @param filter a {@link LongPredicate} that will be used to filter callables.
+	 * @param context the DSL context to be used.
+	 * @param results a collection of {@linkplain Result results} that will be filled during the visit.
+	 * @return true if {@code dependentId} is a true dependent (i.e., {@code revId} is among its resolved
+	 *         dependencies, or {@code dependentId} is {@code revId}).
+	 */
+	private boolean analyzeDependent(final long revId, final long dependentId, final LongCollection seed, final LongPredicate filter, final DSLContext context, final Collection<Result> results) {
+		final String[] data = Util.getGroupArtifactVersion(dependentId, context);
 
-			LOGGER.debug("Dependent has " + graph.numNodes() + " nodes");
+		if (data == null) {
+			LOGGER.warn("Dependent with id " + dependentId + " not found in the database");
+			return false;
+		}
 
-			LOGGER.debug("Found " + dependencySet.size() + " dependencies");
+		final String groupId = data[0];
+		final String artifactId = data[1];
+		final String version = data[2];
 
-			final LongOpenHashSet dependencyIds = LongOpenHashSet.toSet(dependencySet.stream().mapToLong(x -> x.id));
-			if (dependentId != revId && !dependencyIds.contains(revId)) {
-				LOGGER.debug("False dependent");
-				continue; // We cannot possibly reach the callable
-			}
+		LOGGER.debug("Analyzing dependent " + groupId + ":" + artifactId + ":" + version);
 
-			trueDependents++;
+		long start = System.nanoTime();
+		final Set<Revision> dependencySet = resolver.resolveDependencies(groupId, artifactId, version, -1, context, true);
+		resolveTime.add(System.nanoTime() - start);
 
-			stitchingTime -= System.nanoTime();
-			final var dm = new CGMerger(dependencyIds, context, rocksDao);
+		LOGGER.debug("Found " + dependencySet.size() + " dependencies");
 
-			DirectedGraph stitchedGraph = null;
-			try {
-				stitchedGraph = getStitchedGraph(dm, dependentId);
-			} catch(final Throwable t) {
-				throwables.add(t);
-				LOGGER.error("mergeWithCHA threw an exception", t);
-			}
-			stitchingTime += System.nanoTime();
+		final LongOpenHashSet dependencyIds = LongOpenHashSet.toSet(dependencySet.stream().mapToLong(x -> x.id));
+		if (dependentId != revId && !dependencyIds.contains(revId)) {
+			LOGGER.debug("False dependent");
+			return false; // We cannot possibly reach the callable
+		}
 
-			if (stitchedGraph == null) continue;
+		start = System.nanoTime();
+		final var dm = new CGMerger(dependencyIds, context, rocksDao, chaIndex);
 
-			LOGGER.debug("Stiched graph has " + stitchedGraph.numNodes() + " nodes");
-			final int sizeBefore = results.size();
+		DirectedGraph stitchedGraph = null;
+		try {
+			stitchedGraph = getStitchedGraph(dm, dependentId);
+		} catch(final Throwable t) {
+			throwables.add(t);
+			LOGGER.error("mergeWithCHA threw an exception", t);
+		}
+		stitchingTime.add(System.nanoTime() - start);
 
-			visitTime -= System.nanoTime();
-			bfs(stitchedGraph, false, seed, filter, scorer, results);
-			visitTime += System.nanoTime();
+		if (stitchedGraph == null) return true;
 
-			LOGGER.debug("Found " + (results.size() - sizeBefore) + " coreachable nodes");
-		}
+		LOGGER.debug("Stiched graph has " + stitchedGraph.numNodes() + " nodes");
+		final int sizeBefore = results.size();
 
-		LOGGER.debug("Found " + trueDependents + " true dependents");
-		LOGGER.debug("Found overall " + results.size() + " coreachable nodes");
+		start = System.nanoTime();
+		bfs(stitchedGraph, false, seed, filter, scorer, results);
+		visitTime.add(System.nanoTime() - start);
 
-		final Result[] array = results.toArray(new Result[0]);
-		Arrays.sort(array, (x, y) -> Double.compare(y.score, x.score));
-		return Arrays.asList(array);
+		LOGGER.debug("Found " + (results.size() - sizeBefore) + " coreachable nodes");
+		return true;
 	}
 
 	@SuppressWarnings("boxing")
@@ -735,6 +935,26 @@ public class SearchEngine {
 			}
 			try {
 				final char dir = line.charAt(0);
+				if (dir == '?') {
+					final String[] uris = line.substring(1).trim().split("\\s+");
+					if (uris.length != 2) {
+						System.err.println("Two URIs are required");
+						continue;
+					}
+					final long source = Util.getCallableGID(FastenJavaURI.create(uris[0]), context);
+					final long target = Util.getCallableGID(FastenJavaURI.create(uris[1]), context);
+					if (source == -1 || target == -1) {
+						System.err.println("Unknown URI " + (source == -1 ? uris[0] : uris[1]));
+						continue;
+					}
+					final long start = -System.nanoTime();
+					searchEngine.resolveTime.clear();
+					searchEngine.stitchingTime.clear();
+					searchEngine.indexingTime.clear();
+					System.out.println(searchEngine.reaches(source, target));
+					System.err.printf("\nTotal time: %.3fs\n%s\n%s\n%s\n", (System.nanoTime() + start) * 1E-9, searchEngine.resolveTime, searchEngine.stitchingTime, searchEngine.indexingTime);
+					continue;
+				}
 				if (dir != '+' && dir != '-') {
 					if (dir != '#') System.err.println("First character must be '+', '-', or '#'");
 					continue;
@@ -743,7 +963,9 @@ public class SearchEngine {
 				final FastenJavaURI uri = FastenJavaURI.create(line);
 
 				final long start = -System.nanoTime();
-				searchEngine.stitchingTime = searchEngine.resolveTime = searchEngine.visitTime = 0;
+				searchEngine.resolveTime.clear();
+				searchEngine.stitchingTime.clear();
+				searchEngine.visitTime.clear();
 
 				final List<Result> r;
 
@@ -764,7 +986,7 @@ public class SearchEngine {
 					System.err.println(t);
 					System.err.println("\t" + t.getStackTrace()[0]);
 				}
-				System.err.printf("\n%d results \nTotal time: %.3fs Resolve time: %.3fs Stitching time: %.3fs Visit time %.3fs\n", r.size(), (System.nanoTime() + start) * 1E-9, searchEngine.resolveTime * 1E-9, searchEngine.stitchingTime * 1E-9, searchEngine.visitTime * 1E-9);
+				System.err.printf("\n%d results \nTotal time: %.3fs\n%s\n%s\n%s\n", r.size(), (System.nanoTime() + start) * 1E-9, searchEngine.resolveTime, searchEngine.stitchingTime, searchEngine.visitTime);
 			} catch (final Exception e) {
 				e.printStackTrace();
 			}
@@ -26,6 +26,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
 public class ArrayImmutableDirectedGraphTest {
@@ -80,6 +81,21 @@ public class ArrayImmutableDirectedGraphTest {
             graph.predecessors(1);
         });
 
+        for (final long node : graph.nodes()) {
+            assertEquals(graph.successors(node), LongIterators.pour(graph.successorIterator(node)));
+            assertEquals(graph.predecessors(node), LongIterators.pour(graph.predecessorIterator(node)));
+            assertEquals(graph.successors(node).size(), graph.outdegree(node));
+            assertEquals(graph.predecessors(node).size(), graph.indegree(node));
+            assertEquals(graph.predecessors(node), LongIterators.pour(graph.transpose().successorIterator(node)));
+            assertEquals(graph.predecessors(node).size(), graph.transpose().outdegree(node));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            graph.successorIterator(1);
+        });
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            graph.predecessorIterator(1);
+        });
+
         assertEquals(new LongOpenHashSet(new long[]{12, 34, 56, 78}), graph.nodes());
         assertTrue(graph.isInternal(12));
         assertTrue(graph.isInternal(34));
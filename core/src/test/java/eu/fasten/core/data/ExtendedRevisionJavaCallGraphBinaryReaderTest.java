@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.unimi.dsi.fastutil.ints.IntIntPair;
+
+class ExtendedRevisionJavaCallGraphBinaryReaderTest {
+
+    private static final List<String> FIXTURES = List.of(
+            "extended-revision-call-graph/testRCG.json",
+            "extended-revision-call-graph/testRCGEmptyAll.json",
+            "extended-revision-call-graph/testRCGEmptyExternal.json",
+            "extended-revision-call-graph/testRCGEmptyInternal.json",
+            "extended-revision-call-graph/testRCGEmptyResolved.json",
+            "merge/BarERCG.json",
+            "merge/Importer.json",
+            "merge/merged_cg_test.json",
+            "merge/LocalMergeException/info.picocli.picocli-4.0.4.json");
+
+    private static ExtendedRevisionJavaCallGraph load(String resource) throws IOException, URISyntaxException {
+        var file = new File(Objects.requireNonNull(Thread.currentThread().getContextClassLoader()
+                .getResource(resource)).toURI().getPath());
+        return new ExtendedRevisionJavaCallGraph(new JSONObject(new JSONTokener(new FileReader(file))));
+    }
+
+    /** Compares two JSON call graphs, ignoring the order of call sites, which follows hash-map iteration. */
+    private static void assertSimilar(JSONObject expected, JSONObject actual, String message) {
+        var expectedCallSites = new HashSet<String>();
+        expected.getJSONArray("call-sites").forEach(c -> expectedCallSites.add(c.toString()));
+        var actualCallSites = new HashSet<String>();
+        actual.getJSONArray("call-sites").forEach(c -> actualCallSites.add(c.toString()));
+        assertEquals(expectedCallSites, actualCallSites, message);
+        expected.remove("call-sites");
+        actual.remove("call-sites");
+        assertTrue(expected.similar(actual), message);
+    }
+
+    @Test
+    void roundTrip() throws Exception {
+        for (var fixture : FIXTURES) {
+            var graph = load(fixture);
+            var bytes = ExtendedRevisionJavaCallGraphBinaryWriter.toByteArray(graph);
+            var read = ExtendedRevisionJavaCallGraphBinaryReader.read(new ByteArrayInputStream(bytes));
+
+            assertEquals(graph, read, fixture);
+            var json = JSONUtils.toJSONString(graph);
+            assertSimilar(new JSONObject(json), new JSONObject(JSONUtils.toJSONString(read)), fixture);
+            assertTrue(bytes.length < json.getBytes(StandardCharsets.UTF_8).length, fixture);
+            assertEquals(graph, ExtendedRevisionJavaCallGraphBinaryReader.read(
+                    new ByteArrayInputStream(ExtendedRevisionJavaCallGraphBinaryWriter.toByteArray(read))), fixture);
+        }
+    }
+
+    @Test
+    void streamingReads() throws Exception {
+        var graph = load("extended-revision-call-graph/testRCG.json");
+        var reader = ExtendedRevisionJavaCallGraphBinaryReader.fromBytes(
+                ExtendedRevisionJavaCallGraphBinaryWriter.toByteArray(graph));
+
+        var header = reader.readHeader();
+        var jsonHeader = ExtendedRevisionJavaCallGraphReader.fromString(JSONUtils.toJSONString(graph)).readHeader();
+        assertEquals(jsonHeader.keySet(), header.keySet());
+        // The JSON reader returns small numbers as integers
+        jsonHeader.keySet().forEach(key -> assertEquals(jsonHeader.get(key).toString(), header.get(key).toString(), key));
+        var callGraph = ExtendedRevisionJavaCallGraphReader.toCallGraphHeader(header);
+        assertEquals(graph.getRevisionName(), callGraph.getRevisionName());
+        assertEquals(graph.timestamp, callGraph.timestamp);
+
+        for (var scope : JavaScope.values()) {
+            var types = new HashMap<String, JavaType>();
+            reader.readTypes(scope, 1, batch -> {
+                assertEquals(1, batch.size());
+                types.putAll(batch);
+            });
+            assertEquals(graph.getClassHierarchy().get(scope), types);
+        }
+
+        var callSites = new HashMap<IntIntPair, Map<Object, Object>>();
+        var batches = new ArrayList<Integer>();
+        reader.readCallSites(2, batch -> {
+            batches.add(batch.size());
+            callSites.putAll(batch.getCallSites());
+        });
+        assertEquals(graph.getGraph().getCallSites(), callSites);
+        batches.forEach(size -> assertTrue(size <= 2));
+    }
+
+    @Test
+    void incrementalWrites(@TempDir Path dir) throws Exception {
+        var graph = load("merge/LocalMergeException/info.picocli.picocli-4.0.4.json");
+        var path = dir.resolve("graph.ercg");
+        try (var writer = new ExtendedRevisionJavaCallGraphBinaryWriter(Files.newOutputStream(path))) {
+            writer.writeHeader(graph);
+            // Types and call sites in several batches and small blocks
+            for (var scope : JavaScope.values()) {
+                for (var entry : graph.getClassHierarchy().get(scope).entrySet()) {
+                    writer.writeTypes(scope, Map.of(entry.getKey(), entry.getValue()));
+                }
+            }
+            var calls = new ArrayList<>(graph.getGraph().getCallSites().entrySet());
+            for (int i = 0; i < calls.size(); i += 1000) {
+                var batch = new HashMap<IntIntPair, Map<Object, Object>>();
+                calls.subList(i, Math.min(calls.size(), i + 1000)).forEach(e -> batch.put(e.getKey(), e.getValue()));
+                writer.writeCallSites(batch, 100);
+            }
+        }
+        assertTrue(ExtendedRevisionJavaCallGraphBinaryReader.isBinary(path));
+        var reader = ExtendedRevisionJavaCallGraphReader.fromFile(path, Constants.binaryCallGraphContentType);
+        assertTrue(reader instanceof ExtendedRevisionJavaCallGraphBinaryReader);
+        assertEquals(graph, ((ExtendedRevisionJavaCallGraphBinaryReader) reader).read());
+    }
+
+    @Test
+    void metadataValues() throws Exception {
+        var metadata = new HashMap<Object, Object>();
+        metadata.put("null", null);
+        metadata.put("bool", true);
+        metadata.put("int", -42);
+        metadata.put("long", 1L << 40);
+        metadata.put("double", 1.5);
+        metadata.put("float", 2.5f);
+        metadata.put("bigInteger", BigInteger.TEN.pow(30));
+        metadata.put("bigDecimal", new BigDecimal("1.000"));
+        metadata.put("string", "é中\"");
+        metadata.put("list", Arrays.asList(1, "a", null, List.of()));
+        metadata.put(7, Map.of("receiver", "[/p/A]", "type", "invokevirtual"));
+        var cha = new EnumMap<JavaScope, Map<String, JavaType>>(JavaScope.class);
+        for (var scope : JavaScope.values()) {
+            cha.put(scope, new HashMap<>());
+        }
+        var graph = new ExtendedRevisionJavaCallGraph("mvn", "g:a", "1", -1, 2, "OPAL", cha,
+                new JavaGraph(new HashMap<>(Map.of(IntIntPair.of(5, -3), metadata))));
+
+        var read = ExtendedRevisionJavaCallGraphBinaryReader.read(
+                new ByteArrayInputStream(ExtendedRevisionJavaCallGraphBinaryWriter.toByteArray(graph)));
+        assertEquals(graph, read);
+        assertEquals(metadata, read.getGraph().getCallSites().get(IntIntPair.of(5, -3)));
+    }
+
+    @Test
+    void malformed() throws Exception {
+        var bytes = ExtendedRevisionJavaCallGraphBinaryWriter.toByteArray(load("extended-revision-call-graph/testRCG.json"));
+        assertThrows(IOException.class, () -> ExtendedRevisionJavaCallGraphBinaryReader.read(
+                new ByteArrayInputStream("{\"forge\": \"mvn\"}".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IOException.class, () -> ExtendedRevisionJavaCallGraphBinaryReader.read(
+                new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length / 2))));
+        var newer = bytes.clone();
+        newer[ExtendedRevisionJavaCallGraphBinaryWriter.MAGIC.length]++;
+        assertThrows(IOException.class, () -> ExtendedRevisionJavaCallGraphBinaryReader.read(new ByteArrayInputStream(newer)));
+
+        var out = new ByteArrayOutputStream();
+        var writer = new ExtendedRevisionJavaCallGraphBinaryWriter(out);
+        assertThrows(IllegalStateException.class, () -> writer.writeCallSites(Map.of()));
+    }
+}
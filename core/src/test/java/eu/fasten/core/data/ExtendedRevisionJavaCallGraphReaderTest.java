@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import it.unimi.dsi.fastutil.ints.IntIntPair;
+
+class ExtendedRevisionJavaCallGraphReaderTest {
+
+    private static File file;
+    private static ExtendedRevisionJavaCallGraph graph;
+
+    @BeforeAll
+    static void setUp() throws IOException, URISyntaxException {
+        file = new File(Objects.requireNonNull(Thread.currentThread().getContextClassLoader()
+                .getResource("extended-revision-call-graph/testRCG.json")).toURI().getPath());
+        graph = new ExtendedRevisionJavaCallGraph(new JSONObject(new JSONTokener(new FileReader(file))));
+    }
+
+    @Test
+    void readHeader() throws IOException {
+        var reader = ExtendedRevisionJavaCallGraphReader.fromFile(file.toPath());
+        var header = reader.readHeader();
+        assertEquals(Set.of("product", "nodes", "forge", "generator", "version", "timestamp"), header.keySet());
+
+        var callGraph = ExtendedRevisionJavaCallGraphReader.toCallGraphHeader(header);
+        assertEquals(graph.product, callGraph.product);
+        assertEquals(graph.version, callGraph.version);
+        assertEquals(graph.forge, callGraph.forge);
+        assertEquals(graph.timestamp, callGraph.timestamp);
+        assertEquals(graph.getNodeCount(), callGraph.getNodeCount());
+        assertEquals(graph.getCgGenerator(), callGraph.getCgGenerator());
+        assertEquals(graph.getRevisionName(), callGraph.getRevisionName());
+        assertTrue(callGraph.isCallGraphEmpty());
+    }
+
+    @Test
+    void readTypes() throws IOException {
+        var reader = ExtendedRevisionJavaCallGraphReader.fromFile(file.toPath());
+        for (var scope : JavaScope.values()) {
+            var types = new HashMap<String, JavaType>();
+            var batches = new ArrayList<Integer>();
+            reader.readTypes(scope, 1, batch -> {
+                batches.add(batch.size());
+                types.putAll(batch);
+            });
+            assertEquals(graph.getClassHierarchy().get(scope), types);
+            batches.forEach(size -> assertEquals(1, size));
+        }
+    }
+
+    @Test
+    void readCallSites() throws IOException {
+        var reader = ExtendedRevisionJavaCallGraphReader.fromFile(file.toPath());
+        var callSites = new HashMap<IntIntPair, Map<Object, Object>>();
+        var batches = new ArrayList<Integer>();
+        reader.readCallSites(2, batch -> {
+            batches.add(batch.size());
+            callSites.putAll(batch.getCallSites());
+        });
+        assertEquals(graph.getGraph().getCallSites(), callSites);
+        assertEquals(graph.getGraph().size(), batches.stream().mapToInt(Integer::intValue).sum());
+        batches.forEach(size -> assertTrue(size <= 2));
+    }
+
+    @Test
+    void readAnyKeyOrder() throws IOException {
+        var json = "{\"call-sites\": [[\"1\", \"2\", {\"3\": {\"receiver\": \"[/p/{A}]\", \"type\": \"invokestatic\"}}]],"
+                + " \"extra\": {\"nested\": [\"]}\\\"\", {\"a\": null}], \"n\": -1.5e3},"
+                + " \"nodes\": 2, \"product\": \"g:a\", \"forge\": \"mvn\", \"version\": \"1\", \"generator\": \"OPAL\","
+                + " \"cha\": {\"resolvedTypes\": {}, \"externalTypes\": {}, \"internalTypes\": {\"/p/A\": {"
+                + "\"methods\": {\"1\": {\"uri\": \"/p/A.m()V\", \"metadata\": {}}, \"2\": {\"uri\": \"/p/A.n()V\", \"metadata\": {}}},"
+                + " \"superClasses\": [], \"superInterfaces\": [], \"sourceFile\": \"A.java\", \"access\": \"public\", \"final\": false}}}}";
+        var reader = ExtendedRevisionJavaCallGraphReader.fromString(json);
+        var header = reader.readHeader();
+        assertEquals(Set.of("product", "nodes", "forge", "generator", "version"), header.keySet());
+        assertEquals(-1, ExtendedRevisionJavaCallGraphReader.toCallGraphHeader(header).timestamp);
+
+        var types = new HashMap<String, JavaType>();
+        reader.readTypes(JavaScope.internalTypes, 10, types::putAll);
+        assertEquals(new ExtendedRevisionJavaCallGraph(new JSONObject(json)).getClassHierarchy().get(JavaScope.internalTypes), types);
+
+        var callSites = new ArrayList<JavaGraph>();
+        reader.readCallSites(10, callSites::add);
+        assertEquals(1, callSites.size());
+        assertEquals(List.of(IntIntPair.of(1, 2)), new ArrayList<>(callSites.get(0).getCallSites().keySet()));
+    }
+
+    @Test
+    void readMalformed() {
+        var reader = ExtendedRevisionJavaCallGraphReader.fromString("{\"cha\": {\"internalTypes\": {\"/p/A\": ");
+        assertThrows(JSONException.class, () -> reader.readTypes(JavaScope.internalTypes, 10, batch -> { }));
+        assertThrows(JSONException.class, reader::readHeader);
+    }
+}
@@ -0,0 +1,112 @@
+package eu.fasten.core.data;
+
+import it.unimi.dsi.fastutil.longs.LongIterators;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongLongPair;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImmutableMergedDirectedGraphTest {
+
+    ImmutableMergedDirectedGraph dg;
+
+    @BeforeEach
+    void setUp() {
+        final var builder = new ImmutableMergedDirectedGraph.Builder();
+        builder.addNode(6L);
+        builder.addArc(1L, 3L);
+        builder.addArc(1L, 2L);
+        builder.addArc(2L, 3L);
+        builder.addArc(2L, 4L);
+        builder.addArc(3L, 4L);
+        builder.addArc(4L, 1L);
+        builder.addArc(4L, 5L);
+        builder.addArc(2L, 4L);
+        builder.addNode(1L);
+        dg = builder.build();
+    }
+
+    @Test
+    void nodesTest() {
+        assertEquals(6, dg.numNodes());
+        assertEquals(7, dg.numArcs());
+        assertEquals(new LongOpenHashSet(new long[] {1L, 2L, 3L, 4L, 5L, 6L}), dg.nodes());
+        assertEquals(LongList.of(1L, 2L, 3L, 4L, 5L, 6L), LongIterators.pour(dg.iterator()));
+        assertTrue(dg.containsVertex(6L));
+        assertFalse(dg.containsVertex(7L));
+        assertTrue(dg.externalNodes().isEmpty());
+        assertFalse(dg.isInternal(1L));
+        assertFalse(dg.isExternal(1L));
+    }
+
+    @Test
+    void successorsTest() {
+        assertEquals(LongList.of(2L, 3L), dg.successors(1L));
+        assertEquals(LongList.of(3L, 4L), dg.successors(2L));
+        assertEquals(LongList.of(4L), dg.successors(3L));
+        assertEquals(LongList.of(1L, 5L), dg.successors(4L));
+        assertEquals(LongList.of(), dg.successors(5L));
+        assertEquals(LongList.of(), dg.successors(6L));
+        assertThrows(IllegalArgumentException.class, () -> dg.successors(7L));
+    }
+
+    @Test
+    void predecessorsTest() {
+        assertEquals(LongList.of(4L), dg.predecessors(1L));
+        assertEquals(LongList.of(1L), dg.predecessors(2L));
+        assertEquals(LongList.of(1L, 2L), dg.predecessors(3L));
+        assertEquals(LongList.of(2L, 3L), dg.predecessors(4L));
+        assertEquals(LongList.of(4L), dg.predecessors(5L));
+        assertEquals(LongList.of(), dg.predecessors(6L));
+        assertThrows(IllegalArgumentException.class, () -> dg.predecessors(7L));
+    }
+
+    @Test
+    void iteratorsTest() {
+        for (final long node : dg.nodes()) {
+            assertEquals(dg.successors(node), LongIterators.pour(dg.successorIterator(node)));
+            assertEquals(dg.predecessors(node), LongIterators.pour(dg.predecessorIterator(node)));
+            assertEquals(dg.successors(node).size(), dg.outdegree(node));
+            assertEquals(dg.predecessors(node).size(), dg.indegree(node));
+        }
+    }
+
+    @Test
+    void edgesTest() {
+        assertTrue(dg.containsEdge(4L, 5L));
+        assertFalse(dg.containsEdge(5L, 4L));
+        assertFalse(dg.containsEdge(4L, 7L));
+        assertTrue(dg.containsEdge(LongLongPair.of(1L, 2L)));
+        assertEquals(LongLongPair.of(1L, 2L), dg.getEdge(1L, 2L));
+        assertNull(dg.getEdge(2L, 1L));
+        assertEquals(7, dg.edgeSet().size());
+    }
+
+    @Test
+    void freezeTest() {
+        final var random = new Random(0);
+        final var graph = new MergedDirectedGraph();
+        for (long node = 0; node < 1000; node++) {
+            graph.addVertex(node * 31);
+        }
+        for (int i = 0; i < 5000; i++) {
+            final long x = random.nextInt(1000) * 31L, y = random.nextInt(1000) * 31L;
+            graph.addEdge(x, y);
+        }
+        final var frozen = graph.freeze();
+        assertEquals(graph.numNodes(), frozen.numNodes());
+        assertEquals(graph.numArcs(), frozen.numArcs());
+        assertEquals(graph.nodes(), frozen.nodes());
+        assertEquals(graph.edgeSet().stream().map(e -> LongLongPair.of(e.leftLong(), e.rightLong())).collect(Collectors.toSet()), frozen.edgeSet());
+        for (final long node : graph.nodes()) {
+            assertEquals(new LongOpenHashSet(graph.successors(node)), new LongOpenHashSet(frozen.successors(node)));
+            assertEquals(new LongOpenHashSet(graph.predecessors(node)), new LongOpenHashSet(frozen.predecessors(node)));
+        }
+    }
+}
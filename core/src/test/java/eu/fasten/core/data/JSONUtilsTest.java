@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.Test;
+
+class JSONUtilsTest {
+
+    private static final List<String> FIXTURES = List.of(
+            "extended-revision-call-graph/testRCG.json",
+            "extended-revision-call-graph/testRCGEmptyAll.json",
+            "extended-revision-call-graph/testRCGEmptyExternal.json",
+            "extended-revision-call-graph/testRCGEmptyInternal.json",
+            "extended-revision-call-graph/testRCGEmptyResolved.json",
+            "merge/BarERCG.json",
+            "merge/BazERCG.json",
+            "merge/Imported.json",
+            "merge/Importer.json",
+            "merge/artifactERCG.json",
+            "merge/merged_cg_test.json",
+            "merge/LocalMergeException/info.picocli.picocli-4.0.4.json");
+
+    private static ExtendedRevisionJavaCallGraph load(String resource) throws IOException, URISyntaxException {
+        var file = new File(Objects.requireNonNull(Thread.currentThread().getContextClassLoader()
+                .getResource(resource)).toURI().getPath());
+        return new ExtendedRevisionJavaCallGraph(new JSONObject(new JSONTokener(new FileReader(file))));
+    }
+
+    private static void assertSameJSON(ExtendedRevisionJavaCallGraph graph, String message) throws IOException {
+        var expected = JSONUtils.toJSONString(graph);
+
+        var writer = new StringWriter();
+        JSONUtils.writeJSON(graph, writer);
+        assertEquals(expected, writer.toString(), message);
+
+        var out = new ByteArrayOutputStream();
+        JSONUtils.writeJSON(graph, out);
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), out.toByteArray(), message);
+    }
+
+    @Test
+    void writeJSON() throws Exception {
+        for (var fixture : FIXTURES) {
+            var graph = load(fixture);
+            assertSameJSON(graph, fixture);
+            // Without a timestamp the JSON ends with the call sites
+            assertSameJSON(new ExtendedRevisionJavaCallGraph(graph.forge, graph.product, graph.version, -1,
+                    graph.getNodeCount(), graph.getCgGenerator(), graph.getClassHierarchy(), graph.getGraph()), fixture);
+        }
+    }
+
+    @Test
+    void writeJSONFailure() throws Exception {
+        var graph = load("merge/LocalMergeException/info.picocli.picocli-4.0.4.json");
+        var failing = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        assertEquals("Disk full", assertThrows(IOException.class, () -> JSONUtils.writeJSON(graph, failing)).getMessage());
+    }
+}
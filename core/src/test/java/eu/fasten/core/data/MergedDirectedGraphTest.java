@@ -1,5 +1,6 @@
 package eu.fasten.core.data;
 
+import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.longs.LongList;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -44,4 +45,16 @@ class MergedDirectedGraphTest {
         assertEquals(LongList.of(2L, 3L), dg.predecessors(4L));
         assertEquals(LongList.of(4L), dg.predecessors(5L));
     }
-}
\ No newline at end of file
+
+    @Test
+    void iteratorsTest() {
+        for (final long node : dg.nodes()) {
+            assertEquals(dg.successors(node), LongIterators.pour(dg.successorIterator(node)));
+            assertEquals(dg.predecessors(node), LongIterators.pour(dg.predecessorIterator(node)));
+            assertEquals(dg.successors(node).size(), dg.outdegree(node));
+            assertEquals(dg.predecessors(node).size(), dg.indegree(node));
+        }
+        assertThrows(IllegalArgumentException.class, () -> dg.successorIterator(6L));
+        assertThrows(IllegalArgumentException.class, () -> dg.predecessorIterator(6L));
+    }
+}
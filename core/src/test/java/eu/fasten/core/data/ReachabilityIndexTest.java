@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+public class ReachabilityIndexTest {
+
+	private static ArrayImmutableDirectedGraph randomGraph(final int n, final int arcs, final Random random) {
+		final ArrayImmutableDirectedGraph.Builder builder = new ArrayImmutableDirectedGraph.Builder();
+		for (int i = 0; i < n; i++) builder.addInternalNode(1000 + 7 * i);
+		final LongOpenHashSet added = new LongOpenHashSet();
+		for (int a = 0; a < arcs; a++) {
+			// Mostly forward arcs, so that there are both large and trivial components
+			int x = random.nextInt(n), y = random.nextInt(n);
+			if (random.nextInt(10) != 0 && x > y) {
+				final int t = x;
+				x = y;
+				y = t;
+			}
+			if (added.add((long)x << 32 | y)) builder.addArc(1000 + 7 * x, 1000 + 7 * y);
+		}
+		return builder.build();
+	}
+
+	private static LongSet visit(final DirectedGraph graph, final long seed, final boolean forward) {
+		final LongOpenHashSet seen = new LongOpenHashSet(new long[] { seed });
+		final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+		queue.enqueue(seed);
+		while (!queue.isEmpty()) {
+			final long x = queue.dequeueLong();
+			for (final long y : forward ? graph.successors(x) : graph.predecessors(x)) if (seen.add(y)) queue.enqueue(y);
+		}
+		return seen;
+	}
+
+	@Test
+	public void testSmall() {
+		final ArrayImmutableDirectedGraph.Builder builder = new ArrayImmutableDirectedGraph.Builder();
+		for (final long x : new long[] { 1, 2, 3, 4, 5 }) builder.addInternalNode(x);
+		builder.addArc(1, 2);
+		builder.addArc(2, 3);
+		builder.addArc(3, 2);
+		builder.addArc(3, 4);
+		final ArrayImmutableDirectedGraph graph = builder.build();
+
+		for (final long maxBytes : new long[] { ReachabilityIndex.DEFAULT_MAX_BYTES, 0 }) {
+			final ReachabilityIndex index = new ReachabilityIndex(graph, maxBytes);
+			assertEquals(maxBytes != 0, index.isIndexed());
+			assertEquals(maxBytes != 0 ? 4 : -1, index.numComponents());
+			assertTrue(index.reaches(1, 4));
+			assertTrue(index.reaches(3, 2));
+			assertTrue(index.reaches(5, 5));
+			assertFalse(index.reaches(4, 1));
+			assertFalse(index.reaches(1, 5));
+			assertFalse(index.reaches(1, 6));
+			assertFalse(index.reaches(6, 6));
+			assertEquals(new LongOpenHashSet(new long[] { 1, 2, 3, 4 }), index.reachable(1));
+			assertEquals(new LongOpenHashSet(new long[] { 2, 3, 4, 5 }), index.reachable(LongArrayList.wrap(new long[] { 2, 5, 6 })));
+			assertEquals(new LongOpenHashSet(new long[] { 1, 2, 3 }), index.coreachable(3));
+			assertEquals(new LongOpenHashSet(new long[] { 1, 2, 3, 4, 5 }), index.coreachable(LongArrayList.wrap(new long[] { 4, 5, 6 })));
+			assertEquals(new LongOpenHashSet(), index.coreachable(6));
+		}
+	}
+
+	@Test
+	public void testRandom() {
+		final Random random = new Random(0);
+		for (int t = 0; t < 40; t++) {
+			final int n = 1 + random.nextInt(300);
+			final ArrayImmutableDirectedGraph graph = randomGraph(n, random.nextInt(3 * n), random);
+			final ReachabilityIndex index = new ReachabilityIndex(graph);
+			final ReachabilityIndex visits = new ReachabilityIndex(graph, 0);
+			assertTrue(index.isIndexed());
+			assertFalse(visits.isIndexed());
+
+			final long[] nodes = graph.nodes().toLongArray();
+			for (final long x : nodes) {
+				final LongSet reachable = visit(graph, x, true);
+				assertEquals(reachable, index.reachable(x));
+				assertEquals(visit(graph, x, false), index.coreachable(x));
+				for (final long y : nodes) assertEquals(reachable.contains(y), index.reaches(x, y), x + " -> " + y);
+			}
+
+			for (int q = 0; q < 20; q++) {
+				final LongArrayList seed = new LongArrayList();
+				for (int i = random.nextInt(5); i-- != 0;) seed.add(nodes[random.nextInt(nodes.length)]);
+				final LongOpenHashSet reachable = new LongOpenHashSet(), coreachable = new LongOpenHashSet();
+				for (final long x : seed) {
+					reachable.addAll(visit(graph, x, true));
+					coreachable.addAll(visit(graph, x, false));
+				}
+				assertEquals(reachable, index.reachable(seed));
+				assertEquals(reachable, visits.reachable(seed));
+				assertEquals(coreachable, index.coreachable(seed));
+				assertEquals(coreachable, visits.coreachable(seed));
+				final long x = nodes[random.nextInt(nodes.length)], y = nodes[random.nextInt(nodes.length)];
+				assertEquals(index.reaches(x, y), visits.reaches(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testSelfLoopsAndCyclesKeepSizeLinear() {
+		final int n = 5000;
+		final ArrayImmutableDirectedGraph.Builder isolated = new ArrayImmutableDirectedGraph.Builder();
+		final ArrayImmutableDirectedGraph.Builder loops = new ArrayImmutableDirectedGraph.Builder();
+		final ArrayImmutableDirectedGraph.Builder cycles = new ArrayImmutableDirectedGraph.Builder();
+		for (int i = 0; i < n; i++) {
+			isolated.addInternalNode(i);
+			loops.addInternalNode(i);
+			loops.addArc(i, i);
+		}
+		// Isolated two-node cycles
+		for (int i = 0; i < 2 * n; i++) cycles.addInternalNode(i);
+		for (int i = 0; i < 2 * n; i += 2) {
+			cycles.addArc(i, i + 1);
+			cycles.addArc(i + 1, i);
+		}
+
+		final ReachabilityIndex isolatedIndex = new ReachabilityIndex(isolated.build());
+		final ReachabilityIndex loopsIndex = new ReachabilityIndex(loops.build());
+		final ReachabilityIndex cyclesIndex = new ReachabilityIndex(cycles.build());
+		assertTrue(loopsIndex.isIndexed());
+		assertTrue(cyclesIndex.isIndexed());
+		assertEquals(isolatedIndex.size(), loopsIndex.size());
+		assertEquals(n, cyclesIndex.numComponents());
+		assertTrue(cyclesIndex.size() < 2 * isolatedIndex.size());
+		assertTrue(loopsIndex.reaches(7, 7));
+		assertFalse(loopsIndex.reaches(7, 8));
+		assertTrue(cyclesIndex.reaches(7, 6));
+		assertFalse(cyclesIndex.reaches(7, 8));
+	}
+
+	@Test
+	public void testMemoryCap() {
+		final ArrayImmutableDirectedGraph graph = randomGraph(1000, 1000, new Random(1));
+		final ReachabilityIndex index = new ReachabilityIndex(graph);
+		assertTrue(index.isIndexed());
+		assertTrue(index.size() > 0);
+		// Just enough room for the index
+		assertTrue(new ReachabilityIndex(graph, index.size()).isIndexed());
+		final ReachabilityIndex visits = new ReachabilityIndex(graph, index.size() - 1);
+		assertFalse(visits.isIndexed());
+		assertEquals(0, visits.size());
+		assertEquals(index.reachable(1000), visits.reachable(1000));
+	}
+}
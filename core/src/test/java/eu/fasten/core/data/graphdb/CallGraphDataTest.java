@@ -22,9 +22,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.junit.jupiter.api.Test;
 import org.testcontainers.shaded.org.bouncycastle.util.Arrays;
@@ -32,6 +34,7 @@ import org.testcontainers.shaded.org.bouncycastle.util.Arrays;
 import eu.fasten.core.data.GOV3LongFunction;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.util.XoRoShiRo128PlusPlusRandomGenerator;
@@ -58,8 +61,16 @@ public class CallGraphDataTest {
 			assertEquals(new LongOpenHashSet(s), IntArrayList.wrap(LazyIntIterators.unwrap(graph.successors((int)GID2LID.getLong(node)))).stream().map(x -> LID2GID[x]).collect(Collectors.toSet()));
 			final LongList p = callGraphData.predecessors(node);
 			assertEquals(new LongOpenHashSet(p), IntArrayList.wrap(LazyIntIterators.unwrap(transpose.successors((int)GID2LID.getLong(node)))).stream().map(x -> LID2GID[x]).collect(Collectors.toSet()));
+			assertEquals(s, LongIterators.pour(callGraphData.successorIterator(node)));
+			assertEquals(p, LongIterators.pour(callGraphData.predecessorIterator(node)));
+			assertEquals(s.size(), callGraphData.outdegree(node));
+			assertEquals(p.size(), callGraphData.indegree(node));
 		}
 
+		final long missing = LongStream.of(LID2GID).max().getAsLong() + 1;
+		assertThrows(IllegalArgumentException.class, () -> callGraphData.successorIterator(missing));
+		assertThrows(IllegalArgumentException.class, () -> callGraphData.predecessorIterator(missing));
+
 		assertTrue(callGraphData.isInternal(LID2GID[0]));
 		assertTrue(callGraphData.isInternal(LID2GID[49]));
 		assertFalse(callGraphData.isExternal(LID2GID[0]));
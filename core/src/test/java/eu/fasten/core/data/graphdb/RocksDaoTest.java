@@ -20,24 +20,46 @@ package eu.fasten.core.data.graphdb;
 
 import static eu.fasten.core.data.graphdb.GraphMetadata.ReceiverRecord.CallType.DYNAMIC;
 import static eu.fasten.core.data.graphdb.GraphMetadata.ReceiverRecord.CallType.STATIC;
+import static eu.fasten.core.utils.VariableLengthByteCoder.writeLong;
+import static eu.fasten.core.utils.VariableLengthByteCoder.writeString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.json.JSONObject;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 
+import com.google.common.primitives.Longs;
+
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.DirectedGraph;
 import eu.fasten.core.data.graphdb.GraphMetadata.ReceiverRecord;
+import it.unimi.dsi.fastutil.io.FastByteArrayOutputStream;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongList;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
@@ -58,9 +80,8 @@ public class RocksDaoTest {
         FileUtils.deleteDirectory(rocksDaoDir);
     }
 
-    @Test
-    public void extendedGidGraphTest() throws IOException, RocksDBException {
-        final var json = new JSONObject("{\n" +
+    private static JSONObject extendedGidGraphJson() {
+        return new JSONObject("{\n" +
                 "        \"index\": 1,\n" +
                 "        \"product\": \"test\",\n" +
                 "           \"version\": \"0.0.1\",\n" +
@@ -99,7 +120,11 @@ public class RocksDaoTest {
                 "                \"3\": \"/java.lang/Object\"\n" +
                 "           }\n" +
                 "}");
-        final var graph = ExtendedGidGraph.getGraph(json);
+    }
+
+    @Test
+    public void extendedGidGraphTest() throws IOException, RocksDBException {
+        final var graph = ExtendedGidGraph.getGraph(extendedGidGraphJson());
         rocksDao.saveToRocksDb(graph);
         final var graphData = rocksDao.getGraphData(graph.getIndex());
         assertEquals(graph.getNumInternalNodes(), graphData.nodes().size() - graphData.externalNodes().size());
@@ -126,6 +151,45 @@ public class RocksDaoTest {
                 new GraphMetadata.NodeMetadata("/my.package/Klass", "method(/my.package/int)/my.package/int",
                         List.of()),
 				graphMetadata.gid2NodeMetadata.get(2));
+
+        final GraphMetadata partialMetadata = rocksDao.getGraphMetadata(graph.getIndex(), LongList.of(2L, 0L, 42L));
+        assertEquals(2, partialMetadata.gid2NodeMetadata.size());
+        assertEquals(graphMetadata.gid2NodeMetadata.get(0), partialMetadata.gid2NodeMetadata.get(0));
+        assertEquals(graphMetadata.gid2NodeMetadata.get(2), partialMetadata.gid2NodeMetadata.get(2));
+        assertTrue(rocksDao.getGraphMetadata(graph.getIndex(), LongList.of()).gid2NodeMetadata.isEmpty());
+        assertNull(rocksDao.getGraphMetadata(2, LongList.of(0L)));
+    }
+
+    @Test
+    public void legacyMetadataTest() throws IOException, RocksDBException, IllegalAccessException {
+        final var graph = ExtendedGidGraph.getGraph(extendedGidGraphJson());
+        rocksDao.saveToRocksDb(graph);
+        final var graphData = rocksDao.getGraphData(graph.getIndex());
+        final GraphMetadata graphMetadata = rocksDao.getGraphMetadata(graph.getIndex(), graphData);
+
+        // Overwrite metadata using the legacy format, which follows the node enumeration order of the graph
+        final FastByteArrayOutputStream fbaos = new FastByteArrayOutputStream();
+        for (final LongIterator iterator = graphData.iterator(); iterator.hasNext();) {
+            final var nodeMetadata = graphMetadata.gid2NodeMetadata.get(iterator.nextLong());
+            writeString(nodeMetadata.type, fbaos);
+            writeString(nodeMetadata.signature, fbaos);
+            writeLong(nodeMetadata.receiverRecords.size(), fbaos);
+            for (final var r : nodeMetadata.receiverRecords) {
+                writeLong(r.line, fbaos);
+                writeLong(r.callType.ordinal(), fbaos);
+                writeString(r.receiverSignature, fbaos);
+                writeLong(r.receiverTypes.size(), fbaos);
+                for (final String t : r.receiverTypes) writeString(t, fbaos);
+            }
+        }
+        final RocksDB rocksDb = (RocksDB)FieldUtils.readField(rocksDao, "rocksDb", true);
+        final ColumnFamilyHandle metadataHandle = (ColumnFamilyHandle)FieldUtils.readField(rocksDao, "metadataHandle", true);
+        rocksDb.put(metadataHandle, Longs.toByteArray(graph.getIndex()), Arrays.copyOf(fbaos.array, fbaos.length));
+
+        assertEquals(graphMetadata.gid2NodeMetadata, rocksDao.getGraphMetadata(graph.getIndex(), graphData).gid2NodeMetadata);
+        final GraphMetadata partialMetadata = rocksDao.getGraphMetadata(graph.getIndex(), LongList.of(1L, 42L));
+        assertEquals(1, partialMetadata.gid2NodeMetadata.size());
+        assertEquals(graphMetadata.gid2NodeMetadata.get(1), partialMetadata.gid2NodeMetadata.get(1));
     }
 
     @Test
@@ -332,4 +396,206 @@ public class RocksDaoTest {
         assertEquals(graph2.getEdges().size(), graphData2.numArcs());
         assertEquals(new LongOpenHashSet(List.of(258L)), graphData2.externalNodes());
     }
+
+    @Test
+    public void graphCacheTest() throws IOException, RocksDBException {
+        final var json = new JSONObject("{" +
+                "\"index\": 1," +
+                "\"product\": \"test\"," +
+                "\"version\": \"0.0.1\"," +
+                "\"nodes\": [0, 1, 2]," +
+                "\"numInternalNodes\": 2," +
+                "\"edges\": [[0, 1], [1, 2]]" +
+                "}");
+        final var graph = GidGraph.getGraph(json);
+        rocksDao.saveToRocksDb(graph.getIndex(), graph.getNodes(), graph.getNumInternalNodes(), graph.getEdges());
+        final GraphCache graphCache = rocksDao.getGraphCache();
+        final long hits = graphCache.hits();
+        final var graphData = rocksDao.getGraphData(graph.getIndex());
+        assertEquals(1, graphCache.numGraphs());
+        assertEquals(graphData, rocksDao.getGraphData(graph.getIndex()));
+        assertEquals(hits + 1, graphCache.hits());
+        assertThrows(UnsupportedOperationException.class, () -> graphData.nodes().clear());
+        assertThrows(UnsupportedOperationException.class, () -> graphData.externalNodes().clear());
+        assertEquals(3, rocksDao.getGraphData(graph.getIndex()).nodes().size());
+
+        assertTrue(rocksDao.deleteCallGraph(graph.getIndex()));
+        assertEquals(0, graphCache.numGraphs());
+        assertNull(rocksDao.getGraphData(graph.getIndex()));
+    }
+
+    @Test
+    public void graphCacheEvictionTest() throws IOException, RocksDBException {
+        rocksDao.close();
+        rocksDao = new RocksDao(rocksDaoDir.toString(), false, false, 1024);
+        for (long index = 0; index < 10; index++) {
+            final LongArrayList nodes = new LongArrayList();
+            final List<List<Long>> edges = new ArrayList<>();
+            for (long i = 0; i < 10; i++) {
+                nodes.add(index * 100 + i);
+                if (i > 0) edges.add(List.of(index * 100 + i - 1, index * 100 + i));
+            }
+            rocksDao.saveToRocksDb(index, nodes, 5, edges);
+            assertEquals(nodes.size(), rocksDao.getGraphData(index).numNodes());
+        }
+        final GraphCache graphCache = rocksDao.getGraphCache();
+        assertTrue(graphCache.evictions() > 0);
+        assertTrue(graphCache.size() <= graphCache.maxSize());
+        for (long index = 0; index < 10; index++) assertEquals(9, rocksDao.getGraphData(index).numArcs());
+    }
+
+    @Test
+    public void concurrentGraphCacheTest() throws Exception {
+        final LongArrayList nodes = new LongArrayList();
+        final List<List<Long>> edges = new ArrayList<>();
+        final int n = 2 * Constants.MIN_COMPRESSED_GRAPH_SIZE;
+        for (long i = 0; i < n; i++) {
+            nodes.add(i);
+            edges.add(List.of(i, (i + 1) % n));
+            edges.add(List.of(i, (i * 7 + 3) % n));
+        }
+        rocksDao.saveToRocksDb(1, nodes, n / 2, edges.stream().distinct().collect(Collectors.toList()));
+        final DirectedGraph expected = rocksDao.getGraphData(1);
+        assertTrue(expected instanceof CallGraphData);
+        // Decoding is not thread-safe, so expected lists are computed beforehand
+        final Map<Long, LongList> successors = new HashMap<>(), predecessors = new HashMap<>();
+        for (final long node : nodes) {
+            successors.put(node, expected.successors(node));
+            predecessors.put(node, expected.predecessors(node));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 32; t++) {
+                results.add(executor.submit(() -> {
+                    final DirectedGraph graphData = rocksDao.getGraphData(1);
+                    for (final long node : nodes) {
+                        if (!graphData.successors(node).equals(successors.get(node))) return false;
+                        if (!graphData.predecessors(node).equals(predecessors.get(node))) return false;
+                    }
+                    return true;
+                }));
+            }
+            for (final Future<Boolean> result : results) assertTrue(result.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(rocksDao.getGraphCache().hits() >= 32);
+    }
+
+    /** A chain of nodes starting at 1000 * index, with the last node external. */
+    private static GidGraph chainGraph(final long index, final int numNodes) {
+        final var nodes = new ArrayList<Long>();
+        final var edges = new ArrayList<List<Long>>();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(1000 * index + i);
+            if (i > 0) edges.add(List.of(1000 * index + i - 1, 1000 * index + i));
+        }
+        return GidGraph.getGraph(new JSONObject(Map.of("index", index, "product", "test", "version", "0.0.1",
+                "nodes", nodes, "numInternalNodes", numNodes - 1, "edges", edges)));
+    }
+
+    private void assertChainGraph(final GidGraph graph) throws RocksDBException {
+        final var graphData = rocksDao.getGraphData(graph.getIndex());
+        assertEquals(new LongOpenHashSet(graph.getNodes()), graphData.nodes());
+        assertEquals(graph.getEdges().size(), graphData.numArcs());
+        final long first = graph.getNodes().get(0);
+        assertEquals(LongList.of(first + 1), graphData.successors(first));
+        assertEquals(LongList.of(first), graphData.predecessors(first + 1));
+    }
+
+    @Test
+    public void batchTest() throws IOException, RocksDBException {
+        final var graphs = List.of(chainGraph(1, 5), chainGraph(2, 500), chainGraph(3, 50));
+        try (final var batch = rocksDao.newBatch(false)) {
+            for (final var graph : graphs) batch.add(graph);
+            assertNull(batch.add(chainGraph(1, 5)));
+            assertEquals(3, batch.size());
+            // Nothing is visible before committing
+            for (final var graph : graphs) assertNull(rocksDao.getGraphData(graph.getIndex()));
+            batch.commit();
+            assertEquals(0, batch.size());
+            assertNull(batch.add(chainGraph(2, 500)));
+            batch.add(chainGraph(4, 5));
+        }
+        for (final var graph : graphs) assertChainGraph(graph);
+        // Uncommitted graphs are discarded
+        assertNull(rocksDao.getGraphData(4));
+    }
+
+    @Test
+    public void updateListenerTest() throws IOException, RocksDBException {
+        final var updated = new LongArrayList();
+        rocksDao.addUpdateListener(updated::add);
+        try (final var batch = rocksDao.newBatch(false)) {
+            batch.add(chainGraph(1, 5));
+            batch.add(chainGraph(2, 5));
+            assertTrue(updated.isEmpty());
+            batch.commit();
+        }
+        updated.sort(null);
+        assertEquals(LongList.of(1, 2), updated);
+        rocksDao.deleteCallGraph(1);
+        assertEquals(LongList.of(1, 2, 1), updated);
+    }
+
+    @Test
+    public void batchWithoutWALTest() throws IOException, RocksDBException {
+        final var graph = chainGraph(1, 500);
+        try (final var batch = rocksDao.newBatch(true)) {
+            batch.add(graph);
+            batch.commit();
+        }
+        rocksDao.flush();
+        rocksDao.close();
+        rocksDao = new RocksDao(rocksDaoDir.toString(), true);
+        assertChainGraph(graph);
+    }
+
+    @Test
+    public void batchMetadataTest() throws IOException, RocksDBException {
+        final var graph = ExtendedGidGraph.getGraph(extendedGidGraphJson());
+        try (final var batch = rocksDao.newBatch(false)) {
+            batch.add(graph);
+            assertNull(rocksDao.getGraphMetadata(graph.getIndex(), LongList.of(0L)));
+            batch.commit();
+        }
+        final var graphData = rocksDao.getGraphData(graph.getIndex());
+        assertEquals(3, rocksDao.getGraphMetadata(graph.getIndex(), graphData).gid2NodeMetadata.size());
+    }
+
+    @Test
+    public void bulkLoadTest() throws IOException, RocksDBException {
+        // Negative indices sort after positive ones in RocksDB
+        final var graphs = List.of(chainGraph(3, 500), chainGraph(-1, 5), chainGraph(5, 5), chainGraph(2, 200));
+        final var extendedGraph = ExtendedGidGraph.getGraph(extendedGidGraphJson());
+        try (final var bulkLoad = rocksDao.newBulkLoad()) {
+            for (final var graph : graphs) bulkLoad.add(graph);
+            bulkLoad.commit();
+            bulkLoad.add(extendedGraph);
+            assertNull(bulkLoad.add(chainGraph(3, 500)));
+            bulkLoad.commit();
+        }
+        for (final var graph : graphs) assertChainGraph(graph);
+        final var graphData = rocksDao.getGraphData(extendedGraph.getIndex());
+        assertEquals(3, rocksDao.getGraphMetadata(extendedGraph.getIndex(), graphData).gid2NodeMetadata.size());
+    }
+
+    @Test
+    public void optionsTest() throws IOException, RocksDBException {
+        rocksDao.close();
+        final var options = new RocksDaoOptions.Builder()
+                .blockCacheSize(1 << 20)
+                .bloomFilterBitsPerKey(10)
+                .compactionStyle(CompactionStyle.UNIVERSAL)
+                .maxBackgroundJobs(2)
+                .build();
+        rocksDao = new RocksDao(rocksDaoDir.toString(), false, false, 0, options);
+        final var graph = chainGraph(1, 500);
+        rocksDao.saveToRocksDb(graph);
+        rocksDao.flush();
+        assertChainGraph(graph);
+        assertNull(rocksDao.getGraphData(2));
+    }
 }
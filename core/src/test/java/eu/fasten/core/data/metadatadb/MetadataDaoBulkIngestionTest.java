@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.metadatadb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jooq.JSONB;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import eu.fasten.core.data.metadatadb.codegen.enums.Access;
+import eu.fasten.core.data.metadatadb.codegen.enums.CallType;
+import eu.fasten.core.data.metadatadb.codegen.enums.CallableType;
+import eu.fasten.core.data.metadatadb.codegen.tables.records.CallSitesRecord;
+import eu.fasten.core.data.metadatadb.codegen.tables.records.CallablesRecord;
+
+public class MetadataDaoBulkIngestionTest {
+
+    private List<String> statements;
+    private ByteArrayOutputStream copied;
+    private MetadataDao metadataDao;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        statements = new ArrayList<>();
+        copied = new ByteArrayOutputStream();
+        var connection = spy(new MockConnection(ctx -> {
+            statements.add(ctx.sql());
+            var create = DSL.using(SQLDialect.POSTGRES);
+            if (ctx.sql().startsWith("SELECT s.ord, c.id")) {
+                var ord = DSL.field("ord", Integer.class);
+                var id = DSL.field("id", Long.class);
+                var result = create.newResult(ord, id);
+                // Returned in arbitrary order, as a join would
+                result.add(create.newRecord(ord, id).values(2, 30L));
+                result.add(create.newRecord(ord, id).values(0, 10L));
+                result.add(create.newRecord(ord, id).values(1, 20L));
+                return new MockResult[]{new MockResult(result.size(), result)};
+            }
+            return new MockResult[]{new MockResult(0)};
+        }));
+        var pgConnection = mock(PGConnection.class);
+        var copyManager = mock(CopyManager.class);
+        var copyIn = mock(CopyIn.class);
+        doReturn(pgConnection).when(connection).unwrap(PGConnection.class);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            return copyIn;
+        });
+        doAnswer(invocation -> {
+            copied.write(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(org.mockito.ArgumentMatchers.any(byte[].class), anyInt(), anyInt());
+        metadataDao = new MetadataDao(DSL.using(connection, SQLDialect.POSTGRES));
+    }
+
+    @Test
+    public void bulkInsertCallablesTest() {
+        var callables = List.of(
+                new CallablesRecord(0L, 5L, "/p/A.m()V", true, 1, 2, CallableType.internalBinary, true, Access.public_, JSONB.valueOf("{}")),
+                new CallablesRecord(1L, 5L, "/p/A.n()V", true, 3, 4, CallableType.internalBinary, true, Access.private_, JSONB.valueOf("{\"a\": 1}")),
+                new CallablesRecord(2L, -1L, "/q/B.o()V", false, null, null, CallableType.externalProduct, false, null, JSONB.valueOf("{}")));
+        var ids = metadataDao.bulkInsertCallables(callables, 2);
+        assertEquals(List.of(10L, 20L, 30L), ids);
+
+        assertTrue(statements.stream().anyMatch(s -> s.startsWith("COPY callables_staging FROM STDIN")));
+        assertTrue(statements.stream().anyMatch(s -> s.startsWith("INSERT INTO callables") && s.contains("DO UPDATE")));
+        assertTrue(statements.stream().anyMatch(s -> s.startsWith("INSERT INTO callables") && s.contains("DO NOTHING")));
+        assertEquals("0\t5\t/p/A.m()V\ttrue\t1\t2\tinternalBinary\ttrue\tpublic\t{}\n"
+                        + "1\t5\t/p/A.n()V\ttrue\t3\t4\tinternalBinary\ttrue\tprivate\t{\"a\": 1}\n"
+                        + "2\t-1\t/q/B.o()V\tfalse\t\\N\t\\N\texternalProduct\tfalse\t\\N\t{}\n",
+                copied.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void bulkInsertEdgesTest() {
+        var callSites = List.of(
+                new CallSitesRecord(10L, 20L, 7, CallType.virtual, new Long[]{1L, null}, null),
+                new CallSitesRecord(10L, 30L, null, CallType.static_, new Long[0], JSONB.valueOf("{\"k\": \"a\\tb\"}")));
+        metadataDao.bulkInsertEdges(callSites);
+
+        assertTrue(statements.stream().anyMatch(s -> s.startsWith("COPY call_sites_staging FROM STDIN")));
+        assertTrue(statements.stream().anyMatch(s -> s.startsWith("INSERT INTO call_sites") && s.contains("unique_source_target")));
+        assertEquals("0\t10\t20\tvirtual\t{1,NULL}\t7\t\\N\n"
+                        + "1\t10\t30\tstatic\t{}\t\\N\t{\"k\": \"a\\\\tb\"}\n",
+                copied.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void copyTextEscapingTest() {
+        assertEquals("\\N", MetadataDao.toCopyText(null));
+        assertEquals("a\\\\b\\tc\\nd\\re", MetadataDao.toCopyText("a\\b\tc\nd\re"));
+        assertEquals("{1,2,NULL}", MetadataDao.toCopyText(new Long[]{1L, 2L, null}));
+        assertEquals("packagePrivate", MetadataDao.toCopyText(Access.packagePrivate));
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.opal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import eu.fasten.core.data.opal.exceptions.MissingArtifactException;
+
+public class ArtifactCacheTest {
+
+    private static final String REPO = "https://repo.example.org/maven2/";
+
+    @TempDir
+    Path tempDir;
+
+    private Path repository;
+    private Path cacheDir;
+    private AtomicInteger fetches;
+    private MavenRepositoryClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        repository = Files.createDirectories(tempDir.resolve("repository"));
+        cacheDir = tempDir.resolve("cache");
+        fetches = new AtomicInteger();
+        final var local = MavenRepositoryClient.local(repository);
+        client = (repo, path) -> {
+            fetches.incrementAndGet();
+            return local.open(repo, path);
+        };
+    }
+
+    private MavenCoordinate publish(final String artifactId, final String contents) throws IOException {
+        final var coordinate = new MavenCoordinate("org.example", artifactId, "1.0", "jar");
+        coordinate.setMavenRepos(List.of(REPO));
+        final var file = repository.resolve(coordinate.toProductPath("jar"));
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, contents);
+        return coordinate;
+    }
+
+    @Test
+    public void downloadThroughCache() throws Exception {
+        final var coordinate = publish("a", "contents of a");
+        final var cache = new ArtifactCache(cacheDir, 1024);
+        final var resolver = new MavenCoordinate.MavenResolver(client, cache);
+
+        final var first = resolver.downloadArtifact(coordinate, null);
+        assertEquals("contents of a", Files.readString(first.toPath()));
+        assertTrue(first.getName().endsWith(".jar"));
+        assertTrue(first.delete());
+
+        final var second = resolver.downloadArtifact(coordinate, null);
+        assertEquals("contents of a", Files.readString(second.toPath()));
+        assertEquals(1, fetches.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(.5, cache.getHitRatio());
+    }
+
+    @Test
+    public void downloadWithoutCache() throws Exception {
+        final var coordinate = publish("a", "contents of a");
+        final var resolver = new MavenCoordinate.MavenResolver(client, null);
+        for (int i = 0; i < 2; i++) {
+            final var file = resolver.downloadArtifact(coordinate, null);
+            assertEquals("contents of a", Files.readString(file.toPath()));
+            file.delete();
+        }
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    public void missingArtifact() throws Exception {
+        final var coordinate = new MavenCoordinate("org.example", "missing", "1.0", "jar");
+        coordinate.setMavenRepos(List.of(REPO));
+        final var cache = new ArtifactCache(cacheDir, 1024);
+        final var resolver = new MavenCoordinate.MavenResolver(client, cache);
+        assertThrows(MissingArtifactException.class, () -> resolver.downloadArtifact(coordinate, null));
+        assertEquals(0, cache.getCount());
+        try (var files = Files.list(cacheDir.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void identicalContentsAreStoredOnce() throws Exception {
+        final var cache = new ArtifactCache(cacheDir, 1024);
+        cache.get(REPO + "a.jar", () -> stream("same"));
+        cache.get("https://mirror.example.org/a.jar", () -> stream("same"));
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getCount());
+        assertEquals(4, cache.getSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedAreEvicted() throws Exception {
+        final var cache = new ArtifactCache(cacheDir, 10);
+        cache.get("a", () -> stream("aaaa"));
+        cache.get("b", () -> stream("bbbb"));
+        cache.get("a", () -> stream("aaaa"));
+        final var c = cache.get("c", () -> stream("cccc"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(8, cache.getSize());
+        assertEquals("cccc", Files.readString(c));
+
+        // a is still there, b was evicted and is loaded again
+        cache.get("a", () -> stream("aaaa"));
+        cache.get("b", () -> stream("bbbb"));
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void evictionDoesNotAffectReturnedFiles() throws Exception {
+        final var cache = new ArtifactCache(cacheDir, 4);
+        final var a = cache.get("a", () -> stream("aaaa"));
+        cache.get("b", () -> stream("bbbb"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals("aaaa", Files.readString(a));
+    }
+
+    @Test
+    public void cacheSurvivesRestart() throws Exception {
+        var cache = new ArtifactCache(cacheDir, 1024);
+        cache.get("a", () -> stream("aaaa"));
+
+        cache = new ArtifactCache(cacheDir, 1024);
+        assertEquals(1, cache.getCount());
+        final var a = cache.get("a", () -> {
+            throw new IOException("should be cached");
+        });
+        assertEquals("aaaa", Files.readString(a));
+        assertEquals(1, cache.getHits());
+
+        // A smaller budget evicts on opening
+        cache = new ArtifactCache(cacheDir, 2);
+        assertEquals(0, cache.getCount());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void failedLoadsLeaveNoTrace() throws Exception {
+        final var cache = new ArtifactCache(cacheDir, 1024);
+        assertThrows(IOException.class, () -> cache.get("a", () -> new InputStream() {
+            private int n;
+
+            @Override
+            public int read() throws IOException {
+                if (n++ >= 2) {
+                    throw new IOException("connection reset");
+                }
+                return 'a';
+            }
+        }));
+        assertEquals(0, cache.getCount());
+        try (var files = Files.list(cacheDir.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+        assertEquals("aaaa", Files.readString(cache.get("a", () -> stream("aaaa"))));
+    }
+
+    @Test
+    public void concurrentRequestsLoadOnce() throws Exception {
+        final var coordinate = publish("a", "contents of a");
+        final var cache = new ArtifactCache(cacheDir, 1024);
+        final var resolver = new MavenCoordinate.MavenResolver(client, cache);
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            final var tasks = new ArrayList<Callable<byte[]>>();
+            for (int i = 0; i < 32; i++) {
+                tasks.add(() -> {
+                    final var file = resolver.downloadArtifact(coordinate, null);
+                    try {
+                        return Files.readAllBytes(file.toPath());
+                    } finally {
+                        file.delete();
+                    }
+                });
+            }
+            for (final var result : executor.invokeAll(tasks)) {
+                assertArrayEquals("contents of a".getBytes(StandardCharsets.UTF_8), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, fetches.get());
+        assertEquals(31, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void concurrentEvictionsDoNotFailDownloads() throws Exception {
+        // Each artifact exceeds the budget, so every request evicts all blobs
+        final var cache = new ArtifactCache(cacheDir, 1);
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            final var tasks = new ArrayList<Callable<String>>();
+            for (int i = 0; i < 256; i++) {
+                final var contents = "contents of " + i;
+                tasks.add(() -> {
+                    final var file = cache.get(contents, () -> stream(contents));
+                    try {
+                        return Files.readString(file);
+                    } finally {
+                        Files.delete(file);
+                    }
+                });
+            }
+            final var results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("contents of " + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(256, cache.getMisses());
+    }
+
+    private static ByteArrayInputStream stream(final String contents) {
+        return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
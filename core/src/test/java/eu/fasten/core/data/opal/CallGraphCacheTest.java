@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.data.opal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraph;
+import eu.fasten.core.data.ExtendedRevisionJavaCallGraphBinaryWriter;
+import eu.fasten.core.data.opal.exceptions.OPALException;
+
+public class CallGraphCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExtendedRevisionJavaCallGraph graph;
+    private AtomicInteger analyses;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        final var file = new File(Objects.requireNonNull(Thread.currentThread().getContextClassLoader()
+                .getResource("extended-revision-call-graph/testRCG.json")).toURI().getPath());
+        graph = new ExtendedRevisionJavaCallGraph(new JSONObject(new JSONTokener(new FileReader(file))));
+        analyses = new AtomicInteger();
+    }
+
+    private Path artifact(final String name, final String contents) throws Exception {
+        return Files.writeString(tempDir.resolve(name), contents);
+    }
+
+    private ExtendedRevisionJavaCallGraph analyze() throws OPALException {
+        analyses.incrementAndGet();
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return graph;
+    }
+
+    @Test
+    public void analyzeOnce() throws Exception {
+        final var cache = new CallGraphCache(1 << 20);
+        final var a = artifact("a.jar", "contents of a");
+
+        assertEquals(graph, cache.get(a, "CHA", this::analyze));
+        final var cached = cache.get(a, "CHA", this::analyze);
+        assertEquals(graph, cached);
+        assertNotSame(graph, cached);
+        assertEquals(1, analyses.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertTrue(cache.getTimeSaved().toMillis() > 0);
+
+        // Same contents under another name
+        cache.get(artifact("b.jar", "contents of a"), "CHA", this::analyze);
+        assertEquals(1, analyses.get());
+        // Another analysis of the same artifact
+        cache.get(a, "RTA", this::analyze);
+        assertEquals(2, analyses.get());
+        assertEquals(2, cache.getCount());
+        assertEquals(2L * ExtendedRevisionJavaCallGraphBinaryWriter.toByteArray(graph).length, cache.getSize());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        final long bytes = ExtendedRevisionJavaCallGraphBinaryWriter.toByteArray(graph).length;
+        final var cache = new CallGraphCache(2 * bytes);
+        final var a = artifact("a.jar", "a");
+        final var b = artifact("b.jar", "b");
+        final var c = artifact("c.jar", "c");
+
+        cache.get(a, "CHA", this::analyze);
+        cache.get(b, "CHA", this::analyze);
+        cache.get(a, "CHA", this::analyze);
+        cache.get(c, "CHA", this::analyze);
+        assertEquals(3, analyses.get());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2 * bytes, cache.getSize());
+
+        cache.get(a, "CHA", this::analyze);
+        assertEquals(3, analyses.get());
+        cache.get(b, "CHA", this::analyze);
+        assertEquals(4, analyses.get());
+
+        // Results larger than the budget are not cached
+        final var small = new CallGraphCache(bytes - 1);
+        small.get(a, "CHA", this::analyze);
+        small.get(a, "CHA", this::analyze);
+        assertEquals(6, analyses.get());
+        assertEquals(0, small.getSize());
+    }
+
+    @Test
+    public void failedAnalysesAreNotCached() throws Exception {
+        final var cache = new CallGraphCache(1 << 20);
+        final var a = artifact("a.jar", "a");
+        assertThrows(OPALException.class, () -> cache.get(a, "CHA", () -> {
+            throw new OPALException("failed");
+        }));
+        assertEquals(graph, cache.get(a, "CHA", this::analyze));
+        assertEquals(1, analyses.get());
+        assertThrows(IllegalArgumentException.class, () -> new CallGraphCache(0));
+    }
+
+    @Test
+    public void concurrentRequests() throws Exception {
+        final var cache = new CallGraphCache(1 << 20);
+        final var a = artifact("a.jar", "a");
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            final var tasks = new ArrayList<Callable<ExtendedRevisionJavaCallGraph>>();
+            for (int i = 0; i < 16; i++) {
+                tasks.add(() -> cache.get(a, "CHA", this::analyze));
+            }
+            for (final var future : executor.invokeAll(tasks)) {
+                assertEquals(graph, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, analyses.get());
+        assertEquals(List.of(15L, 1L), List.of(cache.getHits(), cache.getMisses()));
+    }
+}
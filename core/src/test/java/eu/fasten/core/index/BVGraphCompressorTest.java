@@ -0,0 +1,131 @@
+package eu.fasten.core.index;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.io.InputBitStream;
+import it.unimi.dsi.io.NullInputStream;
+import it.unimi.dsi.lang.MutableString;
+import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
+import it.unimi.dsi.webgraph.ArrayListMutableGraph;
+import it.unimi.dsi.webgraph.BVGraph;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.Transform;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BVGraphCompressorTest {
+
+    private static final String THREADS_PROPERTY = "it.unimi.dsi.webgraph.threads";
+
+    @TempDir
+    Path tempDir;
+
+    /** A random graph with runs of consecutive successors and similar successor lists, to exercise all codings. */
+    private static ImmutableGraph randomGraph(final int numNodes, final int maxOutdegree, final long seed) {
+        final var random = new Random(seed);
+        final var arcs = new LongOpenHashSet();
+        for (int x = 0; x < numNodes; x++) {
+            final int outdegree = random.nextInt(maxOutdegree + 1);
+            for (int i = 0; i < outdegree; i++) {
+                final int y = random.nextBoolean() ? Math.floorMod(x + random.nextInt(20) - 10, numNodes) : random.nextInt(numNodes);
+                arcs.add((long)x << 32 | y);
+            }
+            if (random.nextInt(8) == 0) {
+                final int from = random.nextInt(numNodes - 10);
+                for (int y = from; y < from + 6; y++) arcs.add((long)x << 32 | y);
+            }
+        }
+        final var graph = new ArrayListMutableGraph(numNodes);
+        for (final long arc : arcs) graph.addArc((int)(arc >>> 32), (int)arc);
+        return graph.immutableView();
+    }
+
+    private static byte[] serialize(final BVGraph graph) {
+        final Kryo kryo = new Kryo();
+        kryo.register(BVGraph.class, new BVGraphSerializer(kryo));
+        kryo.register(byte[].class);
+        kryo.register(InputBitStream.class);
+        kryo.register(NullInputStream.class);
+        kryo.register(EliasFanoMonotoneLongBigList.class, new JavaSerializer());
+        kryo.register(MutableString.class, new FieldSerializer<>(kryo, MutableString.class));
+        final Output output = new Output(1024, -1);
+        kryo.writeObject(output, graph);
+        return output.toBytes();
+    }
+
+    private void assertSameAsStored(final ImmutableGraph graph) throws IOException, IllegalAccessException {
+        final String basename = tempDir.resolve("graph").toString();
+        BVGraph.store(graph, basename);
+        final BVGraph stored = BVGraph.load(basename);
+        final Properties storedProperties = new Properties();
+        try (final var propertyFile = new FileInputStream(basename + BVGraph.PROPERTIES_EXTENSION)) {
+            storedProperties.load(propertyFile);
+        }
+
+        final Properties properties = new Properties();
+        final BVGraph compressed = BVGraphCompressor.compress(graph, properties);
+
+        assertEquals(BVGraph.class, compressed.getClass());
+        assertEquals(storedProperties, properties);
+        assertEquals(stored.numNodes(), compressed.numNodes());
+        assertEquals(stored.numArcs(), compressed.numArcs());
+        assertArrayEquals((byte[])FieldUtils.readField(stored, "graphMemory", true), (byte[])FieldUtils.readField(compressed, "graphMemory", true));
+        assertEquals(FieldUtils.readField(stored, "offsets", true), FieldUtils.readField(compressed, "offsets", true));
+        assertNull(compressed.basename());
+
+        // The serialized forms differ only in the basename
+        FieldUtils.writeField(stored, "basename", null, true);
+        assertArrayEquals(serialize(stored), serialize(compressed));
+
+        for (int x = 0; x < graph.numNodes(); x++) {
+            assertArrayEquals(Arrays.copyOf(graph.successorArray(x), graph.outdegree(x)), Arrays.copyOf(compressed.successorArray(x), compressed.outdegree(x)));
+        }
+    }
+
+    @Test
+    void compressTest() throws IOException, IllegalAccessException {
+        final ImmutableGraph graph = randomGraph(5000, 12, 0);
+        assertSameAsStored(graph);
+        assertSameAsStored(Transform.transpose(graph));
+    }
+
+    @Test
+    void denseCompressTest() throws IOException, IllegalAccessException {
+        assertSameAsStored(randomGraph(1000, 200, 2));
+    }
+
+    @Test
+    void largeGapsCompressTest() throws IOException, IllegalAccessException {
+        assertSameAsStored(randomGraph(150000, 3, 3));
+    }
+
+    @Test
+    void emptyListsTest() throws IOException, IllegalAccessException {
+        assertSameAsStored(new ArrayListMutableGraph(100).immutableView());
+    }
+
+    @Test
+    void parallelCompressTest() throws IOException, IllegalAccessException {
+        final String threads = System.getProperty(THREADS_PROPERTY);
+        System.setProperty(THREADS_PROPERTY, "4");
+        try {
+            assertSameAsStored(randomGraph(5000, 12, 1));
+        } finally {
+            if (threads == null) System.clearProperty(THREADS_PROPERTY);
+            else System.setProperty(THREADS_PROPERTY, threads);
+        }
+    }
+}
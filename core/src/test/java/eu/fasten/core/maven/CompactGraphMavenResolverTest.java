@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.maven;
+
+import eu.fasten.core.maven.data.*;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.junit.jupiter.api.Test;
+import java.sql.Timestamp;
+import java.util.*;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactGraphMavenResolverTest {
+
+    private static final String[] SCOPES = {"compile", "compile", "compile", "runtime", "provided", "test", "system", "", null};
+    private static final String[] TYPES = {"jar", "jar", "jar", "war", "pom", "test-jar", "", null};
+
+    /**
+     * A random dependency graph in which revisions depend on earlier ones, with all kinds of scopes,
+     * types, optional dependencies and exclusions, many revisions released at the same time and
+     * some revisions with many dependencies.
+     */
+    private static DefaultDirectedGraph<Revision, DependencyEdge> randomGraph(int numProducts, long seed) {
+        var random = new Random(seed);
+        var graph = new DefaultDirectedGraph<Revision, DependencyEdge>(DependencyEdge.class);
+        var revisions = new ArrayList<Revision>();
+        for (int p = 0; p < numProducts; p++) {
+            var versions = new ArrayList<Revision>();
+            for (int v = 0, numVersions = 1 + random.nextInt(4); v < numVersions; v++) {
+                var revision = new Revision("g" + p % 7, "a" + p, "1." + v, new Timestamp(1 + 10L * (p / 3) + random.nextInt(3)));
+                graph.addVertex(revision);
+                versions.add(revision);
+                var dependencies = p == 0 ? 0 : random.nextInt(20) == 0 ? 40 : random.nextInt(6);
+                for (int d = 0; d < dependencies; d++) {
+                    var target = revisions.get(random.nextInt(revisions.size()));
+                    if (graph.containsEdge(revision, target)) continue;
+                    var exclusions = new ArrayList<Dependency.Exclusion>();
+                    while (random.nextInt(8) == 0) {
+                        var excluded = random.nextInt(numProducts + 5);
+                        exclusions.add(new Dependency.Exclusion("g" + excluded % 7, "a" + excluded));
+                    }
+                    graph.addEdge(revision, target, new DependencyEdge(revision, target, SCOPES[random.nextInt(SCOPES.length)],
+                            random.nextInt(10) == 0, exclusions, TYPES[random.nextInt(TYPES.length)]));
+                }
+            }
+            revisions.addAll(versions);
+        }
+        return graph;
+    }
+
+    private static GraphMavenResolver uncachedResolver(GraphMavenResolver resolver) {
+        resolver.setResolutionCache(new ResolutionCache(0));
+        return resolver;
+    }
+
+    @Test
+    public void compactGraphTest() {
+        var A = new Revision("a", "a", "1", new Timestamp(10));
+        var B = new Revision("b", "b", "1", new Timestamp(5));
+        var C = new Revision("c", "c", "1", new Timestamp(1));
+        var graph = new DefaultDirectedGraph<Revision, DependencyEdge>(DependencyEdge.class);
+        for (var r : List.of(A, B, C)) graph.addVertex(r);
+        graph.addEdge(A, B, new DependencyEdge(A, B, "", false, List.of(new Dependency.Exclusion("d", "d")), null));
+        graph.addEdge(A, C, new DependencyEdge(A, C, "test", true, emptyList(), "pom"));
+        graph.addEdge(B, C, new DependencyEdge(B, C, "compile", false, emptyList(), "jar"));
+
+        var compact = new CompactDependencyGraph(graph);
+        assertEquals(3, compact.numRevisions());
+        assertEquals(3, compact.numEdges());
+        assertEquals(4, compact.numProducts());
+        var a = compact.id(A);
+        assertEquals(A, compact.revision(a));
+        assertEquals(10, compact.createdAt(a));
+        assertEquals(-1, compact.id(new Revision("a", "a", "2", new Timestamp(10))));
+        assertEquals(new MavenProduct("a", "a"), compact.product(compact.productOf(a)));
+
+        assertEquals(2, compact.edgeEnd(a) - compact.edgeStart(a));
+        var ab = compact.edgeStart(a);
+        assertEquals(compact.id(B), compact.target(ab));
+        assertEquals("compile", compact.scopeName(compact.scope(ab)));
+        assertEquals("jar", compact.typeName(compact.type(ab)));
+        assertFalse(compact.optional(ab));
+        assertEquals(new MavenProduct("d", "d"), compact.product(compact.exclusions(ab)[0]));
+        var ac = ab + 1;
+        assertEquals("test", compact.scopeName(compact.scope(ac)));
+        assertEquals("pom", compact.typeName(compact.type(ac)));
+        assertTrue(compact.optional(ac));
+        assertNull(compact.exclusions(ac));
+        assertEquals(2, compact.numScopes());
+        assertEquals(2, compact.numTypes());
+        assertEquals(0, compact.edgeEnd(compact.id(C)) - compact.edgeStart(compact.id(C)));
+    }
+
+    @Test
+    public void sameResultsTest() {
+        var dependencyGraph = GraphMavenResolver.dependencyGraph;
+        try {
+            for (long seed = 0; seed < 3; seed++) {
+                var graph = randomGraph(200, seed);
+                GraphMavenResolver.dependencyGraph = graph;
+                var resolver = uncachedResolver(new GraphMavenResolver());
+                var compactResolver = uncachedResolver(new CompactGraphMavenResolver(new CompactDependencyGraph(graph)));
+
+                for (var revision : graph.vertexSet()) {
+                    for (var transitive : new boolean[]{true, false}) {
+                        for (var timestamp : new long[]{revision.createdAt.getTime(), Long.MAX_VALUE}) {
+                            var expected = resolver.resolveDependencies(revision.groupId, revision.artifactId, revision.version.toString(),
+                                    timestamp, null, transitive);
+                            var actual = compactResolver.resolveDependencies(revision.groupId, revision.artifactId, revision.version.toString(),
+                                    timestamp, null, transitive);
+                            // Same dependencies, in the same order
+                            assertEquals(new ArrayList<>(expected), new ArrayList<>(actual), revision + " at " + timestamp);
+                        }
+                    }
+                }
+
+                var revisions = new ArrayList<>(graph.vertexSet());
+                var random = new Random(seed);
+                for (int i = 0; i < 100; i++) {
+                    var roots = new ArrayList<Revision>();
+                    for (int j = 0; j < 1 + random.nextInt(6); j++) roots.add(revisions.get(random.nextInt(revisions.size())));
+                    assertEquals(new ArrayList<>(resolver.resolveDependencies(roots, -1, true)),
+                            new ArrayList<>(compactResolver.resolveDependencies(roots, -1, true)), roots.toString());
+                }
+            }
+        } finally {
+            GraphMavenResolver.dependencyGraph = dependencyGraph;
+        }
+    }
+
+    @Test
+    public void tieBreakTest() {
+        // R depends on X, B 1.0 and B 1.1 (released at the same time) and Y; X and Y depend on
+        // C 1 and C 2, respectively, which are equally close to R: the first B and the last C met are selected
+        var R = new Revision("r", "r", "1", new Timestamp(100));
+        var X = new Revision("x", "x", "1", new Timestamp(1));
+        var B10 = new Revision("b", "b", "1.0", new Timestamp(1));
+        var B11 = new Revision("b", "b", "1.1", new Timestamp(1));
+        var Y = new Revision("y", "y", "1", new Timestamp(1));
+        var C1 = new Revision("c", "c", "1", new Timestamp(1));
+        var C2 = new Revision("c", "c", "2", new Timestamp(1));
+        var graph = new DefaultDirectedGraph<Revision, DependencyEdge>(DependencyEdge.class);
+        for (var r : List.of(R, X, B10, B11, Y, C1, C2)) graph.addVertex(r);
+        for (var r : List.of(X, B10, B11, Y)) graph.addEdge(R, r, new DependencyEdge(R, r, "compile", false, emptyList(), "jar"));
+        graph.addEdge(X, C1, new DependencyEdge(X, C1, "compile", false, emptyList(), "jar"));
+        graph.addEdge(Y, C2, new DependencyEdge(Y, C2, "compile", false, emptyList(), "jar"));
+
+        var dependencyGraph = GraphMavenResolver.dependencyGraph;
+        try {
+            GraphMavenResolver.dependencyGraph = graph;
+            for (var resolver : List.of(uncachedResolver(new GraphMavenResolver()),
+                    uncachedResolver(new CompactGraphMavenResolver(new CompactDependencyGraph(graph))))) {
+                assertEquals(List.of(X, B10, Y), new ArrayList<>(resolver.resolveDependencies("r", "r", "1", 100, null, false)));
+                assertEquals(List.of(X, B10, Y, C2), new ArrayList<>(resolver.resolveDependencies("r", "r", "1", 100, null, true)));
+            }
+        } finally {
+            GraphMavenResolver.dependencyGraph = dependencyGraph;
+        }
+    }
+
+    @Test
+    public void missingRevisionsTest() {
+        var A = new Revision("a", "a", "1", new Timestamp(10));
+        var B = new Revision("b", "b", "1", new Timestamp(5));
+        var graph = new DefaultDirectedGraph<Revision, DependencyEdge>(DependencyEdge.class);
+        graph.addVertex(A);
+        graph.addVertex(B);
+        graph.addEdge(A, B, new DependencyEdge(A, B, "compile", false, emptyList(), "jar"));
+        var resolver = new CompactGraphMavenResolver(new CompactDependencyGraph(graph));
+        var missing = new Revision("e", "e", "1", new Timestamp(1));
+
+        assertThrows(RuntimeException.class, () -> resolver.resolveDependencies("e", "e", "1", 1, null, true));
+        assertThrows(RuntimeException.class, () -> resolver.resolveDependencies(List.of(A, missing), -1, true));
+        resolver.setIgnoreMissing(true);
+        assertEquals(Set.of(A, B), resolver.resolveDependencies(List.of(A, missing), -1, true));
+        assertEquals(Set.of(B), resolver.resolveDependencies("a", "a", "1", 10, null, true));
+    }
+}
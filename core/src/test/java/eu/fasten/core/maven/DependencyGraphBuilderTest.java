@@ -19,12 +19,24 @@
 package eu.fasten.core.maven;
 
 import eu.fasten.core.maven.data.Dependency;
+import eu.fasten.core.maven.data.MavenProduct;
 import eu.fasten.core.maven.data.Revision;
+import eu.fasten.core.maven.utils.DependencyGraphUtilities;
+import org.jooq.DSLContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DependencyGraphBuilderTest {
 
@@ -146,4 +158,104 @@ public class DependencyGraphBuilderTest {
         actual = graphBuilder.findMatchingRevisions(revisions, constraints);
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void updateDependencyGraphTest() {
+        var a1 = new Revision(1, "a", "a", "1.0", new Timestamp(1));
+        var b1 = new Revision(2, "b", "b", "1.0", new Timestamp(2));
+        var c1 = new Revision(3, "c", "c", "1.0", new Timestamp(3));
+        var old = new HashMap<Revision, List<Dependency>>();
+        old.put(a1, List.of(Dependency.empty));
+        old.put(b1, List.of(new Dependency("a", "a", "[1.0,)")));
+        old.put(c1, List.of(new Dependency("a", "a", "[1.0]"), new Dependency("d", "d", "[1.0,2.0)")));
+
+        // A new release matching the range of b, a new product matching a dangling dependency of c, and a new
+        // revision depending on both old and new revisions
+        var a2 = new Revision(4, "a", "a", "2.0", new Timestamp(4));
+        var d1 = new Revision(5, "d", "d", "1.5", new Timestamp(5));
+        var e1 = new Revision(6, "e", "e", "1.0", new Timestamp(6));
+        var added = new HashMap<Revision, List<Dependency>>();
+        added.put(a2, List.of(Dependency.empty));
+        added.put(d1, List.of(Dependency.empty));
+        added.put(e1, List.of(new Dependency("a", "a", "[1.0,3.0)"), new Dependency("b", "b", "1.0")));
+
+        var all = new HashMap<>(old);
+        all.putAll(added);
+        var expected = graphBuilder.buildDependencyGraph(all);
+
+        var graph = graphBuilder.buildDependencyGraph(old);
+        assertEquals(3, DependencyGraphBuilder.watermark(graph));
+        // The dependents of the new products: the dependencies on other products are ignored
+        var dependents = new HashMap<Revision, List<Dependency>>();
+        dependents.put(b1, List.of(new Dependency("a", "a", "[1.0,)")));
+        dependents.put(c1, List.of(new Dependency("a", "a", "[1.0]"), new Dependency("d", "d", "[1.0,2.0)")));
+        dependents.put(e1, added.get(e1));
+        var count = graphBuilder.updateDependencyGraph(graph, added, dependents);
+
+        assertEquals(expected.vertexSet(), graph.vertexSet());
+        assertEquals(new HashSet<>(expected.edgeSet()), new HashSet<>(graph.edgeSet()));
+        assertEquals(expected.edgeSet().size() - 2, count);
+        assertTrue(graph.containsEdge(b1, a2));
+        assertTrue(graph.containsEdge(c1, d1));
+        assertFalse(graph.containsEdge(c1, a2));
+        assertEquals(6, DependencyGraphBuilder.watermark(graph));
+
+        // Applying the same package versions again does not change the graph
+        assertEquals(0, graphBuilder.updateDependencyGraph(graph, added, dependents));
+        assertEquals(expected.edgeSet().size(), graph.edgeSet().size());
+    }
+
+    @Test
+    public void lateCommittedRevisionsTest() {
+        var a1 = new Revision(10, "a", "a", "1.0", new Timestamp(1));
+        var b1 = new Revision(12, "b", "b", "1.0", new Timestamp(2));
+        var graph = graphBuilder.buildDependencyGraph(Map.of(a1, List.of(Dependency.empty), b1, List.of(Dependency.empty)));
+        assertEquals(12, DependencyGraphBuilder.watermark(graph));
+
+        // a 2.0 got id 11, but its transaction committed after the graph was built
+        var a2 = new Revision(11, "a", "a", "2.0", new Timestamp(3));
+        var database = Map.of(a1, List.<Dependency>of(Dependency.empty), a2, List.<Dependency>of(Dependency.empty),
+                b1, List.<Dependency>of(Dependency.empty));
+        var lowerBounds = new ArrayList<Long>();
+        var builder = new DependencyGraphBuilder() {
+            @Override
+            public Map<Revision, List<Dependency>> getDependencyList(DSLContext dbContext, long watermark) {
+                lowerBounds.add(watermark);
+                var result = new HashMap<Revision, List<Dependency>>();
+                database.forEach((r, d) -> {
+                    if (r.id > watermark) result.put(r, d);
+                });
+                return result;
+            }
+
+            @Override
+            public Map<Revision, List<Dependency>> getDependentList(DSLContext dbContext, Collection<MavenProduct> products) {
+                return Map.of();
+            }
+        };
+
+        assertEquals(12, builder.updateDependencyGraph(null, graph, 12, 5));
+        assertEquals(List.of(7L), lowerBounds);
+        assertTrue(graph.containsVertex(a2));
+        assertEquals(3, graph.vertexSet().size());
+
+        // Without a window, the late package version would have been skipped
+        graph.removeVertex(a2);
+        assertEquals(12, builder.updateDependencyGraph(null, graph, 12, 0));
+        assertFalse(graph.containsVertex(a2));
+    }
+
+    @Test
+    public void serializedWatermarkTest(@TempDir Path dir) throws Exception {
+        var path = dir.resolve("graph").toString();
+        var graph = graphBuilder.buildDependencyGraph(Map.of(
+                new Revision(7, "a", "a", "1.0", new Timestamp(1)), List.of(Dependency.empty)));
+        assertEquals(-1, DependencyGraphUtilities.readWatermark(path));
+
+        DependencyGraphUtilities.serializeDependencyGraph(graph, path);
+        assertEquals(7, DependencyGraphUtilities.readWatermark(path));
+        DependencyGraphUtilities.serializeDependencyGraph(graph, path, 42);
+        assertEquals(42, DependencyGraphUtilities.readWatermark(path));
+        assertEquals(7, DependencyGraphBuilder.watermark(DependencyGraphUtilities.loadDependencyGraph(path).get()));
+    }
 }
@@ -26,6 +26,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.*;
@@ -190,4 +192,175 @@ public class GraphMavenResolverTest {
         var actual = graphMavenResolver.filterDependenciesByExclusions(dependencies, exclusions, descendants);
         assertEquals(expected, actual);
     }
+
+    /** A -> B:1 -> C, A -> D, where B:2 (released later than A) also depends on C. */
+    private static DefaultDirectedGraph<Revision, DependencyEdge> resolutionGraph() {
+        var graph = new DefaultDirectedGraph<Revision, DependencyEdge>(DependencyEdge.class);
+        var A = new Revision("a", "a", "1", new Timestamp(10));
+        var B1 = new Revision("b", "b", "1", new Timestamp(5));
+        var B2 = new Revision("b", "b", "2", new Timestamp(20));
+        var C = new Revision("c", "c", "1", new Timestamp(1));
+        var D = new Revision("d", "d", "1", new Timestamp(1));
+        for (var r : List.of(A, B1, B2, C, D)) graph.addVertex(r);
+        graph.addEdge(A, B1, new DependencyEdge(A, B1, "compile", false, emptyList(), "jar"));
+        graph.addEdge(A, B2, new DependencyEdge(A, B2, "compile", false, emptyList(), "jar"));
+        graph.addEdge(A, D, new DependencyEdge(A, D, "compile", false, emptyList(), "jar"));
+        graph.addEdge(B1, C, new DependencyEdge(B1, C, "compile", false, emptyList(), "jar"));
+        graph.addEdge(B2, C, new DependencyEdge(B2, C, "compile", false, emptyList(), "jar"));
+        return graph;
+    }
+
+    @Test
+    public void resolutionCacheTest() {
+        var dependencyGraph = GraphMavenResolver.dependencyGraph;
+        try {
+            GraphMavenResolver.dependencyGraph = resolutionGraph();
+            var cache = graphMavenResolver.getResolutionCache();
+            var expected = Set.of(new Revision("b", "b", "1", new Timestamp(5)), new Revision("c", "c", "1", new Timestamp(1)),
+                    new Revision("d", "d", "1", new Timestamp(1)));
+
+            var first = graphMavenResolver.resolveDependencies("a", "a", "1", 10, null, true);
+            assertEquals(expected, first);
+            assertEquals(0, cache.hits());
+            first.clear();
+            var second = graphMavenResolver.resolveDependencies("a", "a", "1", 10, null, true);
+            assertEquals(expected, second);
+            assertEquals(1, cache.hits());
+            assertEquals(0.5, cache.hitRatio());
+
+            // Every element of the request is part of the key
+            assertEquals(2, graphMavenResolver.resolveDependencies("a", "a", "1", 10, null, false).size());
+            assertTrue(graphMavenResolver.resolveDependencies("a", "a", "1", 30, null, true).contains(new Revision("b", "b", "2", new Timestamp(20))));
+            assertEquals(3, cache.size());
+            assertEquals(1, cache.hits());
+
+            // Reloading the graph invalidates the cache
+            GraphMavenResolver.dependencyGraph = resolutionGraph();
+            assertEquals(expected, graphMavenResolver.resolveDependencies("a", "a", "1", 10, null, true));
+            assertEquals(1, cache.hits());
+            assertEquals(1, cache.size());
+            assertEquals(1, cache.invalidations());
+
+            // So does modifying it
+            var virtualNode = graphMavenResolver.addVirtualNode(new ObjectLinkedOpenHashSet<>(List.of(new Revision("d", "d", "1", new Timestamp(1)))));
+            graphMavenResolver.removeVirtualNode(virtualNode);
+            graphMavenResolver.resolveDependencies("a", "a", "1", 10, null, true);
+            assertEquals(1, cache.hits());
+            assertEquals(2, cache.invalidations());
+        } finally {
+            GraphMavenResolver.dependencyGraph = dependencyGraph;
+        }
+    }
+
+    @Test
+    public void resolutionCacheEvictionTest() {
+        var dependencyGraph = GraphMavenResolver.dependencyGraph;
+        try {
+            GraphMavenResolver.dependencyGraph = resolutionGraph();
+            graphMavenResolver.setResolutionCache(new ResolutionCache(2));
+            var cache = graphMavenResolver.getResolutionCache();
+            for (long timestamp : new long[]{10, 20, 30, 10}) {
+                graphMavenResolver.resolveDependencies("a", "a", "1", timestamp, null, true);
+            }
+            assertEquals(0, cache.hits());
+            assertEquals(2, cache.evictions());
+            assertEquals(2, cache.size());
+
+            graphMavenResolver.setResolutionCache(new ResolutionCache(0));
+            graphMavenResolver.resolveDependencies("a", "a", "1", 10, null, true);
+            graphMavenResolver.resolveDependencies("a", "a", "1", 10, null, true);
+            assertEquals(0, graphMavenResolver.getResolutionCache().hits());
+            assertEquals(0, graphMavenResolver.getResolutionCache().size());
+        } finally {
+            GraphMavenResolver.dependencyGraph = dependencyGraph;
+        }
+    }
+
+    @Test
+    public void multipleRootsTest() {
+        var dependencyGraph = GraphMavenResolver.dependencyGraph;
+        try {
+            var graph = resolutionGraph();
+            GraphMavenResolver.dependencyGraph = graph;
+            var numVertices = graph.vertexSet().size();
+            var numEdges = graph.edgeSet().size();
+            var B1 = new Revision("b", "b", "1", new Timestamp(5));
+            var C = new Revision("c", "c", "1", new Timestamp(1));
+            var D = new Revision("d", "d", "1", new Timestamp(1));
+
+            // The timestamp of the latest root is used by default
+            assertEquals(Set.of(B1, C, D), graphMavenResolver.resolveDependencies(List.of(B1, D), -1, true));
+            assertEquals(Set.of(B1, D), graphMavenResolver.resolveDependencies(List.of(B1, D), -1, false));
+            // Same as resolving A, which depends on B and D
+            assertEquals(graphMavenResolver.resolveDependencies("a", "a", "1", 10, null, true),
+                    graphMavenResolver.resolveDependencies(List.of(B1, D), 10, true));
+            // The graph is not modified
+            assertEquals(numVertices, graph.vertexSet().size());
+            assertEquals(numEdges, graph.edgeSet().size());
+
+            var missing = new Revision("e", "e", "1", new Timestamp(1));
+            assertThrows(RuntimeException.class, () -> graphMavenResolver.resolveDependencies(List.of(B1, missing), -1, true));
+            graphMavenResolver.setIgnoreMissing(true);
+            assertEquals(Set.of(B1, C), graphMavenResolver.resolveDependencies(List.of(B1, missing), -1, true));
+        } finally {
+            GraphMavenResolver.dependencyGraph = dependencyGraph;
+        }
+    }
+
+    @Test
+    public void concurrentMultipleRootsTest() throws Exception {
+        var dependencyGraph = GraphMavenResolver.dependencyGraph;
+        try {
+            // Products are released in order, and each revision depends on some earlier products
+            var random = new Random(0);
+            var graph = new DefaultDirectedGraph<Revision, DependencyEdge>(DependencyEdge.class);
+            var revisions = new ArrayList<Revision>();
+            for (int p = 0; p < 200; p++) {
+                for (int v = 0; v < 3; v++) {
+                    var revision = new Revision("g" + p, "a" + p, "1." + v, new Timestamp(100L * p + v + 1));
+                    graph.addVertex(revision);
+                    for (int d = 0; p > 0 && d < 3; d++) {
+                        var target = revisions.get(random.nextInt(revisions.size()));
+                        var scope = random.nextInt(10) == 0 ? "test" : "compile";
+                        if (!graph.containsEdge(revision, target)) {
+                            graph.addEdge(revision, target, new DependencyEdge(revision, target, scope, false, emptyList(), "jar"));
+                        }
+                    }
+                    revisions.add(revision);
+                }
+            }
+            GraphMavenResolver.dependencyGraph = graph;
+
+            var rootSets = new ArrayList<List<Revision>>();
+            for (int i = 0; i < 64; i++) {
+                var roots = new ArrayList<Revision>();
+                for (int j = 0; j < 1 + random.nextInt(5); j++) roots.add(revisions.get(random.nextInt(revisions.size())));
+                rootSets.add(roots);
+            }
+            var expected = new ArrayList<Set<Revision>>();
+            for (var roots : rootSets) expected.add(graphMavenResolver.resolveDependencies(roots, -1, true));
+
+            var executor = Executors.newFixedThreadPool(8);
+            try {
+                var futures = new ArrayList<Future<Boolean>>();
+                for (int t = 0; t < 8; t++) {
+                    var seed = t;
+                    futures.add(executor.submit(() -> {
+                        var resolver = new GraphMavenResolver();
+                        var threadRandom = new Random(seed);
+                        for (int i = 0; i < 50; i++) {
+                            var k = threadRandom.nextInt(rootSets.size());
+                            if (!expected.get(k).equals(resolver.resolveDependencies(rootSets.get(k), -1, true))) return false;
+                        }
+                        return true;
+                    }));
+                }
+                for (var future : futures) assertTrue(future.get());
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            GraphMavenResolver.dependencyGraph = dependencyGraph;
+        }
+    }
 }
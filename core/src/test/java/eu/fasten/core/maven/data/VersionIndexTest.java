@@ -0,0 +1,140 @@
+package eu.fasten.core.maven.data;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.junit.jupiter.api.Test;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VersionIndexTest {
+
+    private static final String[] QUALIFIERS = {"", "", "", "-SNAPSHOT", "-alpha", "-alpha-1", "-beta2", "-rc1", "-RC2", ".RELEASE",
+            ".Final", "-final", "-ga", "-sp1", "-jre", "-android", "-M3", "-cr1", "-20200101", "-1", "a1"};
+
+    private static String randomVersion(Random random) {
+        if (random.nextInt(50) == 0) {
+            return random.nextBoolean() ? "" : "latest";
+        }
+        var version = new StringBuilder().append(random.nextInt(4));
+        for (int i = 0, n = random.nextInt(4); i < n; i++) {
+            version.append('.').append(random.nextInt(random.nextInt(8) == 0 ? 12 : 3));
+        }
+        return version.append(QUALIFIERS[random.nextInt(QUALIFIERS.length)]).toString();
+    }
+
+    private static Dependency.VersionConstraint randomConstraint(Random random) {
+        var lower = random.nextInt(4) == 0 ? "" : randomVersion(random);
+        var upper = random.nextInt(4) == 0 ? "" : random.nextInt(6) == 0 ? lower : randomVersion(random);
+        while (lower.isEmpty() && upper.isEmpty()) {
+            // VersionConstraint cannot parse ranges without bounds
+            upper = randomVersion(random);
+        }
+        var open = random.nextBoolean() ? "[" : "(";
+        var close = random.nextBoolean() ? "]" : ")";
+        switch (random.nextInt(5)) {
+            case 0:
+                return new Dependency.VersionConstraint(lower);
+            case 1:
+                return new Dependency.VersionConstraint("[" + lower + "]");
+            case 2:
+                return new Dependency.VersionConstraint(open + lower + "," + upper + close);
+            case 3:
+                return new Dependency.VersionConstraint(lower + "," + upper);
+            default:
+                return new Dependency.VersionConstraint(lower, random.nextBoolean(), upper, random.nextBoolean());
+        }
+    }
+
+    /**
+     * The matching semantics of {@link eu.fasten.core.maven.DependencyGraphBuilder} before version ranges
+     * were precompiled: every constraint is checked against every revision.
+     */
+    private static List<Revision> linearMatch(List<Revision> revisions, List<Dependency.VersionConstraint> constraints) {
+        return revisions.stream().filter(r -> {
+            for (var constraint : constraints) {
+                if ((constraint.toString().startsWith("[") || constraint.toString().startsWith("("))
+                        && (constraint.toString().endsWith("]") || constraint.toString().endsWith(")"))) {
+                    var lower = constraint.lowerBound.isEmpty()
+                            || (constraint.isLowerHardRequirement
+                            ? r.version.compareTo(new DefaultArtifactVersion(constraint.lowerBound)) >= 0
+                            : r.version.compareTo(new DefaultArtifactVersion(constraint.lowerBound)) > 0);
+                    var upper = constraint.upperBound.isEmpty()
+                            || (constraint.isUpperHardRequirement
+                            ? r.version.compareTo(new DefaultArtifactVersion(constraint.upperBound)) <= 0
+                            : r.version.compareTo(new DefaultArtifactVersion(constraint.upperBound)) < 0);
+                    if (lower && upper) {
+                        return true;
+                    }
+                } else {
+                    if (constraint.lowerBound.equals(constraint.upperBound) &&
+                            new DefaultArtifactVersion(constraint.lowerBound).equals(r.version)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }).collect(Collectors.toList());
+    }
+
+    @Test
+    public void sameMatchesAsLinearScanTest() {
+        var random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            var revisions = new ArrayList<Revision>();
+            for (int j = 0, n = random.nextInt(30); j < n; j++) {
+                revisions.add(new Revision("g", "a", randomVersion(random), new Timestamp(j)));
+            }
+            var index = new VersionIndex(revisions);
+            assertEquals(revisions, index.revisions());
+            for (int j = 0; j < 20; j++) {
+                var constraints = new ArrayList<Dependency.VersionConstraint>();
+                for (int k = 0, n = 1 + random.nextInt(3); k < n; k++) {
+                    constraints.add(randomConstraint(random));
+                }
+                assertEquals(linearMatch(revisions, constraints), index.matching(VersionRange.of(constraints)),
+                        revisions + " " + constraints);
+            }
+        }
+    }
+
+    @Test
+    public void versionRangeTest() {
+        var range = VersionRange.of(new Dependency.VersionConstraint("(1.0,2.0]"));
+        assertFalse(range.contains(new DefaultArtifactVersion("1.0")));
+        assertTrue(range.contains(new DefaultArtifactVersion("1.0.1")));
+        assertTrue(range.contains(new DefaultArtifactVersion("2.0.0")));
+        assertFalse(range.contains(new DefaultArtifactVersion("2.0.1")));
+
+        range = VersionRange.of(new Dependency.VersionConstraint("1.5"));
+        assertTrue(range.contains(new DefaultArtifactVersion("1.5.0")));
+        assertFalse(range.contains(new DefaultArtifactVersion("1.6")));
+
+        range = VersionRange.of(new Dependency.VersionConstraint("[,1.0)"));
+        assertTrue(range.contains(new DefaultArtifactVersion("0.1")));
+        assertFalse(range.contains(new DefaultArtifactVersion("1.0")));
+
+        range = VersionRange.of(new Dependency.VersionConstraint("1.0", false, "2.0", false));
+        assertFalse(range.isEmpty());
+        assertTrue(range.contains(new DefaultArtifactVersion("1.5")));
+    }
+
+    @Test
+    public void overlappingRangesTest() {
+        var revisions = List.of(
+                new Revision("a", "a", "3.0", new Timestamp(3)),
+                new Revision("a", "a", "1.0", new Timestamp(1)),
+                new Revision("a", "a", "2.0", new Timestamp(2))
+        );
+        var ranges = VersionRange.of(List.of(
+                new Dependency.VersionConstraint("[1.0,2.0]"),
+                new Dependency.VersionConstraint("[2.0,)")
+        ));
+        assertEquals(revisions, new VersionIndex(revisions).matching(ranges));
+        assertEquals(List.of(), new VersionIndex(List.of()).matching(ranges));
+    }
+}
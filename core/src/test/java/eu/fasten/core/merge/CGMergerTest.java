@@ -169,6 +169,60 @@ public class CGMergerTest {
                 Set.of(BAR_SUPER_METHOD, BAZ_INIT, BAR_INIT, FOO_STATIC_METHOD, FOO_INIT));
     }
 
+    @Test
+    public void mergeWithSharedCHAIndexTest() throws RocksDBException {
+        var provider = new MockProvider();
+        var context = DSL.using(new MockConnection(provider), SQLDialect.POSTGRES);
+
+        var directedGraph = createMockDirectedGraph();
+
+        var rocksDao = Mockito.mock(RocksDao.class);
+        Mockito.when(rocksDao.getGraphData(42)).thenReturn(directedGraph);
+        Mockito.when(rocksDao.getGraphMetadata(42, directedGraph)).thenReturn(graphMetadata);
+
+        var chaIndex = new ClassHierarchyIndex();
+        var firstGraph = new CGMerger(Set.of(42L), context, rocksDao, chaIndex).mergeWithCHA(42);
+        var numQueries = provider.numQueries;
+        var secondGraph = new CGMerger(Set.of(42L), context, rocksDao, chaIndex).mergeWithCHA(42);
+
+        assertEquals(numQueries, provider.numQueries);
+        assertEquals(1, chaIndex.hits());
+        assertEquals(1, chaIndex.misses());
+        assertEquals(new HashSet<>(firstGraph.successors(MAIN_MAIN_METHOD)),
+                new HashSet<>(secondGraph.successors(MAIN_MAIN_METHOD)));
+        assertEquals(new HashSet<>(secondGraph.successors(MAIN_MAIN_METHOD)),
+                Set.of(BAR_SUPER_METHOD, BAZ_INIT, BAR_INIT, FOO_STATIC_METHOD, FOO_INIT));
+
+        chaIndex.update(42);
+        new CGMerger(Set.of(42L), context, rocksDao, chaIndex);
+        assertTrue(provider.numQueries > numQueries);
+        assertEquals(2, chaIndex.misses());
+    }
+
+    @Test
+    public void incompleteDependencySetIsNotCachedTest() throws RocksDBException {
+        var context = DSL.using(new MockConnection(new MockProvider()), SQLDialect.POSTGRES);
+
+        var directedGraph = createMockDirectedGraph();
+
+        var rocksDao = Mockito.mock(RocksDao.class);
+        Mockito.when(rocksDao.getGraphData(42)).thenReturn(directedGraph);
+        Mockito.when(rocksDao.getGraphMetadata(42, directedGraph)).thenReturn(graphMetadata);
+
+        // Graph 43 is not in the graph database yet
+        var chaIndex = new ClassHierarchyIndex();
+        new CGMerger(Set.of(42L, 43L), context, rocksDao, chaIndex);
+        new CGMerger(Set.of(42L, 43L), context, rocksDao, chaIndex);
+        assertEquals(0, chaIndex.hits());
+        assertEquals(2, chaIndex.misses());
+
+        Mockito.when(rocksDao.getGraphData(43)).thenReturn(directedGraph);
+        new CGMerger(Set.of(42L, 43L), context, rocksDao, chaIndex);
+        new CGMerger(Set.of(42L, 43L), context, rocksDao, chaIndex);
+        assertEquals(1, chaIndex.hits());
+        assertEquals(3, chaIndex.misses());
+    }
+
     private DirectedGraph createMockDirectedGraph() {
         var directedGraph = new ArrayImmutableDirectedGraph.Builder();
         directedGraph.addInternalNode(MAIN_INIT);
@@ -197,6 +251,8 @@ public class CGMergerTest {
         private final String typeMapQuery;
         private final String dependenciesQuery;
 
+        private int numQueries;
+
         public MockProvider() {
             this.context = DSL.using(SQLDialect.POSTGRES);
 
@@ -231,12 +287,15 @@ public class CGMergerTest {
             MockResult[] mock = new MockResult[1];
 
             var sql = ctx.sql();
+            numQueries++;
 
             if (sql.startsWith(modulesIdsQuery)) {
                 mock[0] = new MockResult(0, context.newResult(Callables.CALLABLES.MODULE_ID));
 
             } else if (sql.startsWith(dependenciesQuery)) {
-                mock[0] = new MockResult(0, context.newResult(PackageVersions.PACKAGE_VERSIONS.ID));
+                var result = context.newResult(PackageVersions.PACKAGE_VERSIONS.ID);
+                result.add(context.newRecord(PackageVersions.PACKAGE_VERSIONS.ID).values(42L));
+                mock[0] = new MockResult(result.size(), result);
 
             } else if (sql.startsWith(universalCHAQuery)) {
                 mock[0] = createUniversalCHA();
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.core.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PhaseStatisticsTest {
+
+	@Test
+	void testPercentiles() {
+		final PhaseStatistics statistics = new PhaseStatistics("Test");
+		assertEquals(0, statistics.percentile(50));
+		for (int i = 100; i >= 1; i--) statistics.add(i);
+		assertEquals(100, statistics.count());
+		assertEquals(5050, statistics.total());
+		assertEquals(1, statistics.percentile(1));
+		assertEquals(50, statistics.percentile(50));
+		assertEquals(90, statistics.percentile(90));
+		assertEquals(100, statistics.percentile(100));
+		assertThrows(IllegalArgumentException.class, () -> statistics.percentile(0));
+		statistics.clear();
+		assertEquals(0, statistics.count());
+		assertEquals(0, statistics.total());
+	}
+
+	@Test
+	void testConcurrentAdd() throws InterruptedException {
+		final PhaseStatistics statistics = new PhaseStatistics("Test");
+		final List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			final Thread thread = new Thread(() -> {
+				for (int i = 0; i < 1000; i++) statistics.add(1);
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (final Thread thread : threads) thread.join();
+		assertEquals(8000, statistics.count());
+		assertEquals(8000, statistics.total());
+	}
+}
@@ -30,12 +30,15 @@ import java.net.URI;
 import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ObjectUtils;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.jooq.DSLContext;
 import org.pf4j.JarPluginManager;
 import org.slf4j.Logger;
@@ -156,6 +159,28 @@ public class FastenServer implements Runnable {
             description = "Directory of local storage, must be available from every pod location. Default's to /mnt/fasten/local_storage/plugin_name")
     String localStorageDir;
 
+    @Option(names = {"-lsi", "--local_storage_indexed"},
+            paramLabel = "localStorageIndexed",
+            description = "Keeps local storage in an append-only log per partition with an in-memory index, instead of one file per record. "
+                    + "Records stored with the default layout are migrated automatically."
+    )
+    boolean localStorageIndexed;
+
+    @Option(names = {"-w", "--workers"},
+            paramLabel = "workers",
+            description = "Enables the throughput mode: polled records are processed in parallel by the given number of workers, each with its own plugin instance, "
+                    + "outputs are sent asynchronously and offsets are committed once outputs are acknowledged. Disabled by default.",
+            defaultValue = "0"
+    )
+    int workers;
+
+    @Option(names = {"-ci", "--commit_interval"},
+            paramLabel = "commitInterval",
+            description = "Minimum interval in milliseconds between two commits in throughput mode.",
+            defaultValue = "0"
+    )
+    long commitInterval;
+
     private static final Logger logger = LoggerFactory.getLogger(FastenServer.class);
 
     @Override
@@ -194,6 +219,16 @@ public class FastenServer implements Runnable {
         var graphResolverUserPlugins = jarPluginManager.getExtensions(DependencyGraphUser.class);
         var graphDbReaderPlugins = jarPluginManager.getExtensions(GraphDBReader.class);
 
+        // Additional plugin instances for the workers of the throughput mode need the same setup as the original ones.
+        var workerPlugins = createWorkerPlugins(jarPluginManager, kafkaPlugins);
+        workerPlugins.values().stream().flatMap(w -> w.stream().skip(1)).forEach(w -> {
+            if (w instanceof DBConnector) dbPlugins.add((DBConnector) w);
+            if (w instanceof GraphDBConnector) graphDbPlugins.add((GraphDBConnector) w);
+            if (w instanceof DataWriter) dataWriterPlugins.add((DataWriter) w);
+            if (w instanceof DependencyGraphUser) graphResolverUserPlugins.add((DependencyGraphUser) w);
+            if (w instanceof GraphDBReader) graphDbReaderPlugins.add((GraphDBReader) w);
+        });
+
         logger.info("Plugin init done: {} KafkaPlugins, {} DB plug-ins, {} GraphDB plug-ins:"
                         + " {} total plugins",
                 kafkaPlugins.size(), dbPlugins.size(), graphDbPlugins.size(), fastenPlugins.size());
@@ -207,21 +242,42 @@ public class FastenServer implements Runnable {
         loadDependencyGraphResolvers(graphResolverUserPlugins);
         makeReadOnlyGraphDBConnection(graphDbReaderPlugins);
 
-        var kafkaServerPlugins = setupKafkaPlugins(kafkaPlugins);
+        var kafkaServerPlugins = setupKafkaPlugins(kafkaPlugins, workerPlugins);
 
         kafkaServerPlugins.forEach(FastenServerPlugin::start);
     }
 
+    /**
+     * Creates the plugin instances used by the workers of the throughput mode.
+     *
+     * @param jarPluginManager plugin manager
+     * @param kafkaPlugins     list of consumers
+     * @return a map from each selected consumer to the list of its instances (starting with the consumer itself)
+     */
+    private Map<KafkaPlugin, List<KafkaPlugin>> createWorkerPlugins(JarPluginManager jarPluginManager, List<KafkaPlugin> kafkaPlugins) {
+        var workerPlugins = new HashMap<KafkaPlugin, List<KafkaPlugin>>();
+        kafkaPlugins.stream().filter(x -> plugins.contains(x.getClass().getSimpleName())).forEach(k -> {
+            var instances = new ArrayList<KafkaPlugin>();
+            instances.add(k);
+            for (int i = 1; i < workers; i++) {
+                instances.add((KafkaPlugin) jarPluginManager.getExtensionFactory().create(k.getClass()));
+            }
+            workerPlugins.put(k, instances);
+        });
+        return workerPlugins;
+    }
+
     /**
      * Changes Kafka topics of consumers ad producers if specified in command line.
      *
-     * @param kafkaPlugins list of consumers
+     * @param kafkaPlugins  list of consumers
+     * @param workerPlugins instances of each consumer for the workers of the throughput mode
      */
-    private List<FastenServerPlugin> setupKafkaPlugins(List<KafkaPlugin> kafkaPlugins) {
+    private List<FastenServerPlugin> setupKafkaPlugins(List<KafkaPlugin> kafkaPlugins, Map<KafkaPlugin, List<KafkaPlugin>> workerPlugins) {
         if (pluginTopic != null) {
             kafkaPlugins.stream()
                     .filter(x -> pluginTopic.containsKey(x.getClass().getSimpleName()))
-                    .forEach(x -> x.setTopic(pluginTopic.get(x.getClass().getSimpleName())));
+                    .forEach(x -> workerPlugins.getOrDefault(x, List.of(x)).forEach(w -> w.setTopic(pluginTopic.get(x.getClass().getSimpleName()))));
         }
 
         return kafkaPlugins.stream().filter(x -> plugins.contains(x.getClass().getSimpleName())).map(k -> {
@@ -231,11 +287,16 @@ public class FastenServer implements Runnable {
                     k.getSessionTimeout(),
                     k.getMaxConsumeTimeout(),
                     k.isStaticMembership());
+            if (workers > 0) {
+                // Poll one record per worker.
+                consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(workers));
+            }
             var producerProperties = KafkaConnector.kafkaProducerProperties(
                     kafkaServers,
                     k.getClass().getCanonicalName());
 
-            return new FastenKafkaPlugin(consumerProperties, producerProperties, k, skipOffsets,
+            return new FastenKafkaPlugin(true, consumerProperties, producerProperties, workerPlugins.get(k),
+                    workers > 0, commitInterval, skipOffsets,
                     (outputDirs != null) ? outputDirs.get(k.getClass().getSimpleName()) : null,
                     (outputLinks != null) ? outputLinks.get(k.getClass().getSimpleName()) : null,
                     (outputTopic != null) ? outputTopic : k.getClass().getSimpleName(),
@@ -243,6 +304,7 @@ public class FastenServer implements Runnable {
                     consumeTimeout,
                     consumeTimeoutExit,
                     localStorage,
+                    localStorageIndexed,
                     (localStorageDir != null) ? localStorageDir : "/mnt/fasten/local_storage/" + k.getClass().getSimpleName());
         }).collect(Collectors.toList());
     }
@@ -19,18 +19,27 @@
 package eu.fasten.server.plugins.kafka;
 
 import com.google.common.base.Strings;
+import eu.fasten.core.data.Constants;
 import eu.fasten.core.plugins.KafkaPlugin;
 import eu.fasten.server.plugins.FastenServerPlugin;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
@@ -39,11 +48,15 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
@@ -57,9 +70,9 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
     private final KafkaPlugin plugin;
 
     private final AtomicBoolean closed = new AtomicBoolean(false);
-    private KafkaConsumer<String, String> connection;
+    private Consumer<String, String> connection;
 
-    private KafkaProducer<String, String> producer;
+    private Producer<String, String> producer;
     private final String outputTopic;
 
     private final int skipOffsets;
@@ -78,6 +91,22 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
     // Executor service which creates a thread pool and re-uses threads when possible.
     private final ExecutorService executorService = Executors.newCachedThreadPool();
 
+    // Configuration for the throughput mode.
+    private final boolean pipelined;
+    private final long commitInterval;
+
+    // Plugin instances which are currently not processing a record (throughput mode only).
+    private final BlockingQueue<KafkaPlugin> idlePlugins;
+    // Worker pool processing the records of a batch, one per plugin instance (throughput mode only).
+    private final ExecutorService workerPool;
+    // Batches whose outputs have been sent, in order of consumption (throughput mode only).
+    private final Queue<PendingBatch> pendingBatches = new ArrayDeque<>();
+    // Offsets of acknowledged batches which are not committed yet (throughput mode only).
+    private final Map<TopicPartition, OffsetAndMetadata> acknowledgedOffsets = new HashMap<>();
+    // Records of acknowledged batches whose hashes must be removed from local storage once their offsets are committed (throughput mode only).
+    private final List<ConsumerRecord<String, String>> acknowledgedRecords = new ArrayList<>();
+    private long lastCommit = System.currentTimeMillis();
+
     /**
      * Constructs a FastenKafkaConsumer.
      *
@@ -87,7 +116,39 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
      */
     public FastenKafkaPlugin(boolean enableKafka, Properties consumerProperties, Properties producerProperties,
                              KafkaPlugin plugin, int skipOffsets, String writeDirectory, String writeLink, String outputTopic, boolean consumeTimeoutEnabled, long consumeTimeout, boolean exitOnTimeout, boolean enableLocalStorage, String localStorageDir) {
-        this.plugin = plugin;
+        this(enableKafka, consumerProperties, producerProperties, List.of(plugin), false, 0, skipOffsets, writeDirectory, writeLink, outputTopic, consumeTimeoutEnabled, consumeTimeout, exitOnTimeout, enableLocalStorage, false, localStorageDir);
+    }
+
+    /**
+     * Constructs a FastenKafkaConsumer, possibly in throughput mode.
+     * <p>
+     * In throughput mode, the records of a polled batch are processed in parallel by a pool of workers, each
+     * owning one of the given plugin instances (plugins are stateful, so an instance never processes two records
+     * at the same time). Outputs are sent asynchronously, and the offsets of a batch are committed asynchronously,
+     * at most once every {@code commitInterval} milliseconds, only after all its outputs have been sent: records
+     * are never committed before their outputs, but outputs of records of the same partition may be out of order.
+     * As in the default mode, outputs that could not be sent are logged and not retried.
+     *
+     * @param consumerProperties properties of a consumer
+     * @param plugins            instances of the same Kafka plugin, all set up in the same way; the first one is
+     *                           used to subscribe to topics and, when not in throughput mode, to process records
+     * @param pipelined          enables the throughput mode
+     * @param commitInterval     minimum interval between two commits in throughput mode, in milliseconds
+     * @param skipOffsets        skip offset number
+     * @param indexedLocalStorage if true, local storage uses an {@link IndexedLocalStorage} instead of the directory layout
+     */
+    public FastenKafkaPlugin(boolean enableKafka, Properties consumerProperties, Properties producerProperties,
+                             List<KafkaPlugin> plugins, boolean pipelined, long commitInterval, int skipOffsets, String writeDirectory, String writeLink, String outputTopic, boolean consumeTimeoutEnabled, long consumeTimeout, boolean exitOnTimeout, boolean enableLocalStorage, boolean indexedLocalStorage, String localStorageDir) {
+        this.plugin = plugins.get(0);
+        this.pipelined = pipelined;
+        this.commitInterval = commitInterval;
+        if (pipelined) {
+            this.idlePlugins = new LinkedBlockingQueue<>(plugins);
+            this.workerPool = Executors.newFixedThreadPool(plugins.size());
+        } else {
+            this.idlePlugins = null;
+            this.workerPool = null;
+        }
 
         if (enableKafka) {
             this.connection = new KafkaConsumer<>(consumerProperties);
@@ -112,7 +173,7 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
 
         // If the write link is not null, and local storage is enabled. Initialize it.
         if (enableLocalStorage) {
-            this.localStorage = new LocalStorage(localStorageDir);
+            this.localStorage = indexedLocalStorage ? new IndexedLocalStorage(localStorageDir) : new LocalStorage(localStorageDir);
         } else {
             this.localStorage = null;
         }
@@ -146,11 +207,27 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
                 } else {
                     doCommitSync();
                     handleProducing(null, System.currentTimeMillis() / 1000L);
+                    producer.flush();
                 }
             }
         } catch (Exception e) {
             logger.error("Error occurred while processing call graphs", e);
         } finally {
+            if (pipelined) {
+                try {
+                    flushPipeline();
+                } catch (Exception e) {
+                    logger.error("Error occurred while committing acknowledged offsets", e);
+                }
+                workerPool.shutdownNow();
+            }
+            if (localStorage != null) {
+                try {
+                    localStorage.close();
+                } catch (IOException e) {
+                    logger.error("Failed to close local storage", e);
+                }
+            }
             connection.close();
             logger.info("Plugin {} stopped", plugin.name());
         }
@@ -174,6 +251,11 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
      * Consumes a message from a Kafka topics and passes it to a plugin.
      */
     public void handleConsuming() {
+        if (pipelined) {
+            handlePipelinedConsuming();
+            return;
+        }
+
         ConsumerRecords<String, String> records = connection.poll(Duration.ofSeconds(1));
         Long consumeTimestamp = System.currentTimeMillis() / 1000L;
 
@@ -189,8 +271,9 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
             messagesProcessed.add(new ImmutablePair<>(r.offset(), r.partition()));
         }
 
-        // Commit only after _all_ records are processed.
+        // Commit only after _all_ records are processed and their outputs are acknowledged.
         // For most plugins, this loop will only process 1 record (since max.poll.records is 1).
+        producer.flush();
         doCommitSync();
 
         // More logging.
@@ -228,7 +311,17 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
      * <p>
      * This strategy provides at-least-once semantics.
      */
-    public void processRecord(ConsumerRecord<String, String> record, Long consumeTimestamp) {
+    public Future<RecordMetadata> processRecord(ConsumerRecord<String, String> record, Long consumeTimestamp) {
+        return processRecord(plugin, record, consumeTimestamp);
+    }
+
+    /**
+     * Processes a record with the given plugin instance, following the strategy of
+     * {@link #processRecord(ConsumerRecord, Long)}.
+     *
+     * @return the result of sending the output of the plugin
+     */
+    private Future<RecordMetadata> processRecord(KafkaPlugin plugin, ConsumerRecord<String, String> record, Long consumeTimestamp) {
         if (localStorage != null) { // If local storage is enabled.
             if (localStorage.exists(record.value(), record.partition())) { // This plugin already consumed this record before, we will not process it now.
                 logger.info("Already processed record with hash: " + localStorage.getSHA1(record.value()) + ", skipping it now.");
@@ -243,7 +336,7 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
                     logger.error("Trying to store the hash of a record, but failed due to an IOException", e);
                 } finally { // Event if we hit an IOException, we will execute this finally block.
                     if (consumeTimeoutEnabled) {
-                        consumeWithTimeout(record.value(), consumeTimeout, exitOnTimeout);
+                        consumeWithTimeout(plugin, record.value(), consumeTimeout, exitOnTimeout);
                     } else {
                         plugin.consume(record.value());
                     }
@@ -251,73 +344,247 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
             }
         } else { // If local storage is not enabled.
             if (consumeTimeoutEnabled) {
-                consumeWithTimeout(record.value(), consumeTimeout, exitOnTimeout);
+                consumeWithTimeout(plugin, record.value(), consumeTimeout, exitOnTimeout);
             } else {
                 plugin.consume(record.value());
             }
         }
 
         // We always produce, it does not matter if local storage is enabled or not.
-        handleProducing(record.value(), consumeTimestamp);
+        return handleProducing(plugin, record.value(), consumeTimestamp);
+    }
+
+    /**
+     * Consumes a batch of records in throughput mode.
+     * <p>
+     * The records are processed in parallel by the worker pool and their outputs are sent asynchronously. Once all
+     * outputs of a batch (and of all previous batches) are acknowledged, the offsets of the batch become eligible
+     * for an asynchronous commit.
+     */
+    private void handlePipelinedConsuming() {
+        ConsumerRecords<String, String> records = connection.poll(Duration.ofSeconds(1));
+        Long consumeTimestamp = System.currentTimeMillis() / 1000L;
+
+        if (!records.isEmpty()) {
+            var tasks = new ArrayList<Future<Future<RecordMetadata>>>();
+            for (var r : records) {
+                tasks.add(workerPool.submit(() -> {
+                    var workerPlugin = idlePlugins.take();
+                    try {
+                        logger.info("Read message offset " + r.offset() + " from partition " + r.partition() + ".");
+                        var ack = processRecord(workerPlugin, r, consumeTimestamp);
+                        logger.info("Successfully processed message offset " + r.offset() + " from partition " + r.partition() + ".");
+                        return ack;
+                    } finally {
+                        idlePlugins.put(workerPlugin);
+                    }
+                }));
+            }
+
+            var acks = new ArrayList<Future<RecordMetadata>>();
+            try {
+                for (var task : tasks) {
+                    acks.add(task.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while processing a batch of records", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to process a batch of records", e.getCause());
+            }
+
+            var offsets = new HashMap<TopicPartition, OffsetAndMetadata>();
+            for (var partition : records.partitions()) {
+                var partitionRecords = records.records(partition);
+                offsets.put(partition, new OffsetAndMetadata(partitionRecords.get(partitionRecords.size() - 1).offset() + 1));
+            }
+            var batchRecords = new ArrayList<ConsumerRecord<String, String>>(records.count());
+            records.forEach(batchRecords::add);
+            pendingBatches.add(new PendingBatch(offsets, batchRecords, acks));
+        }
+
+        collectAcknowledgedOffsets();
+        if (!acknowledgedOffsets.isEmpty() && System.currentTimeMillis() - lastCommit >= commitInterval) {
+            commitAcknowledgedOffsets(false);
+        }
+    }
+
+    /**
+     * Moves the offsets of the longest prefix of pending batches whose outputs are all acknowledged to the offsets
+     * to be committed.
+     * <p>
+     * As when outputs are sent synchronously, outputs that could not be sent are logged and their records are
+     * committed anyway: retrying would fail again on permanent errors (e.g. a record too large for the broker).
+     */
+    private void collectAcknowledgedOffsets() {
+        while (!pendingBatches.isEmpty() && pendingBatches.peek().isDone()) {
+            acknowledge(pendingBatches.poll());
+        }
+    }
+
+    /**
+     * Moves the offsets and records of an acknowledged batch to the ones to be committed.
+     */
+    private void acknowledge(PendingBatch batch) {
+        var failures = batch.countFailures();
+        if (failures > 0) {
+            logger.error("Failed to send " + failures + " outputs of the batch with offsets " + batch.offsets
+                    + "; committing it anyway.");
+        }
+        acknowledgedOffsets.putAll(batch.offsets);
+        acknowledgedRecords.addAll(batch.records);
+    }
+
+    /**
+     * Commits the offsets of acknowledged batches and removes the hashes of their records from local storage.
+     * <p>
+     * Only the hashes of the committed records are removed, as records of later batches may still be in flight.
+     *
+     * @param sync whether the commit should be synchronous
+     */
+    private void commitAcknowledgedOffsets(boolean sync) {
+        var offsets = new HashMap<>(acknowledgedOffsets);
+        var committedRecords = new ArrayList<>(acknowledgedRecords);
+        acknowledgedOffsets.clear();
+        acknowledgedRecords.clear();
+        lastCommit = System.currentTimeMillis();
+
+        if (sync) {
+            connection.commitSync(offsets);
+            onCommit(offsets, committedRecords);
+        } else {
+            connection.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    // Offsets of later batches will be committed anyway, so we do not need to retry; the hashes of
+                    // these records will be removed when that happens.
+                    logger.error("Commit failed", e);
+                    acknowledgedRecords.addAll(committedRecords);
+                } else {
+                    onCommit(committed, committedRecords);
+                }
+            });
+        }
+    }
+
+    private void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets, List<ConsumerRecord<String, String>> committedRecords) {
+        logger.info("Committed offsets " + offsets + ".");
+        if (localStorage != null) {
+            for (var record : committedRecords) {
+                localStorage.delete(record.value(), record.partition());
+            }
+        }
+    }
+
+    /**
+     * Waits for all outputs to be acknowledged and synchronously commits the offsets of acknowledged batches.
+     */
+    private void flushPipeline() {
+        producer.flush();
+        while (!pendingBatches.isEmpty() && pendingBatches.peek().isDone()) {
+            acknowledge(pendingBatches.poll());
+        }
+        if (!acknowledgedOffsets.isEmpty()) {
+            commitAcknowledgedOffsets(true);
+        }
+    }
+
+    /**
+     * A batch of processed records whose outputs have been sent.
+     */
+    private static class PendingBatch {
+        private final Map<TopicPartition, OffsetAndMetadata> offsets;
+        private final List<ConsumerRecord<String, String>> records;
+        private final List<Future<RecordMetadata>> acks;
+
+        PendingBatch(Map<TopicPartition, OffsetAndMetadata> offsets, List<ConsumerRecord<String, String>> records, List<Future<RecordMetadata>> acks) {
+            this.offsets = offsets;
+            this.records = records;
+            this.acks = acks;
+        }
+
+        boolean isDone() {
+            return acks.stream().allMatch(Future::isDone);
+        }
+
+        int countFailures() {
+            int failures = 0;
+            for (var ack : acks) {
+                if (ack.isDone()) {
+                    try {
+                        ack.get();
+                    } catch (InterruptedException | ExecutionException e) {
+                        failures++;
+                    }
+                }
+            }
+            return failures;
+        }
     }
 
     /**
      * Writes messages to server log and stdout/stderr topics.
      *
      * @param input input message [can be null]
+     * @return the result of sending the message
      */
-    public void handleProducing(String input, long consumeTimestamp) {
+    public Future<RecordMetadata> handleProducing(String input, long consumeTimestamp) {
+        return handleProducing(plugin, input, consumeTimestamp);
+    }
+
+    private Future<RecordMetadata> handleProducing(KafkaPlugin plugin, String input, long consumeTimestamp) {
         try {
             if (plugin.getPluginError() != null) {
                 throw plugin.getPluginError();
             }
 
-            var result = plugin.produce();
-            String payload = result.orElse(null);
-            if (result.isPresent() && writeDirectory != null && !writeDirectory.equals("")) {
-                payload = writeToFile(payload);
+            String payload;
+            if (writeDirectory != null && !writeDirectory.equals("") && plugin.getOutputPath() != null) {
+                payload = writeToFile(plugin);
+            } else {
+                payload = plugin.produce().orElse(null);
             }
 
-            emitMessage(this.producer, String.format("fasten.%s.out",
+            return emitMessage(this.producer, String.format("fasten.%s.out",
                     outputTopic),
                     getStdOutMsg(input, payload, consumeTimestamp));
 
         } catch (Exception e) {
-            emitMessage(this.producer, String.format("fasten.%s.err",
+            return emitMessage(this.producer, String.format("fasten.%s.err",
                     outputTopic),
                     getStdErrMsg(input, e, consumeTimestamp));
         }
     }
 
     /**
-     * Send message to Kafka topic.
+     * Send message to Kafka topic. The message is sent asynchronously: callers must flush the producer, or wait for
+     * the returned future, before committing the corresponding offsets.
      *
      * @param producer Kafka producer
      * @param topic    topic to send to
      * @param msg      message
+     * @return the result of sending the message
      */
-    private void emitMessage(KafkaProducer<String, String> producer, String topic, String msg) {
+    private Future<RecordMetadata> emitMessage(Producer<String, String> producer, String topic, String msg) {
         ProducerRecord<String, String> record = new ProducerRecord<>(topic, msg);
 
-        producer.send(record, (recordMetadata, e) -> {
-            if (recordMetadata != null) {
+        return producer.send(record, (recordMetadata, e) -> {
+            if (e == null) {
                 logger.debug("Sent: {} to {}", msg, topic);
             } else {
-                e.printStackTrace();
+                logger.error("Failed to send a message to " + topic, e);
             }
         });
-
-        producer.flush();
     }
 
     /**
-     * Writes output or error message to JSON file and return JSON object containing
-     * a link to to written file.
+     * Writes the output of a plugin to a file and return JSON object containing
+     * a link to to written file and its content type. The file is first written
+     * under a temporary name, so that consumers never see a partial file.
      *
-     * @param result message to write
-     * @return Path to a newly written JSON file
+     * @param plugin plugin whose output to write
+     * @return JSON object with the path to the newly written file, or null if the plugin has no output
      */
-    private String writeToFile(String result)
+    private String writeToFile(KafkaPlugin plugin)
             throws IOException, NullPointerException {
         var path = plugin.getOutputPath();
         var pathWithoutFilename = path.substring(0, path.lastIndexOf(File.separator));
@@ -327,14 +594,24 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
             throw new IOException("Failed to create parent directories");
         }
 
-        File file = new File(this.writeDirectory + path);
-        FileWriter fw = new FileWriter(file.getAbsoluteFile());
-        fw.write(result);
-        fw.flush();
-        fw.close();
+        File file = new File(this.writeDirectory + path).getAbsoluteFile();
+        Path temporaryFile = Paths.get(file.getPath() + ".tmp");
+        try {
+            boolean written;
+            try (var out = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+                written = plugin.writeOutput(out);
+            }
+            if (!written) {
+                return null;
+            }
+            Files.move(temporaryFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
 
         JSONObject link = new JSONObject();
         link.put("dir", file.getAbsolutePath());
+        link.put(Constants.contentTypeKey, plugin.getOutputContentType());
 
         if (this.writeLink != null && !this.writeLink.equals("")) {
             link.put("link", this.writeLink + path);
@@ -458,7 +735,7 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
      * @param consumer Kafka consumer
      * @return consumed Kafka record
      */
-    private ConsumerRecords<String, String> dummyPoll(KafkaConsumer<String, String> consumer) {
+    private ConsumerRecords<String, String> dummyPoll(Consumer<String, String> consumer) {
         ConsumerRecords<String, String> statusRecords;
         int i = 0;
         do {
@@ -478,6 +755,10 @@ public class FastenKafkaPlugin implements FastenServerPlugin {
      *                Based on: https://stackoverflow.com/questions/1164301/how-do-i-call-some-blocking-method-with-a-timeout-in-java
      */
     public void consumeWithTimeout(String input, long timeout, boolean exitOnTimeout) {
+        consumeWithTimeout(plugin, input, timeout, exitOnTimeout);
+    }
+
+    private void consumeWithTimeout(KafkaPlugin plugin, String input, long timeout, boolean exitOnTimeout) {
         Runnable consumeTask = () -> plugin.consume(input);
 
         // Submit the consume task to a thread.
@@ -0,0 +1,287 @@
+package eu.fasten.server.plugins.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Local storage backed, for each partition, by an append-only log of hashes and by an in-memory hash set.
+ * <p>
+ * {@link #exists(String, int)} only looks at the in-memory set, and {@link #store(String, int)} and
+ * {@link #delete(String, int)} append a single fixed-size entry to the log of the partition, so they all take
+ * constant time, whereas the directory layout of {@link LocalStorage} lists the whole partition folder at every
+ * check. The log of a partition is replayed the first time the partition is accessed: a torn entry at the end of
+ * the log (e.g., because the pod crashed while writing it) is discarded. Logs are truncated by
+ * {@link #clear(List)} and compacted when they contain too many deleted hashes.
+ * <p>
+ * Hashes stored in the directory layout of {@link LocalStorage} are migrated to the log the first time their
+ * partition is accessed, after which the partition folder is removed.
+ */
+public class IndexedLocalStorage extends LocalStorage {
+
+    private final Logger logger = LoggerFactory.getLogger(IndexedLocalStorage.class.getName());
+
+    // Entries are a '+' (store) or '-' (delete) followed by the hex SHA-1 and a newline.
+    private static final int ENTRY_SIZE = 1 + 40 + 1;
+    private static final Pattern SHA1_PATTERN = Pattern.compile("[0-9a-f]{40}");
+    // Logs are compacted when they contain more than this number of entries per stored hash (and at least MIN_COMPACTION_SIZE entries).
+    private static final int COMPACTION_RATIO = 2;
+    private static final int MIN_COMPACTION_SIZE = 1024;
+
+    private final boolean sync;
+    private final Map<Integer, Partition> partitions = new HashMap<>();
+
+    /**
+     * The hashes of a partition and its log.
+     */
+    private static class Partition {
+        private final Set<String> hashes = new HashSet<>();
+        private FileChannel log;
+        private long entries;
+    }
+
+    /**
+     * Creates an indexed local storage which syncs its logs to disk at every update.
+     *
+     * @param folder the folder to store in. A plugin instance should always have access to this folder (so preferable some sort of NFS mount).
+     */
+    public IndexedLocalStorage(String folder) {
+        this(folder, true);
+    }
+
+    /**
+     * Creates an indexed local storage.
+     *
+     * @param folder the folder to store in. A plugin instance should always have access to this folder (so preferable some sort of NFS mount).
+     * @param sync   if true, every update is synced to disk; otherwise, updates survive a crash of the JVM, but not of the OS.
+     */
+    public IndexedLocalStorage(String folder, boolean sync) {
+        super(folder);
+        this.sync = sync;
+    }
+
+    /**
+     * Creates an indexed local storage for an explicitly given plugin instance.
+     *
+     * @param folder     the folder to store in.
+     * @param instanceId the unique identifier of the plugin instance.
+     * @param sync       if true, every update is synced to disk.
+     */
+    IndexedLocalStorage(String folder, String instanceId, boolean sync) {
+        super(folder, instanceId);
+        this.sync = sync;
+    }
+
+    @Override
+    public synchronized boolean exists(String message, int partition) {
+        return getPartition(partition).hashes.contains(getSHA1(message));
+    }
+
+    @Override
+    public synchronized boolean store(String message, int partition) throws IOException {
+        var p = getPartition(partition);
+        var hash = getSHA1(message);
+        if (p.hashes.contains(hash)) {
+            return false;
+        }
+        append(p, '+', hash);
+        p.hashes.add(hash);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean delete(String message, int partition) {
+        var p = getPartition(partition);
+        var hash = getSHA1(message);
+        if (!p.hashes.contains(hash)) {
+            return false;
+        }
+        try {
+            append(p, '-', hash);
+            p.hashes.remove(hash);
+            if (p.entries >= MIN_COMPACTION_SIZE && p.entries > COMPACTION_RATIO * p.hashes.size()) {
+                compact(partition, p);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to delete hash " + hash + " from partition " + partition, e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void clear(List<Integer> partitions) {
+        for (int partition : partitions) {
+            var p = getPartition(partition);
+            try {
+                p.log.truncate(0);
+                if (sync) {
+                    p.log.force(false);
+                }
+                p.entries = 0;
+                p.hashes.clear();
+            } catch (IOException e) {
+                logger.error("Failed to clear partition " + partition, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of hashes stored for a partition.
+     *
+     * @param partition the partition number.
+     * @return the number of hashes stored for the partition.
+     */
+    public synchronized int size(int partition) {
+        return getPartition(partition).hashes.size();
+    }
+
+    /**
+     * Get the log of a certain partition based on the parent (storage) folder.
+     *
+     * @param partition the partition number.
+     * @return the path of the partition log.
+     */
+    public Path getPartitionLog(int partition) {
+        return storageFolder.toPath().resolve("partition-" + partition + ".log");
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (var p : partitions.values()) {
+            p.log.close();
+        }
+        partitions.clear();
+    }
+
+    /**
+     * Returns a partition, opening its log, replaying it and migrating hashes from the directory layout if needed.
+     */
+    private Partition getPartition(int partition) {
+        var p = partitions.get(partition);
+        if (p != null) {
+            return p;
+        }
+        p = new Partition();
+        try {
+            var logPath = getPartitionLog(partition);
+            long validLength = replay(logPath, p);
+            p.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (p.log.size() != validLength) {
+                logger.warn("Discarding a torn entry at the end of " + logPath);
+                p.log.truncate(validLength);
+            }
+            p.log.position(validLength);
+            migrate(partition, p);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open local storage for partition " + partition, e);
+        }
+        partitions.put(partition, p);
+        return p;
+    }
+
+    /**
+     * Replays a log into a partition.
+     *
+     * @return the length of the valid prefix of the log.
+     */
+    private long replay(Path logPath, Partition p) throws IOException {
+        if (!Files.exists(logPath)) {
+            return 0;
+        }
+        long validLength = 0;
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.US_ASCII)) {
+            char[] entry = new char[ENTRY_SIZE];
+            while (reader.read(entry, 0, ENTRY_SIZE) == ENTRY_SIZE) {
+                var hash = new String(entry, 1, 40);
+                if (entry[ENTRY_SIZE - 1] != '\n' || !SHA1_PATTERN.matcher(hash).matches()) {
+                    break;
+                }
+                if (entry[0] == '+') {
+                    p.hashes.add(hash);
+                } else if (entry[0] == '-') {
+                    p.hashes.remove(hash);
+                } else {
+                    break;
+                }
+                p.entries++;
+                validLength += ENTRY_SIZE;
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * Moves the hashes stored in the directory layout of a partition to its log, and removes the partition folder.
+     */
+    private void migrate(int partition, Partition p) throws IOException {
+        var folder = new File(storageFolder, "partition-" + partition);
+        var files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (var file : files) {
+            if (SHA1_PATTERN.matcher(file.getName()).matches() && !p.hashes.contains(file.getName())) {
+                append(p, '+', file.getName());
+                p.hashes.add(file.getName());
+            }
+        }
+        // Hashes are in the log now, so the old layout can be removed.
+        for (var file : files) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(folder.toPath());
+        logger.info("Migrated " + files.length + " hashes of partition " + partition + " to " + getPartitionLog(partition));
+    }
+
+    private void append(Partition p, char op, String hash) throws IOException {
+        var entry = ByteBuffer.wrap((op + hash + "\n").getBytes(StandardCharsets.US_ASCII));
+        while (entry.hasRemaining()) {
+            p.log.write(entry);
+        }
+        if (sync) {
+            p.log.force(false);
+        }
+        p.entries++;
+    }
+
+    /**
+     * Rewrites the log of a partition so that it contains only stored hashes, atomically replacing the old one.
+     */
+    private void compact(int partition, Partition p) throws IOException {
+        var logPath = getPartitionLog(partition);
+        var tmpPath = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        try (var tmp = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.allocate(ENTRY_SIZE * Math.max(1, p.hashes.size()));
+            for (var hash : p.hashes) {
+                buffer.put(("+" + hash + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                tmp.write(buffer);
+            }
+            tmp.force(false);
+        }
+        p.log.close();
+        Files.move(tmpPath, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        p.log = FileChannel.open(logPath, StandardOpenOption.WRITE);
+        p.log.position(p.log.size());
+        p.entries = p.hashes.size();
+    }
+}
@@ -2,30 +2,39 @@ package eu.fasten.server.plugins.kafka;
 
 import org.apache.commons.codec.digest.DigestUtils;
 
-import static org.apache.commons.codec.digest.MessageDigestAlgorithms.SHA_1;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
-public class LocalStorage {
+public class LocalStorage implements Closeable {
 
     private final String instanceId;
-    private final File storageFolder;
-    private final DigestUtils digestUtils = new DigestUtils(SHA_1);
+    protected final File storageFolder;
 
     /**
      * Helper class to store a SHA-1 hash of a message in local storage of a plugin instance.
      * This can be used to detect if a plugin crashed while working on a certain input, and appropriate action can be taken.
+     * Instances are thread-safe, as they are shared by the workers of the throughput mode.
      *
      * The folder name will be suffixed by the $POD_INSTANCE_ID env. variable. Ensure this is unique per plugin instance.
      * @param folder the folder to store in. A plugin instance should always have access to this folder (so preferable some sort of NFS mount).
      */
     public LocalStorage(String folder) {
-        if (System.getenv("POD_INSTANCE_ID") != null) {
-            instanceId = System.getenv("POD_INSTANCE_ID");
-        } else {
+        this(folder, System.getenv("POD_INSTANCE_ID"));
+    }
+
+    /**
+     * Creates a local storage for an explicitly given plugin instance.
+     *
+     * @param folder the folder to store in.
+     * @param instanceId the unique identifier of the plugin instance.
+     */
+    LocalStorage(String folder, String instanceId) {
+        if (instanceId == null) {
             throw new IllegalArgumentException("Trying to initialize local storage but $POD_INSTANCE_ID is not in the environemnt variables.");
         }
+        this.instanceId = instanceId;
 
         storageFolder = new File(folder + File.separator + instanceId + File.separator);
 
@@ -42,7 +51,7 @@ public class LocalStorage {
      * @param partition the partition this message belongs to.
      * @return true if local storage, otherwise false.
      */
-    public boolean exists(String message, int partition) {
+    public synchronized boolean exists(String message, int partition) {
         String hashedMessage = getSHA1(message);
         String[] filesInFolder = getPartitionFolder(partition).list();
 
@@ -61,7 +70,7 @@ public class LocalStorage {
      * @param partition the partition this message belongs to.
      * @return true if sucessfully deleted, otherwise false (for instance, when it doesn't exist).
      */
-    public boolean delete(String message, int partition) {
+    public synchronized boolean delete(String message, int partition) {
         if (!exists(message, partition)) {
             return false;
         }
@@ -92,7 +101,7 @@ public class LocalStorage {
      * @return if successfully stored.
      * @throws IOException when file can't be created.
      */
-    public boolean store(String message, int partition) throws IOException {
+    public synchronized boolean store(String message, int partition) throws IOException {
         if (exists(message, partition)) {
             return false;
         }
@@ -107,7 +116,7 @@ public class LocalStorage {
      * Remove all hashes/files from local storage.
      * @param partitions the partitions folders to remove from.
      */
-    public void clear(List<Integer> partitions) {
+    public synchronized void clear(List<Integer> partitions) {
         for (int partition : partitions) {
             for (String hash : getPartitionFolder(partition).list()) {
                 deleteByHash(hash, partition);
@@ -131,13 +140,22 @@ public class LocalStorage {
     }
 
     /**
-     * Hashes a message using SHA1.
+     * Hashes a message using SHA1. A new digest is used at each call, so this method is thread-safe.
      *
      * @param message the message to hash.
      * @return the hashed message.
      */
     public String getSHA1(String message) {
-        return digestUtils.digestAsHex(message);
+        return DigestUtils.sha1Hex(message);
+    }
+
+    /**
+     * Releases the resources held by local storage. Nothing to release for the directory layout.
+     *
+     * @throws IOException if resources can't be released.
+     */
+    @Override
+    public void close() throws IOException {
     }
 
 
@@ -0,0 +1,132 @@
+package eu.fasten.server.plugins.kafka;
+
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static eu.fasten.server.plugins.kafka.LocalStorageTest.setEnv;
+
+public class IndexedLocalStorageTest {
+
+    private static final String FOLDER = new File("src/test/resources/indexed").getAbsolutePath();
+
+    private IndexedLocalStorage localStorage;
+
+    @BeforeEach
+    public void setupStorage() {
+        setEnv("POD_INSTANCE_ID", "test_pod");
+        localStorage = new IndexedLocalStorage(FOLDER, false);
+    }
+
+    @AfterEach
+    public void clearStorage() throws IOException {
+        localStorage.close();
+        deleteRecursively(new File(FOLDER));
+    }
+
+    private static void deleteRecursively(File file) {
+        var children = file.listFiles();
+        if (children != null) {
+            for (var child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void testStoreExistsDelete() throws IOException {
+        Assertions.assertTrue(localStorage.store("A very nice message!", 1));
+        Assertions.assertFalse(localStorage.store("A very nice message!", 1));
+        Assertions.assertTrue(localStorage.store("A very nice message!", 2));
+        Assertions.assertTrue(localStorage.exists("A very nice message!", 1));
+        Assertions.assertFalse(localStorage.exists("Doesn't exist", 1));
+        Assertions.assertTrue(localStorage.delete("A very nice message!", 1));
+        Assertions.assertFalse(localStorage.delete("A very nice message!", 1));
+        Assertions.assertFalse(localStorage.exists("A very nice message!", 1));
+        Assertions.assertTrue(localStorage.exists("A very nice message!", 2));
+    }
+
+    @Test
+    public void testClearPartitions() throws IOException {
+        for (int partition = 1; partition <= 4; partition++) {
+            Assertions.assertTrue(localStorage.store("A very nice message!", partition));
+        }
+
+        localStorage.clear(List.of(1, 2, 3));
+
+        Assertions.assertFalse(localStorage.exists("A very nice message!", 1));
+        Assertions.assertFalse(localStorage.exists("A very nice message!", 2));
+        Assertions.assertFalse(localStorage.exists("A very nice message!", 3));
+        Assertions.assertTrue(localStorage.exists("A very nice message!", 4));
+        Assertions.assertEquals(0, Files.size(localStorage.getPartitionLog(1)));
+    }
+
+    @Test
+    public void testRecovery() throws IOException {
+        localStorage.store("Number 1", 1);
+        localStorage.store("Number 2", 1);
+        localStorage.store("Number 3", 1);
+        localStorage.delete("Number 2", 1);
+        localStorage.close();
+
+        // Simulate a crash while writing an entry.
+        Files.write(localStorage.getPartitionLog(1), "+0123".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+
+        localStorage = new IndexedLocalStorage(FOLDER, false);
+        Assertions.assertTrue(localStorage.exists("Number 1", 1));
+        Assertions.assertFalse(localStorage.exists("Number 2", 1));
+        Assertions.assertTrue(localStorage.exists("Number 3", 1));
+        Assertions.assertEquals(2, localStorage.size(1));
+
+        // The torn entry has been discarded, so new entries are readable.
+        localStorage.store("Number 4", 1);
+        localStorage.close();
+        localStorage = new IndexedLocalStorage(FOLDER, false);
+        Assertions.assertTrue(localStorage.exists("Number 4", 1));
+        Assertions.assertEquals(3, localStorage.size(1));
+    }
+
+    @Test
+    public void testMigration() throws IOException {
+        var legacyStorage = new LocalStorage(FOLDER);
+        legacyStorage.store("Number 1", 1);
+        legacyStorage.store("Number 2", 1);
+        legacyStorage.store("Number 3", 2);
+        var legacyFolder = legacyStorage.getPartitionFolder(1);
+
+        Assertions.assertTrue(localStorage.exists("Number 1", 1));
+        Assertions.assertTrue(localStorage.exists("Number 2", 1));
+        Assertions.assertFalse(localStorage.exists("Number 3", 1));
+        Assertions.assertTrue(localStorage.exists("Number 3", 2));
+        Assertions.assertFalse(legacyFolder.exists());
+
+        localStorage.close();
+        localStorage = new IndexedLocalStorage(FOLDER, false);
+        Assertions.assertTrue(localStorage.exists("Number 1", 1));
+        Assertions.assertEquals(2, localStorage.size(1));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        for (int i = 0; i < 2000; i++) {
+            localStorage.store("Message " + i, 1);
+        }
+        for (int i = 0; i < 1990; i++) {
+            localStorage.delete("Message " + i, 1);
+        }
+        Assertions.assertTrue(Files.size(localStorage.getPartitionLog(1)) < 2000 * 42);
+        localStorage.close();
+
+        localStorage = new IndexedLocalStorage(FOLDER, false);
+        Assertions.assertEquals(10, localStorage.size(1));
+        for (int i = 1990; i < 2000; i++) {
+            Assertions.assertTrue(localStorage.exists("Message " + i, 1));
+        }
+    }
+}
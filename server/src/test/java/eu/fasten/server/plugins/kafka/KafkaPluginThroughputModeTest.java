@@ -0,0 +1,245 @@
+package eu.fasten.server.plugins.kafka;
+
+import eu.fasten.core.plugins.KafkaPlugin;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KafkaPluginThroughputModeTest {
+
+    private static final String TOPIC = "fasten.test.in";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private MockConsumer<String, String> consumer;
+    private MockProducer<String, String> producer;
+    private Set<String> consumed;
+
+    @BeforeEach
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(PARTITION));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        producer = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+        consumed = ConcurrentHashMap.newKeySet();
+    }
+
+    private FastenKafkaPlugin createPlugin(int workers) throws IllegalAccessException {
+        var plugins = new ArrayList<KafkaPlugin>();
+        for (int i = 0; i < workers; i++) {
+            plugins.add(new EchoPlugin(consumed));
+        }
+        FastenKafkaPlugin kafkaPlugin = new FastenKafkaPlugin(false, new Properties(), new Properties(), plugins, true, 0, 0, null, null, "test", false, 0, false, false, false, "");
+        FieldUtils.writeField(kafkaPlugin, "connection", consumer, true);
+        FieldUtils.writeField(kafkaPlugin, "producer", producer, true);
+        return kafkaPlugin;
+    }
+
+    private void addRecords(int from, int to) {
+        for (int i = from; i < to; i++) {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, null, "{\"id\": " + i + "}"));
+        }
+    }
+
+    @Test
+    public void testCommitOnlyAfterAcknowledgement() throws IllegalAccessException {
+        FastenKafkaPlugin kafkaPlugin = createPlugin(4);
+        addRecords(0, 10);
+
+        kafkaPlugin.handleConsuming();
+
+        assertEquals(10, consumed.size());
+        assertEquals(10, producer.history().size());
+        assertNull(consumer.committed(PARTITION));
+
+        // Acknowledge only part of the batch: nothing can be committed.
+        for (int i = 0; i < 5; i++) {
+            producer.completeNext();
+        }
+        kafkaPlugin.handleConsuming();
+        assertNull(consumer.committed(PARTITION));
+
+        while (producer.completeNext()) ;
+        kafkaPlugin.handleConsuming();
+        assertEquals(10, consumer.committed(PARTITION).offset());
+    }
+
+    @Test
+    public void testBatchesAreCommittedInOrder() throws IllegalAccessException {
+        FastenKafkaPlugin kafkaPlugin = createPlugin(2);
+        addRecords(0, 3);
+        kafkaPlugin.handleConsuming();
+        addRecords(3, 6);
+        kafkaPlugin.handleConsuming();
+        assertEquals(6, producer.history().size());
+
+        // Acknowledge the first batch only.
+        for (int i = 0; i < 3; i++) {
+            producer.completeNext();
+        }
+        kafkaPlugin.handleConsuming();
+        assertEquals(3, consumer.committed(PARTITION).offset());
+
+        while (producer.completeNext()) ;
+        kafkaPlugin.handleConsuming();
+        assertEquals(6, consumer.committed(PARTITION).offset());
+    }
+
+    @Test
+    public void testFailedSendDoesNotStopConsuming() throws IllegalAccessException {
+        FastenKafkaPlugin kafkaPlugin = createPlugin(2);
+        addRecords(0, 2);
+        kafkaPlugin.handleConsuming();
+
+        producer.completeNext();
+        producer.errorNext(new RecordTooLargeException("Output too large"));
+
+        // The failure is logged and the batch committed, so that it is not consumed (and failed) again.
+        kafkaPlugin.handleConsuming();
+        assertEquals(2, consumer.committed(PARTITION).offset());
+
+        addRecords(2, 4);
+        kafkaPlugin.handleConsuming();
+        assertEquals(4, consumed.size());
+        while (producer.completeNext()) ;
+        kafkaPlugin.handleConsuming();
+        assertEquals(4, consumer.committed(PARTITION).offset());
+    }
+
+    @Test
+    public void testPluginErrorsAreSentToErrorTopic() throws IllegalAccessException {
+        FastenKafkaPlugin kafkaPlugin = createPlugin(2);
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, null, "{\"fail\": true}"));
+        addRecords(1, 2);
+        kafkaPlugin.handleConsuming();
+
+        var topics = new HashSet<String>();
+        producer.history().forEach(r -> topics.add(r.topic()));
+        assertEquals(Set.of("fasten.test.out", "fasten.test.err"), topics);
+    }
+
+    @Test
+    public void testCommitRemovesOnlyCommittedHashes(@TempDir Path tempDir) throws IllegalAccessException {
+        FastenKafkaPlugin kafkaPlugin = createPlugin(4);
+        var localStorage = new LocalStorage(tempDir.toString(), "test_pod");
+        FieldUtils.writeField(kafkaPlugin, "localStorage", localStorage, true);
+        addRecords(0, 8);
+        kafkaPlugin.handleConsuming();
+        addRecords(8, 16);
+        kafkaPlugin.handleConsuming();
+        for (int i = 0; i < 16; i++) {
+            assertTrue(localStorage.exists("{\"id\": " + i + "}", 0));
+        }
+
+        // Commit the first batch only: the hashes of the second one must survive.
+        for (int i = 0; i < 8; i++) {
+            producer.completeNext();
+        }
+        kafkaPlugin.handleConsuming();
+        assertEquals(8, consumer.committed(PARTITION).offset());
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i >= 8, localStorage.exists("{\"id\": " + i + "}", 0));
+        }
+
+        while (producer.completeNext()) ;
+        kafkaPlugin.handleConsuming();
+        assertEquals(16, consumer.committed(PARTITION).offset());
+        for (int i = 0; i < 16; i++) {
+            assertFalse(localStorage.exists("{\"id\": " + i + "}", 0));
+        }
+    }
+
+    /**
+     * A plugin echoing its input, failing on inputs containing a "fail" key.
+     */
+    static class EchoPlugin implements KafkaPlugin {
+
+        private final Set<String> consumed;
+        private String record;
+        private Exception pluginError;
+
+        EchoPlugin(Set<String> consumed) {
+            this.consumed = consumed;
+        }
+
+        @Override
+        public Optional<List<String>> consumeTopic() {
+            return Optional.of(List.of(TOPIC));
+        }
+
+        @Override
+        public void setTopic(String topicName) {
+        }
+
+        @Override
+        public void consume(String record) {
+            this.pluginError = null;
+            this.record = record;
+            if (record.contains("fail")) {
+                this.pluginError = new IllegalArgumentException("Invalid record");
+            }
+            consumed.add(record);
+        }
+
+        @Override
+        public Optional<String> produce() {
+            return Optional.ofNullable(record);
+        }
+
+        @Override
+        public String getOutputPath() {
+            return null;
+        }
+
+        @Override
+        public String name() {
+            return "Echo";
+        }
+
+        @Override
+        public String description() {
+            return "Echoes its input";
+        }
+
+        @Override
+        public String version() {
+            return "0.0.1";
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public Exception getPluginError() {
+            return pluginError;
+        }
+
+        @Override
+        public void setPluginError(Exception throwable) {
+            this.pluginError = throwable;
+        }
+
+        @Override
+        public void freeResource() {
+        }
+    }
+}